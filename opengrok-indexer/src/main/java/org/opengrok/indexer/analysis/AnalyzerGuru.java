@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2005, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2021, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.analysis;
@@ -54,7 +54,9 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.util.BytesRef;
@@ -589,8 +591,26 @@ public class AnalyzerGuru {
      */
     public void populateDocument(Document doc, File file, String path, AbstractAnalyzer fa, Writer xrefOut)
             throws IOException, InterruptedException {
+        populateDocument(doc, file, path, fa, xrefOut, null);
+    }
+
+    /**
+     * Populate a Lucene document with the required fields.
+     *
+     * @param doc The document to populate
+     * @param file The file to index
+     * @param path Where the file is located (from source root)
+     * @param fa The analyzer to use on the file
+     * @param xrefOut Where to write the xref (possibly {@code null})
+     * @param digest digest of the file contents if already known, otherwise {@code null}
+     * @throws IOException If an exception occurs while collecting the data
+     * @throws InterruptedException if a timeout occurs
+     */
+    public void populateDocument(Document doc, File file, String path, AbstractAnalyzer fa, Writer xrefOut,
+                                 @Nullable byte[] digest) throws IOException, InterruptedException {
 
-        String date = DateTools.timeToString(file.lastModified(),
+        long lastModified = file.lastModified();
+        String date = DateTools.timeToString(lastModified,
                 DateTools.Resolution.MILLISECOND);
         path = Util.fixPathIfWindows(path);
         doc.add(new Field(QueryBuilder.U, Util.path2uid(path, date),
@@ -606,6 +626,13 @@ public class AnalyzerGuru {
         doc.add(new Field(QueryBuilder.DATE, date, string_ft_stored_nanalyzed_norms));
         doc.add(new SortedDocValuesField(QueryBuilder.DATE, new BytesRef(date)));
 
+        /*
+         * The digest allows to detect files whose last modified time changed without change of the contents.
+         * For these, the indexer merely updates the last modified time value instead of reindexing the file.
+         */
+        doc.add(new StoredField(QueryBuilder.DIGEST, digest != null ? digest : IOUtils.getFileDigest(file)));
+        doc.add(new NumericDocValuesField(QueryBuilder.LASTMOD, lastModified));
+
         // 'path' is not null, as it was passed to Util.path2uid() above.
         doc.add(new TextField(QueryBuilder.PATH, path, Store.YES));
         Project project = Project.getProject(path);
@@ -0,0 +1,144 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.analysis;
+
+import java.io.IOException;
+import java.io.ObjectStreamConstants;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.DataOutput;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Helper for the compact binary representation of {@link Definitions} and {@link Scopes}
+ * stored in the index.
+ * <p>
+ * The data starts with a magic byte followed by a format version byte and a string table
+ * (each distinct string is stored once, as variable length integer followed by the UTF-8 bytes).
+ * The strings are then referred to by index (zero stands for {@code null}, index {@code i}
+ * refers to the {@code i-1}th string in the table). The integers are written as variable length
+ * integers so that the typical small line numbers and offsets take a single byte.
+ * </p>
+ * <p>
+ * The data written by Java serialization in previous versions starts with different magic bytes,
+ * so it can be recognized and read with {@link java.io.ObjectInputStream}.
+ * </p>
+ */
+final class CompactFormat {
+
+    static final byte MAGIC = (byte) 0x4F;
+
+    /**
+     * Maps strings to their indexes in the string table in the order of appearance.
+     */
+    static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        /**
+         * @param str string, possibly {@code null}
+         * @return index to be written for the string
+         */
+        int add(@Nullable String str) {
+            if (str == null) {
+                return 0;
+            }
+            return indexes.computeIfAbsent(str, s -> {
+                strings.add(s);
+                return strings.size();
+            });
+        }
+
+        /**
+         * @param str string already added to the table
+         * @return index of the string
+         */
+        int indexOf(@Nullable String str) {
+            return str == null ? 0 : indexes.get(str);
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeVInt(strings.size());
+            for (String str : strings) {
+                out.writeString(str);
+            }
+        }
+    }
+
+    private CompactFormat() {
+        // private to enforce static
+    }
+
+    /**
+     * @param bytes serialized data
+     * @return whether the data was produced by Java serialization
+     */
+    static boolean isJavaSerialized(byte[] bytes) {
+        return bytes.length >= 2 &&
+                bytes[0] == (byte) (ObjectStreamConstants.STREAM_MAGIC >>> 8) &&
+                bytes[1] == (byte) ObjectStreamConstants.STREAM_MAGIC;
+    }
+
+    /**
+     * @param out output
+     * @param version format version
+     * @throws IOException on error
+     */
+    static void writeHeader(DataOutput out, byte version) throws IOException {
+        out.writeByte(MAGIC);
+        out.writeByte(version);
+    }
+
+    /**
+     * @param in input
+     * @param version expected format version
+     * @param what description of the data for the exception message
+     * @throws IOException if the header does not match
+     */
+    static void readHeader(ByteArrayDataInput in, byte version, String what) throws IOException {
+        byte magic = in.readByte();
+        byte actualVersion = in.readByte();
+        if (magic != MAGIC || actualVersion != version) {
+            throw new IOException(String.format("unsupported %s format (magic 0x%x, version %d)",
+                    what, magic, actualVersion));
+        }
+    }
+
+    /**
+     * @param in input
+     * @return string table, with {@code null} at index 0
+     * @throws IOException on error
+     */
+    static String[] readStringTable(ByteArrayDataInput in) throws IOException {
+        int count = in.readVInt();
+        String[] strings = new String[count + 1];
+        for (int i = 1; i <= count; i++) {
+            strings[i] = in.readString();
+        }
+        return strings;
+    }
+}
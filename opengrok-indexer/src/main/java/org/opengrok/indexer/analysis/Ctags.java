@@ -32,6 +32,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -56,6 +57,7 @@ import org.opengrok.indexer.util.CtagsUtil;
 import org.opengrok.indexer.util.Executor;
 import org.opengrok.indexer.util.IOUtils;
 import org.opengrok.indexer.util.SourceSplitter;
+import org.opengrok.indexer.util.Statistics;
 
 /**
  * Provides Ctags by having a running subprocess of ctags.
@@ -77,6 +79,7 @@ public class Ctags implements Resettable {
     private String cTagsExtraOptionsFile = null;
     private int tabSize;
     private Duration timeout = Duration.ofSeconds(10);
+    private CtagsCache cache;
 
     private final Set<String> ctagsLanguages = new HashSet<>();
 
@@ -102,6 +105,8 @@ public class Ctags implements Resettable {
 
     public void setLangMap(LangMap langMap) {
         this.langMap = langMap;
+        command = null;
+        cache = null;
     }
 
     public int getTabSize() {
@@ -114,6 +119,8 @@ public class Ctags implements Resettable {
 
     public void setCTagsExtraOptionsFile(String ctagsExtraOptionsFile) {
         this.cTagsExtraOptionsFile = ctagsExtraOptionsFile;
+        command = null;
+        cache = null;
     }
 
     public void setTimeout(long timeout) {
@@ -163,8 +170,17 @@ public class Ctags implements Resettable {
      * @return a defined (immutable) list
      */
     public List<String> getArgv() {
-        initialize();
-        return Collections.unmodifiableList(command);
+        return Collections.unmodifiableList(getCommand());
+    }
+
+    /**
+     * @return the command line, built on first use after creation or change of the settings
+     */
+    private List<String> getCommand() {
+        if (command == null) {
+            initialize();
+        }
+        return command;
     }
 
     private void initialize() {
@@ -231,10 +247,11 @@ public class Ctags implements Resettable {
     }
 
     private void run() throws IOException {
-        String commandStr = Executor.escapeForShell(command, false, SystemUtils.IS_OS_WINDOWS);
+        List<String> argv = getCommand();
+        String commandStr = Executor.escapeForShell(argv, false, SystemUtils.IS_OS_WINDOWS);
         LOGGER.log(Level.FINE, "Executing ctags command [{0}]", commandStr);
 
-        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        ProcessBuilder processBuilder = new ProcessBuilder(argv);
 
         ctagsProcess = processBuilder.start();
         ctagsIn = new OutputStreamWriter(ctagsProcess.getOutputStream(), StandardCharsets.UTF_8);
@@ -453,6 +470,76 @@ public class Ctags implements Resettable {
         command.add("--regex-scala=/^[[:space:]]*package[[:space:]]+([a-zA-Z0-9_.]+)/\\1/p/");
     }
 
+    /**
+     * Get the definitions for a file, either from the ctags cache (if enabled) or by running {@code ctags}
+     * and storing the result in the cache.
+     * @param file file path to process
+     * @param contentDigest digest of the file contents as produced by {@link IOUtils#getFileDigest(File)}
+     *                      or {@code null} to bypass the cache
+     * @return valid instance of {@link Definitions} or {@code null} on error
+     * @throws IOException I/O exception
+     * @throws InterruptedException interrupted command
+     * @see #doCtags(String)
+     */
+    @Nullable
+    public Definitions doCtags(String file, @Nullable byte[] contentDigest) throws IOException, InterruptedException {
+        CtagsCache ctagsCache = contentDigest != null ? getCache() : null;
+        if (ctagsCache == null) {
+            return doCtags(file);
+        }
+
+        String fileName = new File(file).getName();
+        Definitions defs = ctagsCache.get(fileName, contentDigest, tabSize);
+        if (defs != null) {
+            LOGGER.log(Level.FINEST, "using cached ctags definitions for ''{0}''", file);
+            return defs;
+        }
+
+        defs = doCtags(file);
+        if (defs != null) {
+            ctagsCache.put(fileName, contentDigest, tabSize, defs);
+        }
+        return defs;
+    }
+
+    @Nullable
+    private CtagsCache getCache() {
+        if (!env.isCtagsCacheEnabled()) {
+            return null;
+        }
+        if (cache == null) {
+            // Use the same command as the ctags process so that the entries match its output.
+            cache = new CtagsCache(getCacheDirectory(env), getCommand(),
+                    CtagsUtil.getCtagsVersion(env.getCtags()), cTagsExtraOptionsFile);
+        }
+        return cache;
+    }
+
+    private static Path getCacheDirectory(RuntimeEnvironment env) {
+        return Path.of(env.getDataRootPath(), CtagsCache.CTAGS_CACHE_DIR);
+    }
+
+    /**
+     * Remove the least recently used entries of the on-disk cache of the definitions
+     * so that its size does not exceed {@link RuntimeEnvironment#getCtagsCacheMaxSize()}.
+     * Meant to be called at the end of indexing if the cache is enabled.
+     */
+    public static void cleanupCache() {
+        RuntimeEnvironment env = RuntimeEnvironment.getInstance();
+        if (env.getDataRootPath() == null) {
+            return;
+        }
+        Path directory = getCacheDirectory(env);
+        try {
+            Statistics stat = new Statistics();
+            int removed = CtagsCache.cleanup(directory, env.getCtagsCacheMaxSize() * 1024L * 1024L);
+            stat.report(LOGGER, Level.FINE, String.format("removed %d entries from ctags cache '%s'",
+                    removed, directory));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("cannot clean up ctags cache '%s'", directory), e);
+        }
+    }
+
     /**
      * Run {@code ctags} program on a file.
      * @param file file path to process
@@ -480,7 +567,6 @@ public class Ctags implements Resettable {
                 // The ctags process is still running.
             }
         } else {
-            initialize();
             run();
         }
 
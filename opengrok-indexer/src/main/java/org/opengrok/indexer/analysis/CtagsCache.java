@@ -0,0 +1,255 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.jetbrains.annotations.Nullable;
+import org.opengrok.indexer.logger.LoggerFactory;
+import org.opengrok.indexer.util.IOUtils;
+
+/**
+ * Represents on-disk cache of the {@link Definitions} produced by ctags.
+ * <p>
+ * The entries are keyed by the digest of the file contents together with the file name
+ * (ctags selects the language based on it), the tab size and the digest of the ctags configuration,
+ * i.e. the ctags version, the command line arguments and the contents of the extra options file.
+ * Hence, the entries never become stale and can be shared by files with the same contents,
+ * e.g. renamed or copied files, or files reindexed after analyzer version change.
+ * </p>
+ * <p>
+ * The last modified time of the entries is updated on each hit so that {@link #cleanup(Path, long)}
+ * can remove the least recently used entries when the cache grows over the size limit.
+ * </p>
+ */
+final class CtagsCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CtagsCache.class);
+
+    /**
+     * Name of the cache directory under data root.
+     */
+    static final String CTAGS_CACHE_DIR = "ctags";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final byte[] configDigest;
+
+    /**
+     * @param directory cache directory
+     * @param argv ctags command line arguments
+     * @param ctagsVersion ctags version string
+     * @param extraOptionsFile path to the file with extra ctags options or {@code null}
+     */
+    CtagsCache(Path directory, List<String> argv, @Nullable String ctagsVersion, @Nullable String extraOptionsFile) {
+        this.directory = directory;
+
+        MessageDigest hasher = getHasher();
+        hasher.update(String.valueOf(ctagsVersion).getBytes(StandardCharsets.UTF_8));
+        for (String arg : argv) {
+            hasher.update((byte) 0);
+            hasher.update(arg.getBytes(StandardCharsets.UTF_8));
+        }
+        if (extraOptionsFile != null) {
+            hasher.update((byte) 0);
+            try {
+                hasher.update(IOUtils.getFileDigest(new File(extraOptionsFile)));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, String.format("cannot read ctags options file '%s'", extraOptionsFile), e);
+            }
+        }
+        this.configDigest = hasher.digest();
+    }
+
+    @SuppressWarnings("java:S112")
+    private static MessageDigest getHasher() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            /*
+             * This will not happen since "Every implementation of the Java
+             * platform is required to support the following standard
+             * MessageDigest algorithms: MD5, SHA-1, SHA-256."
+             */
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Path getEntryPath(String fileName, byte[] contentDigest, int tabSize) {
+        MessageDigest hasher = getHasher();
+        hasher.update(configDigest);
+        hasher.update(contentDigest);
+        hasher.update(ByteBuffer.allocate(Integer.BYTES).putInt(tabSize).array());
+        hasher.update(fileName.getBytes(StandardCharsets.UTF_8));
+        String key = HexFormat.of().formatHex(hasher.digest());
+        // Spread the entries into subdirectories to avoid huge directories.
+        return directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    /**
+     * @param fileName file name
+     * @param contentDigest digest of the file contents
+     * @param tabSize tab size used for the file
+     * @return cached definitions or {@code null} if there are none
+     */
+    @Nullable
+    Definitions get(String fileName, byte[] contentDigest, int tabSize) {
+        Path path = getEntryPath(fileName, contentDigest, tabSize);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(path);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, String.format("cannot read ctags cache entry '%s'", path), e);
+            return null;
+        }
+
+        try {
+            Definitions defs = Definitions.deserialize(bytes);
+            touch(path);
+            return defs;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            LOGGER.log(Level.WARNING, String.format("removing invalid ctags cache entry '%s'", path), e);
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINE, String.format("cannot remove ctags cache entry '%s'", path), ex);
+            }
+            return null;
+        }
+    }
+
+    private static void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.log(Level.FINEST, String.format("cannot update time of ctags cache entry '%s'", path), e);
+        }
+    }
+
+    /**
+     * Store the definitions in the cache. Failures are only logged.
+     * @param fileName file name
+     * @param contentDigest digest of the file contents
+     * @param tabSize tab size used for the file
+     * @param defs definitions produced by ctags
+     */
+    void put(String fileName, byte[] contentDigest, int tabSize, Definitions defs) {
+        Path path = getEntryPath(fileName, contentDigest, tabSize);
+        Path tmpPath = null;
+        try {
+            Files.createDirectories(path.getParent());
+            // Write to a temporary file first so that readers never see partial entry.
+            tmpPath = Files.createTempFile(path.getParent(), path.getFileName().toString(), TEMP_SUFFIX);
+            Files.write(tmpPath, defs.serialize());
+            Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("cannot store ctags cache entry '%s'", path), e);
+            if (tmpPath != null) {
+                try {
+                    Files.deleteIfExists(tmpPath);
+                } catch (IOException ex) {
+                    LOGGER.log(Level.FINE, String.format("cannot remove temporary file '%s'", tmpPath), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the least recently used entries so that the total size of the cache does not exceed the limit.
+     * Also removes temporary files left behind by interrupted writes.
+     * @param directory cache directory
+     * @param maxSize maximum size of the cache in bytes
+     * @return number of removed entries
+     * @throws IOException if the cache directory cannot be traversed
+     */
+    static int cleanup(Path directory, long maxSize) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+
+        record Entry(Path path, long size, long lastModified) {
+        }
+        List<Entry> entries = new ArrayList<>();
+        long totalSize = 0;
+        int removed = 0;
+        try (Stream<Path> stream = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) stream.filter(Files::isRegularFile)::iterator) {
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                // Temporary files older than a day were left behind by interrupted writes.
+                if (path.getFileName().toString().endsWith(TEMP_SUFFIX) &&
+                        attrs.lastModifiedTime().toMillis() < System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1)) {
+                    Files.deleteIfExists(path);
+                    continue;
+                }
+                entries.add(new Entry(path, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                totalSize += attrs.size();
+            }
+        }
+
+        if (totalSize <= maxSize) {
+            return removed;
+        }
+
+        entries.sort(Comparator.comparingLong(Entry::lastModified));
+        for (Entry entry : entries) {
+            if (totalSize <= maxSize) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(entry.path());
+                totalSize -= entry.size();
+                removed++;
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, String.format("cannot remove ctags cache entry '%s'", entry.path()), e);
+            }
+        }
+        return removed;
+    }
+}
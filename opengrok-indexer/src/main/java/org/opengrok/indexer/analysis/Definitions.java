@@ -18,21 +18,21 @@
  */
 
 /*
- * Copyright (c) 2008, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2018, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.analysis;
 
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteBuffersDataOutput;
 import org.jetbrains.annotations.Nullable;
 import org.opengrok.indexer.util.DTOElement;
 import org.opengrok.indexer.util.WhitelistObjectInputFilter;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputFilter;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -48,6 +48,8 @@ public class Definitions implements Serializable {
 
     private static final long serialVersionUID = 1191703801007779489L;
 
+    private static final byte FORMAT_VERSION = 1;
+
     private static final ObjectInputFilter serialFilter = new WhitelistObjectInputFilter(
             Definitions.class,
             HashMap.class,
@@ -341,14 +343,39 @@ public class Definitions implements Serializable {
      * @throws IOException if an error happens when writing to the array
      */
     public byte[] serialize() throws IOException {
-        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream(); var oos = new ObjectOutputStream(bytes)) {
-            oos.writeObject(this);
-            return bytes.toByteArray();
+        CompactFormat.StringTable strings = new CompactFormat.StringTable();
+        for (Tag tag : tags) {
+            strings.add(tag.symbol);
+            strings.add(tag.type);
+            strings.add(tag.text);
+            strings.add(tag.namespace);
+            strings.add(tag.signature);
+        }
+
+        ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+        CompactFormat.writeHeader(out, FORMAT_VERSION);
+        strings.write(out);
+        out.writeVInt(tags.size());
+        int prevLine = 0;
+        for (Tag tag : tags) {
+            // The tags are not necessarily sorted by line number.
+            out.writeZInt(tag.line - prevLine);
+            prevLine = tag.line;
+            out.writeVInt(strings.indexOf(tag.symbol));
+            out.writeVInt(strings.indexOf(tag.type));
+            out.writeVInt(strings.indexOf(tag.text));
+            out.writeVInt(strings.indexOf(tag.namespace));
+            out.writeVInt(strings.indexOf(tag.signature));
+            out.writeZInt(tag.lineStart);
+            out.writeZInt(tag.lineEnd);
         }
+        return out.toArrayCopy();
     }
 
     /**
      * De-serialize a binary representation of a {@code Definitions} object.
+     * Both the compact representation produced by {@link #serialize()} and
+     * the Java serialization used by previous versions are recognized.
      *
      * @param bytes a byte array containing the {@code Definitions} object
      * @return a {@code Definitions} object
@@ -359,9 +386,34 @@ public class Definitions implements Serializable {
      * type than {@code Definitions}
      */
     public static Definitions deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
-        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
-            in.setObjectInputFilter(serialFilter);
-            return (Definitions) in.readObject();
+        if (CompactFormat.isJavaSerialized(bytes)) {
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                in.setObjectInputFilter(serialFilter);
+                return (Definitions) in.readObject();
+            }
+        }
+
+        try {
+            ByteArrayDataInput in = new ByteArrayDataInput(bytes);
+            CompactFormat.readHeader(in, FORMAT_VERSION, "definitions");
+            String[] strings = CompactFormat.readStringTable(in);
+            Definitions defs = new Definitions();
+            int count = in.readVInt();
+            int line = 0;
+            for (int i = 0; i < count; i++) {
+                line += in.readZInt();
+                String symbol = strings[in.readVInt()];
+                String type = strings[in.readVInt()];
+                String text = strings[in.readVInt()];
+                String namespace = strings[in.readVInt()];
+                String signature = strings[in.readVInt()];
+                int lineStart = in.readZInt();
+                int lineEnd = in.readZInt();
+                defs.addTag(line, symbol, type, text, namespace, signature, lineStart, lineEnd);
+            }
+            return defs;
+        } catch (RuntimeException e) {
+            throw new IOException("corrupted definitions", e);
         }
     }
 }
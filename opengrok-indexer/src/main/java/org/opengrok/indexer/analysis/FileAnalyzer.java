@@ -18,12 +18,13 @@
  */
 
 /*
- * Copyright (c) 2005, 2019, Oracle and/or its affiliates. All rights reserved. Use is subject to license terms.
+ * Copyright (c) 2005, 2026, Oracle and/or its affiliates. All rights reserved. Use is subject to license terms.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.analysis;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.Writer;
 import java.util.Locale;
 import java.util.function.Supplier;
@@ -59,6 +60,11 @@ public class FileAnalyzer extends AbstractAnalyzer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FileAnalyzer.class);
 
+    /**
+     * Symbol tokenizer of the previous document, see {@link #getSymbolTokenizer(Reader)}.
+     */
+    private JFlexTokenizer symbolTokenizer;
+
     /**
      * @return {@code null} as there is no aligned language
      */
@@ -213,6 +219,24 @@ public class FileAnalyzer extends AbstractAnalyzer {
         }
     }
 
+    /**
+     * Gets a symbol tokenizer from {@link #symbolTokenizerFactory} set to read {@code reader}
+     * for a field of a document. The tokenizer of the previous document is reused once the indexing
+     * of that document closed it, which avoids allocating the lexer and its buffer for every file.
+     * @param reader the data to tokenize
+     * @return a defined instance
+     */
+    protected JFlexTokenizer getSymbolTokenizer(Reader reader) {
+        if (symbolTokenizer != null && symbolTokenizer.trySetReader(reader)) {
+            LexerMetrics.countTokenizer(true);
+            return symbolTokenizer;
+        }
+        symbolTokenizer = symbolTokenizerFactory.get();
+        symbolTokenizer.trySetReader(reader);
+        LexerMetrics.countTokenizer(false);
+        return symbolTokenizer;
+    }
+
     private JFlexTokenizer createPlainSymbolTokenizer() {
         return new JFlexTokenizer(new PlainSymbolTokenizer(
                 AbstractAnalyzer.DUMMY_READER));
@@ -18,12 +18,13 @@
  */
 
  /*
- * Copyright (c) 2009, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2009, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.analysis;
 
 import java.io.IOException;
+import java.io.Reader;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
@@ -39,10 +40,14 @@ import org.apache.lucene.util.AttributeImpl;
 public class JFlexTokenizer extends Tokenizer
     implements SymbolMatchedListener {
 
-    private static final int LUCENE_MAX_TOKEN_LENGTH = 32766;
+    static final int LUCENE_MAX_TOKEN_LENGTH = 32766;
 
     private final ScanningSymbolMatcher matcher;
     private boolean didSetAttribsValues;
+    /**
+     * Set by {@link #trySetReader(Reader)} until the instance is closed.
+     */
+    private boolean inUse;
 
     /**
      * Initialize an instance, passing a {@link ScanningSymbolMatcher} which
@@ -82,6 +87,23 @@ public class JFlexTokenizer extends Tokenizer
     public final void close() throws IOException {
         super.close();
         matcher.yyclose();
+        inUse = false;
+    }
+
+    /**
+     * Sets the instance to read {@code input} unless it is still in use,
+     * i.e. the input set by the previous call was not consumed and closed yet.
+     * This allows to reuse the instance for the next document.
+     * @param input a defined instance
+     * @return {@code false} if the instance is still in use
+     */
+    boolean trySetReader(Reader input) {
+        if (inUse) {
+            return false;
+        }
+        setReader(input);
+        inUse = true;
+        return true;
     }
 
     private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
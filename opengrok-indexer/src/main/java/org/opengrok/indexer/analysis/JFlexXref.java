@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2009, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2009, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2011, Jens Elkner.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
@@ -52,6 +52,7 @@ public class JFlexXref implements Xrefer, SymbolMatchedListener, NonSymbolMatche
     private Annotation annotation;
     private Project project;
     private Definitions defs;
+    private SymbolMatchedListener symbolListener;
     private boolean scopesEnabled;
     private boolean foldingEnabled;
 
@@ -182,6 +183,15 @@ public class JFlexXref implements Xrefer, SymbolMatchedListener, NonSymbolMatche
         this.project = project;
     }
 
+    /**
+     * Set a listener to receive the symbols matched while writing the xref,
+     * e.g. to produce the tokens of the document in the same pass.
+     * @param listener a listener or {@code null}
+     */
+    public void setSymbolMatchedListener(SymbolMatchedListener listener) {
+        this.symbolListener = listener;
+    }
+
     /**
      * Set scopes.
      * @param scopesEnabled if they should be enabled or disabled
@@ -202,6 +212,9 @@ public class JFlexXref implements Xrefer, SymbolMatchedListener, NonSymbolMatche
 
     @Override
     public void symbolMatched(SymbolMatchedEvent evt) {
+        if (symbolListener != null) {
+            symbolListener.symbolMatched(evt);
+        }
         try {
             JFlexXrefUtils.writeSymbol(out, defs, urlPrefix, project,
                 evt.getStr(), null, matcher.getLineNumber(), false, false);
@@ -0,0 +1,88 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.analysis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.opengrok.indexer.Metrics;
+
+/**
+ * Counts the lexers allocated for the analysis of files and those reused from the previous file,
+ * see {@link FileAnalyzer#getSymbolTokenizer(java.io.Reader)} and {@link TextAnalyzer#writeXref(WriteXrefArgs)}.
+ */
+final class LexerMetrics {
+
+    private static final String NAME = "analysis.lexer";
+
+    private static final Counter TOKENIZER_CREATED;
+    private static final Counter TOKENIZER_REUSED;
+    private static final Counter XREF_CREATED;
+    private static final Counter XREF_REUSED;
+
+    static {
+        MeterRegistry registry = Metrics.getRegistry();
+        if (registry != null) {
+            TOKENIZER_CREATED = register(registry, "tokenizer", "created");
+            TOKENIZER_REUSED = register(registry, "tokenizer", "reused");
+            XREF_CREATED = register(registry, "xref", "created");
+            XREF_REUSED = register(registry, "xref", "reused");
+        } else {
+            TOKENIZER_CREATED = null;
+            TOKENIZER_REUSED = null;
+            XREF_CREATED = null;
+            XREF_REUSED = null;
+        }
+    }
+
+    private LexerMetrics() {
+        // private to enforce static
+    }
+
+    private static Counter register(MeterRegistry registry, String kind, String what) {
+        return Counter.builder(NAME).
+                description("lexers used for analysis").
+                tag("kind", kind).
+                tag("what", what).
+                register(registry);
+    }
+
+    /**
+     * @param reused whether the symbol tokenizer was reused rather than allocated
+     */
+    static void countTokenizer(boolean reused) {
+        increment(reused ? TOKENIZER_REUSED : TOKENIZER_CREATED);
+    }
+
+    /**
+     * @param reused whether the xref lexer was reused rather than allocated
+     */
+    static void countXref(boolean reused) {
+        increment(reused ? XREF_REUSED : XREF_CREATED);
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.analysis;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.opengrok.indexer.util.SourceSplitter;
+
+/**
+ * Represents a {@link Reader} that records the offsets of the starts of the lines while the content is read,
+ * so that the line structure of the document can be stored in the index and the search result highlighting
+ * does not have to split the whole document into lines again.
+ * <p>
+ * The lines are split the same way as {@link org.opengrok.indexer.util.SourceSplitter} does it, i.e. on
+ * {@code \r\n}, {@code \r} or {@code \n}, and an empty document or a document ending with end-of-line
+ * has an additional line of length zero. The offsets array has one more entry than the number of lines,
+ * the last entry is the length of the document.
+ * </p>
+ * <p>
+ * The hash code of the content is recorded along with the offsets so that they are not used for edited content
+ * of the same length, see {@link LineOffsets#matches(String)}.
+ * </p>
+ */
+public class LineOffsetsReader extends FilterReader {
+
+    private static final byte FORMAT_VERSION = 2;
+
+    private int[] offsets = new int[64];
+    private int count = 1; // offsets[0] = 0
+    private int position;
+    private boolean afterCR;
+    private int contentHash;
+
+    public LineOffsetsReader(Reader in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int c = super.read();
+        if (c != -1) {
+            record((char) c);
+        }
+        return c;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        int n = super.read(cbuf, off, len);
+        for (int i = 0; i < n; i++) {
+            record(cbuf[off + i]);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throw new IOException("skip() is not supported");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark() is not supported");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("reset() is not supported");
+    }
+
+    private void record(char c) {
+        ++position;
+        contentHash = 31 * contentHash + c;
+        if (c == '\n') {
+            if (afterCR) {
+                // CR LF is single end-of-line: move the line start recorded for the CR.
+                offsets[count - 1] = position;
+            } else {
+                add(position);
+            }
+            afterCR = false;
+        } else if (c == '\r') {
+            add(position);
+            afterCR = true;
+        } else {
+            afterCR = false;
+        }
+    }
+
+    private void add(int offset) {
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        offsets[count++] = offset;
+    }
+
+    /**
+     * @return the offsets of the starts of the lines read so far followed by the number of characters read
+     */
+    public int[] getLineOffsets() {
+        int[] result = Arrays.copyOf(offsets, count + 1);
+        result[count] = position;
+        return result;
+    }
+
+    /**
+     * @return hash code of the characters read so far, equal to {@link String#hashCode()} of the content
+     */
+    public int getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * @return compact binary representation of {@link #getLineOffsets()} and {@link #getContentHash()}
+     * @throws IOException on error
+     */
+    public byte[] serialize() throws IOException {
+        int[] lineOffsets = getLineOffsets();
+        ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+        CompactFormat.writeHeader(out, FORMAT_VERSION);
+        out.writeVInt(lineOffsets.length);
+        int prev = 0;
+        for (int offset : lineOffsets) {
+            out.writeVInt(offset - prev);
+            prev = offset;
+        }
+        out.writeInt(contentHash);
+        return out.toArrayCopy();
+    }
+
+    /**
+     * De-serialize line offsets produced by {@link #serialize()}.
+     * @param bytes binary representation
+     * @return line offsets as returned by {@link #getLineOffsets()} along with the hash code of the content
+     * @throws IOException if the data is corrupted
+     */
+    public static LineOffsets deserialize(byte[] bytes) throws IOException {
+        try {
+            ByteArrayDataInput in = new ByteArrayDataInput(bytes);
+            CompactFormat.readHeader(in, FORMAT_VERSION, "line offsets");
+            int[] lineOffsets = new int[in.readVInt()];
+            int offset = 0;
+            for (int i = 0; i < lineOffsets.length; i++) {
+                offset += in.readVInt();
+                lineOffsets[i] = offset;
+            }
+            return new LineOffsets(lineOffsets, in.readInt());
+        } catch (RuntimeException e) {
+            throw new IOException("corrupted line offsets", e);
+        }
+    }
+
+    /**
+     * Line offsets recorded for a content.
+     * @param offsets offsets of the starts of the lines followed by the length of the content
+     * @param contentHash {@link String#hashCode()} of the content
+     */
+    public record LineOffsets(int[] offsets, int contentHash) {
+
+        /**
+         * @param content the content
+         * @return whether the offsets were recorded for the content
+         */
+        public boolean matches(String content) {
+            return content.hashCode() == contentHash && SourceSplitter.isValid(offsets, content.length());
+        }
+    }
+}
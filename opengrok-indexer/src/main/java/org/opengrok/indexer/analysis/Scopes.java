@@ -18,18 +18,18 @@
  */
 
  /*
- * Copyright (c) 2015, 2021, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.analysis;
 
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteBuffersDataOutput;
 import org.opengrok.indexer.util.WhitelistObjectInputFilter;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputFilter;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.TreeSet;
 
@@ -41,6 +41,8 @@ public class Scopes implements Serializable {
 
     private static final long serialVersionUID = 1191703801007779489L;
 
+    private static final byte FORMAT_VERSION = 1;
+
     private static final ObjectInputFilter serialFilter = new WhitelistObjectInputFilter(
             Scopes.class,
             TreeSet.class,
@@ -157,26 +159,67 @@ public class Scopes implements Serializable {
      * @throws IOException if an error happens when writing to the array
      */
     public byte[] serialize() throws IOException {
-        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        new ObjectOutputStream(bytes).writeObject(this);
-        return bytes.toByteArray();
+        CompactFormat.StringTable strings = new CompactFormat.StringTable();
+        for (Scope scope : scopes) {
+            strings.add(scope.name);
+            strings.add(scope.namespace);
+            strings.add(scope.signature);
+        }
+
+        ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+        CompactFormat.writeHeader(out, FORMAT_VERSION);
+        strings.write(out);
+        out.writeVInt(scopes.size());
+        int prevLineFrom = 0;
+        for (Scope scope : scopes) {
+            // The scopes are sorted by the starting line.
+            out.writeZInt(scope.lineFrom - prevLineFrom);
+            prevLineFrom = scope.lineFrom;
+            out.writeZInt(scope.lineTo - scope.lineFrom);
+            out.writeVInt(strings.indexOf(scope.name));
+            out.writeVInt(strings.indexOf(scope.namespace));
+            out.writeVInt(strings.indexOf(scope.signature));
+        }
+        return out.toArrayCopy();
     }
 
     /**
-     * De-serialize a binary representation of a {@code Definitions} object.
+     * De-serialize a binary representation of a {@code Scopes} object.
+     * Both the compact representation produced by {@link #serialize()} and
+     * the Java serialization used by previous versions are recognized.
      *
-     * @param bytes a byte array containing the {@code Definitions} object
-     * @return a {@code Definitions} object
+     * @param bytes a byte array containing the {@code Scopes} object
+     * @return a {@code Scopes} object
      * @throws IOException if an I/O error happens when reading the array
      * @throws ClassNotFoundException if the class definition for an object
      * stored in the byte array cannot be found
      * @throws ClassCastException if the array contains an object of another
-     * type than {@code Definitions}
+     * type than {@code Scopes}
      */
     public static Scopes deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
-        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
-            in.setObjectInputFilter(serialFilter);
-            return (Scopes) in.readObject();
+        if (CompactFormat.isJavaSerialized(bytes)) {
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                in.setObjectInputFilter(serialFilter);
+                return (Scopes) in.readObject();
+            }
+        }
+
+        try {
+            ByteArrayDataInput in = new ByteArrayDataInput(bytes);
+            CompactFormat.readHeader(in, FORMAT_VERSION, "scopes");
+            String[] strings = CompactFormat.readStringTable(in);
+            Scopes result = new Scopes();
+            int count = in.readVInt();
+            int lineFrom = 0;
+            for (int i = 0; i < count; i++) {
+                lineFrom += in.readZInt();
+                int lineTo = lineFrom + in.readZInt();
+                result.addScope(new Scope(lineFrom, lineTo, strings[in.readVInt()], strings[in.readVInt()],
+                        strings[in.readVInt()]));
+            }
+            return result;
+        } catch (RuntimeException e) {
+            throw new IOException("corrupted scopes", e);
         }
     }
 }
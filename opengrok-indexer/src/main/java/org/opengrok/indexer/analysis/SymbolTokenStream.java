@@ -0,0 +1,110 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+
+/**
+ * Represents a token stream of the symbols collected from {@link SymbolMatchedEvent}s published
+ * while another consumer, i.e. {@link JFlexXref}, is lexing the document. This allows to produce
+ * the same tokens as {@link JFlexTokenizer} without lexing the document again.
+ * <p>
+ * The stream has to be filled before it is consumed.
+ */
+public class SymbolTokenStream extends TokenStream implements SymbolMatchedListener {
+
+    /**
+     * Defines the queue of tokens to be produced by {@link #incrementToken()}.
+     */
+    private final List<PendingToken> events = new ArrayList<>();
+
+    @SuppressWarnings("this-escape")
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+    @SuppressWarnings("this-escape")
+    private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+    @SuppressWarnings("this-escape")
+    private final PositionIncrementAttribute posIncrAtt = addAttribute(PositionIncrementAttribute.class);
+
+    private int offset;
+
+    /**
+     * Adds a token for the symbol subject to the same limits as {@link JFlexTokenizer}.
+     * @param evt the event raised
+     */
+    @Override
+    public void symbolMatched(SymbolMatchedEvent evt) {
+        long start = evt.getStart();
+        long end = evt.getEnd();
+        if (start < Integer.MAX_VALUE && end < Integer.MAX_VALUE) {
+            String str = evt.getStr();
+            if (str.length() > JFlexTokenizer.LUCENE_MAX_TOKEN_LENGTH) {
+                // Leave `end` unadjusted, see JFlexTokenizer.setAttribs().
+                str = str.substring(0, JFlexTokenizer.LUCENE_MAX_TOKEN_LENGTH);
+            }
+            events.add(new PendingToken(str, (int) start, (int) end));
+        }
+    }
+
+    /**
+     * Does nothing.
+     * @param evt ignored
+     */
+    @Override
+    public void sourceCodeSeen(SourceCodeSeenEvent evt) {
+    }
+
+    /**
+     * @return number of the collected tokens
+     */
+    public int size() {
+        return events.size();
+    }
+
+    @Override
+    public void reset() {
+        offset = 0;
+    }
+
+    /**
+     * Publishes the next collected token, if one is available.
+     * @return false if no more tokens; otherwise true
+     */
+    @Override
+    public final boolean incrementToken() {
+        clearAttributes();
+        if (offset < events.size()) {
+            PendingToken tok = events.get(offset++);
+            posIncrAtt.setPositionIncrement(1);
+            termAtt.setEmpty();
+            termAtt.append(tok.str);
+            offsetAtt.setOffset(tok.start, tok.end);
+            return true;
+        }
+        return false;
+    }
+}
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2005, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.analysis;
@@ -27,12 +27,20 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
+import org.opengrok.indexer.configuration.RuntimeEnvironment;
 import org.opengrok.indexer.util.IOUtils;
 
 public abstract class TextAnalyzer extends FileAnalyzer {
 
+    /**
+     * Xref lexer of the previous document available for reuse, see {@link #supportsXrefReuse()}.
+     * The xref might be written by other thread than the one analyzing the document.
+     */
+    private final AtomicReference<JFlexXref> reusableXref = new AtomicReference<>();
+
     /**
      * Creates a new instance of {@link TextAnalyzer}.
      * @param factory defined instance for the analyzer
@@ -73,16 +81,50 @@ public abstract class TextAnalyzer extends FileAnalyzer {
         if (args == null) {
             throw new IllegalArgumentException("`args' is null");
         }
-        Xrefer xref = newXref(args.getIn());
+        boolean reuse = supportsXrefReuse() && RuntimeEnvironment.getInstance().isIndexer();
+        Xrefer xref = reuse ? getXref(args.getIn()) : null;
+        if (xref == null) {
+            LexerMetrics.countXref(false);
+            xref = newXref(args.getIn());
+        }
         xref.setDefs(args.getDefs());
         xref.setScopesEnabled(scopesEnabled);
         xref.setFoldingEnabled(foldingEnabled);
         xref.setAnnotation(args.getAnnotation());
         xref.setProject(args.getProject());
+        if (xref instanceof JFlexXref jflexXref) {
+            // Set also null so that the listener of the previous document is not kept by reused instance.
+            jflexXref.setSymbolMatchedListener(args.getSymbolListener());
+        }
         xref.write(args.getOut());
+        if (reuse && xref instanceof JFlexXref jflexXref) {
+            reusableXref.set(jflexXref);
+        }
+        return xref;
+    }
+
+    private JFlexXref getXref(Reader reader) {
+        JFlexXref xref = reusableXref.getAndSet(null);
+        if (xref != null) {
+            xref.setReader(reader);
+            xref.reset();
+            LexerMetrics.countXref(true);
+        }
         return xref;
     }
 
+    /**
+     * Determines whether the xref lexer created by {@link #newXref(Reader)} can be used for the next
+     * document once the xref of a document was written. This is possible only if
+     * {@link JFlexXref#setReader(Reader)} and {@link JFlexXref#reset()} restore the state of the lexer
+     * completely. The reuse applies only to the indexer as the xref captures parts of the
+     * configuration when created.
+     * @return {@code false} by default
+     */
+    protected boolean supportsXrefReuse() {
+        return false;
+    }
+
     /**
      * Derived classes should implement to create an xref for the language
      * supported by this analyzer.
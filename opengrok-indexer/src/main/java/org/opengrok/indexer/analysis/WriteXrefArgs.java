@@ -19,6 +19,7 @@
 
  /*
  * Copyright (c) 2017, Chris Fraire <cfraire@me.com>.
+ * Portions Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.analysis;
 
@@ -38,6 +39,7 @@ public class WriteXrefArgs {
     private Definitions defs;
     private Annotation annotation;
     private Project project;
+    private SymbolMatchedListener symbolListener;
 
     /**
      * Initializes an instance of {@link WriteXrefArgs} for the required
@@ -84,4 +86,16 @@ public class WriteXrefArgs {
     public void setProject(Project value) {
         project = value;
     }
+
+    /**
+     * Gets the listener to receive the symbols matched while writing the xref,
+     * see {@link JFlexXref#setSymbolMatchedListener(SymbolMatchedListener)}.
+     * @return the listener or {@code null}
+     */
+    public SymbolMatchedListener getSymbolListener() {
+        return symbolListener;
+    }
+    public void setSymbolListener(SymbolMatchedListener value) {
+        symbolListener = value;
+    }
 }
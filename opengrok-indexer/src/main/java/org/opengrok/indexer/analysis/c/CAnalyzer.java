@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2005, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.analysis.c;
@@ -82,4 +82,20 @@ public class CAnalyzer extends AbstractSourceCodeAnalyzer {
     protected boolean supportsScopes() {
         return true;
     }
+
+    /**
+     * @return {@code true} as {@link CXref} publishes the same symbols as {@link CSymbolTokenizer}
+     */
+    @Override
+    protected boolean supportsSinglePassSymbols() {
+        return true;
+    }
+
+    /**
+     * @return {@code true} as {@link CXref} keeps no state beyond that reset by {@link JFlexXref#reset()}
+     */
+    @Override
+    protected boolean supportsXrefReuse() {
+        return true;
+    }
 }
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2008, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.analysis.csharp;
@@ -75,4 +75,12 @@ public class CSharpAnalyzer extends AbstractSourceCodeAnalyzer {
     protected boolean supportsScopes() {
         return true;
     }
+
+    /**
+     * @return {@code true} as {@link CSharpXref} keeps no state beyond that reset by {@link JFlexXref#reset()}
+     */
+    @Override
+    protected boolean supportsXrefReuse() {
+        return true;
+    }
 }
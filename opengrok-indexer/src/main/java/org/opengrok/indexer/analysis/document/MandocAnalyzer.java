@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2005, 2023, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.analysis.document;
@@ -80,10 +80,8 @@ public class MandocAnalyzer extends TextAnalyzer {
 
         // this is to explicitly use appropriate analyzers tokenstream to
         // workaround #1376 symbols search works like full text search
-        JFlexTokenizer symbolTokenizer = symbolTokenizerFactory.get();
-        symbolTokenizer.setReader(getReader(src.getStream()));
-        OGKTextField full = new OGKTextField(QueryBuilder.FULL, symbolTokenizer);
-        doc.add(full);
+        JFlexTokenizer symbolTokenizer = getSymbolTokenizer(getReader(src.getStream()));
+        doc.add(new OGKTextField(QueryBuilder.FULL, symbolTokenizer));
 
         if (xrefOut != null) {
             try (Reader in = getReader(src.getStream())) {
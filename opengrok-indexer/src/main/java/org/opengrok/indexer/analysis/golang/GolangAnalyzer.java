@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2015, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.analysis.golang;
@@ -74,4 +74,12 @@ public class GolangAnalyzer extends AbstractSourceCodeAnalyzer {
     protected JFlexXref newXref(Reader reader) {
         return new JFlexXref(new GolangXref(reader));
     }
+
+    /**
+     * @return {@code true} as {@link GolangXref} keeps no state beyond that reset by {@link JFlexXref#reset()}
+     */
+    @Override
+    protected boolean supportsXrefReuse() {
+        return true;
+    }
 }
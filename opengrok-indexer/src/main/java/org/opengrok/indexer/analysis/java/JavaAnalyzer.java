@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2006, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2006, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.analysis.java;
@@ -80,4 +80,20 @@ public class JavaAnalyzer extends AbstractSourceCodeAnalyzer {
         return true;
     }
 
+    /**
+     * @return {@code true} as {@link JavaXref} publishes the same symbols as {@link JavaSymbolTokenizer}
+     */
+    @Override
+    protected boolean supportsSinglePassSymbols() {
+        return true;
+    }
+
+    /**
+     * @return {@code true} as {@link JavaXref} keeps no state beyond that reset by {@link JFlexXref#reset()}
+     */
+    @Override
+    protected boolean supportsXrefReuse() {
+        return true;
+    }
+
 }
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2005, 2023, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.analysis.plain;
@@ -32,16 +32,19 @@ import java.util.function.Supplier;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.StoredField;
+import org.apache.lucene.util.BytesRef;
 import org.opengrok.indexer.analysis.AnalyzerFactory;
 import org.opengrok.indexer.analysis.Definitions;
 import org.opengrok.indexer.analysis.ExpandTabsReader;
 import org.opengrok.indexer.analysis.JFlexTokenizer;
 import org.opengrok.indexer.analysis.JFlexXref;
+import org.opengrok.indexer.analysis.LineOffsetsReader;
 import org.opengrok.indexer.analysis.NumLinesLOC;
 import org.opengrok.indexer.analysis.OGKTextField;
 import org.opengrok.indexer.analysis.OGKTextVecField;
 import org.opengrok.indexer.analysis.Scopes;
 import org.opengrok.indexer.analysis.StreamSource;
+import org.opengrok.indexer.analysis.SymbolTokenStream;
 import org.opengrok.indexer.analysis.TextAnalyzer;
 import org.opengrok.indexer.analysis.WriteXrefArgs;
 import org.opengrok.indexer.analysis.XrefWork;
@@ -104,6 +107,16 @@ public class PlainAnalyzer extends TextAnalyzer {
         return new JFlexXref(new PlainXref(reader));
     }
 
+    /**
+     * Gets a value indicating whether the lexer of {@link #newXref(Reader)} publishes exactly the same
+     * symbols as the lexer of the symbol tokenizer, so that the {@link QueryBuilder#REFS} tokens can be
+     * collected while writing the xref.
+     * @return {@code false}
+     */
+    protected boolean supportsSinglePassSymbols() {
+        return false;
+    }
+
     @Override
     protected Reader getReader(InputStream stream) throws IOException {
         return ExpandTabsReader.wrap(super.getReader(stream), project);
@@ -118,21 +131,14 @@ public class PlainAnalyzer extends TextAnalyzer {
 
         String fullPath = doc.get(QueryBuilder.FULLPATH);
         if (fullPath != null && ctags != null) {
-            defs = ctags.doCtags(fullPath);
+            BytesRef digest = doc.getBinaryValue(QueryBuilder.DIGEST);
+            defs = ctags.doCtags(fullPath, digest != null ? BytesRef.deepCopyOf(digest).bytes : null);
             if (defs != null && defs.numberOfSymbols() > 0) {
                 tryAddingDefs(doc, defs, src);
                 byte[] tags = defs.serialize();
                 doc.add(new StoredField(QueryBuilder.TAGS, tags));
             }
         }
-        /*
-         * This is to explicitly use appropriate analyzer's token stream to
-         * work around #1376: symbols search works like full text search.
-         */
-        JFlexTokenizer symbolTokenizer = symbolTokenizerFactory.get();
-        OGKTextField ref = new OGKTextField(QueryBuilder.REFS, symbolTokenizer);
-        symbolTokenizer.setReader(getReader(src.getStream()));
-        doc.add(ref);
 
         if (scopesEnabled && xrefOut == null) {
             /*
@@ -144,11 +150,28 @@ public class PlainAnalyzer extends TextAnalyzer {
             xrefOut = nullWriter;
         }
 
+        /*
+         * This is to explicitly use appropriate analyzer's token stream to
+         * work around #1376: symbols search works like full text search.
+         * If the xref is going to be generated, its lexer produces the same
+         * symbols, so they are collected while writing the xref rather than
+         * lexing the document once more.
+         */
+        SymbolTokenStream symbolStream = null;
+        if (xrefOut != null && supportsSinglePassSymbols()) {
+            symbolStream = new SymbolTokenStream();
+            doc.add(new OGKTextField(QueryBuilder.REFS, symbolStream));
+        } else {
+            JFlexTokenizer symbolTokenizer = getSymbolTokenizer(getReader(src.getStream()));
+            doc.add(new OGKTextField(QueryBuilder.REFS, symbolTokenizer));
+        }
+
         if (xrefOut != null) {
-            try (Reader in = getReader(src.getStream())) {
+            try (LineOffsetsReader in = new LineOffsetsReader(getReader(src.getStream()))) {
                 WriteXrefArgs args = new WriteXrefArgs(in, xrefOut);
                 args.setDefs(defs);
                 args.setProject(project);
+                args.setSymbolListener(symbolStream);
                 XrefWork xrefWork = new XrefWork(args, this);
                 Xrefer xref = xrefWork.getXrefer();
 
@@ -161,6 +184,9 @@ public class PlainAnalyzer extends TextAnalyzer {
 
                     String path = doc.get(QueryBuilder.PATH);
                     addNumLinesLOC(doc, new NumLinesLOC(path, xref.getLineNumber(), xref.getLOC()));
+
+                    // The xref consumed the whole document so the line offsets are complete.
+                    doc.add(new StoredField(QueryBuilder.LINEOFFSETS, in.serialize()));
                 }
             } catch (ExecutionException e) {
                 throw new InterruptedException("failed to generate xref :" + e);
@@ -0,0 +1,177 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.configuration;
+
+import java.util.Objects;
+
+/**
+ * Configuration of the caches of the search results, of the xrefs generated on demand
+ * and of the ctags results.
+ */
+public class CacheConfig {
+
+    public static final int SEARCH_RESULT_SIZE_DEFAULT = 100;
+    public static final int SEARCH_RESULT_TIMEOUT_DEFAULT = 120; // 2 minutes
+    public static final int XREF_SIZE_DEFAULT = 0;
+    public static final boolean CTAGS_ENABLED_DEFAULT = false;
+    public static final int CTAGS_MAX_SIZE_DEFAULT = 1024;
+
+    /**
+     * Maximum number of the queries whose top hits are cached by the web application
+     * to serve the subsequent result pages. Zero disables the cache.
+     */
+    private int searchResultSize;
+
+    /**
+     * Time in seconds for which the top hits of a query are cached.
+     */
+    private int searchResultTimeout;
+
+    /**
+     * Maximum size (in MB) of the cache of the xrefs generated by the web application for the files
+     * without stored xref, e.g. when the indexer runs with xref generation disabled. Zero disables the cache.
+     */
+    private int xrefSize;
+
+    /**
+     * If true, the ctags results are cached on disk under the data root, keyed by the file contents.
+     */
+    private boolean ctagsEnabled;
+
+    /**
+     * Maximum size (in MB) of the on-disk cache of the ctags results. The least recently used entries
+     * are removed at the end of indexing to get under the limit.
+     */
+    private int ctagsMaxSize;
+
+    public CacheConfig() {
+        setSearchResultSize(SEARCH_RESULT_SIZE_DEFAULT);
+        setSearchResultTimeout(SEARCH_RESULT_TIMEOUT_DEFAULT);
+        setXrefSize(XREF_SIZE_DEFAULT);
+        setCtagsEnabled(CTAGS_ENABLED_DEFAULT);
+        setCtagsMaxSize(CTAGS_MAX_SIZE_DEFAULT);
+    }
+
+    public int getSearchResultSize() {
+        return searchResultSize;
+    }
+
+    /**
+     * @param size the new value, 0 disables the cache
+     * @throws IllegalArgumentException when the size is negative
+     */
+    public final void setSearchResultSize(final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Search result cache size cannot be negative");
+        }
+        this.searchResultSize = size;
+    }
+
+    public int getSearchResultTimeout() {
+        return searchResultTimeout;
+    }
+
+    /**
+     * @param timeout the new value in seconds
+     * @throws IllegalArgumentException when the timeout is not positive
+     */
+    public final void setSearchResultTimeout(final int timeout) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Search result cache timeout cannot be negative or zero");
+        }
+        this.searchResultTimeout = timeout;
+    }
+
+    public int getXrefSize() {
+        return xrefSize;
+    }
+
+    /**
+     * @param size the new value in MB, 0 disables the cache
+     * @throws IllegalArgumentException when the size is negative
+     */
+    public final void setXrefSize(final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Xref cache size cannot be negative");
+        }
+        this.xrefSize = size;
+    }
+
+    public boolean isCtagsEnabled() {
+        return ctagsEnabled;
+    }
+
+    public final void setCtagsEnabled(final boolean enabled) {
+        this.ctagsEnabled = enabled;
+    }
+
+    public int getCtagsMaxSize() {
+        return ctagsMaxSize;
+    }
+
+    /**
+     * @param size the new value in MB
+     * @throws IllegalArgumentException when the size is not positive
+     */
+    public final void setCtagsMaxSize(final int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Ctags cache size cannot be negative or zero");
+        }
+        this.ctagsMaxSize = size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CacheConfig that = (CacheConfig) o;
+        return searchResultSize == that.searchResultSize &&
+                searchResultTimeout == that.searchResultTimeout &&
+                xrefSize == that.xrefSize &&
+                ctagsEnabled == that.ctagsEnabled &&
+                ctagsMaxSize == that.ctagsMaxSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(searchResultSize, searchResultTimeout, xrefSize, ctagsEnabled, ctagsMaxSize);
+    }
+
+    /**
+     * Gets an instance version suitable for helper documentation by shifting
+     * most default properties slightly.
+     */
+    static CacheConfig getForHelp() {
+        CacheConfig res = new CacheConfig();
+        res.setSearchResultSize(1 + res.getSearchResultSize());
+        res.setSearchResultTimeout(1 + res.getSearchResultTimeout());
+        res.setXrefSize(1 + res.getXrefSize());
+        res.setCtagsEnabled(!res.isCtagsEnabled());
+        res.setCtagsMaxSize(1 + res.getCtagsMaxSize());
+        return res;
+    }
+}
@@ -114,6 +114,16 @@ public final class Configuration {
      * Should the latest annotation be cached?
      */
     private boolean annotationCacheEnabled;
+    /**
+     * If true, the annotation cache is generated by a dedicated queue rather than by the threads
+     * indexing the files, see {@link org.opengrok.indexer.index.AnnotationCacheQueue}.
+     */
+    private boolean asyncAnnotationCache;
+    /**
+     * Maximum time in seconds to wait for the queued annotation cache work at the end of indexing.
+     * The remaining work is resumed by the next run of the indexer. Zero means no limit.
+     */
+    private int annotationCacheTimeout;
     /**
      * flag to generate history. This is bigger hammer than @{code historyCache}
      * above. If set to false, no history query will be ever made and the webapp
@@ -183,6 +193,8 @@ public final class Configuration {
     private int repositoryInvalidationParallelism;
     private int historyParallelism;
     private int historyFileParallelism;
+    private int historyChunkParallelism;
+    private int annotationCacheParallelism;
     private boolean tagsEnabled;
     private int hitsPerPage;
     private int cachePages;
@@ -204,6 +216,7 @@ public final class Configuration {
     private int restfulCommandTimeout; // in seconds
     private long ctagsTimeout; // in seconds
     private long xrefTimeout; // in seconds
+    private long searchTimeout; // in seconds
     private boolean scopesEnabled;
     private boolean projectsEnabled;
     private boolean foldingEnabled;
@@ -277,6 +290,12 @@ public final class Configuration {
      */
     private int maxDirectoryListingThreadCount;
 
+    /**
+     * Upper bound for number of threads used for rendering the contexts of search results
+     * if {@link #parallelResultsRendering} is on. This is total for the whole webapp.
+     */
+    private int maxResultsRenderingThreadCount;
+
     /**
      * If false, do not display listing or projects/repositories on the index page.
      */
@@ -297,6 +316,8 @@ public final class Configuration {
 
     private StatsdConfig statsdConfig = new StatsdConfig();
 
+    private CacheConfig cacheConfig = new CacheConfig();
+
     private Set<String> disabledRepositories;
 
     private Set<String> authenticationTokens; // set of bearer tokens used by the webapp to validate access to certain API endpoints
@@ -317,6 +338,68 @@ public final class Configuration {
 
     private boolean useHistoryCacheForDirectoryListing;
 
+    /**
+     * If true, the files found by the traversal are indexed while the traversal is still running
+     * rather than after all the files have been collected.
+     */
+    private boolean streamingIndexing;
+
+    /**
+     * If true, the directories are listed in parallel during the file-system traversal.
+     */
+    private boolean parallelTraversal;
+
+    /**
+     * If true, the index of a project is updated as soon as the history cache of its repositories is done,
+     * while the history cache of other repositories is still being generated.
+     */
+    private boolean pipelinedIndexing;
+
+    /**
+     * If true, the contexts of the hits on a page of search results are rendered in parallel.
+     */
+    private boolean parallelResultsRendering;
+
+    /**
+     * If true, the xrefs are stored in few large files per project rather than a file per source file.
+     */
+    private boolean packedXref;
+
+    /**
+     * If true, the history cache of repositories with history for directories is stored in few files
+     * per repository rather than a file per source file. Other repositories are used without history cache.
+     * Changing the value requires restart and regeneration of the history cache.
+     */
+    private boolean packedHistoryCache;
+
+    /**
+     * If true, the annotation cache entry of a changed file is updated from its previous annotation
+     * and the changes made since its revision rather than computed from scratch, where the repository supports it.
+     */
+    private boolean incrementalAnnotationCache;
+
+    /**
+     * Time in seconds after which an unused JGit repository is closed. Zero means the repositories
+     * are opened for each operation.
+     */
+    private int gitRepositoryIdleTimeout;
+
+    /**
+     * Maximum size (in MB) of the pack file data cached by JGit for all repositories.
+     */
+    private int gitPackedGitLimit;
+
+    /**
+     * If true, JGit reads the pack files using memory mapping.
+     */
+    private boolean gitPackedGitMMAP;
+
+    /**
+     * Maximum size (in MB) of the cache of the delta base objects used by JGit.
+     */
+    private int gitDeltaBaseCacheLimit;
+
+
     /**
      * History handling types for remote SCM repositories.
      * <ul>
@@ -520,6 +603,25 @@ public final class Configuration {
         this.xrefTimeout = timeout;
     }
 
+    public long getSearchTimeout() {
+        return searchTimeout;
+    }
+
+    /**
+     * Set the time budget of a single search to a new value. Searches running longer
+     * are stopped and return partial results.
+     *
+     * @param timeout the new value, 0 means no limit
+     * @throws IllegalArgumentException when the timeout is negative
+     */
+    public void setSearchTimeout(long timeout) throws IllegalArgumentException {
+        if (timeout < 0) {
+            throw new IllegalArgumentException(
+                    String.format(NEGATIVE_NUMBER_ERROR, "searchTimeout", timeout));
+        }
+        this.searchTimeout = timeout;
+    }
+
     public boolean isLastEditedDisplayMode() {
         return lastEditedDisplayMode;
     }
@@ -555,7 +657,9 @@ public final class Configuration {
         setAllowLeadingWildcard(true);
         setAllowedSymlinks(new HashSet<>());
         setAnnotationCacheEnabled(false);
+        setAnnotationCacheTimeout(0);
         setApiTimeout(300); // 5 minutes
+        setAsyncAnnotationCache(false);
         setAuthenticationTokens(new HashSet<>());
         setAuthorizationWatchdogEnabled(false);
         setBugPattern("\\b([12456789][0-9]{6})\\b");
@@ -577,6 +681,10 @@ public final class Configuration {
         setFetchHistoryWhenNotInCache(true);
         setFoldingEnabled(true);
         setGenerateHtml(true);
+        setGitDeltaBaseCacheLimit(10);
+        setGitPackedGitLimit(10);
+        setGitPackedGitMMAP(false);
+        setGitRepositoryIdleTimeout(300); // 5 minutes
         setGroups(new TreeMap<>());
         setGroupsCollapseThreshold(4);
         setHandleHistoryOfRenamedFiles(false);
@@ -586,6 +694,7 @@ public final class Configuration {
         setHitsPerPage(25);
         setIgnoredNames(new IgnoredNames());
         setIncludedNames(new Filter());
+        setIncrementalAnnotationCache(false);
         setIndexCheckTimeout(60);
         setIndexVersionedFilesOnly(false);
         setLastEditedDisplayMode(true);
@@ -594,10 +703,16 @@ public final class Configuration {
         setMaxSearchThreadCount(2 * Runtime.getRuntime().availableProcessors());
         setMaxRevisionThreadCount(Runtime.getRuntime().availableProcessors());
         setMaxDirectoryListingThreadCount(Runtime.getRuntime().availableProcessors());
+        setMaxResultsRenderingThreadCount(Runtime.getRuntime().availableProcessors());
         setMergeCommitsEnabled(true);
         setMessageLimit(500);
         setNavigateWindowEnabled(false);
         setNestingMaximum(1);
+        setPackedHistoryCache(false);
+        setPackedXref(false);
+        setParallelResultsRendering(false);
+        setParallelTraversal(false);
+        setPipelinedIndexing(false);
         setPluginDirectory(null);
         setPluginStack(new AuthorizationStack(AuthControlFlag.REQUIRED, "default stack"));
         setPrintProgress(false);
@@ -612,7 +727,9 @@ public final class Configuration {
         setRevisionMessageCollapseThreshold(200);
         setScanningDepth(DEFAULT_SCANNING_DEPTH); // default depth of scanning for repositories
         setScopesEnabled(true);
+        setSearchTimeout(30);
         setSourceRoot(null);
+        setStreamingIndexing(false);
         setTagsEnabled(false);
         setUseHistoryCacheForDirectoryListing(true);
         // Set to empty string, so we can append it to the URL unconditionally later.
@@ -855,6 +972,22 @@ public final class Configuration {
         this.annotationCacheEnabled = useCache;
     }
 
+    public boolean isAsyncAnnotationCache() {
+        return asyncAnnotationCache;
+    }
+
+    public void setAsyncAnnotationCache(boolean flag) {
+        asyncAnnotationCache = flag;
+    }
+
+    public int getAnnotationCacheTimeout() {
+        return annotationCacheTimeout;
+    }
+
+    public void setAnnotationCacheTimeout(int timeout) {
+        this.annotationCacheTimeout = Math.max(timeout, 0);
+    }
+
     /**
      * Set whether history should be cached.
      *
@@ -1164,6 +1297,14 @@ public final class Configuration {
         return compressXref;
     }
 
+    public boolean isIncrementalAnnotationCache() {
+        return incrementalAnnotationCache;
+    }
+
+    public void setIncrementalAnnotationCache(boolean flag) {
+        incrementalAnnotationCache = flag;
+    }
+
     public boolean isIndexVersionedFilesOnly() {
         return indexVersionedFilesOnly;
     }
@@ -1204,6 +1345,22 @@ public final class Configuration {
         this.historyFileParallelism = Math.max(value, 0);
     }
 
+    public int getHistoryChunkParallelism() {
+        return historyChunkParallelism;
+    }
+
+    public void setHistoryChunkParallelism(int value) {
+        this.historyChunkParallelism = Math.max(value, 0);
+    }
+
+    public int getAnnotationCacheParallelism() {
+        return annotationCacheParallelism;
+    }
+
+    public void setAnnotationCacheParallelism(int value) {
+        this.annotationCacheParallelism = Math.max(value, 0);
+    }
+
     public boolean isTagsEnabled() {
         return this.tagsEnabled;
     }
@@ -1363,6 +1520,14 @@ public final class Configuration {
         this.maxDirectoryListingThreadCount = count;
     }
 
+    public int getMaxResultsRenderingThreadCount() {
+        return maxResultsRenderingThreadCount;
+    }
+
+    public void setMaxResultsRenderingThreadCount(int count) {
+        this.maxResultsRenderingThreadCount = count;
+    }
+
     public boolean isProjectsEnabled() {
         return projectsEnabled;
     }
@@ -1393,6 +1558,17 @@ public final class Configuration {
         this.statsdConfig = config;
     }
 
+    public CacheConfig getCacheConfig() {
+        return cacheConfig;
+    }
+
+    public void setCacheConfig(final CacheConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Cache configuration cannot be null");
+        }
+        this.cacheConfig = config;
+    }
+
     public Set<String> getDisabledRepositories() {
         return disabledRepositories;
     }
@@ -1487,6 +1663,103 @@ public final class Configuration {
         useHistoryCacheForDirectoryListing = flag;
     }
 
+    public boolean isStreamingIndexing() {
+        return streamingIndexing;
+    }
+
+    public void setStreamingIndexing(boolean flag) {
+        streamingIndexing = flag;
+    }
+
+    public boolean isParallelTraversal() {
+        return parallelTraversal;
+    }
+
+    public void setParallelTraversal(boolean flag) {
+        parallelTraversal = flag;
+    }
+
+    public boolean isPipelinedIndexing() {
+        return pipelinedIndexing;
+    }
+
+    public void setPipelinedIndexing(boolean flag) {
+        pipelinedIndexing = flag;
+    }
+
+    public boolean isParallelResultsRendering() {
+        return parallelResultsRendering;
+    }
+
+    public void setParallelResultsRendering(boolean flag) {
+        parallelResultsRendering = flag;
+    }
+
+    public boolean isPackedHistoryCache() {
+        return packedHistoryCache;
+    }
+
+    public void setPackedHistoryCache(boolean flag) {
+        packedHistoryCache = flag;
+    }
+
+    public boolean isPackedXref() {
+        return packedXref;
+    }
+
+    public void setPackedXref(boolean flag) {
+        packedXref = flag;
+    }
+
+    public int getGitRepositoryIdleTimeout() {
+        return gitRepositoryIdleTimeout;
+    }
+
+    public void setGitRepositoryIdleTimeout(int timeout) {
+        this.gitRepositoryIdleTimeout = Math.max(timeout, 0);
+    }
+
+    public int getGitPackedGitLimit() {
+        return gitPackedGitLimit;
+    }
+
+    /**
+     * @param limit the new value in MB
+     * @throws IllegalArgumentException when the limit is not positive
+     */
+    public void setGitPackedGitLimit(int limit) throws IllegalArgumentException {
+        if (limit < 1) {
+            throw new IllegalArgumentException(
+                    String.format(NONPOSITIVE_NUMBER_ERROR, "gitPackedGitLimit", limit));
+        }
+        this.gitPackedGitLimit = limit;
+    }
+
+    public boolean isGitPackedGitMMAP() {
+        return gitPackedGitMMAP;
+    }
+
+    public void setGitPackedGitMMAP(boolean flag) {
+        this.gitPackedGitMMAP = flag;
+    }
+
+    public int getGitDeltaBaseCacheLimit() {
+        return gitDeltaBaseCacheLimit;
+    }
+
+    /**
+     * @param limit the new value in MB
+     * @throws IllegalArgumentException when the limit is not positive
+     */
+    public void setGitDeltaBaseCacheLimit(int limit) throws IllegalArgumentException {
+        if (limit < 1) {
+            throw new IllegalArgumentException(
+                    String.format(NONPOSITIVE_NUMBER_ERROR, "gitDeltaBaseCacheLimit", limit));
+        }
+        this.gitDeltaBaseCacheLimit = limit;
+    }
+
+
     /**
      * Write the current configuration to a file.
      *
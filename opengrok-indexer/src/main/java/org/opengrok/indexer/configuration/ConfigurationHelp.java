@@ -192,6 +192,8 @@ public class ConfigurationHelp {
             return SuggesterConfig.getForHelp();
         } else if (paramType == StatsdConfig.class) {
             return StatsdConfig.getForHelp();
+        } else if (paramType == CacheConfig.class) {
+            return CacheConfig.getForHelp();
         } else {
             throw new UnsupportedOperationException("getSampleValue() for " +
                 paramType + ", " + genType);
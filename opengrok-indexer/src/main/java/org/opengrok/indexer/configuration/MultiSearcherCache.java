@@ -0,0 +1,126 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.configuration;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.search.IndexSearcher;
+
+/**
+ * Represents a cache of {@link IndexSearcher} objects over {@link MultiReader} for sets of projects
+ * so that searching the same set of projects repeatedly reuses the searcher (and its leaf slices)
+ * instead of constructing new one for each request.
+ * <p>
+ * The entries are keyed by the list of the per-project index readers, i.e. by the set of projects
+ * together with the generations of their indexes. The readers are compared by identity so a refreshed
+ * index of any of the projects yields a different key. The cache does not own the readers:
+ * the caller has to hold the {@link SuperIndexSearcher} objects the readers were acquired from
+ * for as long as the returned searcher is used, exactly as with a newly constructed searcher.
+ * The entries for the previous generations are removed by {@link #clear()} when the searchers are refreshed.
+ * To avoid re-inserting such entries by concurrent lookups, the callers pass the {@link #getGeneration()}
+ * of the cache obtained before acquiring the readers.
+ * </p>
+ */
+final class MultiSearcherCache {
+
+    private final int maxEntries;
+    private final Map<List<IndexReader>, IndexSearcher> searchers;
+    /**
+     * Incremented by {@link #clear()}.
+     */
+    private long generation;
+
+    /**
+     * @param maxEntries maximum number of the cached searchers
+     */
+    MultiSearcherCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.searchers = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<IndexReader>, IndexSearcher> eldest) {
+                return size() > MultiSearcherCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return generation of the cache to be passed to {@link #get(List, long, IndexSearcherFactory)}
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @param subReaders index readers of the projects, in the order of the project names
+     * @param generation value of {@link #getGeneration()} obtained before the readers were acquired.
+     *                   The new searcher is not cached if the cache was cleared since then.
+     * @param factory factory to create new searcher
+     * @return searcher over {@link MultiReader} for the readers
+     * @throws IOException if the {@link MultiReader} cannot be constructed
+     */
+    synchronized IndexSearcher get(List<IndexReader> subReaders, long generation, IndexSearcherFactory factory)
+            throws IOException {
+        IndexSearcher searcher = searchers.get(subReaders);
+        if (searcher != null && !isOpen(subReaders)) {
+            searchers.remove(subReaders);
+            searcher = null;
+        }
+        if (searcher == null) {
+            /*
+             * The MultiReader is never closed, so passing closeSubReaders=true only avoids incrementing
+             * the reference counts of the sub-readers. Their lifecycle is controlled by the SearcherManager
+             * objects, which is also what isOpen() relies on to detect the entries over closed readers.
+             */
+            searcher = factory.newSearcher(new MultiReader(subReaders.toArray(new IndexReader[0]), true));
+            if (maxEntries > 0 && generation == this.generation) {
+                searchers.put(List.copyOf(subReaders), searcher);
+            }
+        }
+        return searcher;
+    }
+
+    private static boolean isOpen(List<IndexReader> readers) {
+        for (IndexReader reader : readers) {
+            if (reader.getRefCount() <= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    synchronized int size() {
+        return searchers.size();
+    }
+
+    synchronized void clear() {
+        generation++;
+        searchers.clear();
+    }
+}
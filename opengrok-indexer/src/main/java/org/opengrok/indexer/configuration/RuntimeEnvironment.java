@@ -32,12 +32,12 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -59,7 +59,7 @@ import jakarta.ws.rs.client.ClientBuilder;
 import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.core.Response;
 import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
@@ -83,7 +83,9 @@ import org.opengrok.indexer.util.ResourceLock;
 import org.opengrok.indexer.util.Statistics;
 import org.opengrok.indexer.web.AsyncApiCallResult;
 import org.opengrok.indexer.web.Prefix;
+import org.opengrok.indexer.web.SearchResultCache;
 import org.opengrok.indexer.web.Util;
+import org.opengrok.indexer.web.XrefCache;
 import org.opengrok.indexer.web.messages.Message;
 import org.opengrok.indexer.web.messages.MessagesContainer;
 import org.opengrok.indexer.web.messages.MessagesContainer.AcceptedMessage;
@@ -104,6 +106,9 @@ public final class RuntimeEnvironment {
     private final LazilyInstantiate<ExecutorService> lzSearchExecutor;
     private final LazilyInstantiate<ExecutorService> lzRevisionExecutor;
     private final LazilyInstantiate<ExecutorService> lzDirectoryListingExecutor;
+    private final LazilyInstantiate<ExecutorService> lzResultsRenderingExecutor;
+    private final LazilyInstantiate<XrefCache> lzXrefCache;
+    private final LazilyInstantiate<SearchResultCache> lzSearchResultCache;
     private static final RuntimeEnvironment instance = new RuntimeEnvironment();
 
     private final LazilyInstantiate<SuperIndexSearcherFactory> lzSuperIndexSearcherFactory;
@@ -114,6 +119,10 @@ public final class RuntimeEnvironment {
      * Map of project name (or empty string in case of project-less configuration) to SearcherManager object.
      */
     private final Map<String, SearcherManager> searcherManagerMap = new ConcurrentHashMap<>();
+    /**
+     * Searchers for recently searched sets of projects, see {@link #getMultiSearcher(SortedSet, List)}.
+     */
+    private final MultiSearcherCache multiSearcherCache = new MultiSearcherCache(32);
 
     private String configURI;
     IncludeFiles includeFiles = new IncludeFiles();
@@ -147,7 +156,7 @@ public final class RuntimeEnvironment {
      * Maps project name to FileCollector object. This is used to pass the list of files acquired when
      * generating history cache in the first phase of indexing to the second phase of indexing.
      */
-    private final Map<String, FileCollector> fileCollectorMap = new HashMap<>();
+    private final Map<String, FileCollector> fileCollectorMap = new ConcurrentHashMap<>();
 
     /**
      * Creates a new instance of RuntimeEnvironment. Private to ensure a singleton anti-pattern.
@@ -160,6 +169,9 @@ public final class RuntimeEnvironment {
         lzSearchExecutor = LazilyInstantiate.using(this::newSearchExecutor);
         lzRevisionExecutor = LazilyInstantiate.using(this::newRevisionExecutor);
         lzDirectoryListingExecutor = LazilyInstantiate.using(this::newDirectoryListingExecutor);
+        lzResultsRenderingExecutor = LazilyInstantiate.using(this::newResultsRenderingExecutor);
+        lzXrefCache = LazilyInstantiate.using(this::newXrefCache);
+        lzSearchResultCache = LazilyInstantiate.using(this::newSearchResultCache);
         lzSuperIndexSearcherFactory = LazilyInstantiate.using(this::newSuperIndexSearcherFactory);
         lzIndexSearcherFactory = LazilyInstantiate.using(this::newIndexSearcherFactory);
     }
@@ -237,6 +249,68 @@ public final class RuntimeEnvironment {
         getDirectoryListingExecutor().awaitTermination(getWebappStartCommandTimeout(), TimeUnit.SECONDS);
     }
 
+    /**
+     * Gets the thread pool used for rendering the contexts of search results,
+     * see {@link #isParallelResultsRendering()}.
+     *
+     * @return ExecutorService instance
+     */
+    public ExecutorService getResultsRenderingExecutor() {
+        return lzResultsRenderingExecutor.get();
+    }
+
+    private ExecutorService newResultsRenderingExecutor() {
+        return Executors.newFixedThreadPool(this.getMaxResultsRenderingThreadCount(),
+                new OpenGrokThreadFactory("results-rendering"));
+    }
+
+    public void shutdownResultsRenderingExecutor() throws InterruptedException {
+        if (lzResultsRenderingExecutor.isActive()) {
+            getResultsRenderingExecutor().shutdownNow();
+            getResultsRenderingExecutor().awaitTermination(getWebappStartCommandTimeout(), TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Gets the cache of the xrefs generated on demand, see {@link #getXrefCacheSize()}.
+     * The size limit of the cache follows the changes of the configuration.
+     *
+     * @return XrefCache instance or {@code null} if the cache is disabled
+     */
+    @Nullable
+    public XrefCache getXrefCache() {
+        int size = getXrefCacheSize();
+        if (size <= 0) {
+            return null;
+        }
+        XrefCache cache = lzXrefCache.get();
+        cache.setMaxSize(size * 1024L * 1024);
+        return cache;
+    }
+
+    private XrefCache newXrefCache() {
+        return new XrefCache(new File(getDataRootFile(), XrefCache.XREF_CACHE_DIR).toPath(),
+                getXrefCacheSize() * 1024L * 1024);
+    }
+
+    /**
+     * Gets the cache of the top hits of recently executed queries, see {@link #getSearchResultCacheSize()}
+     * and {@link #getSearchResultCacheTimeout()}.
+     *
+     * @return SearchResultCache instance or {@code null} if the cache is disabled
+     */
+    @Nullable
+    public SearchResultCache getSearchResultCache() {
+        if (getSearchResultCacheSize() <= 0) {
+            return null;
+        }
+        return lzSearchResultCache.get();
+    }
+
+    private SearchResultCache newSearchResultCache() {
+        return new SearchResultCache(getSearchResultCacheSize(), Duration.ofSeconds(getSearchResultCacheTimeout()));
+    }
+
     private SuperIndexSearcherFactory newSuperIndexSearcherFactory() {
         return new SuperIndexSearcherFactory();
     }
@@ -370,6 +444,14 @@ public final class RuntimeEnvironment {
         syncWriteConfiguration(timeout, Configuration::setCtagsTimeout);
     }
 
+    public int getXrefCacheSize() {
+        return syncReadConfiguration(c -> c.getCacheConfig().getXrefSize());
+    }
+
+    public void setXrefCacheSize(int size) {
+        syncWriteConfiguration(size, (c, v) -> c.getCacheConfig().setXrefSize(v));
+    }
+
     public long getXrefTimeout() {
         return syncReadConfiguration(Configuration::getXrefTimeout);
     }
@@ -378,6 +460,30 @@ public final class RuntimeEnvironment {
         syncWriteConfiguration(timeout, Configuration::setXrefTimeout);
     }
 
+    public long getSearchTimeout() {
+        return syncReadConfiguration(Configuration::getSearchTimeout);
+    }
+
+    public void setSearchTimeout(long timeout) {
+        syncWriteConfiguration(timeout, Configuration::setSearchTimeout);
+    }
+
+    public int getSearchResultCacheSize() {
+        return syncReadConfiguration(c -> c.getCacheConfig().getSearchResultSize());
+    }
+
+    public void setSearchResultCacheSize(int size) {
+        syncWriteConfiguration(size, (c, v) -> c.getCacheConfig().setSearchResultSize(v));
+    }
+
+    public int getSearchResultCacheTimeout() {
+        return syncReadConfiguration(c -> c.getCacheConfig().getSearchResultTimeout());
+    }
+
+    public void setSearchResultCacheTimeout(int timeout) {
+        syncWriteConfiguration(timeout, (c, v) -> c.getCacheConfig().setSearchResultTimeout(v));
+    }
+
     public void setLastEditedDisplayMode(boolean lastEditedDisplayMode) {
         syncWriteConfiguration(lastEditedDisplayMode, Configuration::setLastEditedDisplayMode);
     }
@@ -759,6 +865,25 @@ public final class RuntimeEnvironment {
         syncWriteConfiguration(useAnnotationCache, Configuration::setAnnotationCacheEnabled);
     }
 
+    /**
+     * @return whether the annotation cache is generated by a dedicated queue rather than by the indexing threads
+     */
+    public boolean isAsyncAnnotationCache() {
+        return syncReadConfiguration(Configuration::isAsyncAnnotationCache);
+    }
+
+    public void setAsyncAnnotationCache(boolean flag) {
+        syncWriteConfiguration(flag, Configuration::setAsyncAnnotationCache);
+    }
+
+    public int getAnnotationCacheTimeout() {
+        return syncReadConfiguration(Configuration::getAnnotationCacheTimeout);
+    }
+
+    public void setAnnotationCacheTimeout(int timeout) {
+        syncWriteConfiguration(timeout, Configuration::setAnnotationCacheTimeout);
+    }
+
     /**
      * Should we generate HTML or not during the indexing phase.
      *
@@ -1172,6 +1297,17 @@ public final class RuntimeEnvironment {
         return syncReadConfiguration(Configuration::getLuceneLocking);
     }
 
+    /**
+     * @return whether the annotation cache entries of changed files are updated incrementally
+     */
+    public boolean isIncrementalAnnotationCache() {
+        return syncReadConfiguration(Configuration::isIncrementalAnnotationCache);
+    }
+
+    public void setIncrementalAnnotationCache(boolean flag) {
+        syncWriteConfiguration(flag, Configuration::setIncrementalAnnotationCache);
+    }
+
     public boolean isIndexVersionedFilesOnly() {
         return syncReadConfiguration(Configuration::isIndexVersionedFilesOnly);
     }
@@ -1227,6 +1363,33 @@ public final class RuntimeEnvironment {
                 parallelism;
     }
 
+    /**
+     * Gets the value of {@link Configuration#getHistoryChunkParallelism()} -- or
+     * if zero, then as a default 1, i.e. the history chunks of a repository are retrieved sequentially.
+     * The repositories themselves are processed in parallel, see {@link #getHistoryParallelism()},
+     * and share the threads retrieving the chunks.
+     *
+     * @return a natural number &gt;= 1
+     */
+    public int getHistoryChunkParallelism() {
+        return max(syncReadConfiguration(Configuration::getHistoryChunkParallelism), 1);
+    }
+
+    public void setHistoryChunkParallelism(int parallelism) {
+        syncWriteConfiguration(parallelism, Configuration::setHistoryChunkParallelism);
+    }
+
+    /**
+     * Gets the value of {@link Configuration#getAnnotationCacheParallelism()} -- or
+     * if zero, then as a default gets the number of available processors halved.
+     *
+     * @return a natural number &gt;= 1
+     */
+    public int getAnnotationCacheParallelism() {
+        int parallelism = syncReadConfiguration(Configuration::getAnnotationCacheParallelism);
+        return parallelism < 1 ? max(Runtime.getRuntime().availableProcessors() / 2, 1) : parallelism;
+    }
+
     public boolean isTagsEnabled() {
         return syncReadConfiguration(Configuration::isTagsEnabled);
     }
@@ -1397,6 +1560,14 @@ public final class RuntimeEnvironment {
         syncWriteConfiguration(threadCount, Configuration::setMaxDirectoryListingThreadCount);
     }
 
+    public int getMaxResultsRenderingThreadCount() {
+        return syncReadConfiguration(Configuration::getMaxResultsRenderingThreadCount);
+    }
+
+    public void setMaxResultsRenderingThreadCount(int threadCount) {
+        syncWriteConfiguration(threadCount, Configuration::setMaxResultsRenderingThreadCount);
+    }
+
     public int getCurrentIndexedCollapseThreshold() {
         return syncReadConfiguration(Configuration::getCurrentIndexedCollapseThreshold);
     }
@@ -1535,6 +1706,117 @@ public final class RuntimeEnvironment {
         syncWriteConfiguration(flag, Configuration::setUseHistoryCacheForDirectoryListing);
     }
 
+    public boolean isStreamingIndexing() {
+        return syncReadConfiguration(Configuration::isStreamingIndexing);
+    }
+
+    public void setStreamingIndexing(boolean flag) {
+        syncWriteConfiguration(flag, Configuration::setStreamingIndexing);
+    }
+
+    public boolean isPipelinedIndexing() {
+        return syncReadConfiguration(Configuration::isPipelinedIndexing);
+    }
+
+    public void setPipelinedIndexing(boolean flag) {
+        syncWriteConfiguration(flag, Configuration::setPipelinedIndexing);
+    }
+
+    public boolean isCtagsCacheEnabled() {
+        return syncReadConfiguration(c -> c.getCacheConfig().isCtagsEnabled());
+    }
+
+    public void setCtagsCacheEnabled(boolean flag) {
+        syncWriteConfiguration(flag, (c, v) -> c.getCacheConfig().setCtagsEnabled(v));
+    }
+
+    public int getCtagsCacheMaxSize() {
+        return syncReadConfiguration(c -> c.getCacheConfig().getCtagsMaxSize());
+    }
+
+    public void setCtagsCacheMaxSize(int size) {
+        syncWriteConfiguration(size, (c, v) -> c.getCacheConfig().setCtagsMaxSize(v));
+    }
+
+    public boolean isParallelTraversal() {
+        return syncReadConfiguration(Configuration::isParallelTraversal);
+    }
+
+    public void setParallelTraversal(boolean flag) {
+        syncWriteConfiguration(flag, Configuration::setParallelTraversal);
+    }
+
+    public boolean isParallelResultsRendering() {
+        return syncReadConfiguration(Configuration::isParallelResultsRendering);
+    }
+
+    public void setParallelResultsRendering(boolean flag) {
+        syncWriteConfiguration(flag, Configuration::setParallelResultsRendering);
+    }
+
+    /**
+     * @return whether the history cache is stored per repository rather than per source file
+     */
+    public boolean isPackedHistoryCache() {
+        return syncReadConfiguration(Configuration::isPackedHistoryCache);
+    }
+
+    public void setPackedHistoryCache(boolean flag) {
+        syncWriteConfiguration(flag, Configuration::setPackedHistoryCache);
+    }
+
+    /**
+     * @return whether the xrefs are stored in the packed form, see {@link org.opengrok.indexer.index.PackedXrefStore}
+     */
+    public boolean isPackedXref() {
+        return syncReadConfiguration(Configuration::isPackedXref);
+    }
+
+    public void setPackedXref(boolean flag) {
+        syncWriteConfiguration(flag, Configuration::setPackedXref);
+    }
+
+    /**
+     * @return time in seconds after which an unused JGit repository is closed
+     */
+    public int getGitRepositoryIdleTimeout() {
+        return syncReadConfiguration(Configuration::getGitRepositoryIdleTimeout);
+    }
+
+    public void setGitRepositoryIdleTimeout(int timeout) {
+        syncWriteConfiguration(timeout, Configuration::setGitRepositoryIdleTimeout);
+    }
+
+    /**
+     * @return maximum size (in MB) of the pack file data cached by JGit
+     */
+    public int getGitPackedGitLimit() {
+        return syncReadConfiguration(Configuration::getGitPackedGitLimit);
+    }
+
+    public void setGitPackedGitLimit(int limit) {
+        syncWriteConfiguration(limit, Configuration::setGitPackedGitLimit);
+    }
+
+    public boolean isGitPackedGitMMAP() {
+        return syncReadConfiguration(Configuration::isGitPackedGitMMAP);
+    }
+
+    public void setGitPackedGitMMAP(boolean flag) {
+        syncWriteConfiguration(flag, Configuration::setGitPackedGitMMAP);
+    }
+
+    /**
+     * @return maximum size (in MB) of the delta base cache of JGit
+     */
+    public int getGitDeltaBaseCacheLimit() {
+        return syncReadConfiguration(Configuration::getGitDeltaBaseCacheLimit);
+    }
+
+    public void setGitDeltaBaseCacheLimit(int limit) {
+        syncWriteConfiguration(limit, Configuration::setGitDeltaBaseCacheLimit);
+    }
+
     public FileCollector getFileCollector(String projectName) {
         return fileCollectorMap.get(projectName);
     }
@@ -1896,6 +2178,7 @@ public final class RuntimeEnvironment {
                 maybeRefreshSearcherManager(searcherManagerMap.get(proj));
             }
         }
+        multiSearcherCache.clear();
     }
 
     public void maybeRefreshIndexSearchers() {
@@ -1904,6 +2187,7 @@ public final class RuntimeEnvironment {
         for (Map.Entry<String, SearcherManager> entry : searcherManagerMap.entrySet()) {
             maybeRefreshSearcherManager(entry.getValue());
         }
+        multiSearcherCache.clear();
         stat.report(LOGGER, "Done refreshing searcher managers");
     }
 
@@ -1913,6 +2197,7 @@ public final class RuntimeEnvironment {
             sm.close();
         }
         searcherManagerMap.clear();
+        multiSearcherCache.clear();
     }
 
     /**
@@ -1996,26 +2281,48 @@ public final class RuntimeEnvironment {
         for (String proj : toRemove) {
             searcherManagerMap.remove(proj);
         }
+        if (!toRemove.isEmpty()) {
+            multiSearcherCache.clear();
+        }
     }
 
     /**
-     * Return collection of IndexReader objects as MultiReader object for given list of projects.
-     * The caller is responsible for releasing the {@link SuperIndexSearcher} objects.
+     * Return IndexSearcher over MultiReader for given list of projects. The searchers are cached so that
+     * repeated searches of the same set of projects reuse the same searcher as long as none of the indexes
+     * is refreshed.
+     * The caller is responsible for releasing the {@link SuperIndexSearcher} objects
+     * and must not use the returned searcher after that.
      *
      * @param projects     list of projects
      * @param searcherList each SuperIndexSearcher produced will be put into this list
-     * @return MultiReader for the projects
+     * @return IndexSearcher for the projects or {@code null} on error
      */
-    public MultiReader getMultiReader(SortedSet<String> projects, List<SuperIndexSearcher> searcherList) {
+    @Nullable
+    public IndexSearcher getMultiSearcher(SortedSet<String> projects, List<SuperIndexSearcher> searcherList) {
+        long generation = multiSearcherCache.getGeneration();
+        List<IndexReader> subreaders = getSubReaders(projects, searcherList);
+        if (subreaders == null) {
+            return null;
+        }
+
+        try {
+            return multiSearcherCache.get(subreaders, generation, getIndexSearcherFactory());
+        } catch (IOException ex) {
+            LOGGER.log(Level.SEVERE,
+                    "cannot construct MultiReader for set of projects", ex);
+            return null;
+        }
+    }
 
-        IndexReader[] subreaders = new IndexReader[projects.size()];
-        int ii = 0;
+    @Nullable
+    private List<IndexReader> getSubReaders(SortedSet<String> projects, List<SuperIndexSearcher> searcherList) {
+        List<IndexReader> subreaders = new ArrayList<>(projects.size());
 
         // TODO might need to rewrite to Project instead of String, need changes in projects.jspf too.
         for (String proj : projects) {
             try {
                 SuperIndexSearcher searcher = getSuperIndexSearcher(proj);
-                subreaders[ii++] = searcher.getIndexReader();
+                subreaders.add(searcher.getIndexReader());
                 searcherList.add(searcher);
             } catch (IOException | NullPointerException ex) {
                 LOGGER.log(Level.SEVERE, ex, () ->
@@ -2023,14 +2330,7 @@ public final class RuntimeEnvironment {
                 return null;
             }
         }
-        MultiReader multiReader = null;
-        try {
-            multiReader = new MultiReader(subreaders, true);
-        } catch (IOException ex) {
-            LOGGER.log(Level.SEVERE,
-                    "cannot construct MultiReader for set of projects", ex);
-        }
-        return multiReader;
+        return subreaders;
     }
 
     public void startExpirationTimer() {
@@ -2123,6 +2423,14 @@ public final class RuntimeEnvironment {
         syncWriteConfiguration(statsdConfig, Configuration::setStatsdConfig);
     }
 
+    public CacheConfig getCacheConfig() {
+        return syncReadConfiguration(Configuration::getCacheConfig);
+    }
+
+    public void setCacheConfig(CacheConfig cacheConfig) {
+        syncWriteConfiguration(cacheConfig, Configuration::setCacheConfig);
+    }
+
     /**
      * Applies the specified function to the runtime configuration, after having
      * obtained the configuration read-lock (and releasing afterward).
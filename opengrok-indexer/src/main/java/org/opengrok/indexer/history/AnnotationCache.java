@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2021, 2022, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2021, 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.history;
 
@@ -40,6 +40,15 @@ public interface AnnotationCache extends Cache {
     @Nullable
     Annotation get(File file, String rev) throws CacheException;
 
+    /**
+     * Retrieve annotation from cache regardless of its revision.
+     * @param file file under source root to get the annotation for
+     * @return {@link Annotation} object with the revision it was stored for or <code>null</code>
+     * @throws CacheException on error
+     */
+    @Nullable
+    Annotation readAnnotation(File file) throws CacheException;
+
     /**
      * Store annotation for file into cache.
      * @param file file under source root to store the annotation for
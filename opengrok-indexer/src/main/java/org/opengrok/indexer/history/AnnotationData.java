@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2007, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2007, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2023, Ric Harris <harrisric@users.noreply.github.com>.
  */
 package org.opengrok.indexer.history;
@@ -64,8 +64,8 @@ public class AnnotationData implements Serializable {
     /**
      * The revision it was generated for is used for staleness check in {@link FileAnnotationCache#get(File, String)}.
      * Storing it in the filename would not work well ({@link org.opengrok.indexer.util.TandemPath}
-     * shortening with very long filenames), on the other hand it is necessary to deserialize the object
-     * to tell whether it is stale.
+     * shortening with very long filenames), instead it is stored in the header of the cache file
+     * (see {@link AnnotationFormat}) so that it can be read without deserializing the whole object.
      */
     String revision;
 
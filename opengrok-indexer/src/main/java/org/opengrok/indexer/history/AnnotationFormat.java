@@ -0,0 +1,220 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.history;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.InputStreamDataInput;
+import org.apache.lucene.store.OutputStreamDataOutput;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Compact binary representation of {@link AnnotationData} used by {@link FileAnnotationCache}.
+ * <p>
+ * The data starts with a magic byte, a format version byte and the revision the annotation was generated for,
+ * so that the staleness of the cache entry can be checked by reading just the beginning of the file.
+ * Then follows a string table (each distinct revision, author and file name is stored once) and the line
+ * attributions as runs of consecutive lines with the same revision and author, referring to the strings
+ * by index (zero stands for {@code null}). The integers are written as variable length integers.
+ * </p>
+ * <p>
+ * The Smile encoding used by previous versions starts with different bytes, so it can be recognized
+ * with {@link #isCompact(InputStream)} and read with Jackson.
+ * </p>
+ */
+final class AnnotationFormat {
+
+    static final byte MAGIC = (byte) 0x4F;
+    static final byte VERSION = 1;
+
+    /**
+     * Size of the buffer sufficient for reading the revision with single read.
+     */
+    static final int HEADER_BUFFER_SIZE = 512;
+
+    private AnnotationFormat() {
+        // private to enforce static
+    }
+
+    /**
+     * Consecutive lines with the same attribution.
+     */
+    private static final class Run {
+        private final AnnotationLine line;
+        private int length = 1;
+
+        Run(AnnotationLine line) {
+            this.line = line;
+        }
+
+        boolean matches(AnnotationLine other) {
+            return line.isEnabled() == other.isEnabled() &&
+                    Objects.equals(line.getRevision(), other.getRevision()) &&
+                    Objects.equals(line.getDisplayRevision(), other.getDisplayRevision()) &&
+                    Objects.equals(line.getAuthor(), other.getAuthor());
+        }
+    }
+
+    /**
+     * @param data annotation data
+     * @param outputStream output stream
+     * @throws IOException on error
+     */
+    static void write(AnnotationData data, OutputStream outputStream) throws IOException {
+        Map<String, Integer> indexes = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        List<Run> runs = new ArrayList<>();
+        Run run = null;
+        for (AnnotationLine line : data.getLines()) {
+            if (run != null && run.matches(line)) {
+                run.length++;
+                continue;
+            }
+            run = new Run(line);
+            runs.add(run);
+            add(indexes, strings, line.getRevision());
+            add(indexes, strings, getDisplayRevision(line));
+            add(indexes, strings, line.getAuthor());
+        }
+        add(indexes, strings, data.getFilename());
+
+        DataOutput out = new OutputStreamDataOutput(outputStream);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeString(data.getRevision());
+        out.writeVInt(strings.size());
+        for (String str : strings) {
+            out.writeString(str);
+        }
+        out.writeVInt(indexOf(indexes, data.getFilename()));
+        out.writeVInt(data.getWidestRevision());
+        out.writeVInt(data.getWidestAuthor());
+        out.writeVInt(runs.size());
+        for (Run r : runs) {
+            out.writeVInt(r.length);
+            out.writeVInt(indexOf(indexes, r.line.getRevision()));
+            out.writeVInt(indexOf(indexes, getDisplayRevision(r.line)));
+            out.writeVInt(indexOf(indexes, r.line.getAuthor()));
+            out.writeByte(r.line.isEnabled() ? (byte) 1 : 0);
+        }
+    }
+
+    /**
+     * @return display revision if it differs from the revision, {@code null} otherwise
+     */
+    @Nullable
+    private static String getDisplayRevision(AnnotationLine line) {
+        String displayRevision = line.getDisplayRevision();
+        return Objects.equals(displayRevision, line.getRevision()) ? null : displayRevision;
+    }
+
+    private static void add(Map<String, Integer> indexes, List<String> strings, @Nullable String str) {
+        if (str != null) {
+            indexes.computeIfAbsent(str, s -> {
+                strings.add(s);
+                return strings.size();
+            });
+        }
+    }
+
+    private static int indexOf(Map<String, Integer> indexes, @Nullable String str) {
+        return str == null ? 0 : indexes.get(str);
+    }
+
+    /**
+     * Check whether the stream contains data in this format. If so, the header is consumed,
+     * otherwise the stream is reset to its beginning.
+     * @param in input stream supporting {@link InputStream#mark(int)}
+     * @return whether the data is in this format
+     * @throws IOException on I/O error or if the data is in unsupported version of this format
+     */
+    static boolean isCompact(InputStream in) throws IOException {
+        in.mark(2);
+        int magic = in.read();
+        if (magic != MAGIC) {
+            in.reset();
+            return false;
+        }
+        int version = in.read();
+        if (version != VERSION) {
+            throw new IOException(String.format("unsupported annotation format version %d", version));
+        }
+        return true;
+    }
+
+    /**
+     * @param in input stream positioned after the header, see {@link #isCompact(InputStream)}
+     * @return the revision the annotation was generated for
+     * @throws IOException on error
+     */
+    static String readRevision(InputStream in) throws IOException {
+        return new InputStreamDataInput(in).readString();
+    }
+
+    /**
+     * @param in input stream positioned after the header, see {@link #isCompact(InputStream)}
+     * @return annotation data
+     * @throws IOException on error
+     */
+    static AnnotationData read(InputStream in) throws IOException {
+        try {
+            DataInput input = new InputStreamDataInput(in);
+            String revision = input.readString();
+            int count = input.readVInt();
+            String[] strings = new String[count + 1];
+            for (int i = 1; i <= count; i++) {
+                strings[i] = input.readString();
+            }
+
+            AnnotationData data = new AnnotationData(strings[input.readVInt()]);
+            data.setRevision(revision);
+            int widestRevision = input.readVInt();
+            int widestAuthor = input.readVInt();
+            int runs = input.readVInt();
+            for (int i = 0; i < runs; i++) {
+                int length = input.readVInt();
+                String lineRevision = strings[input.readVInt()];
+                String displayRevision = strings[input.readVInt()];
+                String author = strings[input.readVInt()];
+                boolean enabled = input.readByte() != 0;
+                for (int j = 0; j < length; j++) {
+                    data.addLine(new AnnotationLine(lineRevision, author, enabled, displayRevision));
+                }
+            }
+            data.setWidestRevision(widestRevision);
+            data.setWidestAuthor(widestAuthor);
+            return data;
+        } catch (RuntimeException e) {
+            throw new IOException("corrupted annotation", e);
+        }
+    }
+}
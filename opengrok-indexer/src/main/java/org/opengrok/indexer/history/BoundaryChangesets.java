@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2021, 2023, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2021, 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.history;
 
@@ -38,9 +38,20 @@ import java.util.logging.Logger;
  * Helper class to split sequence of VCS changesets into number of intervals.
  * This is then used in {@link Repository#createCache(HistoryCache, String)}
  * to store history in chunks, for VCS repositories that support this.
+ * <p>
+ * The intervals contain at most {@link RepositoryWithPerPartesHistory#getPerPartesCount()} changesets
+ * of usual size. If the repository reports the number of files changed by a changeset, large changesets
+ * count as multiple ones (one per {@link #FILES_PER_CHANGESET} files) so that the chunks with large changesets
+ * contain fewer changesets.
+ * </p>
  */
 public class BoundaryChangesets {
-    private int cnt = 0;
+    /**
+     * Number of changed files a changeset is allowed to have to count as single changeset.
+     */
+    static final int FILES_PER_CHANGESET = 64;
+
+    private int weight = 0;
     private final List<String> result = new ArrayList<>();
 
     private final int maxCount;
@@ -66,7 +77,7 @@ public class BoundaryChangesets {
     }
 
     private void reset() {
-        cnt = 0;
+        weight = 0;
         result.clear();
     }
 
@@ -78,10 +89,21 @@ public class BoundaryChangesets {
     static class IdWithProgress {
         private final Progress progress;
         private final String id;
+        private final int fileCount;
 
         IdWithProgress(String id, Progress progress) {
+            this(id, progress, 0);
+        }
+
+        /**
+         * @param id changeset ID
+         * @param progress progress
+         * @param fileCount number of files changed in the changeset, 0 if not known
+         */
+        IdWithProgress(String id, Progress progress, int fileCount) {
             this.id = id;
             this.progress = progress;
+            this.fileCount = fileCount;
         }
 
         public String getId() {
@@ -91,6 +113,10 @@ public class BoundaryChangesets {
         public Progress getProgress() {
             return progress;
         }
+
+        public int getFileCount() {
+            return fileCount;
+        }
     }
 
     /**
@@ -122,10 +148,13 @@ public class BoundaryChangesets {
     }
 
     private void visit(IdWithProgress arg) {
-        if (cnt != 0 && cnt % maxCount == 0) {
+        // The changesets are visited from the newest so the boundary changeset belongs to the older interval.
+        int changesetWeight = 1 + arg.getFileCount() / FILES_PER_CHANGESET;
+        if (weight > 0 && weight + changesetWeight > maxCount) {
             result.add(arg.getId());
+            weight = 0;
         }
-        cnt++;
+        weight += changesetWeight;
         arg.getProgress().increment();
     }
 }
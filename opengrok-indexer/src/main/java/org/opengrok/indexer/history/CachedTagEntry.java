@@ -0,0 +1,65 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.history;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Tag class for the tags read from the history cache, where the repository specific tag classes are not available.
+ * Like the repository specific classes, tags of repositories with linear revision numbering are compared with
+ * the leading number of the revision of the history entry (e.g. {@code 13} of Mercurial revision
+ * {@code 13:3d386f6bd848}), otherwise the dates are compared.
+ */
+class CachedTagEntry extends TagEntry {
+
+    private CachedTagEntry(int revision, String tags) {
+        super(revision, tags);
+    }
+
+    private CachedTagEntry(Date date, String tags) {
+        super(date, tags);
+    }
+
+    @JsonCreator
+    static CachedTagEntry create(@JsonProperty("revision") int revision, @JsonProperty("date") Date date,
+                                 @JsonProperty("tags") String tags) {
+        if (revision != NOREV) {
+            return new CachedTagEntry(revision, tags);
+        }
+        return new CachedTagEntry(date, tags);
+    }
+
+    @Override
+    public int compareTo(HistoryEntry that) {
+        if (this.revision != NOREV) {
+            String revision = that.getRevision();
+            int colon = revision.indexOf(':');
+            return Integer.compare(this.revision, Integer.parseInt(colon < 0 ? revision :
+                    revision.substring(0, colon)));
+        }
+        return this.date.compareTo(that.getDate());
+    }
+}
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2021, 2024, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2021, 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.history;
 
@@ -30,13 +30,20 @@ import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.jetbrains.annotations.Nullable;
-import org.jetbrains.annotations.VisibleForTesting;
 import org.opengrok.indexer.Metrics;
 import org.opengrok.indexer.logger.LoggerFactory;
 import org.opengrok.indexer.util.Statistics;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -67,15 +74,23 @@ public class FileAnnotationCache extends AbstractCache implements AnnotationCach
 
     /**
      * Read serialized {@link AnnotationData} from a file and create {@link Annotation} instance out of it.
+     * Both the {@link AnnotationFormat} and the Smile encoding used by previous versions are recognized.
      */
     static Annotation readCache(File file) throws IOException {
-        ObjectMapper mapper = new SmileMapper();
-        return new Annotation(mapper.readValue(file, AnnotationData.class));
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            if (AnnotationFormat.isCompact(in)) {
+                return new Annotation(AnnotationFormat.read(in));
+            }
+            ObjectMapper mapper = new SmileMapper();
+            return new Annotation(mapper.readValue(in, AnnotationData.class));
+        }
     }
 
     /**
-     * Retrieve revision from the cache for given file. This is done in a fashion that keeps I/O low.
-     * Assumes that {@link AnnotationData#revision} is serialized in the cache file as the first member.
+     * Retrieve revision from the cache for given file. This is done in a fashion that keeps I/O low:
+     * the revision is stored in the header of {@link AnnotationFormat}, which is read with single small read.
+     * For the Smile encoding used by previous versions, assumes that {@link AnnotationData#revision}
+     * is serialized in the cache file as the first member.
      * @param file source root file
      * @return revision from the cache file or {@code null}
      * @throws CacheException on error
@@ -89,8 +104,21 @@ public class FileAnnotationCache extends AbstractCache implements AnnotationCach
             throw new CacheException("failed to get annotation cache file", e);
         }
 
+        try (InputStream in = new BufferedInputStream(new FileInputStream(cacheFile),
+                AnnotationFormat.HEADER_BUFFER_SIZE)) {
+            if (AnnotationFormat.isCompact(in)) {
+                return AnnotationFormat.readRevision(in);
+            }
+            return getSmileRevision(in, cacheFile);
+        } catch (IOException e) {
+            throw new CacheException(e);
+        }
+    }
+
+    @Nullable
+    private static String getSmileRevision(InputStream in, File cacheFile) throws IOException {
         SmileFactory factory = new SmileFactory();
-        try (SmileParser parser = factory.createParser(cacheFile)) {
+        try (SmileParser parser = factory.createParser(in)) {
             parser.nextToken();
             while (parser.getCurrentToken() != null) {
                 if (parser.getCurrentToken().equals(JsonToken.FIELD_NAME)) {
@@ -111,8 +139,6 @@ public class FileAnnotationCache extends AbstractCache implements AnnotationCach
                 LOGGER.log(Level.WARNING, "the first serialized field is not ''revision'' in ''{0}''", cacheFile);
                 return null;
             }
-        } catch (IOException e) {
-            throw new CacheException(e);
         }
     }
 
@@ -121,8 +147,8 @@ public class FileAnnotationCache extends AbstractCache implements AnnotationCach
         return "";
     }
 
-    @VisibleForTesting
-    Annotation readAnnotation(File file) throws CacheException {
+    @Override
+    public Annotation readAnnotation(File file) throws CacheException {
         File cacheFile;
         try {
             cacheFile = getCachedFile(file);
@@ -142,14 +168,15 @@ public class FileAnnotationCache extends AbstractCache implements AnnotationCach
     }
 
     /**
-     * This is potentially expensive operation as the cache entry has to be retrieved from disk
-     * in order to tell whether it is stale or not.
+     * Compares the revision stored in the cache entry (see {@link #getRevision(File)}) with the latest revision
+     * of the file, without reading the annotation itself.
      * @param file source file
      * @return indication whether the cache entry is fresh
      */
     public boolean isUpToDate(File file) {
         try {
-            return get(file, null) != null;
+            String storedRevision = getRevision(file);
+            return storedRevision != null && storedRevision.equals(LatestRevisionUtil.getLatestRevision(file));
         } catch (CacheException e) {
             return false;
         }
@@ -198,9 +225,21 @@ public class FileAnnotationCache extends AbstractCache implements AnnotationCach
         return annotation;
     }
 
+    /**
+     * Write the annotation to temporary file and move it into place so that the readers never see partially
+     * written file and the concurrent writers do not interleave.
+     */
     private void writeCache(AnnotationData annotationData, File outfile) throws IOException {
-        ObjectMapper mapper = new SmileMapper();
-        mapper.writeValue(outfile, annotationData);
+        File tempFile = File.createTempFile("ogtmp", null, outfile.getParentFile());
+        try {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+                AnnotationFormat.write(annotationData, out);
+            }
+            Files.move(tempFile.toPath(), outfile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
     }
 
     @SuppressWarnings("java:S1764")
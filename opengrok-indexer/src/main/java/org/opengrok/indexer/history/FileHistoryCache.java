@@ -18,39 +18,57 @@
  */
 
 /*
- * Copyright (c) 2008, 2024, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2018, 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.history;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.dataformat.smile.SmileFactory;
@@ -79,12 +97,36 @@ class FileHistoryCache extends AbstractCache implements HistoryCache {
 
     private static final String HISTORY_CACHE_DIR_NAME = "historycache";
     private static final String LATEST_REV_FILE_NAME = "OpenGroklatestRev";
+    private static final String TAGS_FILE_NAME = "OpenGroktags";
+
+    /**
+     * Maximum number of chunks of a cache file. When exceeded, the file is rewritten as single chunk
+     * so that the cost of the rewrite is spread over many updates.
+     */
+    private static final int MAX_CHUNKS = 64;
+
+    /**
+     * The cache files start with this magic number followed by the identifier of the file,
+     * see {@link #writeHistoryTo(History, File)}. The files without it were written as a whole
+     * by the previous versions.
+     */
+    private static final int CHUNKED_MAGIC = 0x4f474843;
+    private static final int CHUNKED_HEADER_LENGTH = 12;
+    private static final long LEGACY_ID = 0;
 
     private final PathAccepter pathAccepter = env.getPathAccepter();
 
     private Counter fileHistoryCacheHits;
     private Counter fileHistoryCacheMisses;
 
+    /**
+     * Tag lists read from the history cache, keyed by the path of the repository cache directory.
+     */
+    private final Map<String, CachedTagList> cachedTagLists = new ConcurrentHashMap<>();
+
+    private record CachedTagList(long lastModified, NavigableSet<TagEntry> tags) {
+    }
+
     /**
      * Generate history cache for single renamed file.
      * @param filename file path
@@ -128,11 +170,6 @@ class FileHistoryCache extends AbstractCache implements HistoryCache {
             return;
         }
 
-        // Assign tags to changesets they represent.
-        if (repository.isTagsEnabled() && repository.hasFileBasedTags()) {
-            repository.assignTagsInHistory(history);
-        }
-
         storeFile(history, file, repository, !renamed);
     }
 
@@ -169,46 +206,76 @@ class FileHistoryCache extends AbstractCache implements HistoryCache {
     /**
      * Read complete history from the cache.
      */
-    static History readHistory(File cacheFile, Repository repository) throws IOException {
-        SmileFactory factory = new SmileFactory();
-        ObjectMapper mapper = new SmileMapper();
-        List<HistoryEntry> historyEntryList = new ArrayList<>();
+    History readHistory(File cacheFile, Repository repository) throws IOException {
+        History history = new History(readHistoryEntries(cacheFile));
 
-        try (SmileParser parser = factory.createParser(cacheFile)) {
-            parser.setCodec(mapper);
-            Iterator<HistoryEntry> historyEntryIterator = parser.readValuesAs(HistoryEntry.class);
-            historyEntryIterator.forEachRemaining(historyEntryList::add);
-        }
-
-        History history = new History(historyEntryList);
-
-        // Read tags from separate file.
         if (repository.isTagsEnabled() && repository.hasFileBasedTags()) {
             File tagFile = getTagsFile(cacheFile);
-            try (SmileParser parser = factory.createParser(tagFile)) {
-                parser.setCodec(mapper);
-                Map<String, String> tags = parser.readValueAs(new TypeReference<HashMap<String, String>>() {
-                });
-                history.setTags(tags);
-            } catch (IOException ioe) {
-                // Handle the exception here gracefully - it impacts the history only partially.
-                LOGGER.log(Level.WARNING, "failed to read tags from ''{0}''", tagFile);
+            if (tagFile.exists()) {
+                // Read tags stored for the file by previous versions.
+                SmileFactory factory = new SmileFactory();
+                try (SmileParser parser = factory.createParser(tagFile)) {
+                    parser.setCodec(new SmileMapper());
+                    Map<String, String> tags = parser.readValueAs(new TypeReference<HashMap<String, String>>() {
+                    });
+                    history.setTags(tags);
+                } catch (IOException ioe) {
+                    // Handle the exception here gracefully - it impacts the history only partially.
+                    LOGGER.log(Level.WARNING, "failed to read tags from ''{0}''", tagFile);
+                }
+            } else {
+                NavigableSet<TagEntry> tagList = getTagList(repository);
+                if (tagList != null) {
+                    Repository.assignTagsInHistory(history, tagList);
+                }
             }
         }
 
         return history;
     }
 
+    /**
+     * Read the history entries from the chunks of the cache file, newest chunk first.
+     */
+    private static List<HistoryEntry> readHistoryEntries(File cacheFile) throws IOException {
+        SmileFactory factory = new SmileFactory();
+        ObjectMapper mapper = new SmileMapper();
+        List<HistoryEntry> historyEntryList = new ArrayList<>();
+
+        try (ChunkedFile chunkedFile = ChunkedFile.open(cacheFile)) {
+            RandomAccessFile file = chunkedFile.file();
+            long[] chunks = chunkedFile.index().offsets();
+            for (int i = chunks.length - 2; i >= 0; i--) {
+                byte[] bytes = new byte[Math.toIntExact(chunks[i + 1] - chunks[i])];
+                file.seek(chunks[i]);
+                file.readFully(bytes);
+                try (SmileParser parser = factory.createParser(bytes)) {
+                    parser.setCodec(mapper);
+                    Iterator<HistoryEntry> historyEntryIterator = parser.readValuesAs(HistoryEntry.class);
+                    historyEntryIterator.forEachRemaining(historyEntryList::add);
+                }
+            }
+        }
+
+        return historyEntryList;
+    }
+
     static HistoryEntry readLastHistoryEntry(File cacheFile) throws IOException {
         SmileFactory factory = new SmileFactory();
         ObjectMapper mapper = new SmileMapper();
         HistoryEntry historyEntry = null;
 
-        try (SmileParser parser = factory.createParser(cacheFile)) {
-            parser.setCodec(mapper);
-            Iterator<HistoryEntry> historyEntryIterator = parser.readValuesAs(HistoryEntry.class);
-            if (historyEntryIterator.hasNext()) {
-                historyEntry = historyEntryIterator.next();
+        // The newest entry is the first one in the last chunk.
+        try (ChunkedFile chunkedFile = ChunkedFile.open(cacheFile)) {
+            long[] chunks = chunkedFile.index().offsets();
+            InputStream inputStream = Channels.newInputStream(
+                    chunkedFile.file().getChannel().position(chunks[chunks.length - 2]));
+            try (SmileParser parser = factory.createParser(inputStream)) {
+                parser.setCodec(mapper);
+                Iterator<HistoryEntry> historyEntryIterator = parser.readValuesAs(HistoryEntry.class);
+                if (historyEntryIterator.hasNext()) {
+                    historyEntry = historyEntryIterator.next();
+                }
             }
         }
 
@@ -216,7 +283,8 @@ class FileHistoryCache extends AbstractCache implements HistoryCache {
     }
 
     /**
-     * Write serialized object to file.
+     * Write serialized object to file. The file starts with header which identifies it so that the chunk index
+     * of the file it replaces does not apply to it, see {@link #readChunkIndex(File, RandomAccessFile)}.
      * @param history {@link History} instance to be stored
      * @param outputFile output file
      * @throws IOException on error
@@ -224,7 +292,10 @@ class FileHistoryCache extends AbstractCache implements HistoryCache {
     public static void writeHistoryTo(History history, File outputFile) throws IOException {
         ObjectWriter objectWriter = getObjectWriter();
 
-        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(outputFile)))) {
+            outputStream.writeInt(CHUNKED_MAGIC);
+            outputStream.writeLong(ThreadLocalRandom.current().nextLong(LEGACY_ID + 1, Long.MAX_VALUE));
             for (HistoryEntry historyEntry : history.getHistoryEntries()) {
                 byte[] bytes = objectWriter.writeValueAsBytes(historyEntry);
                 outputStream.write(bytes);
@@ -232,22 +303,7 @@ class FileHistoryCache extends AbstractCache implements HistoryCache {
         }
     }
 
-    public static void writeTagsTo(File outputFile, History history) throws IOException {
-        SmileFactory smileFactory = new SmileFactory();
-        // need header to enable shared string values
-        smileFactory.configure(SmileGenerator.Feature.WRITE_HEADER, true);
-        smileFactory.configure(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES, false);
-
-        ObjectMapper mapper = new SmileMapper(smileFactory);
-        ObjectWriter objectWriter = mapper.writer().forType(HashMap.class);
-
-        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputFile))) {
-            byte[] bytes = objectWriter.writeValueAsBytes(history.getTags());
-            outputStream.write(bytes);
-        }
-    }
-
-    private static ObjectWriter getObjectWriter() {
+    static ObjectWriter getObjectWriter() {
         SmileFactory smileFactory = new SmileFactory();
         // need header to enable shared string values
         smileFactory.configure(SmileGenerator.Feature.WRITE_HEADER, true);
@@ -280,6 +336,176 @@ class FileHistoryCache extends AbstractCache implements HistoryCache {
         return new File(file.getAbsolutePath() + ".t");
     }
 
+    private static File getChunkIndexFile(File file) {
+        return new File(file.getAbsolutePath() + ".i");
+    }
+
+    /**
+     * Chunk index of a cache file. The cache file consists of chunks of history entries, each appended
+     * by an incremental update. The entries in a chunk are ordered from newest to oldest, the chunks
+     * from oldest to newest.
+     * @param id identifier of the cache file, see {@link #writeHistoryTo(History, File)}
+     * @param offsets offsets of the chunks in the cache file followed by the offset of the end of the last chunk
+     * @param stored whether the index is stored in the chunk index file
+     */
+    record ChunkIndex(long id, long[] offsets, boolean stored) {
+    }
+
+    /**
+     * Cache file opened for reading together with its chunk index.
+     */
+    private record ChunkedFile(RandomAccessFile file, ChunkIndex index) implements Closeable {
+
+        static ChunkedFile open(File cacheFile) throws IOException {
+            // Retry if the file was replaced while the chunk index was read.
+            for (int attempt = 0; attempt < 3; attempt++) {
+                RandomAccessFile file = new RandomAccessFile(cacheFile, "r");
+                try {
+                    ChunkIndex index = readChunkIndex(cacheFile, file);
+                    if (index != null) {
+                        return new ChunkedFile(file, index);
+                    }
+                } catch (IOException e) {
+                    file.close();
+                    throw e;
+                }
+                file.close();
+            }
+            throw new IOException(String.format("cache file '%s' keeps changing", cacheFile));
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+
+    private static long readId(RandomAccessFile file) throws IOException {
+        if (file.length() < CHUNKED_HEADER_LENGTH) {
+            return LEGACY_ID;
+        }
+        file.seek(0);
+        if (file.readInt() != CHUNKED_MAGIC) {
+            return LEGACY_ID;
+        }
+        return file.readLong();
+    }
+
+    /**
+     * The chunk index file is stored before the first chunk is appended and updated after each append,
+     * so the readers never see partially appended chunk. It is not replaced when the cache file is rewritten
+     * as single chunk, the identifiers of the files tell whether it applies.
+     * @param cacheFile cache file
+     * @param file the cache file opened for reading
+     * @return the chunk index or {@code null} if the cache file was replaced since it was opened
+     * @throws IOException on error
+     */
+    @Nullable
+    private static ChunkIndex readChunkIndex(File cacheFile, RandomAccessFile file) throws IOException {
+        long id = readId(file);
+        long length = file.length();
+        if (id == LEGACY_ID) {
+            return new ChunkIndex(id, new long[]{0, length}, false);
+        }
+
+        ChunkIndex index = readChunkIndexFile(cacheFile);
+        if (index != null && index.id() == id) {
+            return index;
+        }
+        if (index != null) {
+            try (RandomAccessFile currentFile = new RandomAccessFile(cacheFile, "r")) {
+                if (readId(currentFile) != id) {
+                    // The chunk index might belong to the new file and the opened one might have chunks.
+                    return null;
+                }
+            } catch (FileNotFoundException e) {
+                return null;
+            }
+        }
+        // The file was written as a whole and no chunk was appended to it yet.
+        return new ChunkIndex(id, new long[]{CHUNKED_HEADER_LENGTH, length}, false);
+    }
+
+    @Nullable
+    private static ChunkIndex readChunkIndexFile(File cacheFile) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(getChunkIndexFile(cacheFile))))) {
+            long id = input.readLong();
+            long[] chunks = new long[input.readInt()];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = input.readLong();
+            }
+            return new ChunkIndex(id, chunks, true);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static void writeChunkIndex(File cacheFile, ChunkIndex index) throws IOException {
+        File outputFile = File.createTempFile("ogtmp", null, cacheFile.getParentFile());
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(outputFile)))) {
+                output.writeLong(index.id());
+                output.writeInt(index.offsets().length);
+                for (long chunk : index.offsets()) {
+                    output.writeLong(chunk);
+                }
+            }
+            Files.move(outputFile.toPath(), getChunkIndexFile(cacheFile).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(outputFile.toPath());
+        }
+    }
+
+    /**
+     * Append the history entries to the cache file as new chunk. Any bytes past the end of the last chunk
+     * (left by an append which did not complete) are overwritten. The new chunk becomes visible to the readers
+     * only once the returned chunk index is stored.
+     * @param history history entries to append, these have to be newer than those in the cache file
+     * @param cacheFile cache file
+     * @return chunk index of the cache file including the new chunk or {@code null} if the file
+     * has to be rewritten as a whole instead
+     * @throws IOException on error
+     */
+    @Nullable
+    static ChunkIndex appendChunk(History history, File cacheFile) throws IOException {
+        ChunkIndex index;
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile, "r")) {
+            index = readChunkIndex(cacheFile, file);
+        }
+        if (index == null || index.id() == LEGACY_ID || index.offsets().length - 1 >= MAX_CHUNKS) {
+            return null;
+        }
+        if (history.getHistoryEntries().isEmpty()) {
+            return index;
+        }
+        if (!index.stored()) {
+            // Without the chunk index the readers would read the appended bytes as part of the only chunk.
+            writeChunkIndex(cacheFile, index);
+        }
+
+        ObjectWriter objectWriter = getObjectWriter();
+        long[] chunks = index.offsets();
+        long end = chunks[chunks.length - 1];
+        long newEnd;
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(end);
+            channel.position(end);
+            OutputStream outputStream = new BufferedOutputStream(Channels.newOutputStream(channel));
+            for (HistoryEntry historyEntry : history.getHistoryEntries()) {
+                outputStream.write(objectWriter.writeValueAsBytes(historyEntry));
+            }
+            outputStream.flush();
+            newEnd = channel.position();
+        }
+
+        long[] newChunks = Arrays.copyOf(chunks, chunks.length + 1);
+        newChunks[chunks.length] = newEnd;
+        return new ChunkIndex(index.id(), newChunks, false);
+    }
+
     @Override
     public void storeFile(History history, File file, Repository repository) throws HistoryException {
         storeFile(history, file, repository, false);
@@ -313,6 +539,27 @@ class FileHistoryCache extends AbstractCache implements HistoryCache {
                     new Object[]{cacheFile, histNew.getRevisionList()});
         }
 
+        try {
+            // The tags are assigned when reading the history so that the update does not depend
+            // on the size of the existing history, see readHistory().
+            Files.deleteIfExists(getTagsFile(cacheFile).toPath());
+
+            // Append the new entries to the pre-existing cache file.
+            if (mergeHistory && cacheFile.exists()) {
+                ChunkIndex index = appendChunk(histNew, cacheFile);
+                if (index != null) {
+                    if (!index.stored()) {
+                        writeChunkIndex(cacheFile, index);
+                    }
+                    return;
+                }
+                // Rewrite the file as single chunk.
+                histNew.getHistoryEntries().addAll(readHistoryEntries(cacheFile));
+            }
+        } catch (IOException ioe) {
+            throw new HistoryException("Failed to write history", ioe);
+        }
+
         final File outputFile;
         try {
             outputFile = File.createTempFile("ogtmp", null, dir);
@@ -321,58 +568,9 @@ class FileHistoryCache extends AbstractCache implements HistoryCache {
             throw new HistoryException("Failed to write history", ioe);
         }
 
-        boolean assignTags = repository.isTagsEnabled() && repository.hasFileBasedTags();
-
-        // Append the contents of the pre-existing cache file to the temporary file.
-        if (mergeHistory && cacheFile.exists()) {
-            try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputFile, true))) {
-                SmileFactory factory = new SmileFactory();
-                ObjectMapper mapper = new SmileMapper();
-                ObjectWriter objectWriter = getObjectWriter();
-                try (SmileParser parser = factory.createParser(cacheFile)) {
-                    parser.setCodec(mapper);
-                    Iterator<HistoryEntry> historyEntryIterator = parser.readValuesAs(HistoryEntry.class);
-                    while (historyEntryIterator.hasNext()) {
-                        HistoryEntry historyEntry = historyEntryIterator.next();
-                        byte[] bytes = objectWriter.writeValueAsBytes(historyEntry);
-                        outputStream.write(bytes);
-                        if (assignTags) {
-                            histNew.getHistoryEntries().add(historyEntry);
-                        }
-                    }
-                }
-            } catch (IOException ioe) {
-                throw new HistoryException("Failed to write history", ioe);
-            }
-
-            // Re-tag the changesets in case there have been some new
-            // tags added to the repository. Technically we should just
-            // re-tag the last revision from the listOld however this
-            // does not solve the problem when listNew contains new tags
-            // retroactively tagging changesets from listOld, so we resort
-            // to this somewhat crude solution of re-tagging from scratch.
-            if (assignTags) {
-                histNew.strip();
-                repository.assignTagsInHistory(histNew);
-            }
-        }
-
         // Generate the file with a temporary name and move it into place when
         // done, so it is not necessary to protect the readers for partially updated
         // files.
-        if (assignTags) {
-            // Store tags in separate file.
-            // Ideally that should be done using the cycle above to avoid dealing with complete History instance.
-            File outputTagsFile = getTagsFile(outputFile);
-            try {
-                writeTagsTo(outputTagsFile, histNew);
-            } catch (IOException ioe) {
-                throw new HistoryException("Failed to write tags", ioe);
-            }
-
-            safelyRename(outputTagsFile, getTagsFile(cacheFile));
-        }
-
         safelyRename(outputFile, cacheFile);
     }
 
@@ -400,9 +598,12 @@ class FileHistoryCache extends AbstractCache implements HistoryCache {
      * and parsed into {@link HistoryEntry} structures and create hash map which
      * maps file names into list of HistoryEntry structures corresponding
      * to changesets in which the file was modified.
+     * @param history history of the repository
+     * @param map map to fill
+     * @param pathAccepter accepter of the files to store the history for
      * @return latest revision
      */
-    private String createFileMap(History history, HashMap<String, List<HistoryEntry>> map) {
+    static String createFileMap(History history, Map<String, List<HistoryEntry>> map, PathAccepter pathAccepter) {
         String latestRev = null;
         HashMap<String, Boolean> acceptanceCache = new HashMap<>();
 
@@ -480,7 +681,7 @@ class FileHistoryCache extends AbstractCache implements HistoryCache {
         }
 
         HashMap<String, List<HistoryEntry>> map = new HashMap<>();
-        String fileMapLatestRev = createFileMap(history, map);
+        String fileMapLatestRev = createFileMap(history, map, pathAccepter);
         if (history.getLatestRev() != null) {
             latestRev = history.getLatestRev();
         } else {
@@ -500,6 +701,8 @@ class FileHistoryCache extends AbstractCache implements HistoryCache {
             throw new CacheException(String.format("cannot create history cache directory for '%s'", histDataDir));
         }
 
+        storeTagList(repository, histDataDir);
+
         Set<String> regularFiles = map.keySet().stream().
                 filter(e -> !history.isRenamed(e)).collect(Collectors.toSet());
         createDirectoriesForFiles(regularFiles, repository, "regular files for history till " +
@@ -843,6 +1046,86 @@ class FileHistoryCache extends AbstractCache implements HistoryCache {
         CacheUtil.clearCacheDir(repository, this);
     }
 
+    /**
+     * Store the list of tags of the repository so that the tags can be assigned to the history of the files
+     * when reading the history, see {@link #readHistory(File, Repository)}.
+     * @param repository repository
+     * @param histDataDir repository cache directory
+     */
+    private void storeTagList(Repository repository, File histDataDir) {
+        NavigableSet<TagEntry> tagList = repository.getTagList();
+        if (!repository.isTagsEnabled() || !repository.hasFileBasedTags() || tagList == null) {
+            return;
+        }
+
+        try {
+            File outputFile = File.createTempFile("ogtmp", null, histDataDir);
+            try {
+                try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+                    outputStream.write(new SmileMapper().writeValueAsBytes(new ArrayList<>(tagList)));
+                }
+                Files.move(outputFile.toPath(), new File(histDataDir, TAGS_FILE_NAME).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(outputFile.toPath());
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("failed to store tags of repository %s", repository), e);
+        }
+    }
+
+    /**
+     * @param repository repository
+     * @return list of tags of the repository, read from the history cache unless it is already known
+     * (i.e. in the indexer)
+     */
+    @Nullable
+    private NavigableSet<TagEntry> getTagList(Repository repository) {
+        if (repository.getTagList() != null) {
+            return repository.getTagList();
+        }
+
+        String histDir = CacheUtil.getRepositoryCacheDataDirname(repository, this);
+        if (histDir == null) {
+            return null;
+        }
+        File tagsFile = new File(histDir, TAGS_FILE_NAME);
+        long lastModified = tagsFile.lastModified();
+        if (lastModified == 0) {
+            return null;
+        }
+        CachedTagList cached = cachedTagLists.get(histDir);
+        if (cached != null && cached.lastModified() == lastModified) {
+            return cached.tags();
+        }
+
+        try {
+            List<CachedTagEntry> entries = new SmileMapper().readerForListOf(CachedTagEntry.class).
+                    without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).readValue(tagsFile);
+            NavigableSet<TagEntry> tagList = new TreeSet<>(entries);
+            cachedTagLists.put(histDir, new CachedTagList(lastModified, tagList));
+            return tagList;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("failed to read tags from '%s'", tagsFile), e);
+            return null;
+        }
+    }
+
+    @Override
+    public void clearFile(String path) {
+        try {
+            File cacheFile = getCachedFile(new File(env.getSourceRootPath() + path));
+            // Delete the cache file first so that it is never read without its chunk index.
+            Files.deleteIfExists(cacheFile.toPath());
+            Files.deleteIfExists(getChunkIndexFile(cacheFile).toPath());
+            Files.deleteIfExists(getTagsFile(cacheFile).toPath());
+        } catch (CacheException | IOException e) {
+            LOGGER.log(Level.WARNING, String.format("cannot clear history cache of file '%s'", path), e);
+        }
+
+        super.clearFile(path);
+    }
+
     @Override
     public String getInfo() {
         return getClass().getSimpleName();
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2008, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  * Portions Copyright (c) 2019, Krystof Tulinger <k.tulinger@seznam.cz>.
  * Portions Copyright (c) 2023, Ric Harris <harrisric@users.noreply.github.com>.
@@ -31,6 +31,8 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -58,6 +60,9 @@ import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.blame.BlameResult;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.HistogramDiff;
 import org.eclipse.jgit.diff.RawText;
 import org.eclipse.jgit.diff.RawTextComparator;
 import org.eclipse.jgit.lib.Config;
@@ -70,6 +75,7 @@ import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.FollowFilter;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
@@ -105,6 +111,11 @@ public class GitRepository extends RepositoryWithHistoryTraversal {
     public static final int GIT_ABBREV_LEN = 8;
     public static final int MAX_CHANGESETS = 65536;
 
+    /**
+     * Maximum number of commits to replay in {@link #updateAnnotation(File, Annotation)}.
+     */
+    private static final int MAX_ANNOTATION_UPDATE_COMMITS = 256;
+
     public GitRepository() {
         type = "git";
 
@@ -274,10 +285,7 @@ public class GitRepository extends RepositoryWithHistoryTraversal {
             walk.markStart(walk.parseCommit(repository.resolve(Constants.HEAD)));
             walk.markUninteresting(walk.lookupCommit(repository.resolve(changeset)));
 
-            Config config = repository.getConfig();
-            config.setBoolean("diff", null, "renames", true);
-            org.eclipse.jgit.diff.DiffConfig dc = config.get(org.eclipse.jgit.diff.DiffConfig.KEY);
-            FollowFilter followFilter = FollowFilter.create(getGitFilePath(fileInRepo), dc);
+            FollowFilter followFilter = FollowFilter.create(getGitFilePath(fileInRepo), getRenamesDiffConfig(repository));
             walk.setTreeFilter(followFilter);
 
             for (RevCommit commit : walk) {
@@ -399,6 +407,127 @@ public class GitRepository extends RepositoryWithHistoryTraversal {
         return annotation;
     }
 
+    /**
+     * Update the annotation by replaying the commits made since its revision the way {@link BlameCommand}
+     * attributes the lines: the lines changed by a commit according to the diff with its parent (computed with
+     * the same algorithm and comparator) are attributed to the commit, the other lines keep their attribution.
+     * This yields the same result as the full blame as long as the history of the file since the revision
+     * of the annotation is linear and the file was not renamed. Otherwise, or if there are too many commits changing
+     * the file, {@code null} is returned.
+     *
+     * @param file file to annotate
+     * @param previous annotation of previous revision of the file
+     * @return file annotation or {@code null}
+     * @throws java.io.IOException if I/O exception occurred
+     */
+    @Override
+    @Nullable
+    Annotation updateAnnotation(File file, Annotation previous) throws IOException {
+        String previousRevision = previous.getRevision();
+        if (previousRevision == null) {
+            return null;
+        }
+        String filePath = getPathRelativeToCanonicalRepositoryRoot(file.getCanonicalPath());
+        String revision = getFirstRevision(filePath);
+        if (revision == null) {
+            return null;
+        }
+        String gitFilePath = getGitFilePath(filePath);
+
+        try (org.eclipse.jgit.lib.Repository repository = getJGitRepository(getDirectoryName());
+             RevWalk walk = new RevWalk(repository)) {
+            ObjectId previousId = repository.resolve(previousRevision);
+            ObjectId latestId = repository.resolve(revision);
+            if (previousId == null || latestId == null) {
+                return null;
+            }
+            RevCommit previousCommit = walk.parseCommit(previousId);
+            ObjectId blobId = getBlobId(repository, previousCommit, gitFilePath);
+            if (blobId == null) {
+                return null;
+            }
+            RawText text = getRawText(repository, blobId);
+            if (text.size() != previous.size()) {
+                return null;
+            }
+
+            walk.markStart(walk.parseCommit(latestId));
+            walk.markUninteresting(previousCommit);
+            // Only the commits changing the file are replayed, with the parents rewritten to skip the others
+            // so that unrelated (merge) commits do not matter.
+            walk.setTreeFilter(AndTreeFilter.create(PathFilter.create(gitFilePath), TreeFilter.ANY_DIFF));
+            walk.setRewriteParents(true);
+            walk.sort(RevSort.TOPO, true);
+            walk.sort(RevSort.REVERSE, true);
+
+            List<AnnotationLine> lines = previous.annotationData.getLines();
+            RevCommit parent = previousCommit;
+            int count = 0;
+            for (RevCommit commit : walk) {
+                if (commit.getParentCount() != 1 || !commit.getParent(0).equals(parent)
+                        || ++count > MAX_ANNOTATION_UPDATE_COMMITS) {
+                    LOGGER.log(Level.FINEST, "cannot update annotation of ''{0}'' in commit {1}",
+                            new Object[]{filePath, commit.getId().name()});
+                    return null;
+                }
+                parent = commit;
+
+                ObjectId commitBlobId = getBlobId(repository, commit, gitFilePath);
+                if (commitBlobId == null) {
+                    // The file was removed or renamed.
+                    return null;
+                }
+                if (commitBlobId.equals(blobId)) {
+                    continue;
+                }
+                RawText commitText = getRawText(repository, commitBlobId);
+                EditList edits = new HistogramDiff().diff(RawTextComparator.WS_IGNORE_ALL, text, commitText);
+                lines = applyEdits(lines, edits, new AnnotationLine(commit.getId().name(),
+                        commit.getAuthorIdent().getName(), true, commit.getId().abbreviate(GIT_ABBREV_LEN).name()));
+                blobId = commitBlobId;
+                text = commitText;
+            }
+
+            Annotation annotation = new Annotation(previous.getFilename());
+            for (AnnotationLine line : lines) {
+                annotation.addLine(line.getRevision(), line.getAuthor(), line.isEnabled(), line.getDisplayRevision());
+            }
+            return annotation;
+        }
+    }
+
+    @Nullable
+    private static ObjectId getBlobId(org.eclipse.jgit.lib.Repository repository, RevCommit commit, String path)
+            throws IOException {
+        try (TreeWalk treeWalk = TreeWalk.forPath(repository, path, commit.getTree())) {
+            return treeWalk == null ? null : treeWalk.getObjectId(0);
+        }
+    }
+
+    private static RawText getRawText(org.eclipse.jgit.lib.Repository repository, ObjectId blobId)
+            throws IOException {
+        return new RawText(repository.open(blobId, Constants.OBJ_BLOB).getCachedBytes(Integer.MAX_VALUE));
+    }
+
+    /**
+     * @param lines annotation lines of the old version of the file
+     * @param edits edits from the old version of the file to the new one
+     * @param changed annotation line for the lines inserted or replaced by the edits
+     * @return annotation lines of the new version of the file
+     */
+    private static List<AnnotationLine> applyEdits(List<AnnotationLine> lines, EditList edits,
+                                                   AnnotationLine changed) {
+        List<AnnotationLine> result = new ArrayList<>(lines.size());
+        int index = 0;
+        for (Edit edit : edits) {
+            result.addAll(lines.subList(index, edit.getBeginA()));
+            result.addAll(Collections.nCopies(edit.getLengthB(), changed));
+            index = edit.getEndA();
+        }
+        result.addAll(lines.subList(index, lines.size()));
+        return result;
+    }
+
     @Override
     public boolean fileHasAnnotation(File file) {
         return true;
@@ -469,7 +598,8 @@ public class GitRepository extends RepositoryWithHistoryTraversal {
             throws HistoryException {
 
         try (org.eclipse.jgit.lib.Repository repository = getJGitRepository(getDirectoryName());
-             RevWalk walk = new RevWalk(repository)) {
+             RevWalk walk = new RevWalk(repository);
+             TreeWalk treeWalk = new TreeWalk(repository, walk.getObjectReader())) {
 
             if (sinceRevision != null) {
                 ObjectId objId = repository.resolve(sinceRevision);
@@ -488,15 +618,39 @@ public class GitRepository extends RepositoryWithHistoryTraversal {
             }
             walk.markStart(walk.parseCommit(objId));
 
+            treeWalk.setRecursive(true);
             for (RevCommit commit : walk) {
                 // Do not abbreviate the Id as this could cause AmbiguousObjectException in getHistory().
-                visitor.accept(new BoundaryChangesets.IdWithProgress(commit.getId().name(), progress));
+                visitor.accept(new BoundaryChangesets.IdWithProgress(commit.getId().name(), progress,
+                        getChangedFileCount(walk, treeWalk, commit)));
             }
         } catch (IOException e) {
             throw new HistoryException(e);
         }
     }
 
+    /**
+     * Count the files changed by the commit (w.r.t. its first parent) so that the history chunks
+     * can be sized according to the size of the commits. Unlike {@code getFilesForCommit()} this does not look
+     * for renames so only the changed trees are traversed.
+     */
+    private static int getChangedFileCount(RevWalk walk, TreeWalk treeWalk, RevCommit commit) throws IOException {
+        treeWalk.reset();
+        if (commit.getParentCount() == 0) {
+            treeWalk.setFilter(TreeFilter.ALL);
+        } else {
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            treeWalk.addTree(walk.parseCommit(commit.getParent(0)).getTree());
+        }
+        treeWalk.addTree(commit.getTree());
+
+        int count = 0;
+        while (treeWalk.next()) {
+            count++;
+        }
+        return count;
+    }
+
     @Nullable
     @Override
     public HistoryEntry getLastHistoryEntry(File file, boolean ui) throws HistoryException {
@@ -575,10 +729,8 @@ public class GitRepository extends RepositoryWithHistoryTraversal {
         String relativePath = RuntimeEnvironment.getInstance().getPathRelativeToSourceRoot(file);
         if (!getDirectoryNameRelative().equals(relativePath)) {
             if (isHandleRenamedFiles()) {
-                Config config = repository.getConfig();
-                config.setBoolean("diff", null, "renames", true);
-                org.eclipse.jgit.diff.DiffConfig dc = config.get(org.eclipse.jgit.diff.DiffConfig.KEY);
-                FollowFilter followFilter = FollowFilter.create(getGitFilePath(getRepoRelativePath(file)), dc);
+                FollowFilter followFilter = FollowFilter.create(getGitFilePath(getRepoRelativePath(file)),
+                        getRenamesDiffConfig(repository));
                 walk.setTreeFilter(followFilter);
             } else {
                 walk.setTreeFilter(AndTreeFilter.create(
@@ -588,6 +740,17 @@ public class GitRepository extends RepositoryWithHistoryTraversal {
         }
     }
 
+    /**
+     * @param repository repository object
+     * @return diff configuration of the repository with rename detection enabled. The configuration
+     * of the repository is copied rather than modified as the repository is shared, see {@link JGitRepositoryPool}.
+     */
+    private static org.eclipse.jgit.diff.DiffConfig getRenamesDiffConfig(Repository repository) {
+        Config config = new Config(repository.getConfig());
+        config.setBoolean("diff", null, "renames", true);
+        return config.get(org.eclipse.jgit.diff.DiffConfig.KEY);
+    }
+
     /**
      * Accumulate list of changed/deleted/renamed files for given commit.
      * @param renamedFiles output: renamed files in this commit (if renamed file handling is enabled)
@@ -730,7 +893,16 @@ public class GitRepository extends RepositoryWithHistoryTraversal {
         return null;
     }
 
+    /**
+     * @param directory directory of the repository
+     * @return JGit repository shared with other callers, see {@link JGitRepositoryPool}. To be closed by the caller.
+     * @throws IOException if the repository cannot be opened
+     */
     private org.eclipse.jgit.lib.Repository getJGitRepository(String directory) throws IOException {
+        return JGitRepositoryPool.get(directory, () -> openJGitRepository(directory));
+    }
+
+    private org.eclipse.jgit.lib.Repository openJGitRepository(String directory) throws IOException {
         File dotGitFile = Paths.get(directory, Constants.DOT_GIT).toFile();
         if (dotGitFile.isDirectory()) {
             return FileRepositoryBuilder.create(dotGitFile);
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2005, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.history;
@@ -37,6 +37,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
@@ -114,7 +115,13 @@ public final class HistoryGuru {
      */
     private final RepositoryLookup repositoryLookup;
 
-    private boolean historyIndexDone = false;
+    private volatile boolean historyIndexDone = false;
+
+    /**
+     * Directories of the repositories whose history cache was already generated by the indexer.
+     * This matters for the repositories done before the rest, see {@link #createHistoryCacheAsync(Collection)}.
+     */
+    private final Set<String> historyIndexDoneRepositories = ConcurrentHashMap.newKeySet();
 
     public void setHistoryIndexDone() {
         historyIndexDone = true;
@@ -124,6 +131,14 @@ public final class HistoryGuru {
         return historyIndexDone;
     }
 
+    /**
+     * @param repository repository
+     * @return whether the history cache generation is done for all repositories or for the repository
+     */
+    public boolean isHistoryIndexDone(Repository repository) {
+        return historyIndexDone || historyIndexDoneRepositories.contains(repository.getDirectoryName());
+    }
+
     /**
      * Creates a new instance of HistoryGuru. Initialize cache objects.
      */
@@ -166,11 +181,12 @@ public final class HistoryGuru {
     }
 
     /**
-     * Set history cache to its default implementation.
+     * Set history cache to its configured implementation.
      * @return {@link HistoryCache} instance
      */
     private HistoryCache initializeHistoryCache() {
-        HistoryCache historyCacheResult = new FileHistoryCache();
+        HistoryCache historyCacheResult = env.isPackedHistoryCache() ? new PackedHistoryCache() :
+                new FileHistoryCache();
 
         try {
             historyCacheResult.initialize();
@@ -308,6 +324,40 @@ public final class HistoryGuru {
         return repository.annotate(file, rev);
     }
 
+    /**
+     * Update the annotation stored in the annotation cache for previous revision of given file
+     * using {@link Repository#updateAnnotation(File, Annotation)}.
+     * @param file file object to generate the annotation for
+     * @param repository {@link Repository} instance
+     * @return annotation object or {@code null} if the annotation has to be generated from scratch
+     */
+    @Nullable
+    private Annotation updateAnnotationFromCache(File file, Repository repository) {
+        if (!env.getPathAccepter().accept(file)) {
+            return null;
+        }
+
+        try {
+            if (!annotationCache.hasCacheForFile(file)) {
+                return null;
+            }
+            Annotation previous = annotationCache.readAnnotation(file);
+            if (previous == null) {
+                return null;
+            }
+            Annotation annotation = repository.updateAnnotation(file, previous);
+            if (annotation == null) {
+                LOGGER.finest(() -> String.format("could not update annotation of '%s' from revision %s",
+                        launderLog(file.toString()), previous.getRevision()));
+            }
+            return annotation;
+        } catch (CacheException | IOException e) {
+            LOGGER.log(Level.FINER, String.format("failed to update annotation of '%s'",
+                    launderLog(file.toString())), e);
+            return null;
+        }
+    }
+
     /**
      * Wrapper for {@link #annotate(File, String, boolean)}.
      * @param file the file to annotate
@@ -571,7 +621,7 @@ public final class HistoryGuru {
          * since the history of all files in this repository should have been
          * fetched in the first phase of indexing.
          */
-        if (env.isIndexer() && isHistoryIndexDone() &&
+        if (env.isIndexer() && isHistoryIndexDone(repository) &&
                 repository.isHistoryEnabled() && repository.hasHistoryForDirectories() &&
                 !env.isFetchHistoryWhenNotInCache()) {
             LOGGER.fine(() -> String.format("not getting the history for '%s' in repository %s as the it supports "
@@ -1048,6 +1098,10 @@ public final class HistoryGuru {
             return;
         }
 
+        if (historyCache == null || !historyCache.supportsRepository(repository)) {
+            return;
+        }
+
         try {
             historyCache.storeFile(history, file, repository);
         } catch (HistoryException e) {
@@ -1091,6 +1145,31 @@ public final class HistoryGuru {
         }
 
         Statistics elapsed = new Statistics();
+        Map<Repository, CompletableFuture<Optional<Exception>>> futures = submitHistoryCache(repositories);
+
+        /*
+         * Wait until the history of all repositories is done. This is necessary
+         * since the next phase of generating index will need the history to
+         * be ready as it is recorded in Lucene index.
+         */
+        Map<Repository, Optional<Exception>> results = new HashMap<>();
+        for (Map.Entry<Repository, CompletableFuture<Optional<Exception>>> entry : futures.entrySet()) {
+            try {
+                results.put(entry.getKey(), entry.getValue().get());
+            } catch (InterruptedException | ExecutionException ex) {
+                results.put(entry.getKey(), Optional.of(ex));
+            }
+        }
+
+        finishHistoryCache();
+        elapsed.report(LOGGER, "Done history cache for all repositories", "indexer.history.cache");
+
+        return results;
+    }
+
+    private Map<Repository, CompletableFuture<Optional<Exception>>> submitHistoryCache(
+            Collection<Repository> repositories) {
+
         ExecutorService executor = env.getIndexerParallelizer().getHistoryExecutor();
         // Since we know each repository object from the repositories
         // collection is unique, we can abuse HashMap to create a list of
@@ -1114,10 +1193,10 @@ public final class HistoryGuru {
         }
 
         LOGGER.log(Level.INFO, "Creating history cache for {0} repositories", repos2process.size());
-        Map<Repository, Future<Optional<Exception>>> futures = new HashMap<>();
+        Map<Repository, CompletableFuture<Optional<Exception>>> futures = new HashMap<>();
         try (Progress progress = new Progress(LOGGER, "history cache", repos2process.size())) {
             for (final Map.Entry<Repository, String> entry : repos2process.entrySet()) {
-                futures.put(entry.getKey(), executor.submit(() -> {
+                futures.put(entry.getKey(), CompletableFuture.supplyAsync(() -> {
                     try {
                         createHistoryCache(entry.getKey(), entry.getValue());
                     } catch (Exception ex) {    // We want to catch any exception since we are in thread.
@@ -1125,27 +1204,43 @@ public final class HistoryGuru {
                                 String.format("failed to create history cache for %s", entry.getKey()), ex);
                         return Optional.of(ex);
                     } finally {
+                        historyIndexDoneRepositories.add(entry.getKey().getDirectoryName());
                         progress.increment();
                     }
                     return Optional.empty();
-                }));
+                }, executor));
             }
         }
 
-        /*
-         * Wait until the history of all repositories is done. This is necessary
-         * since the next phase of generating index will need the history to
-         * be ready as it is recorded in Lucene index.
-         */
-        Map<Repository, Optional<Exception>> results = new HashMap<>();
-        for (Map.Entry<Repository, Future<Optional<Exception>>> entry : futures.entrySet()) {
-            try {
-                results.put(entry.getKey(), entry.getValue().get());
-            } catch (InterruptedException | ExecutionException ex) {
-                results.put(entry.getKey(), Optional.of(ex));
-            }
+        return futures;
+    }
+
+    /**
+     * Start creating history cache for selected repositories without waiting for the result.
+     * This allows to work with the repositories whose history cache is done while the history cache
+     * of the other repositories is still being generated. Once all the returned futures are complete,
+     * {@link #finishHistoryCache()} should be called.
+     * For this to work the repositories have to be already present in the
+     * internal map, e.g. via {@code setRepositories()} or {@code addRepositories()}.
+     *
+     * @param repositories list of repository paths, empty list means all repositories
+     * @return map of repository to the future of optional exception
+     */
+    public Map<Repository, CompletableFuture<Optional<Exception>>> createHistoryCacheAsync(
+            Collection<String> repositories) {
+
+        Collection<Repository> repos = repositories.isEmpty() ? this.repositories.values() :
+                getReposFromString(repositories);
+        if (repos.stream().noneMatch(RepositoryInfo::isHistoryCacheEnabled)) {
+            return Collections.emptyMap();
         }
+        return submitHistoryCache(repos);
+    }
 
+    /**
+     * Complete the history cache generation started with {@link #createHistoryCacheAsync(Collection)}.
+     */
+    public void finishHistoryCache() {
         // The cache has been populated. Now, optimize how it is stored on
         // disk to enhance performance and save space.
         try {
@@ -1153,10 +1248,7 @@ public final class HistoryGuru {
         } catch (CacheException he) {
             LOGGER.log(Level.WARNING, "Failed optimizing the history cache database", he);
         }
-        elapsed.report(LOGGER, "Done history cache for all repositories", "indexer.history.cache");
         setHistoryIndexDone();
-
-        return results;
     }
 
     /**
@@ -1227,7 +1319,13 @@ public final class HistoryGuru {
         LOGGER.finest(() -> String.format("creating annotation cache for '%s'", launderLog(file.toString())));
         try {
             Statistics statistics = new Statistics();
-            Annotation annotation = getAnnotationFromRepository(file, null, repository);
+            Annotation annotation = null;
+            if (env.isIncrementalAnnotationCache()) {
+                annotation = updateAnnotationFromCache(file, repository);
+            }
+            if (annotation == null) {
+                annotation = getAnnotationFromRepository(file, null, repository);
+            }
             statistics.report(LOGGER, Level.FINEST,
                     String.format("retrieved annotation for '%s'", launderLog(file.toString())),
                     "annotation.retrieve.latency");
@@ -1389,6 +1487,9 @@ public final class HistoryGuru {
      * @param cmdType command timeout type
      */
     public void invalidateRepositories(Collection<? extends RepositoryInfo> repos, CommandTimeoutType cmdType) {
+        // The pooled JGit repositories might belong to repositories that were removed or replaced.
+        JGitRepositoryPool.configure(env);
+
         if (repos == null || repos.isEmpty()) {
             clear();
             return;
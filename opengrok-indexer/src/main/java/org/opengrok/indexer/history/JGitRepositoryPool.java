@@ -0,0 +1,227 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.history;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.opengrok.indexer.configuration.OpenGrokThreadFactory;
+import org.opengrok.indexer.configuration.RuntimeEnvironment;
+import org.opengrok.indexer.logger.LoggerFactory;
+
+/**
+ * Keeps the JGit repositories used by {@link GitRepository} open between the calls, so that the pack indexes
+ * and configuration are not read again for each operation and the objects cached by JGit
+ * (see {@link WindowCacheConfig}) are reused.
+ * <p>
+ * The JGit repositories are reference counted: {@link #get(String, Opener)} increments the use count
+ * and the callers close the repository as usual, which just decrements it. The pool holds one reference
+ * of its own, which is dropped by a background task when the repository was not used for
+ * {@link RuntimeEnvironment#getGitRepositoryIdleTimeout()} seconds or when the pool is cleared
+ * in {@link #configure(RuntimeEnvironment)}. The repository is really closed when the last user closes it.
+ * </p>
+ * <p>
+ * The repositories are opened under the lock of their directory only, so opening a repository does not block
+ * the users of the other ones.
+ * </p>
+ */
+final class JGitRepositoryPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JGitRepositoryPool.class);
+
+    /**
+     * Opens new JGit repository.
+     */
+    @FunctionalInterface
+    interface Opener {
+        Repository open() throws IOException;
+    }
+
+    /**
+     * Holds the repository of single directory. Once evicted, the handle is not used anymore.
+     */
+    private static final class Handle {
+        private final String directory;
+        private Repository repository;
+        private long lastUsed;
+        private boolean evicted;
+
+        Handle(String directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * @return the repository with incremented use count or {@code null} if the handle was evicted
+         */
+        @Nullable
+        synchronized Repository acquire(Opener opener) throws IOException {
+            if (evicted) {
+                return null;
+            }
+            if (repository == null) {
+                repository = opener.open();
+            }
+            lastUsed = System.currentTimeMillis();
+            repository.incrementOpen();
+            return repository;
+        }
+
+        synchronized void evictIfIdle(long now) {
+            if (now - lastUsed > idleTimeout) {
+                LOGGER.log(Level.FINEST, "closing idle JGit repository for ''{0}''", directory);
+                evict();
+            }
+        }
+
+        synchronized void evict() {
+            evicted = true;
+            handles.remove(directory, this);
+            if (repository != null) {
+                repository.close();
+                repository = null;
+            }
+        }
+    }
+
+    private static final Map<String, Handle> handles = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new OpenGrokThreadFactory("jgit-repository-pool").newThread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile long idleTimeout;
+    private static ScheduledFuture<?> evictionTask;
+    private static String installedConfig;
+
+    static {
+        setIdleTimeout(TimeUnit.SECONDS.toMillis(RuntimeEnvironment.getInstance().getGitRepositoryIdleTimeout()));
+    }
+
+    private JGitRepositoryPool() {
+        // private to enforce static
+    }
+
+    /**
+     * @param directory directory of the repository, used as the key
+     * @param opener used to open the repository if it is not in the pool
+     * @return JGit repository to be closed by the caller
+     * @throws IOException if the repository cannot be opened
+     */
+    static Repository get(String directory, Opener opener) throws IOException {
+        if (idleTimeout <= 0) {
+            return opener.open();
+        }
+
+        while (true) {
+            Handle handle = handles.computeIfAbsent(directory, Handle::new);
+            Repository repository = handle.acquire(opener);
+            if (repository != null) {
+                if (idleTimeout <= 0) {
+                    // The pool was disabled in the meantime.
+                    handle.evict();
+                }
+                return repository;
+            }
+            // The handle was evicted in the meantime.
+        }
+    }
+
+    private static void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (Handle handle : handles.values()) {
+            handle.evictIfIdle(now);
+        }
+    }
+
+    /**
+     * Set the idle timeout and schedule the eviction of the idle repositories accordingly.
+     * @param timeout idle timeout in milliseconds, the repositories are not pooled if it is not positive
+     */
+    @VisibleForTesting
+    static synchronized void setIdleTimeout(long timeout) {
+        idleTimeout = timeout;
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+            evictionTask = null;
+        }
+        if (timeout > 0) {
+            long period = Math.max(timeout / 2, 1);
+            evictionTask = scheduler.scheduleAtFixedRate(JGitRepositoryPool::evictIdle, period, period,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            clear();
+        }
+    }
+
+    /**
+     * Drop the references of the pool to the repositories.
+     */
+    static void clear() {
+        for (Handle handle : handles.values()) {
+            handle.evict();
+        }
+    }
+
+    /**
+     * @return number of repositories in the pool
+     */
+    static int size() {
+        return handles.size();
+    }
+
+    /**
+     * Clear the pool, as the repositories might have changed, and apply the JGit related configuration.
+     * @param env runtime environment
+     */
+    static synchronized void configure(RuntimeEnvironment env) {
+        clear();
+        setIdleTimeout(TimeUnit.SECONDS.toMillis(env.getGitRepositoryIdleTimeout()));
+
+        long packedGitLimit = env.getGitPackedGitLimit() * 1024L * 1024L;
+        boolean packedGitMMAP = env.isGitPackedGitMMAP();
+        int deltaBaseCacheLimit = (int) Math.min(env.getGitDeltaBaseCacheLimit() * 1024L * 1024L, Integer.MAX_VALUE);
+        String configString = String.format("packedGitLimit=%d, packedGitMMAP=%b, deltaBaseCacheLimit=%d",
+                packedGitLimit, packedGitMMAP, deltaBaseCacheLimit);
+        // Installing the configuration drops the cached data so do it only if it changed.
+        if (!configString.equals(installedConfig)) {
+            WindowCacheConfig config = new WindowCacheConfig();
+            config.setPackedGitLimit(packedGitLimit);
+            config.setPackedGitMMAP(packedGitMMAP);
+            config.setDeltaBaseCacheLimit(deltaBaseCacheLimit);
+            config.install();
+            installedConfig = configString;
+            LOGGER.log(Level.FINE, "installed JGit window cache configuration: {0}", configString);
+        }
+    }
+}
@@ -18,21 +18,16 @@
  */
 
 /*
- * Copyright (c) 2018, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.history;
 
-import org.apache.lucene.document.DateTools;
-import org.apache.lucene.document.Document;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.VisibleForTesting;
 import org.opengrok.indexer.index.IndexDatabase;
 import org.opengrok.indexer.logger.LoggerFactory;
-import org.opengrok.indexer.search.QueryBuilder;
 
 import java.io.File;
-import java.text.ParseException;
-import java.util.Date;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -77,39 +72,18 @@ public class LatestRevisionUtil {
      * Retrieve last revision from the document matching the file (if any).
      * @param file object corresponding to a file under source root
      * @return last revision or {@code null} if the document cannot be found, is out of sync
-     * w.r.t. last modified time of the file or the last commit ID is not stored in the document.
+     * w.r.t. last modified time of the file (see {@link IndexDatabase#getDocumentLastModified(File)})
+     * or the last commit ID is not stored in the document.
      */
     @Nullable
     @VisibleForTesting
     public static String getLastRevFromIndex(File file) {
-        Document doc = null;
         try {
-            doc = IndexDatabase.getDocument(file);
+            return IndexDatabase.getDocumentLastRevision(file);
         } catch (Exception e) {
             LOGGER.log(Level.WARNING, String.format("cannot get document for %s", launderLog(file.toString())), e);
+            return null;
         }
-
-        String lastRev = null;
-        if (doc != null) {
-            // There is no point of checking the date if the LASTREV field is not present.
-            lastRev = doc.get(QueryBuilder.LASTREV);
-            if (lastRev != null) {
-                Date docDate;
-                try {
-                    docDate = DateTools.stringToDate(doc.get(QueryBuilder.DATE));
-                } catch (ParseException e) {
-                    LOGGER.log(Level.WARNING, String.format("cannot get date from the document %s", doc), e);
-                    return null;
-                }
-                Date fileDate = new Date(file.lastModified());
-                if (docDate.compareTo(fileDate) < 0) {
-                    LOGGER.log(Level.FINER, "document for ''{0}'' is out of sync", launderLog(file.toString()));
-                    return null;
-                }
-            }
-        }
-
-        return lastRev;
     }
 
     @Nullable
@@ -0,0 +1,731 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.history;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jetbrains.annotations.Nullable;
+import org.opengrok.indexer.Metrics;
+import org.opengrok.indexer.configuration.PathAccepter;
+import org.opengrok.indexer.configuration.RuntimeEnvironment;
+import org.opengrok.indexer.logger.LoggerFactory;
+import org.opengrok.indexer.search.DirectoryEntry;
+import org.opengrok.indexer.util.ForbiddenSymlinkException;
+import org.opengrok.indexer.util.Statistics;
+
+/**
+ * Class representing packed storage of the history of the files, one set of files per repository
+ * rather than one file per source file like {@link FileHistoryCache}.
+ * <p>
+ * Each call to {@link #store(History, Repository, String)} writes new immutable segment
+ * (see {@link PackedHistorySegment}) with the history entries of the changesets only once,
+ * and the history of the files as lists of indexes to these entries. The history of a file is therefore
+ * the concatenation of its postings in the segments from the newest to the oldest one.
+ * {@link #optimize()} merges the segments of each repository into single segment.
+ * </p>
+ * <p>
+ * The history is stored per repository so only repositories with history for directories are supported,
+ * see {@link Repository#hasHistoryForDirectories()}.
+ * </p>
+ */
+class PackedHistoryCache extends AbstractCache implements HistoryCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackedHistoryCache.class);
+    private static final RuntimeEnvironment env = RuntimeEnvironment.getInstance();
+
+    private static final String HISTORY_PACK_DIR_NAME = "historypack";
+    private static final String SEGMENT_PREFIX = "history-";
+    private static final String SEGMENT_SUFFIX = ".pack";
+
+    private final PathAccepter pathAccepter = env.getPathAccepter();
+
+    /**
+     * Maps repository cache directories to their segments. Segments written by another process
+     * are detected via the modification time of the directory.
+     */
+    private final Map<Path, Segments> segmentsCache = new ConcurrentHashMap<>();
+
+    /**
+     * Serializes the allocation of the segment numbers and the merging per repository cache directory.
+     */
+    private final Map<Path, Object> locks = new ConcurrentHashMap<>();
+
+    private Counter packedHistoryCacheHits;
+    private Counter packedHistoryCacheMisses;
+
+    /**
+     * @param lastModified modification time of the directory at the time of the listing
+     * @param list segments from the newest to the oldest one
+     */
+    private record Segments(FileTime lastModified, List<PackedHistorySegment> list) {
+    }
+
+    /**
+     * Postings of a file in single segment.
+     */
+    private record Hit(PackedHistorySegment segment, PackedHistorySegment.Posting posting) {
+    }
+
+    @Override
+    public void initialize() {
+        MeterRegistry meterRegistry = Metrics.getRegistry();
+        if (meterRegistry != null) {
+            packedHistoryCacheHits = Counter.builder("cache.history.packed.get").
+                    description("packed history cache hits").
+                    tag("what", "hits").
+                    register(meterRegistry);
+            packedHistoryCacheMisses = Counter.builder("cache.history.packed.get").
+                    description("packed history cache misses").
+                    tag("what", "miss").
+                    register(meterRegistry);
+        }
+    }
+
+    @Override
+    public boolean supportsRepository(Repository repository) {
+        return repository.hasHistoryForDirectories();
+    }
+
+    @Override
+    public String getInfo() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public String getCacheDirName() {
+        return HISTORY_PACK_DIR_NAME;
+    }
+
+    private Path getRepositoryDir(RepositoryInfo repository) throws CacheException {
+        String repoCachePath = CacheUtil.getRepositoryCacheDataDirname(repository, this);
+        if (repoCachePath == null) {
+            throw new CacheException(String.format("failed to get cache directory path for %s", repository));
+        }
+        return Path.of(repoCachePath);
+    }
+
+    private static long getSegmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static List<Path> listSegmentFiles(Path dir) throws IOException {
+        try (Stream<Path> stream = Files.list(dir)) {
+            return stream.filter(f -> getSegmentNumber(f) >= 0).
+                    sorted(Comparator.comparingLong(PackedHistoryCache::getSegmentNumber).reversed()).
+                    collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @param dir repository cache directory
+     * @return the segments which constitute the history of the repository, from the newest to the oldest one
+     * @throws IOException on I/O error
+     */
+    List<PackedHistorySegment> getSegments(Path dir) throws IOException {
+        FileTime lastModified;
+        try {
+            lastModified = Files.getLastModifiedTime(dir);
+        } catch (NoSuchFileException e) {
+            segmentsCache.remove(dir);
+            return List.of();
+        }
+
+        Segments cached = segmentsCache.get(dir);
+        if (cached != null && cached.lastModified().equals(lastModified)) {
+            return cached.list();
+        }
+
+        Map<Path, PackedHistorySegment> opened = new HashMap<>();
+        if (cached != null) {
+            cached.list().forEach(segment -> opened.put(segment.getFile(), segment));
+        }
+        for (int attempt = 0; ; attempt++) {
+            try {
+                List<PackedHistorySegment> list = new ArrayList<>();
+                for (Path file : listSegmentFiles(dir)) {
+                    PackedHistorySegment segment = opened.get(file);
+                    if (segment == null) {
+                        segment = PackedHistorySegment.open(file);
+                    }
+                    list.add(segment);
+                    if (segment.isBase()) {
+                        break;
+                    }
+                }
+                segmentsCache.put(dir, new Segments(lastModified, list));
+                return list;
+            } catch (NoSuchFileException e) {
+                // The segments were merged in the meantime.
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param file source file
+     * @param repository repository of the file or {@code null} to look it up
+     * @param checkUpToDate whether to ignore the postings if the file was modified after the newest segment
+     * @return postings of the file from the newest to the oldest segment or {@code null} if there are none
+     * @throws CacheException on error
+     */
+    @Nullable
+    private List<Hit> find(File file, @Nullable Repository repository, boolean checkUpToDate)
+            throws CacheException {
+
+        if (repository == null) {
+            repository = HistoryGuru.getInstance().getRepository(file);
+        }
+        if (repository == null || !supportsRepository(repository)) {
+            return null;
+        }
+
+        String path;
+        try {
+            path = env.getPathRelativeToSourceRoot(file);
+        } catch (ForbiddenSymlinkException | IOException e) {
+            throw new CacheException(String.format("Failed to get path relative to source root for '%s'", file), e);
+        }
+
+        List<PackedHistorySegment> segments;
+        try {
+            segments = getSegments(getRepositoryDir(repository));
+        } catch (IOException e) {
+            throw new CacheException(String.format("failed to read history cache segments of %s", repository), e);
+        }
+        if (segments.isEmpty() ||
+                (checkUpToDate && file.lastModified() > segments.get(0).getLastModified().toMillis())) {
+            return null;
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (PackedHistorySegment segment : segments) {
+            PackedHistorySegment.Posting posting = segment.find(path);
+            if (posting != null) {
+                hits.add(new Hit(segment, posting));
+                if (posting.isReplace()) {
+                    break;
+                }
+            }
+        }
+
+        return hits.isEmpty() ? null : hits;
+    }
+
+    private void countHit(boolean hit) {
+        Counter counter = hit ? packedHistoryCacheHits : packedHistoryCacheMisses;
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    @Nullable
+    public History get(File file, @Nullable Repository repository, boolean withFiles) throws CacheException {
+        if (file.isDirectory()) {
+            return null;
+        }
+
+        List<Hit> hits = find(file, repository, true);
+        if (hits == null) {
+            countHit(false);
+            return null;
+        }
+
+        List<HistoryEntry> entries = new ArrayList<>();
+        Map<String, String> tags = new HashMap<>();
+        try {
+            for (Hit hit : hits) {
+                int[] revisions = hit.posting().revisions();
+                for (int i = 0; i < revisions.length; i++) {
+                    HistoryEntry entry = hit.segment().getEntry(revisions[i]);
+                    entries.add(entry);
+                    if (hit.posting().tags()[i] >= 0) {
+                        tags.put(entry.getRevision(), hit.segment().getString(hit.posting().tags()[i]));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Error when reading history cache for '%s'", file), e);
+            countHit(false);
+            return null;
+        }
+
+        countHit(true);
+        History history = new History(entries);
+        history.setTags(tags);
+        return history;
+    }
+
+    @Override
+    @Nullable
+    public HistoryEntry getLastHistoryEntry(File file) throws CacheException {
+        List<Hit> hits = find(file, null, true);
+        if (hits != null) {
+            for (Hit hit : hits) {
+                if (hit.posting().revisions().length > 0) {
+                    try {
+                        HistoryEntry entry = hit.segment().getEntry(hit.posting().revisions()[0]);
+                        countHit(true);
+                        return entry;
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, String.format("Error when reading history cache for '%s'", file),
+                                e);
+                        break;
+                    }
+                }
+            }
+        }
+
+        countHit(false);
+        return null;
+    }
+
+    @Override
+    public boolean hasCacheForFile(File file) throws CacheException {
+        return find(file, null, false) != null;
+    }
+
+    /**
+     * @param file the file to check
+     * @return {@code true} if the cache has history of the file and the file was not modified
+     * after the newest segment was written, {@code false} otherwise
+     */
+    @Override
+    public boolean isUpToDate(File file) throws CacheException {
+        return find(file, null, true) != null;
+    }
+
+    /**
+     * Attempt to fill the date and description for the input instances from pertaining last history entries.
+     * The lookups are cheap so unlike {@link FileHistoryCache#fillLastHistoryEntries(List)}
+     * this is done sequentially.
+     * @param entries list of {@link DirectoryEntry} instances
+     * @return true if all of them were filled, false otherwise in which case the date/description field
+     * for the entries will be zeroed.
+     */
+    @Override
+    public boolean fillLastHistoryEntries(List<DirectoryEntry> entries) {
+        if (entries == null) {
+            return false;
+        }
+
+        Statistics statistics = new Statistics();
+        boolean ret = true;
+        for (DirectoryEntry directoryEntry : entries) {
+            File file = directoryEntry.getFile();
+            if (file.isDirectory()) {
+                directoryEntry.setDescription("-");
+                directoryEntry.setDate(null);
+                continue;
+            }
+
+            try {
+                HistoryEntry historyEntry = getLastHistoryEntry(file);
+                if (historyEntry != null && historyEntry.getDate() != null) {
+                    directoryEntry.setDescription(historyEntry.getDescription());
+                    directoryEntry.setDate(historyEntry.getDate());
+                    continue;
+                }
+                LOGGER.log(Level.FINE, "cannot get last history entry for ''{0}''", file);
+            } catch (CacheException e) {
+                LOGGER.log(Level.FINER, "cannot get last history entry for ''{0}''", file);
+            }
+            ret = false;
+            break;
+        }
+        statistics.report(LOGGER, Level.FINER, "done filling directory entries");
+
+        // Enforce the all-or-nothing semantics.
+        if (!ret) {
+            entries.forEach(e -> e.setDate(null));
+            entries.forEach(e -> e.setDescription(null));
+        }
+
+        return ret;
+    }
+
+    @Override
+    public void store(History history, Repository repository) throws CacheException {
+        store(history, repository, null);
+    }
+
+    /**
+     * Store history of the repository as new segment.
+     *
+     * <p>
+     * <b>Note that the history object will be changed in the process of storing the history into cache.
+     * Namely the list of files from the history entries will be stripped.</b>
+     * </p>
+     *
+     * @param history history object to process into per-file histories
+     * @param repository repository object
+     * @param tillRevision end revision (can be null)
+     */
+    @Override
+    public void store(History history, Repository repository, @Nullable String tillRevision) throws CacheException {
+        List<HistoryEntry> entries = history.getHistoryEntries();
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<HistoryEntry>> map = new LinkedHashMap<>();
+        String fileMapLatestRev = FileHistoryCache.createFileMap(history, map, pathAccepter);
+        String latestRev = history.getLatestRev() != null ? history.getLatestRev() : fileMapLatestRev;
+
+        // The segment does not store files for individual changesets so strip them.
+        history.strip();
+
+        Path dir = getRepositoryDir(repository);
+        PackedHistorySegment.Builder builder = new PackedHistorySegment.Builder();
+        Statistics statistics = new Statistics();
+        try {
+            // Serialize every changeset only once.
+            Map<HistoryEntry, Integer> indexes = new IdentityHashMap<>();
+            for (Map.Entry<String, List<HistoryEntry>> entry : map.entrySet()) {
+                if (!history.isRenamed(entry.getKey())) {
+                    addFile(builder, entry.getKey(), new History(entry.getValue()), repository, 0, indexes);
+                }
+            }
+
+            if (repository.isHandleRenamedFiles()) {
+                storeRenamed(builder, history.getRenamedFiles(), repository, tillRevision);
+            }
+
+            writeSegment(dir, builder, latestRev, 0);
+        } catch (IOException e) {
+            throw new CacheException(String.format("failed to store history cache segment of %s", repository), e);
+        }
+        statistics.report(LOGGER, Level.FINE, String.format("Stored history cache segment of %s for %d files",
+                repository, map.size()));
+    }
+
+    private static void addFile(PackedHistorySegment.Builder builder, String path, History history,
+                                Repository repository, int flags, Map<HistoryEntry, Integer> indexes)
+            throws IOException {
+
+        // Assign tags to changesets they represent.
+        if (repository.isTagsEnabled() && repository.hasFileBasedTags()) {
+            repository.assignTagsInHistory(history);
+        }
+
+        List<HistoryEntry> entries = history.getHistoryEntries();
+        int[] revisions = new int[entries.size()];
+        int[] tags = new int[entries.size()];
+        for (int i = 0; i < revisions.length; i++) {
+            HistoryEntry entry = entries.get(i);
+            Integer index = indexes.get(entry);
+            if (index == null) {
+                index = builder.addEntry(entry);
+                indexes.put(entry, index);
+            }
+            revisions[i] = index;
+            String tag = history.getTags().get(entry.getRevision());
+            tags[i] = tag == null ? -1 : builder.addString(tag);
+        }
+        builder.addFile(path, new PackedHistorySegment.Posting(flags, revisions, tags));
+    }
+
+    /**
+     * Add complete history of the renamed files (in parallel) so that it replaces their history
+     * in the older segments.
+     */
+    private void storeRenamed(PackedHistorySegment.Builder builder, Set<String> renamedFiles, Repository repository,
+                              @Nullable String tillRevision) {
+
+        renamedFiles = renamedFiles.stream().filter(f -> new File(env.getSourceRootPath() + f).exists()).
+                collect(Collectors.toSet());
+        if (renamedFiles.isEmpty()) {
+            return;
+        }
+
+        final CountDownLatch latch = new CountDownLatch(renamedFiles.size());
+        for (final String file : renamedFiles) {
+            env.getIndexerParallelizer().getHistoryFileExecutor().submit(() -> {
+                try {
+                    History history = getRenamedFileHistory(new File(env.getSourceRootPath() + file),
+                            repository, tillRevision);
+                    addFile(builder, file, history, repository, PackedHistorySegment.REPLACE,
+                            new IdentityHashMap<>());
+                } catch (Exception ex) {
+                    // We want to catch any exception since we are in thread.
+                    LOGGER.log(Level.WARNING, String.format("cannot store history of renamed file '%s'", file), ex);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            LOGGER.log(Level.SEVERE, "latch exception", ex);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static History getRenamedFileHistory(File file, Repository repository, @Nullable String tillRevision)
+            throws HistoryException {
+
+        History history;
+        if (tillRevision != null) {
+            if (!(repository instanceof RepositoryWithPerPartesHistory)) {
+                throw new RuntimeException("cannot use non null tillRevision on repository");
+            }
+
+            history = ((RepositoryWithPerPartesHistory) repository).getHistory(file, null, tillRevision);
+        } else {
+            history = repository.getHistory(file);
+        }
+
+        history.strip();
+        return history;
+    }
+
+    private Object getLock(Path dir) {
+        return locks.computeIfAbsent(dir, k -> new Object());
+    }
+
+    /**
+     * Write the segment under new number so that the readers never see partially written segment.
+     * @return number of the new segment
+     */
+    private long writeSegment(Path dir, PackedHistorySegment.Builder builder, @Nullable String latestRev, int flags)
+            throws IOException {
+
+        Files.createDirectories(dir);
+        Path tmpFile = Files.createTempFile(dir, "pack", ".tmp");
+        try {
+            builder.write(tmpFile, latestRev, flags);
+            // The number has to be allocated and used atomically, otherwise the segments stored concurrently
+            // could get the same number and replace each other.
+            synchronized (getLock(dir)) {
+                List<Path> files = listSegmentFiles(dir);
+                long number = files.isEmpty() ? 0 : getSegmentNumber(files.get(0)) + 1;
+                Files.move(tmpFile, dir.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX),
+                        StandardCopyOption.ATOMIC_MOVE);
+                return number;
+            }
+        } finally {
+            Files.deleteIfExists(tmpFile);
+            segmentsCache.remove(dir);
+        }
+    }
+
+    /**
+     * Delete the segments superseded by a base segment, including those left behind e.g. by a failed deletion.
+     * @param dir repository cache directory
+     * @param number number of the base segment
+     */
+    private static void deleteSegmentsBefore(Path dir, long number) throws IOException {
+        for (Path file : listSegmentFiles(dir)) {
+            if (getSegmentNumber(file) < number) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, String.format("failed to delete '%s'", file), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Merge the segments of each repository into single segment. The history of the files
+     * which no longer exist is dropped in the process.
+     */
+    @Override
+    public void optimize() {
+        Path root = Path.of(env.getDataRootPath(), HISTORY_PACK_DIR_NAME);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+
+        List<Path> dirs;
+        try (Stream<Path> stream = Files.walk(root)) {
+            dirs = stream.filter(Files::isDirectory).collect(Collectors.toList());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("failed to list history cache directories under '%s'", root), e);
+            return;
+        }
+
+        for (Path dir : dirs) {
+            try {
+                merge(dir);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, String.format("failed to merge history cache segments in '%s'", dir), e);
+            }
+        }
+    }
+
+    /**
+     * Merge the segments of the repository. The segments stored in the meantime would be older than the merged
+     * one and therefore ignored, so the whole merge runs under the lock of the directory.
+     */
+    private void merge(Path dir) throws IOException {
+        synchronized (getLock(dir)) {
+            List<PackedHistorySegment> segments = getSegments(dir);
+            if (segments.size() < 2) {
+                if (!segments.isEmpty() && segments.get(0).isBase()) {
+                    deleteSegmentsBefore(dir, getSegmentNumber(segments.get(0).getFile()));
+                }
+                return;
+            }
+            merge(dir, segments);
+        }
+    }
+
+    private void merge(Path dir, List<PackedHistorySegment> segments) throws IOException {
+
+        Statistics statistics = new Statistics();
+        Map<String, List<Hit>> files = new HashMap<>();
+        Set<String> replaced = new HashSet<>();
+        for (PackedHistorySegment segment : segments) {
+            for (int i = 0; i < segment.getFileCount(); i++) {
+                String path = segment.getPath(i);
+                if (replaced.contains(path)) {
+                    continue;
+                }
+                PackedHistorySegment.Posting posting = segment.getPosting(i);
+                files.computeIfAbsent(path, k -> new ArrayList<>()).add(new Hit(segment, posting));
+                if (posting.isReplace()) {
+                    replaced.add(path);
+                }
+            }
+        }
+
+        PackedHistorySegment.Builder builder = new PackedHistorySegment.Builder();
+        Map<PackedHistorySegment, int[]> remaps = new IdentityHashMap<>();
+        for (PackedHistorySegment segment : segments) {
+            int[] remap = new int[segment.getRevisionCount()];
+            Arrays.fill(remap, -1);
+            remaps.put(segment, remap);
+        }
+        for (Map.Entry<String, List<Hit>> entry : files.entrySet()) {
+            if (!new File(env.getSourceRootPath() + entry.getKey()).exists()) {
+                continue;
+            }
+
+            int size = entry.getValue().stream().mapToInt(hit -> hit.posting().revisions().length).sum();
+            int[] revisions = new int[size];
+            int[] tags = new int[size];
+            int offset = 0;
+            for (Hit hit : entry.getValue()) {
+                int[] remap = remaps.get(hit.segment());
+                for (int i = 0; i < hit.posting().revisions().length; i++) {
+                    revisions[offset] = copy(builder, hit.segment(), remap, hit.posting().revisions()[i]);
+                    int tag = hit.posting().tags()[i];
+                    tags[offset] = tag < 0 ? -1 : copy(builder, hit.segment(), remap, tag);
+                    offset++;
+                }
+            }
+            builder.addFile(entry.getKey(), new PackedHistorySegment.Posting(0, revisions, tags));
+        }
+
+        long number = writeSegment(dir, builder, segments.get(0).getLatestRev(), PackedHistorySegment.BASE);
+        deleteSegmentsBefore(dir, number);
+        statistics.report(LOGGER, Level.FINE, String.format("Merged %d history cache segments in '%s'",
+                segments.size(), dir));
+    }
+
+    private static int copy(PackedHistorySegment.Builder builder, PackedHistorySegment segment, int[] remap,
+                            int index) {
+        if (remap[index] < 0) {
+            remap[index] = builder.addRevision(segment.getRevisionBytes(index));
+        }
+        return remap[index];
+    }
+
+    @Override
+    @Nullable
+    public String getLatestCachedRevision(Repository repository) {
+        try {
+            List<PackedHistorySegment> segments = getSegments(getRepositoryDir(repository));
+            return segments.isEmpty() ? null : segments.get(0).getLatestRev();
+        } catch (IOException | CacheException e) {
+            LOGGER.log(Level.WARNING,
+                    String.format("failed to get latest cached revision for repository %s", repository), e);
+            return null;
+        }
+    }
+
+    /**
+     * Not supported, the history is stored only for whole repositories.
+     * @throws HistoryException always
+     */
+    @Override
+    public void storeFile(History history, File file, Repository repository) throws HistoryException {
+        throw new HistoryException(String.format("cannot store history of single file '%s' in %s",
+                file, getInfo()));
+    }
+
+    /**
+     * Does nothing. The history of the files which no longer exist is dropped in {@link #optimize()}.
+     * @param path path to source file relative to source root
+     */
+    @Override
+    public void clearFile(String path) {
+        // nothing to do
+    }
+
+    @Override
+    public void clear(RepositoryInfo repository) {
+        CacheUtil.clearCacheDir(repository, this);
+        String repoCachePath = CacheUtil.getRepositoryCacheDataDirname(repository, this);
+        if (repoCachePath != null) {
+            segmentsCache.remove(Path.of(repoCachePath));
+        }
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.history;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents single segment file of the packed history cache of a repository, see {@link PackedHistoryCache}.
+ * <p>
+ * The segment consists of the table of the history entries serialized with Smile (and of the tag strings),
+ * the paths of the files relative to source root sorted as unsigned bytes, and the postings of the files,
+ * i.e. the indexes of the entries in the table in the order of the history of the file (newest first)
+ * together with the indexes of the tags assigned to them in the history of the file.
+ * The positions of these sections are stored in a fixed size trailer, so the file can be written sequentially
+ * and then memory-mapped for lookups. The segment files are never modified once written.
+ * </p>
+ */
+final class PackedHistorySegment {
+
+    private static final int MAGIC = 0x4f474850; // "OGHP"
+    private static final int VERSION = 1;
+    private static final int TRAILER_SIZE = 56;
+
+    /**
+     * Segment flag: the segment contains complete history of the repository so the older segments are ignored.
+     */
+    static final int BASE = 1;
+
+    /**
+     * File flag: the history of the file in the segment replaces its history in the older segments.
+     */
+    static final int REPLACE = 1;
+
+    private static final ObjectReader READER = new SmileMapper().readerFor(HistoryEntry.class);
+
+    /**
+     * Postings of single file.
+     * @param flags file flags
+     * @param revisions indexes of the history entries, newest first
+     * @param tags indexes of the tags of the history entries or -1 if the entry has no tags
+     */
+    record Posting(int flags, int[] revisions, int[] tags) {
+        boolean isReplace() {
+            return (flags & REPLACE) != 0;
+        }
+    }
+
+    private final Path file;
+    private final FileTime lastModified;
+    private final ByteBuffer buffer;
+    private final int revisionCount;
+    private final int revisionOffsets;
+    private final int fileCount;
+    private final int pathOffsets;
+    private final int postingOffsets;
+    @Nullable
+    private final String latestRev;
+    private final int flags;
+
+    private PackedHistorySegment(Path file, FileTime lastModified, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.lastModified = lastModified;
+        this.buffer = buffer;
+
+        int trailer = buffer.capacity() - TRAILER_SIZE;
+        if (trailer < 0 || buffer.getInt(trailer + 52) != MAGIC) {
+            throw new IOException(String.format("'%s' is not a packed history segment", file));
+        }
+        if (buffer.getInt(trailer + 48) != VERSION) {
+            throw new IOException(String.format("unsupported version of packed history segment '%s'", file));
+        }
+        revisionOffsets = (int) buffer.getLong(trailer);
+        revisionCount = buffer.getInt(trailer + 8);
+        pathOffsets = (int) buffer.getLong(trailer + 12);
+        fileCount = buffer.getInt(trailer + 20);
+        postingOffsets = (int) buffer.getLong(trailer + 24);
+        int latestRevOffset = (int) buffer.getLong(trailer + 32);
+        int latestRevLength = buffer.getInt(trailer + 40);
+        flags = buffer.getInt(trailer + 44);
+        latestRev = latestRevLength < 0 ? null : new String(getBytes(latestRevOffset, latestRevLength),
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Map the segment file.
+     * @param file segment file
+     * @return segment instance
+     * @throws IOException if the file cannot be read or is not a segment
+     */
+    static PackedHistorySegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(String.format("packed history segment '%s' is too large", file));
+            }
+            FileTime lastModified = Files.getLastModifiedTime(file);
+            return new PackedHistorySegment(file, lastModified,
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return time of the creation of the segment
+     */
+    FileTime getLastModified() {
+        return lastModified;
+    }
+
+    boolean isBase() {
+        return (flags & BASE) != 0;
+    }
+
+    /**
+     * @return latest revision of the repository at the time the segment was written
+     */
+    @Nullable
+    String getLatestRev() {
+        return latestRev;
+    }
+
+    int getRevisionCount() {
+        return revisionCount;
+    }
+
+    int getFileCount() {
+        return fileCount;
+    }
+
+    private byte[] getBytes(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return bytes;
+    }
+
+    /**
+     * @param index index of the entry in the table
+     * @return serialized history entry
+     */
+    byte[] getRevisionBytes(int index) {
+        int start = (int) buffer.getLong(revisionOffsets + index * Long.BYTES);
+        int end = (int) buffer.getLong(revisionOffsets + (index + 1) * Long.BYTES);
+        return getBytes(start, end - start);
+    }
+
+    /**
+     * @param index index of the tag string in the table
+     * @return tag string
+     */
+    String getString(int index) {
+        return new String(getRevisionBytes(index), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param index index of the entry in the table
+     * @return history entry
+     * @throws IOException if the entry cannot be deserialized
+     */
+    HistoryEntry getEntry(int index) throws IOException {
+        return READER.readValue(getRevisionBytes(index));
+    }
+
+    /**
+     * @param index index of the file in the sorted list of paths
+     * @return path of the file relative to source root
+     */
+    String getPath(int index) {
+        int start = (int) buffer.getLong(pathOffsets + index * Long.BYTES);
+        int end = (int) buffer.getLong(pathOffsets + (index + 1) * Long.BYTES);
+        return new String(getBytes(start, end - start), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param index index of the file in the sorted list of paths
+     * @return postings of the file
+     */
+    Posting getPosting(int index) {
+        int offset = (int) buffer.getLong(postingOffsets + index * Long.BYTES);
+        int postingFlags = buffer.getInt(offset);
+        int[] revisions = new int[buffer.getInt(offset + Integer.BYTES)];
+        int[] tags = new int[revisions.length];
+        for (int i = 0; i < revisions.length; i++) {
+            revisions[i] = buffer.getInt(offset + (2 * i + 2) * Integer.BYTES);
+            tags[i] = buffer.getInt(offset + (2 * i + 3) * Integer.BYTES);
+        }
+        return new Posting(postingFlags, revisions, tags);
+    }
+
+    /**
+     * @param path path of the file relative to source root
+     * @return postings of the file or {@code null} if the segment does not contain the file
+     */
+    @Nullable
+    Posting find(String path) {
+        byte[] key = path.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = fileCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return getPosting(mid);
+            }
+        }
+        return null;
+    }
+
+    private int compare(int index, byte[] key) {
+        int start = (int) buffer.getLong(pathOffsets + index * Long.BYTES);
+        int length = (int) buffer.getLong(pathOffsets + (index + 1) * Long.BYTES) - start;
+        int i = buffer.slice(start, length).mismatch(ByteBuffer.wrap(key));
+        if (i < 0) {
+            return 0;
+        }
+        if (i >= length || i >= key.length) {
+            return length - key.length;
+        }
+        return Byte.compareUnsigned(buffer.get(start + i), key[i]);
+    }
+
+    /**
+     * Collects the content of a segment.
+     */
+    static final class Builder {
+
+        private static final ObjectWriter WRITER = FileHistoryCache.getObjectWriter();
+
+        private final List<byte[]> revisions = new ArrayList<>();
+        /**
+         * Maps serialized entries to their indexes so that the same entry is stored only once.
+         */
+        private final Map<ByteBuffer, Integer> revisionIndexes = new HashMap<>();
+        private final Map<String, Posting> files = new HashMap<>();
+
+        /**
+         * @param entry history entry
+         * @return index of the entry in the table
+         * @throws IOException if the entry cannot be serialized
+         */
+        int addEntry(HistoryEntry entry) throws IOException {
+            return addRevision(WRITER.writeValueAsBytes(entry));
+        }
+
+        /**
+         * @param tags tag string
+         * @return index of the tag string in the table
+         */
+        int addString(String tags) {
+            return addRevision(tags.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @param bytes serialized history entry or tag string, see {@link #getRevisionBytes(int)}
+         * @return index of the entry in the table
+         */
+        synchronized int addRevision(byte[] bytes) {
+            return revisionIndexes.computeIfAbsent(ByteBuffer.wrap(bytes), k -> {
+                revisions.add(bytes);
+                return revisions.size() - 1;
+            });
+        }
+
+        /**
+         * @param path path of the file relative to source root
+         * @param posting postings of the file
+         */
+        synchronized void addFile(String path, Posting posting) {
+            files.put(path, posting);
+        }
+
+        /**
+         * Write the segment.
+         * @param file destination file
+         * @param latestRev latest revision of the repository
+         * @param segmentFlags segment flags
+         * @throws IOException on I/O error or if the segment would be too large
+         */
+        synchronized void write(Path file, @Nullable String latestRev, int segmentFlags) throws IOException {
+            List<byte[]> paths = new ArrayList<>(files.size());
+            for (String path : files.keySet()) {
+                paths.add(path.getBytes(StandardCharsets.UTF_8));
+            }
+            paths.sort(Arrays::compareUnsigned);
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(file)))) {
+                long[] offsets = new long[revisions.size() + 1];
+                for (int i = 0; i < revisions.size(); i++) {
+                    offsets[i] = out.size();
+                    out.write(revisions.get(i));
+                }
+                offsets[revisions.size()] = out.size();
+                long revisionOffsetsPos = writeLongs(out, offsets);
+
+                offsets = new long[paths.size() + 1];
+                for (int i = 0; i < paths.size(); i++) {
+                    offsets[i] = out.size();
+                    out.write(paths.get(i));
+                }
+                offsets[paths.size()] = out.size();
+                long pathOffsetsPos = writeLongs(out, offsets);
+
+                offsets = new long[paths.size()];
+                for (int i = 0; i < paths.size(); i++) {
+                    offsets[i] = out.size();
+                    Posting posting = files.get(new String(paths.get(i), StandardCharsets.UTF_8));
+                    out.writeInt(posting.flags());
+                    out.writeInt(posting.revisions().length);
+                    for (int j = 0; j < posting.revisions().length; j++) {
+                        out.writeInt(posting.revisions()[j]);
+                        out.writeInt(posting.tags()[j]);
+                    }
+                }
+                long postingOffsetsPos = writeLongs(out, offsets);
+
+                long latestRevPos = out.size();
+                byte[] latestRevBytes = latestRev == null ? new byte[0] : latestRev.getBytes(StandardCharsets.UTF_8);
+                out.write(latestRevBytes);
+
+                out.writeLong(revisionOffsetsPos);
+                out.writeInt(revisions.size());
+                out.writeLong(pathOffsetsPos);
+                out.writeInt(paths.size());
+                out.writeLong(postingOffsetsPos);
+                out.writeLong(latestRevPos);
+                out.writeInt(latestRev == null ? -1 : latestRevBytes.length);
+                out.writeInt(segmentFlags);
+                out.writeInt(VERSION);
+                out.writeInt(MAGIC);
+
+                // DataOutputStream#size() stops at Integer.MAX_VALUE.
+                if (out.size() == Integer.MAX_VALUE) {
+                    throw new IOException(String.format("packed history segment '%s' is too large", file));
+                }
+            }
+        }
+
+        private static long writeLongs(DataOutputStream out, long[] values) throws IOException {
+            long position = out.size();
+            for (long value : values) {
+                out.writeLong(value);
+            }
+            return position;
+        }
+    }
+}
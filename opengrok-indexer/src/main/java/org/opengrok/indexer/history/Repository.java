@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2008, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.history;
@@ -309,7 +309,18 @@ public abstract class Repository extends RepositoryInfo {
             }
         }
 
-        Iterator<TagEntry> it = this.getTagList().descendingIterator();
+        assignTagsInHistory(hist, this.getTagList());
+    }
+
+    /**
+     * Assign tags from given list to changesets in the history.
+     *
+     * @param hist History object we want to assign tags to.
+     * @param tagList complete list of tags of the repository
+     * @see #assignTagsInHistory(History)
+     */
+    static void assignTagsInHistory(History hist, NavigableSet<TagEntry> tagList) {
+        Iterator<TagEntry> it = tagList.descendingIterator();
         TagEntry lastTagEntry = null;
         for (HistoryEntry ent : hist.getHistoryEntries()) {
             // Assign all tags created since the last revision
@@ -353,6 +364,22 @@ public abstract class Repository extends RepositoryInfo {
      */
     abstract @Nullable Annotation annotate(File file, @Nullable String revision) throws IOException;
 
+    /**
+     * Annotate the latest revision of a file by updating the annotation of its previous revision
+     * with the changes made since then, rather than computing the annotation from scratch.
+     * The default implementation does not support this.
+     *
+     * @param file the file to annotate
+     * @param previous annotation of previous revision of the file, with the revision set
+     * @return an <code>Annotation</code> object equal to the one returned by {@link #annotate(File, String)}
+     * or {@code null} if the annotation cannot be updated, e.g. because the changes are too complex
+     * @throws java.io.IOException if an error occurs
+     */
+    @Nullable
+    Annotation updateAnnotation(File file, Annotation previous) throws IOException {
+        return null;
+    }
+
     /**
      * Return revision for annotate view.
      *
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2021, 2023, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2021, 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.history;
 
@@ -27,7 +27,6 @@ import org.opengrok.indexer.configuration.Project;
 import org.opengrok.indexer.configuration.RuntimeEnvironment;
 import org.opengrok.indexer.logger.LoggerFactory;
 import org.opengrok.indexer.util.Progress;
-import org.opengrok.indexer.util.Statistics;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -46,6 +45,8 @@ public abstract class RepositoryWithHistoryTraversal extends RepositoryWithPerPa
 
     private static final long serialVersionUID = -1L;
 
+    private static final Object FILE_COLLECTOR_LOCK = new Object();
+
     public static class CommitInfo {
         String revision;
         String displayRevision;
@@ -173,52 +174,70 @@ public abstract class RepositoryWithHistoryTraversal extends RepositoryWithPerPa
         List<String> boundaryChangesetList = new ArrayList<>(boundaryChangesets.getBoundaryChangesetIDs(sinceRevision));
         boundaryChangesetList.add(null);    // to finish the last step in the cycle below
         LOGGER.log(Level.FINE, "boundary changesets: {0}", boundaryChangesetList);
-        int cnt = 0;
-        for (String tillRevision: boundaryChangesetList) {
-            Statistics stat = new Statistics();
-            LOGGER.log(Level.FINEST, "storing history cache for revision range ({0}, {1})",
-                    new Object[]{sinceRevision, tillRevision});
+        final FileCollector finalFileCollector = fileCollector;
+        storeHistoryChunks(cache, sinceRevision, boundaryChangesetList,
+                (since, till) -> getHistoryChunk(directory, since, till, finalFileCollector));
 
-            HistoryCollector historyCollector = new HistoryCollector(isMergeCommitsEnabled());
-            List<ChangesetVisitor> visitors = new ArrayList<>();
-            visitors.add(historyCollector);
-            if (fileCollector != null) {
-                visitors.add(fileCollector);
-            }
+        updateFileCollector(fileCollector, project);
+    }
 
-            try (Progress progress = new Progress(LOGGER,
-                    String.format("changesets traversed of %s (range %s %s)", this, sinceRevision, tillRevision),
-                    Level.FINER)) {
-                ProgressVisitor progressVisitor = new ProgressVisitor(progress);
-                visitors.add(progressVisitor);
-                traverseHistory(directory, sinceRevision, tillRevision, null, visitors);
-            }
-            History history = new History(historyCollector.entries, historyCollector.renamedFiles,
-                    historyCollector.latestRev);
+    /**
+     * Retrieve history for a revision range. This might be called concurrently for disjoint ranges.
+     * @param directory directory of the repository
+     * @param sinceRevision start revision (non-inclusive)
+     * @param tillRevision end revision (inclusive)
+     * @param fileCollector optional file collector to add the files changed in the range to
+     * @return history object
+     * @throws HistoryException on error
+     */
+    private History getHistoryChunk(File directory, String sinceRevision, String tillRevision,
+                                    @Nullable FileCollector fileCollector) throws HistoryException {
 
-            // Assign tags to changesets they represent.
-            if (this.isTagsEnabled() && hasFileBasedTags()) {
-                assignTagsInHistory(history);
-            }
+        HistoryCollector historyCollector = new HistoryCollector(isMergeCommitsEnabled());
+        List<ChangesetVisitor> visitors = new ArrayList<>();
+        visitors.add(historyCollector);
+        FileCollector chunkFileCollector = null;
+        if (fileCollector != null) {
+            chunkFileCollector = new FileCollector(true);
+            visitors.add(chunkFileCollector);
+        }
 
-            finishCreateCache(cache, history, tillRevision);
-            sinceRevision = tillRevision;
-            stat.report(LOGGER, Level.FINE, String.format("Finished chunk %d/%d of history cache for repository '%s'",
-                    ++cnt, boundaryChangesetList.size(), this.getDirectoryName()));
+        try (Progress progress = new Progress(LOGGER,
+                String.format("changesets traversed of %s (range %s %s)", this, sinceRevision, tillRevision),
+                Level.FINER)) {
+            ProgressVisitor progressVisitor = new ProgressVisitor(progress);
+            visitors.add(progressVisitor);
+            traverseHistory(directory, sinceRevision, tillRevision, null, visitors);
         }
+        History history = new History(historyCollector.entries, historyCollector.renamedFiles,
+                historyCollector.latestRev);
 
-        updateFileCollector(fileCollector, project);
+        // Assign tags to changesets they represent.
+        if (this.isTagsEnabled() && hasFileBasedTags()) {
+            assignTagsInHistory(history);
+        }
+
+        if (chunkFileCollector != null) {
+            synchronized (fileCollector) {
+                fileCollector.addFiles(chunkFileCollector.getFiles());
+            }
+        }
+
+        return history;
     }
 
     private void updateFileCollector(FileCollector fileCollector, Project project) {
         RuntimeEnvironment env = RuntimeEnvironment.getInstance();
 
         if (project != null && fileCollector != null) {
-            FileCollector fileCollectorEnv = env.getFileCollector(project.getName());
-            if (fileCollectorEnv == null) {
-                env.setFileCollector(project.getName(), fileCollector);
-            } else {
-                fileCollectorEnv.addFiles(fileCollector.getFiles());
+            // The repositories of a project might be processed in parallel.
+            synchronized (FILE_COLLECTOR_LOCK) {
+                FileCollector fileCollectorEnv = env.getFileCollector(project.getName());
+                if (fileCollectorEnv == null) {
+                    env.setFileCollector(project.getName(), fileCollector);
+                } else {
+                    fileCollectorEnv.addFiles(fileCollector.getFiles());
+                }
             }
         }
     }
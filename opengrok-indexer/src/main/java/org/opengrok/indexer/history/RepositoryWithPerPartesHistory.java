@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2021, 2023, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2021, 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.history;
 
@@ -28,8 +28,13 @@ import org.opengrok.indexer.util.Progress;
 import org.opengrok.indexer.util.Statistics;
 
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -73,6 +78,102 @@ public abstract class RepositoryWithPerPartesHistory extends Repository {
                                 Progress progress)
             throws HistoryException;
 
+    /**
+     * Retrieves history for a revision range, see {@link #storeHistoryChunks(HistoryCache, String, List, Chunk)}.
+     */
+    @FunctionalInterface
+    interface Chunk {
+        /**
+         * @param sinceRevision start revision (non-inclusive)
+         * @param tillRevision end revision (inclusive)
+         * @return history object
+         * @throws HistoryException if history retrieval fails
+         */
+        History getHistory(String sinceRevision, String tillRevision) throws HistoryException;
+    }
+
+    /**
+     * Store history of the revision ranges delimited by the boundary changesets, from the oldest to the newest,
+     * so that the history of the files is merged in the correct order.
+     * The history of up to {@link RuntimeEnvironment#getHistoryChunkParallelism()} ranges is retrieved
+     * concurrently, ahead of the range being stored, on the executor shared by all repositories,
+     * see {@link org.opengrok.indexer.index.IndexerParallelizer#getHistoryChunkExecutor()}.
+     * @param cache history cache
+     * @param sinceRevision start revision (non-inclusive)
+     * @param boundaryChangesetList end revisions of the ranges, the last one should be {@code null}
+     * @param chunk retrieves history for a revision range, has to be thread-safe
+     * @throws HistoryException on error during history retrieval
+     * @throws CacheException on error during storing the history
+     */
+    void storeHistoryChunks(HistoryCache cache, String sinceRevision, List<String> boundaryChangesetList,
+                            Chunk chunk) throws HistoryException, CacheException {
+
+        RuntimeEnvironment env = RuntimeEnvironment.getInstance();
+        int parallelism = Math.min(env.getHistoryChunkParallelism(), boundaryChangesetList.size());
+        if (parallelism <= 1) {
+            int cnt = 0;
+            for (String tillRevision : boundaryChangesetList) {
+                Statistics stat = new Statistics();
+                LOGGER.log(Level.FINEST, "storing history cache for revision range ({0}, {1})",
+                        new Object[]{sinceRevision, tillRevision});
+                History history = chunk.getHistory(sinceRevision, tillRevision);
+                finishCreateCache(cache, history, tillRevision);
+                sinceRevision = tillRevision;
+                reportChunk(stat, ++cnt, boundaryChangesetList.size());
+            }
+            return;
+        }
+
+        ExecutorService executor = env.getIndexerParallelizer().getHistoryChunkExecutor();
+        // Keep the number of histories in memory bounded by retrieving just few ranges ahead.
+        Deque<Future<History>> futures = new ArrayDeque<>();
+        try {
+            int submitted = 0;
+            for (int cnt = 0; cnt < boundaryChangesetList.size(); cnt++) {
+                while (submitted < boundaryChangesetList.size() && submitted - cnt <= parallelism) {
+                    final String since = submitted == 0 ? sinceRevision : boundaryChangesetList.get(submitted - 1);
+                    final String till = boundaryChangesetList.get(submitted);
+                    futures.add(executor.submit(() -> chunk.getHistory(since, till)));
+                    submitted++;
+                }
+
+                Statistics stat = new Statistics();
+                String tillRevision = boundaryChangesetList.get(cnt);
+                History history = getChunkHistory(futures.remove());
+                LOGGER.log(Level.FINEST, "storing history cache for revision range ending with {0}", tillRevision);
+                finishCreateCache(cache, history, tillRevision);
+                reportChunk(stat, cnt + 1, boundaryChangesetList.size());
+            }
+        } finally {
+            // The ranges retrieved ahead are not needed if storing the history failed.
+            for (Future<History> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private void reportChunk(Statistics stat, int cnt, int total) {
+        stat.report(LOGGER, Level.FINE, String.format("Finished chunk %d/%d of history cache for repository '%s'",
+                cnt, total, this.getDirectoryName()));
+    }
+
+    private static History getChunkHistory(Future<History> future) throws HistoryException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HistoryException("interrupted while retrieving history", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof HistoryException historyException) {
+                throw historyException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new HistoryException(e.getCause());
+        }
+    }
+
     @Override
     protected void doCreateCache(HistoryCache cache, String sinceRevision, File directory)
             throws HistoryException, CacheException {
@@ -92,16 +193,7 @@ public abstract class RepositoryWithPerPartesHistory extends Repository {
         List<String> boundaryChangesetList = new ArrayList<>(boundaryChangesets.getBoundaryChangesetIDs(sinceRevision));
         boundaryChangesetList.add(null);    // to finish the last step in the cycle below
         LOGGER.log(Level.FINE, "boundary changesets: {0}", boundaryChangesetList);
-        int cnt = 0;
-        for (String tillRevision: boundaryChangesetList) {
-            Statistics stat = new Statistics();
-            LOGGER.log(Level.FINEST, "storing history cache for revision range ({0}, {1})",
-                    new Object[]{sinceRevision, tillRevision});
-            History history = getHistory(directory, sinceRevision, tillRevision);
-            finishCreateCache(cache, history, tillRevision);
-            sinceRevision = tillRevision;
-            stat.report(LOGGER, Level.FINE, String.format("finished chunk %d/%d of history cache for repository ''%s''",
-                    ++cnt, boundaryChangesetList.size(), this.getDirectoryName()));
-        }
+        storeHistoryChunks(cache, sinceRevision, boundaryChangesetList,
+                (since, till) -> getHistory(directory, since, till));
     }
 }
@@ -0,0 +1,271 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jetbrains.annotations.VisibleForTesting;
+import org.opengrok.indexer.configuration.RuntimeEnvironment;
+import org.opengrok.indexer.history.LatestRevisionUtil;
+import org.opengrok.indexer.logger.LoggerFactory;
+import org.opengrok.indexer.util.Statistics;
+
+/**
+ * Generates the annotation cache for the files added to the index with its own threads, so that the indexing
+ * threads do not have to wait for the annotations, see {@link IndexerParallelizer#getAnnotationCacheQueue()}.
+ * <p>
+ * There is at most one pending entry per file. Adding a file that is already queued replaces its entry,
+ * so the work for the older revision is skipped. The most recently modified files are processed first.
+ * </p>
+ * <p>
+ * {@link #close()} waits for the queue to drain for at most
+ * {@link RuntimeEnvironment#getAnnotationCacheTimeout()} seconds and then persists the remaining entries
+ * to the data root. These are queued again by {@link #resume()} in the next run once its index is committed.
+ * </p>
+ */
+public final class AnnotationCacheQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnnotationCacheQueue.class);
+
+    /**
+     * Name of the file in the data root with the entries left over from the previous run.
+     */
+    static final String QUEUE_FILE_NAME = "annotationqueue";
+
+    /**
+     * @param path path of the file relative to source root
+     * @param revision latest revision of the file
+     * @param lastModified last modified time of the file
+     * @param resumed whether the entry was left over from previous run
+     * @param sequence order in which the entries were added
+     */
+    private record Entry(String path, String revision, long lastModified, boolean resumed, long sequence) {
+    }
+
+    private static final Comparator<Entry> PRIORITY = Comparator.comparing(Entry::resumed).
+            thenComparing(Comparator.comparingLong(Entry::lastModified).reversed()).
+            thenComparingLong(Entry::sequence);
+
+    private final RuntimeEnvironment env;
+    private final ExecutorService executor;
+    private final PriorityBlockingQueue<Entry> queue = new PriorityBlockingQueue<>(64, PRIORITY);
+    private final Map<String, Entry> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * @param env runtime environment
+     * @param executor executor to generate the annotation cache with, owned by this instance
+     */
+    AnnotationCacheQueue(RuntimeEnvironment env, ExecutorService executor) {
+        this.env = env;
+        this.executor = executor;
+    }
+
+    private Path getQueueFile() {
+        return Path.of(env.getDataRootPath(), QUEUE_FILE_NAME);
+    }
+
+    /**
+     * Queue the annotation cache generation for given file.
+     * @param file file under source root
+     * @param path path of the file relative to source root
+     * @param revision latest revision of the file, to be stored with the annotation
+     */
+    public void add(File file, String path, String revision) {
+        if (closed) {
+            IndexDatabase.createAnnotationCache(file, revision);
+            return;
+        }
+
+        enqueue(new Entry(path, revision, file.lastModified(), false, sequence.incrementAndGet()));
+    }
+
+    private void enqueue(Entry entry) {
+        pending.put(entry.path(), entry);
+        queue.add(entry);
+        executor.execute(this::processNext);
+    }
+
+    /**
+     * Each queued entry is paired with single call of this method, however the entries are taken
+     * in the order of their priority.
+     */
+    private void processNext() {
+        if (closed) {
+            return;
+        }
+        Entry entry = queue.poll();
+        if (entry == null) {
+            return;
+        }
+        if (pending.get(entry.path()) != entry) {
+            LOGGER.log(Level.FINEST, "skipping superseded annotation of ''{0}'' in revision {1}",
+                    new Object[]{entry.path(), entry.revision()});
+            return;
+        }
+
+        try {
+            File file = new File(env.getSourceRootFile(), entry.path());
+            /*
+             * Resumed entry is outdated if the file was changed since the previous run. The resumed entries
+             * are queued once the index is committed so the latest revision can be checked in the index.
+             * The entries added while indexing are current, and the searcher might not see the updated
+             * documents yet.
+             */
+            if (file.isFile() && (!entry.resumed() ||
+                    entry.revision().equals(LatestRevisionUtil.getLastRevFromIndex(file)))) {
+                IndexDatabase.createAnnotationCache(file, entry.revision());
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, String.format("failed to create annotation cache for '%s'", entry.path()), e);
+        } finally {
+            if (pending.remove(entry.path(), entry) && pending.isEmpty()) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of files waiting for the annotation cache generation
+     */
+    @VisibleForTesting
+    int size() {
+        return pending.size();
+    }
+
+    /**
+     * Wait for the queued work to be done, at most for {@link RuntimeEnvironment#getAnnotationCacheTimeout()}
+     * seconds, and persist the entries that are left so that they are resumed by the next instance.
+     */
+    void close() {
+        Statistics statistics = new Statistics();
+        long timeout = TimeUnit.SECONDS.toMillis(env.getAnnotationCacheTimeout());
+        long deadline = System.currentTimeMillis() + timeout;
+        try {
+            synchronized (this) {
+                while (!pending.isEmpty()) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (timeout > 0 && remaining <= 0) {
+                        break;
+                    }
+                    wait(timeout > 0 ? remaining : 0);
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.log(Level.WARNING, "interrupted while waiting for the annotation cache queue", e);
+            Thread.currentThread().interrupt();
+        }
+
+        closed = true;
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.log(Level.INFO, "waiting for the annotation cache generation to finish");
+            }
+        } catch (InterruptedException e) {
+            LOGGER.log(Level.WARNING, "interrupted while waiting for the annotation cache generation", e);
+            Thread.currentThread().interrupt();
+        }
+
+        persist();
+        statistics.report(LOGGER, Level.FINE, "Done with the annotation cache queue");
+    }
+
+    private void persist() {
+        Path queueFile = getQueueFile();
+        try {
+            if (pending.isEmpty()) {
+                Files.deleteIfExists(queueFile);
+                return;
+            }
+
+            List<String> lines = new ArrayList<>(pending.size());
+            pending.values().stream().sorted(PRIORITY).
+                    forEach(entry -> lines.add(entry.revision() + "\t" + entry.path()));
+            Path tempFile = queueFile.resolveSibling(QUEUE_FILE_NAME + ".tmp");
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            Files.move(tempFile, queueFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.log(Level.INFO, "annotation cache generation for {0} files will be resumed by next run",
+                    lines.size());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("failed to persist annotation cache queue to '%s'", queueFile),
+                    e);
+        }
+    }
+
+    /**
+     * Queue the entries left over from the previous run. To be called once the index of the current run
+     * is committed, even if no file was added, so that the entries for the files changed in the meantime
+     * are recognized as outdated. The files queued in the current run are skipped.
+     */
+    public void resume() {
+        Path queueFile = getQueueFile();
+        if (closed || !Files.isRegularFile(queueFile)) {
+            return;
+        }
+
+        // Make the searchers see the committed index.
+        env.maybeRefreshIndexSearchers();
+        try {
+            int count = 0;
+            for (String line : Files.readAllLines(queueFile, StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) {
+                    continue;
+                }
+                String path = line.substring(tab + 1);
+                if (pending.containsKey(path)) {
+                    continue;
+                }
+                File file = new File(env.getSourceRootFile(), path);
+                enqueue(new Entry(path, line.substring(0, tab), file.lastModified(), true,
+                        sequence.incrementAndGet()));
+                count++;
+            }
+            Files.delete(queueFile);
+            LOGGER.log(Level.INFO, "resumed annotation cache generation for {0} files", count);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("failed to read annotation cache queue from '%s'", queueFile),
+                    e);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.opengrok.indexer.configuration.PathAccepter;
+import org.opengrok.indexer.logger.LoggerFactory;
+
+/**
+ * Lists a directory and reads the attributes of its entries. The result is the list of the entries sorted
+ * by name, i.e. in the same order as {@link IndexDatabase#FILENAME_COMPARATOR} produces, so that the consumer
+ * can walk the tree in the order required for the traversal of the {@code u} terms.
+ * <p>
+ * The consumer walks the entries with {@link Cursor} which starts the listing of the next few subdirectories
+ * so that it proceeds in parallel with the traversal. Only {@link #LIST_AHEAD} subdirectories per level
+ * of the tree are listed ahead, so the listings held in memory are bounded by the depth of the tree
+ * rather than by its size.
+ * </p>
+ * <p>
+ * Symbolic links to directories are not descended into, because whether they should be followed
+ * depends on the state of the sequential traversal. The consumer has to list these on its own.
+ * </p>
+ */
+class DirectoryListingTask extends RecursiveTask<List<DirectoryListingTask.Entry>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryListingTask.class);
+
+    private static final Comparator<Entry> ENTRY_COMPARATOR = Comparator.comparing(e -> e.name);
+
+    /**
+     * Maximum number of subdirectories of a directory being listed ahead of the consumer.
+     */
+    static final int LIST_AHEAD = 8;
+
+    private final transient Path dir;
+
+    /**
+     * Represents a directory entry together with the attributes needed by the traversal.
+     */
+    static final class Entry {
+        private final File file;
+        private final String name;
+        private final boolean symbolicLink;
+        private final boolean directory;
+        private final boolean regularFile;
+        private final long lastModified;
+        private DirectoryListingTask subdirectoryTask;
+
+        private Entry(Path path, BasicFileAttributes attrs, @Nullable BasicFileAttributes targetAttrs) {
+            this.file = path.toFile();
+            this.name = file.getName();
+            this.symbolicLink = attrs.isSymbolicLink();
+            BasicFileAttributes effective = targetAttrs != null ? targetAttrs : attrs;
+            this.directory = targetAttrs != null ? targetAttrs.isDirectory() : !symbolicLink && attrs.isDirectory();
+            this.regularFile = targetAttrs != null ? targetAttrs.isRegularFile() :
+                    !symbolicLink && attrs.isRegularFile();
+            // Mimic File#lastModified() which returns 0 for broken symbolic links.
+            this.lastModified = symbolicLink && targetAttrs == null ? 0 : effective.lastModifiedTime().toMillis();
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        boolean isSymbolicLink() {
+            return symbolicLink;
+        }
+
+        boolean isDirectory() {
+            return directory;
+        }
+
+        boolean isRegularFile() {
+            return regularFile;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * @return whether the listing of this directory entry was started and not handed over yet
+         */
+        @VisibleForTesting
+        boolean isListed() {
+            return subdirectoryTask != null;
+        }
+
+        /**
+         * The task is handed over only once so that the listing can be garbage collected
+         * as soon as the consumer is done with the subdirectory.
+         * @return task listing this directory entry or {@code null} if the entry was not listed
+         */
+        @Nullable
+        DirectoryListingTask takeSubdirectoryTask() {
+            DirectoryListingTask task = subdirectoryTask;
+            subdirectoryTask = null;
+            return task;
+        }
+    }
+
+    /**
+     * Walks the entries of a directory listing and starts the listing of the subdirectories that follow
+     * the current entry, at most {@link #LIST_AHEAD} of them at a time.
+     */
+    static final class Cursor {
+        private final List<Entry> entries;
+        private final PathAccepter pathAccepter;
+        private final ForkJoinPool pool;
+        /**
+         * Index of the entry to be returned by {@link #next()}.
+         */
+        private int position;
+        /**
+         * Index of the first entry not considered for listing yet.
+         */
+        private int next;
+        /**
+         * Number of listings started for the entries between {@link #position} and {@link #next}.
+         */
+        private int listed;
+
+        /**
+         * @param entries sorted directory entries
+         * @param pathAccepter used to avoid listing of ignored subdirectories
+         * @param pool pool to run the listing of the subdirectories in
+         */
+        Cursor(List<Entry> entries, PathAccepter pathAccepter, ForkJoinPool pool) {
+            this.entries = entries;
+            this.pathAccepter = pathAccepter;
+            this.pool = pool;
+        }
+
+        boolean hasNext() {
+            return position < entries.size();
+        }
+
+        /**
+         * @return next entry, with the listing of the subdirectory started if it is a directory to descend into
+         */
+        Entry next() {
+            while (listed < LIST_AHEAD && next < entries.size()) {
+                Entry entry = entries.get(next++);
+                if (entry.directory && !entry.symbolicLink && pathAccepter.accept(entry.file)) {
+                    entry.subdirectoryTask = new DirectoryListingTask(entry.file.toPath());
+                    pool.execute(entry.subdirectoryTask);
+                    listed++;
+                }
+            }
+
+            Entry entry = entries.get(position++);
+            if (entry.subdirectoryTask != null) {
+                listed--;
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * @param dir directory to list
+     */
+    DirectoryListingTask(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * @return sorted list of the directory entries or {@code null} if the directory could not be listed
+     */
+    @Override
+    @Nullable
+    protected List<Entry> compute() {
+        List<Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path : stream) {
+                entries.add(readEntry(path));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, String.format("Failed to get file listing for '%s'", dir), e);
+            return null;
+        }
+        entries.sort(ENTRY_COMPARATOR);
+        return entries;
+    }
+
+    private static Entry readEntry(Path path) throws IOException {
+        // A single (l)stat call per entry. The link target is examined only for symbolic links.
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        BasicFileAttributes targetAttrs = null;
+        if (attrs.isSymbolicLink()) {
+            try {
+                targetAttrs = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException e) {
+                LOGGER.log(Level.FINEST, "cannot read attributes of the target of symbolic link ''{0}''", path);
+            }
+        }
+        return new Entry(path, attrs, targetAttrs);
+    }
+}
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2008, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.index;
@@ -31,6 +31,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.file.Files;
@@ -40,7 +41,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -54,12 +54,12 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPOutputStream;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
@@ -72,9 +72,12 @@ import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiBits;
 import org.apache.lucene.index.MultiTerms;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.StoredFields;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
@@ -91,6 +94,8 @@ import org.apache.lucene.store.NoLockFactory;
 import org.apache.lucene.store.SimpleFSLockFactory;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.StringHelper;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.VisibleForTesting;
@@ -117,6 +122,7 @@ import org.opengrok.indexer.util.ForbiddenSymlinkException;
 import org.opengrok.indexer.util.IOUtils;
 import org.opengrok.indexer.util.ObjectPool;
 import org.opengrok.indexer.util.Progress;
+import org.opengrok.indexer.util.SpliceableGzipOutputStream;
 import org.opengrok.indexer.util.Statistics;
 import org.opengrok.indexer.util.TandemPath;
 import org.opengrok.indexer.web.Util;
@@ -157,6 +163,8 @@ public class IndexDatabase {
 
     private static final Set<String> LIVE_CHECK_FIELDS;
 
+    private static final Set<String> DIGEST_FIELDS = Set.of(QueryBuilder.DIGEST);
+
     private static final Object INSTANCE_LOCK = new Object();
 
     /**
@@ -174,6 +182,11 @@ public class IndexDatabase {
     private IndexWriter writer;
     private IndexAnalysisSettings3 settings;
     private PendingFileCompleter completer;
+    /**
+     * Writer of the packed xrefs, {@code null} if the xrefs are stored as a file per source file.
+     */
+    @Nullable
+    private PackedXrefWriter packedXrefWriter;
     private NumLinesLOCAggregator countsAggregator;
     private TermsEnum uidIter;
     private PostingsEnum postsIter;
@@ -190,11 +203,34 @@ public class IndexDatabase {
     private String directory;
     private LockFactory lockFactory;
     private final BytesRef emptyBR = new BytesRef("");
-    private final Set<String> deletedUids = new HashSet<>();
+    /**
+     * IDs of deleted documents, {@code null} if there are no deletions.
+     */
+    @Nullable
+    private FixedBitSet deletedDocs;
+    /**
+     * Per-leaf iterators of the {@link QueryBuilder#LASTMOD} values used during the traversal of the uid terms,
+     * see {@link #getIndexedLastModified(int)}.
+     */
+    private NumericDocValues[] lastModifiedValues;
+    /**
+     * Digest of the file contents computed by {@link #isContentUnchanged(File, String, long)}
+     * for the file currently processed, {@code null} if it was not computed.
+     */
+    @Nullable
+    private byte[] fileDigest;
+    /**
+     * Files changed according to the history collected for the project (see
+     * {@link RuntimeEnvironment#getFileCollector(String)}) during the file system traversal. The history related
+     * fields of their documents have to be updated even if the contents of the files did not change
+     * (e.g. a change and its revert), so they are not checked by {@link #isContentUnchanged(File, String, long)}.
+     */
+    private Set<String> historyChangedFiles = Set.of();
 
     // Directory where we store indexes
     public static final String INDEX_DIR = "index";
     public static final String XREF_DIR = "xref";
+    public static final String XREF_PACK_DIR = "xrefpack";
     public static final String SUGGESTER_DIR = "suggester";
 
     private final IndexDownArgsFactory indexDownArgsFactory;
@@ -597,6 +633,9 @@ public class IndexDatabase {
             writer = new IndexWriter(indexDirectory, indexWriterConfigFactory.get());
             writer.commit(); // to make sure index exists on the disk
             completer = new PendingFileCompleter();
+            if (env.isPackedXref()) {
+                packedXrefWriter = new PackedXrefWriter(PackedXrefStore.getDirectory(env.getDataRootFile(), project));
+            }
 
             String dir = this.directory;
             File sourceRoot;
@@ -611,6 +650,7 @@ public class IndexDatabase {
             String startUid = Util.path2uid(dir, "");
             reader = DirectoryReader.open(indexDirectory); // open existing index
             setupDeletedUids();
+            lastModifiedValues = null;
             countsAggregator = new NumLinesLOCAggregator();
             settings = readAnalysisSettings();
             if (settings == null) {
@@ -651,21 +691,29 @@ public class IndexDatabase {
                     }
                 }
 
-                // The actual indexing happens in indexParallel(). Here we merely collect the files
-                // that need to be indexed and the files that should be removed.
-                IndexDownArgs args = indexDownArgsFactory.getIndexDownArgs();
-                boolean usedHistory = getIndexDownArgs(dir, sourceRoot, args);
-
-                // Traverse the trailing terms. This needs to be done before indexParallel() because
-                // in some cases it can add items to the args parameter.
-                processTrailingTerms(startUid, usedHistory, args);
-
-                args.curCount = 0;
-                Statistics elapsed = new Statistics();
-                LOGGER.log(Level.INFO, "Starting indexing of directory ''{0}''", dir);
-                indexParallel(dir, args);
-                elapsed.report(LOGGER, String.format("Done indexing of directory '%s'", dir),
-                        "indexer.db.directory.index");
+                if (env.isStreamingIndexing()) {
+                    Statistics elapsed = new Statistics();
+                    LOGGER.log(Level.INFO, "Starting streaming indexing of directory ''{0}''", dir);
+                    indexStreaming(dir, sourceRoot, startUid);
+                    elapsed.report(LOGGER, String.format("Done indexing of directory '%s'", dir),
+                            "indexer.db.directory.index");
+                } else {
+                    // The actual indexing happens in indexParallel(). Here we merely collect the files
+                    // that need to be indexed and the files that should be removed.
+                    IndexDownArgs args = indexDownArgsFactory.getIndexDownArgs();
+                    boolean usedHistory = getIndexDownArgs(dir, sourceRoot, args);
+
+                    // Traverse the trailing terms. This needs to be done before indexParallel() because
+                    // in some cases it can add items to the args parameter.
+                    processTrailingTerms(startUid, usedHistory, args);
+
+                    args.curCount = 0;
+                    Statistics elapsed = new Statistics();
+                    LOGGER.log(Level.INFO, "Starting indexing of directory ''{0}''", dir);
+                    indexParallel(dir, args);
+                    elapsed.report(LOGGER, String.format("Done indexing of directory '%s'", dir),
+                            "indexer.db.directory.index");
+                }
 
                 /*
                  * As a signifier that #Lines/LOC are comprehensively
@@ -705,6 +753,10 @@ public class IndexDatabase {
             throw ex;
         } finally {
             completer = null;
+            if (packedXrefWriter != null) {
+                packedXrefWriter.close();
+                packedXrefWriter = null;
+            }
             try {
                 if (writer != null) {
                     writer.close();
@@ -735,14 +787,14 @@ public class IndexDatabase {
     /**
      * The traversal of the uid terms done in {@link #processFile(IndexDownArgs, File, String)}
      * and {@link #processFileHistoryBased(IndexDownArgs, File, String)} needs to skip over deleted documents
-     * that are often found in multi-segment indexes. This method stores the uids of these documents
+     * that are often found in multi-segment indexes. This method stores the IDs of these documents
      * and is expected to be called before the traversal for the top level directory is started.
      * @throws IOException if the index cannot be read for some reason
      */
     private void setupDeletedUids() throws IOException {
         // This method might be called repeatedly from within the same IndexDatabase instance
-        // for various directories so the map needs to be reset so that it does not contain unrelated uids.
-        deletedUids.clear();
+        // for various directories so the set needs to be reset so that it does not contain unrelated documents.
+        deletedDocs = null;
 
         Bits liveDocs = MultiBits.getLiveDocs(reader);  // Will return null if there are no deletions.
         if (liveDocs == null) {
@@ -751,44 +803,64 @@ public class IndexDatabase {
         }
 
         Statistics stat = new Statistics();
-        LOGGER.log(Level.FINEST, "traversing the documents in {0} to collect uids of deleted documents",
-                indexDirectory);
+        deletedDocs = new FixedBitSet(reader.maxDoc());
+        for (int i = 0; i < reader.maxDoc(); i++) {
+            if (!liveDocs.get(i)) {
+                deletedDocs.set(i);
+            }
+        }
+        if (LOGGER.isLoggable(Level.FINEST)) {
+            logDocuments();
+        }
+        stat.report(LOGGER, Level.FINEST, String.format("found %s deleted documents in %s",
+                deletedDocs.cardinality(), indexDirectory));
+    }
+
+    private void logDocuments() throws IOException {
         StoredFields storedFields = reader.storedFields();
         for (int i = 0; i < reader.maxDoc(); i++) {
             Document doc = storedFields.document(i, LIVE_CHECK_FIELDS);  // use limited-field version
             IndexableField field = doc.getField(QueryBuilder.U);
-            if (!liveDocs.get(i)) {
-                if (field != null) {
-                    if (LOGGER.isLoggable(Level.FINEST)) {
-                        String uidString = field.stringValue();
-                        LOGGER.log(Level.FINEST, "adding ''{0}'' ({2}) at {1} to deleted uid set",
-                                new Object[]{Util.uid2url(uidString), Util.uid2date(uidString), i});
-                    }
-                    deletedUids.add(field.stringValue());
-                }
-            } else {
-                if (field != null) {
-                    String uidString = field.stringValue();
-                    LOGGER.log(Level.FINEST, "live doc: ''{0}'' ({2}) at {1}",
-                            new Object[]{Util.uid2url(uidString), Util.uid2date(uidString), i});
-                }
+            if (field != null) {
+                String uidString = field.stringValue();
+                LOGGER.log(Level.FINEST, "{3} doc: ''{0}'' ({2}) at {1}",
+                        new Object[]{Util.uid2url(uidString), Util.uid2date(uidString), i,
+                                deletedDocs.get(i) ? "deleted" : "live"});
             }
         }
-        stat.report(LOGGER, Level.FINEST, String.format("found %s deleted documents in %s",
-                deletedUids.size(), indexDirectory));
     }
 
-    private void logIgnoredUid(String uid) {
-        LOGGER.log(Level.FINEST, "ignoring deleted document for ''{0}'' at {1}",
-                new Object[]{Util.uid2url(uid), Util.uid2date(uid)});
+    /**
+     * @return whether all documents for the current term of {@link #uidIter} are deleted
+     * @throws IOException on error
+     */
+    private boolean isDeletedUid() throws IOException {
+        if (deletedDocs == null) {
+            return false;
+        }
+
+        postsIter = uidIter.postings(postsIter, PostingsEnum.NONE);
+        int docId;
+        while ((docId = postsIter.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+            if (!deletedDocs.get(docId)) {
+                return false;
+            }
+        }
+
+        if (LOGGER.isLoggable(Level.FINEST)) {
+            String uid = uidIter.term().utf8ToString();
+            LOGGER.log(Level.FINEST, "ignoring deleted document for ''{0}'' at {1}",
+                    new Object[]{Util.uid2url(uid), Util.uid2date(uid)});
+        }
+        return true;
     }
 
     private void processTrailingTerms(String startUid, boolean usedHistory, IndexDownArgs args) throws IOException {
+        final BytesRef startUidBytes = new BytesRef(startUid);
         while (uidIter != null && uidIter.term() != null
-                && uidIter.term().utf8ToString().startsWith(startUid)) {
+                && StringHelper.startsWith(uidIter.term(), startUidBytes)) {
 
-            if (deletedUids.contains(uidIter.term().utf8ToString())) {
-                logIgnoredUid(uidIter.term().utf8ToString());
+            if (isDeletedUid()) {
                 BytesRef next = uidIter.next();
                 if (next == null) {
                     uidIter = null;
@@ -807,8 +879,7 @@ public class IndexDatabase {
                 if (!matchOK) {
                     removeFile(false);
 
-                    args.curCount++;
-                    args.works.add(new IndexFileWork(termFile, termPath));
+                    args.addWork(new IndexFileWork(termFile, termPath));
                 }
             } else {
                 // Remove data for the trailing terms that getIndexDownArgs()
@@ -844,9 +915,14 @@ public class IndexDatabase {
         if (historyBased) {
             indexDownUsingHistory(env.getSourceRootFile(), args);
         } else {
+            historyChangedFiles = getHistoryChangedFiles();
             String logSuffix = project != null ? " for project " + project : String.format(" for directory '%s'", dir);
             try (Progress progress = new Progress(LOGGER, String.format("file collection%s", logSuffix))) {
-                indexDown(sourceRoot, dir, args, progress);
+                if (env.isParallelTraversal()) {
+                    indexDownParallel(sourceRoot, dir, args, progress);
+                } else {
+                    indexDown(sourceRoot, dir, args, progress);
+                }
             }
         }
 
@@ -858,6 +934,18 @@ public class IndexDatabase {
         return historyBased;
     }
 
+    /**
+     * @return paths relative to source root of the files changed according to the history collected
+     * for the project, empty if the history was not collected
+     */
+    private Set<String> getHistoryChangedFiles() {
+        if (project == null) {
+            return Set.of();
+        }
+        FileCollector fileCollector = RuntimeEnvironment.getInstance().getFileCollector(project.getName());
+        return fileCollector == null ? Set.of() : fileCollector.getFiles();
+    }
+
     /**
      * @param file file under source root
      * @return false if the document date is newer or equal to the last modified time stamp of the file, otherwise true
@@ -868,26 +956,19 @@ public class IndexDatabase {
             return true;
         }
         try {
-            Document doc = IndexDatabase.getDocument(file);
-            if (Objects.isNull(doc)) {
+            Long docLastModified = IndexDatabase.getDocumentLastModified(file);
+            if (Objects.isNull(docLastModified)) {
                 LOGGER.log(Level.WARNING, "cannot get document for ''{0}''", file);
                 return true;
             }
-            IndexableField field = doc.getField(QueryBuilder.DATE);
-            try {
-                Date docDate = DateTools.stringToDate(field.stringValue());
-                // Assumes millisecond precision.
-                long lastModified = file.lastModified();
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    LOGGER.log(Level.FINEST, String.format("checking date for '%s': %d %d",
-                            file, lastModified, docDate.getTime()));
-                }
-                if (lastModified <= docDate.getTime()) {
-                    return false;
-                }
-            } catch (java.text.ParseException e) {
-                LOGGER.log(Level.WARNING, String.format("cannot convert date for '%s'", file), e);
-                return true;
+            // Assumes millisecond precision.
+            long lastModified = file.lastModified();
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINEST, String.format("checking date for '%s': %d %d",
+                        file, lastModified, docLastModified));
+            }
+            if (lastModified <= docLastModified) {
+                return false;
             }
         } catch (ParseException | IOException e) {
             LOGGER.log(Level.WARNING, String.format("cannot get document for '%s'", file), e);
@@ -1067,6 +1148,11 @@ public class IndexDatabase {
      * @param path path to file under source root
      */
     private void removeXrefFile(String path) {
+        if (packedXrefWriter != null) {
+            packedXrefWriter.remove(path);
+            return;
+        }
+
         RuntimeEnvironment env = RuntimeEnvironment.getInstance();
         File xrefFile = whatXrefFile(path, env.isCompressXref());
         PendingFileDeletion pending = new PendingFileDeletion(xrefFile.getAbsolutePath());
@@ -1104,9 +1190,12 @@ public class IndexDatabase {
 
         /*
          * Even when the history should not be removed (incremental reindex), annotation should,
-         * because for given file it is always regenerated from scratch.
+         * because for given file it is regenerated from scratch, unless it is updated incrementally
+         * from the annotation of previous revision of the file.
          */
-        removeAnnotationFile(path);
+        if (removeHistory || !RuntimeEnvironment.getInstance().isIncrementalAnnotationCache()) {
+            removeAnnotationFile(path);
+        }
 
         setDirty();
 
@@ -1158,6 +1247,21 @@ public class IndexDatabase {
      * @throws InterruptedException if a timeout occurs
      */
     private void addFile(File file, String path, Ctags ctags) throws IOException, InterruptedException {
+        addFile(file, path, ctags, null);
+    }
+
+    /**
+     * Add a file to the Lucene index (and generate a xref file).
+     *
+     * @param file The file to add
+     * @param path The path to the file (from source root)
+     * @param ctags a defined instance to use (only if its binary is not null)
+     * @param digest digest of the file contents if already known, otherwise {@code null}
+     * @throws java.io.IOException if an error occurs
+     * @throws InterruptedException if a timeout occurs
+     */
+    private void addFile(File file, String path, Ctags ctags, @Nullable byte[] digest)
+            throws IOException, InterruptedException {
 
         RuntimeEnvironment env = RuntimeEnvironment.getInstance();
         AbstractAnalyzer fa = getAnalyzerFor(file, path);
@@ -1181,16 +1285,27 @@ public class IndexDatabase {
         try {
             String xrefAbs = null;
             File transientXref = null;
+            PackedXrefWriter.XrefOutput packedXrefOut = null;
             if (env.isGenerateHtml()) {
-                xrefAbs = getXrefPath(path);
-                transientXref = new File(TandemPath.join(xrefAbs, PendingFileCompleter.PENDING_EXTENSION));
-                xrefOut = newXrefWriter(path, transientXref, env.isCompressXref());
+                if (packedXrefWriter != null) {
+                    packedXrefOut = packedXrefWriter.newOutput();
+                    xrefOut = newXrefWriter(packedXrefOut);
+                } else {
+                    xrefAbs = getXrefPath(path);
+                    transientXref = new File(TandemPath.join(xrefAbs, PendingFileCompleter.PENDING_EXTENSION));
+                    xrefOut = newXrefWriter(path, transientXref, env.isCompressXref());
+                }
             }
 
-            analyzerGuru.populateDocument(doc, file, path, fa, xrefOut);
+            analyzerGuru.populateDocument(doc, file, path, fa, xrefOut, digest);
 
             // Avoid producing empty xref files.
-            if (xrefOut != null && xrefOut.getCount() > 0) {
+            if (packedXrefOut != null) {
+                if (xrefOut.getCount() > 0) {
+                    xrefOut.close();
+                    packedXrefOut.add(path, doc.getField(QueryBuilder.LASTMOD).numericValue().longValue());
+                }
+            } else if (xrefOut != null && xrefOut.getCount() > 0) {
                 PendingFileRenaming ren = new PendingFileRenaming(xrefAbs,
                         transientXref.getAbsolutePath());
                 completer.add(ren);
@@ -1227,35 +1342,49 @@ public class IndexDatabase {
 
         setDirty();
 
-        createAnnotationCache(file, doc);
+        createAnnotationCache(file, path, doc);
 
         for (IndexChangedListener listener : listeners) {
             listener.fileAdded(path, fa.getClass().getSimpleName());
         }
     }
 
-    private static void createAnnotationCache(File file, Document doc) {
+    private static void createAnnotationCache(File file, String path, Document doc) {
         if (!HistoryGuru.getInstance().hasAnnotation(file, doc)) {
             LOGGER.log(Level.FINER, "skipped creating annotation cache for file ''{0}}''", file);
             return;
         }
 
+        // The last revision should be fresh. Using LatestRevisionUtil#getLatestRevision()
+        // would not work here, because it uses IndexDatabase#getDocument() and the index searcher used therein
+        // does not know about the updated document yet, so stale revision would be returned.
+        // Instead, use the last revision (retrieved from the history in the populateDocument()
+        // call above) directly.
         String lastRev = doc.get(QueryBuilder.LASTREV);
         if (lastRev != null) {
-            try {
-                // The last revision should be fresh. Using LatestRevisionUtil#getLatestRevision()
-                // would not work here, because it uses IndexDatabase#getDocument() and the index searcher used therein
-                // does not know about the updated document yet, so stale revision would be returned.
-                // Instead, use the last revision (retrieved from the history in the populateDocument()
-                // call above) directly.
-                HistoryGuru.getInstance().createAnnotationCache(file, lastRev);
-            } catch (CacheException e) {
-                final String logPrefix = "failed to create annotation";
-                if (e.isLogTrace()) {
-                    LOGGER.log(e.getLevel(), logPrefix, e);
-                } else {
-                    LOGGER.log(e.getLevel(), String.format("%s: %s", logPrefix, e.getMessage()));
-                }
+            RuntimeEnvironment env = RuntimeEnvironment.getInstance();
+            if (env.isAsyncAnnotationCache()) {
+                env.getIndexerParallelizer().getAnnotationCacheQueue().add(file, path, lastRev);
+            } else {
+                createAnnotationCache(file, lastRev);
+            }
+        }
+    }
+
+    /**
+     * Create annotation cache entry for given file, logging the failures.
+     * @param file file under source root
+     * @param lastRev latest revision of the file
+     */
+    static void createAnnotationCache(File file, String lastRev) {
+        try {
+            HistoryGuru.getInstance().createAnnotationCache(file, lastRev);
+        } catch (CacheException e) {
+            final String logPrefix = "failed to create annotation";
+            if (e.isLogTrace()) {
+                LOGGER.log(e.getLevel(), logPrefix, e);
+            } else {
+                LOGGER.log(e.getLevel(), String.format("%s: %s", logPrefix, e.getMessage()));
             }
         }
     }
@@ -1340,6 +1469,53 @@ public class IndexDatabase {
             return true;
         }
 
+        return acceptFile(file);
+    }
+
+    /**
+     * Variant of {@link #accept(File, File, AcceptSymlinkRet)} for entries listed by {@link DirectoryListingTask}.
+     * It uses the attributes read by the listing instead of querying the file system again.
+     * @param parent parent of the entry
+     * @param entry directory entry under consideration
+     * @param ret see {@link #accept(File, File, AcceptSymlinkRet)}
+     * @return a value indicating if the entry should be included in index
+     */
+    private boolean accept(File parent, DirectoryListingTask.Entry entry, AcceptSymlinkRet ret) {
+        File file = entry.getFile();
+        if (entry.isSymbolicLink()) {
+            return accept(parent, file, ret);
+        }
+
+        // Entries that are not symbolic links cannot point to themselves or to the directories above,
+        // so the resolution of canonical paths done in accept(File, File, AcceptSymlinkRet) is not needed.
+        ret.localRelPath = null;
+
+        if (!pathAccepter.accept(file)) {
+            return false;
+        }
+
+        if (!file.canRead()) {
+            LOGGER.log(Level.WARNING, "Could not read ''{0}''", file.getAbsolutePath());
+            return false;
+        }
+
+        if (!entry.isRegularFile() && !entry.isDirectory()) {
+            LOGGER.log(Level.WARNING, "Ignored special file ''{0}''", file.getAbsolutePath());
+            return false;
+        }
+
+        if (entry.isDirectory()) {
+            return true;
+        }
+
+        return acceptFile(file);
+    }
+
+    /**
+     * @param file file (not a directory) that passed the other checks
+     * @return whether the file should be accepted w.r.t. indexing of versioned files only
+     */
+    private boolean acceptFile(File file) {
         RuntimeEnvironment env = RuntimeEnvironment.getInstance();
         // Lookup history if indexing versioned files only.
         // Skip the lookup entirely (which is expensive) if unversioned files are allowed
@@ -1348,7 +1524,7 @@ public class IndexDatabase {
                 // Versioned files should always be accepted.
                 return true;
             }
-            LOGGER.log(Level.FINER, "not accepting unversioned {0}", absolutePath);
+            LOGGER.log(Level.FINER, "not accepting unversioned {0}", file.getAbsolutePath());
             return false;
         }
         // Unversioned files are allowed.
@@ -1642,6 +1818,63 @@ public class IndexDatabase {
         }
     }
 
+    /**
+     * Parallel variant of {@link #indexDown(File, String, IndexDownArgs, Progress)}. The directories are listed
+     * (including the attributes of their entries) by {@link DirectoryListingTask} instances running
+     * in the traversal pool few directories ahead of the serial traversal of the sorted entries and index
+     * alongside, so the order in which the files are processed is the same.
+     * @param dir the root indexDirectory to generate indexes for
+     * @param parent path to parent directory
+     * @param args arguments to control execution and for collecting a list of files for indexing
+     * @param progress {@link Progress} instance
+     */
+    @VisibleForTesting
+    void indexDownParallel(File dir, String parent, IndexDownArgs args, Progress progress) throws IOException {
+        AcceptSymlinkRet ret = new AcceptSymlinkRet();
+        if (!accept(dir, ret)) {
+            handleSymlink(parent, ret);
+            return;
+        }
+
+        ForkJoinPool pool = RuntimeEnvironment.getInstance().getIndexerParallelizer().getTraversalPool();
+        DirectoryListingTask task = new DirectoryListingTask(dir.toPath());
+        pool.execute(task);
+        indexDownListed(dir, parent, task, args, progress, pool);
+    }
+
+    private void indexDownListed(File dir, String parent, DirectoryListingTask task, IndexDownArgs args,
+                                 Progress progress, ForkJoinPool pool) throws IOException {
+        List<DirectoryListingTask.Entry> entries = task.join();
+        if (entries == null) {
+            LOGGER.log(Level.SEVERE, "Failed to get file listing for ''{0}''", dir.getPath());
+            return;
+        }
+
+        AcceptSymlinkRet ret = new AcceptSymlinkRet();
+        DirectoryListingTask.Cursor cursor = new DirectoryListingTask.Cursor(entries, pathAccepter, pool);
+        while (cursor.hasNext()) {
+            DirectoryListingTask.Entry entry = cursor.next();
+            File file = entry.getFile();
+            String path = parent + File.separator + file.getName();
+            if (!accept(dir, entry, ret)) {
+                handleSymlink(path, ret);
+            } else {
+                if (entry.isDirectory()) {
+                    DirectoryListingTask subdirectoryTask = entry.takeSubdirectoryTask();
+                    if (subdirectoryTask == null) {
+                        // Accepted symbolic link to a directory, these are not listed ahead.
+                        subdirectoryTask = new DirectoryListingTask(file.toPath());
+                        pool.execute(subdirectoryTask);
+                    }
+                    indexDownListed(file, path, subdirectoryTask, args, progress, pool);
+                } else {
+                    processFile(args, file, path, entry.getLastModified());
+                    progress.increment();
+                }
+            }
+        }
+    }
+
     /**
      * wrapper for fatal errors during indexing.
      */
@@ -1667,15 +1900,13 @@ public class IndexDatabase {
         final boolean fileExists = file.exists();
         final Set<String> deletedUidsHere = new HashSet<>();
         path = Util.fixPathIfWindows(path);
+        final BytesRef pathUid = UidUtil.pathToUid(path);
 
         // Traverse terms until reaching document beyond path of given file.
         while (uidIter != null && uidIter.term() != null && uidIter.term().compareTo(emptyBR) != 0
-                && FILEPATH_COMPARATOR.compare(
-                        Path.of(Util.uid2url(uidIter.term().utf8ToString())),
-                        Path.of(path)) <= 0) {
+                && UidUtil.comparePaths(uidIter.term(), pathUid) <= 0) {
 
-            if (deletedUids.contains(uidIter.term().utf8ToString())) {
-                logIgnoredUid(uidIter.term().utf8ToString());
+            if (isDeletedUid()) {
                 BytesRef next = uidIter.next();
                 if (next == null) {
                     uidIter = null;
@@ -1686,9 +1917,9 @@ public class IndexDatabase {
             /*
              * Possibly short-circuit to force reindexing of prior-version indexes.
              */
-            String termPath = Util.uid2url(uidIter.term().utf8ToString());
-            if (!termPath.equals(path)) {
+            if (!UidUtil.pathEquals(uidIter.term(), pathUid)) {
                 // A file that was not changed.
+                String termPath = Util.uid2url(uidIter.term().utf8ToString());
                 File termFile = new File(RuntimeEnvironment.getInstance().getSourceRootFile(), termPath);
                 boolean matchOK = (isWithDirectoryCounts || isCountingDeltas) &&
                         checkSettings(termFile, termPath);
@@ -1731,8 +1962,9 @@ public class IndexDatabase {
      * @param args {@link IndexDownArgs} instance to which an entry will be added if deemed acceptable
      * @param file file object
      * @param path path of the file relative to given source root (not necessarily global source root)
+     * @throws IOException if the work cannot be accepted
      */
-    private void addWorkHistoryBased(IndexDownArgs args, File file, String path) {
+    private void addWorkHistoryBased(IndexDownArgs args, File file, String path) throws IOException {
         AcceptSymlinkRet ret = new AcceptSymlinkRet();
         if (accept(file, ret)) {
             // accept() returns true for directories because it was made to work with indexDown().
@@ -1741,8 +1973,7 @@ public class IndexDatabase {
                 return;
             }
 
-            args.curCount++;
-            args.works.add(new IndexFileWork(file, path));
+            args.addWork(new IndexFileWork(file, path));
         } else {
             handleSymlink(file.getParent(), ret);
         }
@@ -1757,21 +1988,34 @@ public class IndexDatabase {
      */
     @VisibleForTesting
     void processFile(IndexDownArgs args, File file, String path) throws IOException {
+        processFile(args, file, path, file.lastModified());
+    }
+
+    /**
+     * Process a file on disk w.r.t. index.
+     * @param args {@link IndexDownArgs} instance
+     * @param file File object
+     * @param path path corresponding to the file parameter, relative to source root (with leading slash)
+     * @param lastModified last modified time of the file
+     * @throws IOException on error
+     */
+    private void processFile(IndexDownArgs args, File file, String path, long lastModified) throws IOException {
+        fileDigest = null;
         if (uidIter != null) {
+            boolean changedInHistory = historyChangedFiles.contains(path);
             path = Util.fixPathIfWindows(path);
             String uid = Util.path2uid(path,
-                DateTools.timeToString(file.lastModified(),
+                DateTools.timeToString(lastModified,
                 DateTools.Resolution.MILLISECOND)); // construct uid for doc
             BytesRef buid = new BytesRef(uid);
-            // Traverse terms that have smaller UID than the current file,
-            // i.e. given the ordering they positioned before the file,
-            // or it is the file that has been modified.
+            // Traverse terms that have smaller path than the current file,
+            // i.e. given the ordering they positioned before the file.
+            // These correspond to the files that have been removed.
             while (uidIter != null && uidIter.term() != null
                     && uidIter.term().compareTo(emptyBR) != 0
-                    && uidIter.term().compareTo(buid) < 0) {
+                    && UidUtil.comparePaths(uidIter.term(), buid) < 0) {
 
-                if (deletedUids.contains(uidIter.term().utf8ToString())) {
-                    logIgnoredUid(uidIter.term().utf8ToString());
+                if (isDeletedUid()) {
                     BytesRef next = uidIter.next();
                     if (next == null) {
                         uidIter = null;
@@ -1779,14 +2023,7 @@ public class IndexDatabase {
                     continue;
                 }
 
-                // If the term's path matches path of currently processed file,
-                // it is clear that the file has been modified and thus
-                // removeFile() will be followed by call to addFile() in indexParallel().
-                // In such case, instruct removeFile() not to remove history
-                // cache for the file so that incremental history cache
-                // generation works.
-                String termPath = Util.uid2url(uidIter.term().utf8ToString());
-                removeFile(!termPath.equals(path));
+                removeFile(true);
 
                 BytesRef next = uidIter.next();
                 if (next == null) {
@@ -1794,23 +2031,31 @@ public class IndexDatabase {
                 }
             }
 
-            // If the file was not modified, probably skip to the next one.
-            if (uidIter != null && uidIter.term() != null && uidIter.term().bytesEquals(buid)) {
-                if (deletedUids.contains(uidIter.term().utf8ToString())) {
-                    logIgnoredUid(uidIter.term().utf8ToString());
-                    BytesRef next = uidIter.next();
-                    if (next == null) {
-                        uidIter = null;
+            // Traverse terms with the same path as the currently processed file.
+            // If the date matches or only the date changed, probably skip to the next file.
+            // Otherwise, it is clear that the file has been modified and thus
+            // removeFile() will be followed by call to addFile() in indexParallel().
+            // In such case, instruct removeFile() not to remove history
+            // cache for the file so that incremental history cache
+            // generation works.
+            boolean upToDate = false;
+            while (uidIter != null && uidIter.term() != null
+                    && UidUtil.pathEquals(uidIter.term(), buid)) {
+
+                if (isDeletedUid()) {
+                    upToDate |= uidIter.term().bytesEquals(buid);
+                } else if (!upToDate &&
+                        (uidIter.term().bytesEquals(buid) ||
+                                (!changedInHistory && isContentUnchanged(file, path, lastModified)))) {
+                    /*
+                     * Possibly short-circuit to force reindexing of prior-version indexes.
+                     */
+                    upToDate = (isWithDirectoryCounts || isCountingDeltas) &&
+                            checkSettings(file, path);
+                    if (!upToDate) {
+                        removeFile(false);
                     }
-                    return;
-                }
-
-                /*
-                 * Possibly short-circuit to force reindexing of prior-version indexes.
-                 */
-                boolean matchOK = (isWithDirectoryCounts || isCountingDeltas) &&
-                        checkSettings(file, path);
-                if (!matchOK) {
+                } else {
                     removeFile(false);
                 }
 
@@ -1818,15 +2063,110 @@ public class IndexDatabase {
                 if (next == null) {
                     uidIter = null;
                 }
+            }
 
-                if (matchOK) {
-                    return;
-                }
+            if (upToDate) {
+                return;
             }
         }
 
-        args.curCount++;
-        args.works.add(new IndexFileWork(file, path));
+        args.addWork(new IndexFileWork(file, path, fileDigest, lastModified));
+    }
+
+    /**
+     * Check whether the document for the current term of {@link #uidIter}, which has the same path
+     * as the file but possibly different date, still represents the contents of the file.
+     * If the contents match, the last modified time of the file is recorded in the document
+     * so that the next time the check can be done without reading the file.
+     * @param file File object
+     * @param path path of the file relative to source root (with leading slash)
+     * @param lastModified last modified time of the file
+     * @return whether the file contents are the same as when the document was created
+     * @throws IOException on error
+     */
+    private boolean isContentUnchanged(File file, String path, long lastModified) throws IOException {
+        postsIter = uidIter.postings(postsIter, PostingsEnum.NONE);
+        int docId;
+        while ((docId = postsIter.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+            if (deletedDocs == null || !deletedDocs.get(docId)) {
+                break;
+            }
+        }
+        if (docId == DocIdSetIterator.NO_MORE_DOCS) {
+            return false;
+        }
+
+        Long indexedLastModified = getIndexedLastModified(docId);
+        if (indexedLastModified != null && indexedLastModified == lastModified) {
+            return true;
+        }
+
+        // Documents created by older versions do not have the digest.
+        BytesRef digest = reader.storedFields().document(docId, DIGEST_FIELDS).getBinaryValue(QueryBuilder.DIGEST);
+        if (digest == null) {
+            return false;
+        }
+        // Remember the digest so that the file does not have to be read again if it is going to be indexed.
+        fileDigest = IOUtils.getFileDigest(file);
+        if (!digest.bytesEquals(new BytesRef(fileDigest))) {
+            return false;
+        }
+
+        LOGGER.log(Level.FINER, "contents of ''{0}'' did not change, updating the last modified time", path);
+        writer.updateNumericDocValue(new Term(QueryBuilder.U, BytesRef.deepCopyOf(uidIter.term())),
+                QueryBuilder.LASTMOD, lastModified);
+        touchXref(path, lastModified);
+        setDirty();
+        return true;
+    }
+
+    /**
+     * Get the {@link QueryBuilder#LASTMOD} value of a document. The per-leaf iterators are reused
+     * for the whole traversal of the uid terms since the documents are visited mostly in increasing order.
+     * @param docId document ID
+     * @return last modified time or {@code null} if the document does not have the value
+     * @throws IOException on error
+     */
+    @Nullable
+    private Long getIndexedLastModified(int docId) throws IOException {
+        List<LeafReaderContext> leaves = reader.leaves();
+        if (lastModifiedValues == null) {
+            lastModifiedValues = new NumericDocValues[leaves.size()];
+        }
+        int leafIndex = ReaderUtil.subIndex(docId, leaves);
+        LeafReaderContext leaf = leaves.get(leafIndex);
+        int leafDocId = docId - leaf.docBase;
+        NumericDocValues values = lastModifiedValues[leafIndex];
+        // The iterators can only go forward so start over if the document is behind the current position.
+        if (values == null || values.docID() >= leafDocId) {
+            values = leaf.reader().getNumericDocValues(QueryBuilder.LASTMOD);
+            if (values == null) {
+                return null;
+            }
+            lastModifiedValues[leafIndex] = values;
+        }
+        return values.advanceExact(leafDocId) ? values.longValue() : null;
+    }
+
+    /**
+     * Make the xref of a file whose contents did not change at least as new as the file
+     * so that it is not considered stale.
+     * @param path path of the file relative to source root (with leading slash)
+     * @param lastModified last modified time of the file
+     */
+    private void touchXref(String path, long lastModified) {
+        RuntimeEnvironment env = RuntimeEnvironment.getInstance();
+        if (!env.isGenerateHtml()) {
+            return;
+        }
+        if (packedXrefWriter != null) {
+            packedXrefWriter.touch(path, lastModified);
+            return;
+        }
+        File xrefFile = whatXrefFile(path, env.isCompressXref());
+        if (xrefFile.isFile() && xrefFile.lastModified() < lastModified && !xrefFile.setLastModified(lastModified)) {
+            LOGGER.log(Level.WARNING, "cannot update last modified time of ''{0}''", xrefFile);
+        }
     }
 
     /**
@@ -1851,49 +2191,7 @@ public class IndexDatabase {
         Map<Boolean, List<IndexFileWork>> bySuccess = new HashMap<>();
         try (Progress progress = new Progress(LOGGER, String.format("indexing '%s'", dir), worksCount)) {
             Set<Callable<IndexFileWork>> callables = args.works.stream().
-                    <Callable<IndexFileWork>>map(x -> () -> {
-                        int tries = 0;
-                        Ctags pctags = null;
-                        while (true) {
-                            try {
-                                if (alreadyClosedCounter.get() > 0) {
-                                    x.ret = false;
-                                } else {
-                                    pctags = ctagsPool.get();
-                                    addFile(x.file, x.path, pctags);
-                                    successCounter.incrementAndGet();
-                                    x.ret = true;
-                                }
-                            } catch (AlreadyClosedException e) {
-                                alreadyClosedCounter.incrementAndGet();
-                                String errmsg = String.format("ERROR addFile(): '%s'", x.file);
-                                LOGGER.log(Level.SEVERE, errmsg, e);
-                                x.exception = e;
-                                x.ret = false;
-                            } catch (InterruptedException e) {
-                                // Allow one retry if interrupted
-                                if (++tries <= 1) {
-                                    continue;
-                                }
-                                LOGGER.log(Level.WARNING, "No retry: ''{0}''", x.file);
-                                x.exception = e;
-                                x.ret = false;
-                            } catch (RuntimeException | IOException e) {
-                                String errmsg = String.format("ERROR addFile(): '%s'", x.file);
-                                LOGGER.log(Level.WARNING, errmsg, e);
-                                x.exception = e;
-                                x.ret = false;
-                            } finally {
-                                if (pctags != null) {
-                                    pctags.reset();
-                                    ctagsPool.release(pctags);
-                                }
-                            }
-
-                            progress.increment();
-                            return x;
-                        }
-                    }).
+                    map(x -> getIndexWorkCallable(x, ctagsPool, successCounter, alreadyClosedCounter, progress)).
                     collect(Collectors.toSet());
             List<Future<IndexFileWork>> futures = parallelizer.getIndexWorkExecutor().invokeAll(callables);
             for (var future : futures) {
@@ -1913,6 +2211,52 @@ public class IndexDatabase {
         int failureCount = worksCount - Optional.ofNullable(bySuccess.get(Boolean.TRUE))
                 .map(List::size)
                 .orElse(0);
+        reportIndexingFailures(worksCount, failureCount, alreadyClosedCounter.get());
+    }
+
+    /**
+     * Executes both stages of indexing at once. The files collected by the traversal are handed over
+     * to the index work executor as soon as they are found rather than being accumulated first,
+     * so that the traversal and the indexing overlap and the memory needed for the work list
+     * does not depend on the size of the tree.
+     * @param dir the parent directory (when appended to SOURCE_ROOT)
+     * @param sourceRoot source root File object
+     * @param startUid UID corresponding to the directory
+     * @throws IOException on error in the traversal
+     * @throws IndexerException in case the indexing failed or was interrupted
+     */
+    private void indexStreaming(String dir, File sourceRoot, String startUid) throws IOException, IndexerException {
+        RuntimeEnvironment env = RuntimeEnvironment.getInstance();
+        AtomicInteger successCounter = new AtomicInteger();
+        AtomicInteger alreadyClosedCounter = new AtomicInteger();
+        IndexerParallelizer parallelizer = env.getIndexerParallelizer();
+        ObjectPool<Ctags> ctagsPool = parallelizer.getCtagsPool();
+
+        StreamingIndexDownArgs args;
+        try (Progress progress = new Progress(LOGGER, String.format("indexing '%s'", dir))) {
+            args = new StreamingIndexDownArgs(parallelizer.getIndexWorkExecutor(),
+                    env.getIndexingParallelism() * StreamingIndexDownArgs.WORKS_PER_THREAD,
+                    x -> getIndexWorkCallable(x, ctagsPool, successCounter, alreadyClosedCounter, progress));
+            try {
+                boolean usedHistory = getIndexDownArgs(dir, sourceRoot, args);
+                processTrailingTerms(startUid, usedHistory, args);
+            } finally {
+                // The works that were already submitted have to finish before the writer is closed.
+                args.awaitCompletion();
+            }
+        } catch (InterruptedException e) {
+            int successCount = successCounter.intValue();
+            LOGGER.log(Level.SEVERE, String.format("%d successes after aborting streaming indexing", successCount));
+            throw new IndexerException(e);
+        }
+
+        if (args.curCount < 1) {
+            return;
+        }
+        reportIndexingFailures(args.curCount, args.curCount - successCounter.get(), alreadyClosedCounter.get());
+    }
+
+    private void reportIndexingFailures(int worksCount, int failureCount, int numAlreadyClosed) {
         if (failureCount > 0) {
             double pctFailed = 100.0 * failureCount / worksCount;
             String exmsg = String.format("%d failures (%.1f%%) while parallel-indexing", failureCount, pctFailed);
@@ -1923,12 +2267,60 @@ public class IndexDatabase {
          * Encountering an AlreadyClosedException is severe enough to abort the
          * run, since it will fail anyway later upon trying to commit().
          */
-        int numAlreadyClosed = alreadyClosedCounter.get();
         if (numAlreadyClosed > 0) {
             throw new AlreadyClosedException(String.format("count=%d", numAlreadyClosed));
         }
     }
 
+    private Callable<IndexFileWork> getIndexWorkCallable(IndexFileWork x, ObjectPool<Ctags> ctagsPool,
+                                                         AtomicInteger successCounter,
+                                                         AtomicInteger alreadyClosedCounter,
+                                                         Progress progress) {
+        return () -> {
+            int tries = 0;
+            Ctags pctags = null;
+            while (true) {
+                try {
+                    if (alreadyClosedCounter.get() > 0) {
+                        x.ret = false;
+                    } else {
+                        pctags = ctagsPool.get();
+                        addFile(x.file, x.path, pctags, x.getDigest());
+                        successCounter.incrementAndGet();
+                        x.ret = true;
+                    }
+                } catch (AlreadyClosedException e) {
+                    alreadyClosedCounter.incrementAndGet();
+                    String errmsg = String.format("ERROR addFile(): '%s'", x.file);
+                    LOGGER.log(Level.SEVERE, errmsg, e);
+                    x.exception = e;
+                    x.ret = false;
+                } catch (InterruptedException e) {
+                    // Allow one retry if interrupted
+                    if (++tries <= 1) {
+                        continue;
+                    }
+                    LOGGER.log(Level.WARNING, "No retry: ''{0}''", x.file);
+                    x.exception = e;
+                    x.ret = false;
+                } catch (RuntimeException | IOException e) {
+                    String errmsg = String.format("ERROR addFile(): '%s'", x.file);
+                    LOGGER.log(Level.WARNING, errmsg, e);
+                    x.exception = e;
+                    x.ret = false;
+                } finally {
+                    if (pctags != null) {
+                        pctags.reset();
+                        ctagsPool.release(pctags);
+                    }
+                }
+
+                progress.increment();
+                return x;
+            }
+        };
+    }
+
     /**
      * Register an object to receive events when modifications is done to the
      * index database.
@@ -2069,6 +2461,72 @@ public class IndexDatabase {
      */
     @Nullable
     public static Document getDocument(File file) throws ParseException, IOException {
+        return searchDocument(file, (searcher, docId, doc) -> doc);
+    }
+
+    /**
+     * Get the last modified time of the file as recorded in the index. This is the {@link QueryBuilder#LASTMOD}
+     * value, which is updated also for files whose contents did not change, or the {@link QueryBuilder#DATE}
+     * of the document if it was created by older version.
+     * @param file File object for a file under source root
+     * @return last modified time in milliseconds or {@code null} if no document was found
+     * @throws IOException on I/O error
+     * @throws ParseException on problem with building Query
+     */
+    @Nullable
+    public static Long getDocumentLastModified(File file) throws ParseException, IOException {
+        return searchDocument(file, (searcher, docId, doc) -> getDocumentLastModified(file, searcher, docId, doc));
+    }
+
+    /**
+     * Get the last revision of the file as recorded in the index, see {@link QueryBuilder#LASTREV}.
+     * @param file File object for a file under source root
+     * @return last revision or {@code null} if no document was found, the document does not have the revision
+     * or the file was modified after it was indexed according to {@link #getDocumentLastModified(File)}
+     * @throws IOException on I/O error
+     * @throws ParseException on problem with building Query
+     */
+    @Nullable
+    public static String getDocumentLastRevision(File file) throws ParseException, IOException {
+        return searchDocument(file, (searcher, docId, doc) -> {
+            // There is no point of checking the date if the LASTREV field is not present.
+            String lastRev = doc.get(QueryBuilder.LASTREV);
+            if (lastRev == null) {
+                return null;
+            }
+            Long lastModified = getDocumentLastModified(file, searcher, docId, doc);
+            if (lastModified == null || lastModified < file.lastModified()) {
+                LOGGER.log(Level.FINER, "document for ''{0}'' is out of sync", file);
+                return null;
+            }
+            return lastRev;
+        });
+    }
+
+    @Nullable
+    private static Long getDocumentLastModified(File file, SuperIndexSearcher searcher, int docId, Document doc)
+            throws IOException {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(docId, leaves));
+        NumericDocValues values = leaf.reader().getNumericDocValues(QueryBuilder.LASTMOD);
+        if (values != null && values.advanceExact(docId - leaf.docBase)) {
+            return values.longValue();
+        }
+        try {
+            return DateTools.stringToTime(doc.get(QueryBuilder.DATE));
+        } catch (java.text.ParseException e) {
+            LOGGER.log(Level.WARNING, String.format("cannot convert date for '%s'", file), e);
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface DocumentMapper<T> {
+        T map(SuperIndexSearcher searcher, int docId, Document doc) throws IOException;
+    }
+
+    @Nullable
+    private static <T> T searchDocument(File file, DocumentMapper<T> mapper) throws ParseException, IOException {
 
         RuntimeEnvironment env = RuntimeEnvironment.getInstance();
         String path;
@@ -2081,7 +2539,6 @@ public class IndexDatabase {
         // Sanitize Windows path delimiters in order not to conflict with Lucene escape character.
         path = path.replace("\\", "/");
 
-        Document doc;
         Query q = new QueryBuilder().setPath(path).build();
         SuperIndexSearcher searcher = env.getSuperIndexSearcher(file);
         try {
@@ -2095,7 +2552,8 @@ public class IndexDatabase {
                 // No hits, no document...
                 return null;
             }
-            doc = searcher.storedFields().document(top.scoreDocs[0].doc);
+            int docId = top.scoreDocs[0].doc;
+            Document doc = searcher.storedFields().document(docId);
             String foundPath = doc.get(QueryBuilder.PATH);
 
             // Only use the document if we found an exact match.
@@ -2104,11 +2562,11 @@ public class IndexDatabase {
                         new Object[]{foundPath, path});
                 return null;
             }
+
+            return mapper.map(searcher, docId, doc);
         } finally {
             searcher.release();
         }
-
-        return doc;
     }
 
     @Override
@@ -2182,10 +2640,17 @@ public class IndexDatabase {
      */
     private CountingWriter newXrefWriter(String path, File transientXref, boolean compressed) throws IOException {
         return new CountingWriter(new BufferedWriter(new OutputStreamWriter(compressed ?
-                new GZIPOutputStream(new FileOutputStream(transientXref)) :
+                new SpliceableGzipOutputStream(new FileOutputStream(transientXref)) :
                 new FileOutputStream(transientXref))));
     }
 
+    /**
+     * Get a writer for the xref stored in the packed form. The packed xrefs are always compressed.
+     */
+    private static CountingWriter newXrefWriter(OutputStream out) throws IOException {
+        return new CountingWriter(new BufferedWriter(new OutputStreamWriter(new SpliceableGzipOutputStream(out))));
+    }
+
     final LockFactory pickLockFactory(RuntimeEnvironment env) {
         switch (env.getLuceneLocking()) {
             case ON:
@@ -2212,6 +2677,12 @@ public class IndexDatabase {
             final String logSuffix = this.project != null ? " for project " + this.project : "";
             int n = completer.complete(logSuffix);
             completerStat.report(LOGGER, Level.FINE, String.format("completed %d object(s)%s", n, logSuffix));
+            if (packedXrefWriter != null) {
+                // Publish the xrefs before the Lucene commit like the completer does with the xref files
+                // so that the files are never recorded as indexed without their xrefs.
+                packedXrefWriter.prepareCommit();
+                packedXrefWriter.commit();
+            }
 
             // Just before commit(), reset the `hasPendingCommit' flag,
             // since after commit() is called, there is no need for
@@ -2359,6 +2830,14 @@ public class IndexDatabase {
     }
 
     private boolean xrefExistsFor(String path) {
+        if (packedXrefWriter != null) {
+            if (!packedXrefWriter.contains(path)) {
+                LOGGER.log(Level.FINEST, "Missing packed xref for {0}", path);
+                return false;
+            }
+            return true;
+        }
+
         RuntimeEnvironment env = RuntimeEnvironment.getInstance();
         File xrefFile = whatXrefFile(path, env.isCompressXref());
         if (!xrefFile.exists()) {
@@ -18,27 +18,57 @@
  */
 
 /*
- * Copyright (c) 2018, 2022, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.index;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 class IndexDownArgs {
     int curCount;
     final List<IndexFileWork> works = new ArrayList<>();
+
+    /**
+     * Record a file to be indexed in the second stage of indexing.
+     * @param work work item
+     * @throws IOException if the work cannot be accepted
+     */
+    void addWork(IndexFileWork work) throws IOException {
+        curCount++;
+        works.add(work);
+    }
 }
 
 class IndexFileWork {
     final File file;
     final String path;
+    /**
+     * Digest of the file contents computed during the first stage of indexing, or {@code null}.
+     * It is valid only as long as the last modified time of the file equals {@link #digestLastModified}.
+     */
+    final byte[] digest;
+    final long digestLastModified;
     Exception exception;
     boolean ret;
 
     IndexFileWork(File file, String path) {
+        this(file, path, null, 0);
+    }
+
+    IndexFileWork(File file, String path, byte[] digest, long digestLastModified) {
         this.file = file;
         this.path = path;
+        this.digest = digest;
+        this.digestLastModified = digestLastModified;
+    }
+
+    /**
+     * @return digest of the file contents if it is still valid, otherwise {@code null}
+     */
+    byte[] getDigest() {
+        return digest != null && file.lastModified() == digestLastModified ? digest : null;
     }
 }
\ No newline at end of file
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2005, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2011, Jens Elkner.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
@@ -53,7 +53,9 @@ import java.util.Optional;
 import java.util.Scanner;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -385,8 +387,10 @@ public final class Indexer {
                         map(t -> Paths.get(env.getSourceRootPath(), t).toString()).
                         collect(Collectors.toSet());
             }
+            // With pipelined indexing, the history cache is generated together with the index below.
+            boolean pipelinedIndexing = runIndex && env.isPipelinedIndexing();
             Map<Repository, Optional<Exception>> historyCacheResults = getInstance().prepareIndexer(env,
-                    searchPaths, addProjects, runIndex, new ArrayList<>(repositories));
+                    searchPaths, addProjects, runIndex && !pipelinedIndexing, new ArrayList<>(repositories));
 
             // Set updated configuration in RuntimeEnvironment. This is called so that repositories discovered
             // in prepareIndexer() are stored in the Configuration used by RuntimeEnvironment.
@@ -396,7 +400,10 @@ public final class Indexer {
             env.setDefaultProjectsFromNames(defaultProjects);
 
             // With the history cache results in hand, head over to the 2nd phase of the indexing.
-            if (runIndex) {
+            if (pipelinedIndexing) {
+                getInstance().doPipelinedIndexerExecution(projects, new DefaultIndexChangedListener(),
+                        new ArrayList<>(repositories), ignoreHistoryCacheFailures);
+            } else if (runIndex) {
                 IndexChangedListener progress = new DefaultIndexChangedListener();
                 if (ignoreHistoryCacheFailures) {
                     if (historyCacheResults.values().stream().anyMatch(Optional::isPresent)) {
@@ -624,6 +631,18 @@ public final class Indexer {
                     "Path to Universal Ctags. Default is ctags in environment PATH.").execute(
                             v -> cfg.setCtags((String) v));
 
+            parser.on("--ctagsCache", "=on|off", ON_OFF, Boolean.class,
+                    "If on, the ctags results are cached in the data root directory, keyed by",
+                    "the digest of the file contents, file name, ctags version and arguments",
+                    "and tab size, so that ctags is not run again for the same contents.",
+                    "The default is off.").
+                    execute(v -> cfg.getCacheConfig().setCtagsEnabled((Boolean) v));
+
+            parser.on("--ctagsCacheMaxSize", "=number", Integer.class,
+                    "Maximum size of the ctags cache in MB. The least recently used entries",
+                    "are removed at the end of indexing. The default is 1024.").
+                    execute(v -> cfg.getCacheConfig().setCtagsMaxSize((Integer) v));
+
             parser.on("--canonicalRoot", "=/path/",
                     "Allow symlinks to canonical targets starting with the specified root",
                     "without otherwise needing to specify -N,--symlink for such symlinks. A",
@@ -748,6 +767,13 @@ public final class Indexer {
                     "Assumes -H/--history.").execute(threadCount ->
                     cfg.setHistoryFileParallelism((Integer) threadCount));
 
+            parser.on("--historyChunkThreads", "=number", Integer.class,
+                    "The number of threads to use for retrieving the history of repositories ",
+                    "in chunks in parallel, shared by all repositories. The chunks are still stored in order.",
+                    "By default the chunks are processed sequentially.",
+                    "Assumes -H/--history.").execute(threadCount ->
+                    cfg.setHistoryChunkParallelism((Integer) threadCount));
+
             parser.on("-I", "--include", "=pattern",
                     "Only files matching this pattern will be examined. Pattern supports",
                     "wildcards (example: -I '*.java' -I '*.c'). Option may be repeated.").execute(
@@ -843,6 +869,21 @@ public final class Indexer {
                     "projects. Use the special value __all__ to indicate all projects.").execute(v ->
                     defaultProjects.add((String) v));
 
+            parser.on("--parallelTraversal", "=on|off", ON_OFF, Boolean.class,
+                    "If on, the directories of the source tree are listed in parallel (using the",
+                    "same number of threads as set by -T/--threads) ahead of the file-system",
+                    "traversal. This helps mainly with source roots on network file systems.",
+                    "Does not apply to history based reindex. The default is off.").
+                    execute(v -> cfg.setParallelTraversal((Boolean) v));
+
+            parser.on("--pipelinedIndexing", "=on|off", ON_OFF, Boolean.class,
+                    "If on, the index of a project is updated as soon as the history cache of",
+                    "all its repositories is done, while the history cache of other repositories",
+                    "is still being generated. Otherwise, the indexing starts once the history",
+                    "cache of all repositories is done. Useful mainly with projects enabled.",
+                    "The default is off.").
+                    execute(v -> cfg.setPipelinedIndexing((Boolean) v));
+
             parser.on("--profiler", "Pause to await profiler or debugger.").
                 execute(v -> awaitProfiler = true);
 
@@ -930,6 +971,13 @@ public final class Indexer {
                 }
             );
 
+            parser.on("--streamingIndexing", "=on|off", ON_OFF, Boolean.class,
+                    "If on, the files found during the traversal of the source tree (or the history)",
+                    "are indexed while the traversal is still running, with the amount of pending",
+                    "work bounded. Otherwise, all files are collected first and indexed afterwards.",
+                    "The default is off.").
+                    execute(v -> cfg.setStreamingIndexing((Boolean) v));
+
             parser.on("--style", "=path",
                     "Path to the subdirectory in the web application containing the requested",
                     "stylesheet. The factory-setting is: \"default\".").execute(stylePath ->
@@ -1266,10 +1314,144 @@ public final class Indexer {
                     throw indexerException;
                 }
             }
+            resumeAnnotationCache(parallelizer);
 
             elapsed.report(LOGGER, "Done indexing data of all repositories", "indexer.repository.indexing");
         } finally {
             CtagsUtil.deleteTempFiles();
+            if (env.isCtagsCacheEnabled()) {
+                Ctags.cleanupCache();
+            }
+        }
+    }
+
+    /**
+     * Variant of {@link #doIndexerExecution(Set, IndexChangedListener, Map)} which generates the history cache
+     * at the same time. The index of a project is updated as soon as the history cache of all its
+     * repositories is done, while the history cache of other repositories is still being generated.
+     * Without projects, the indexing starts once the history cache of all repositories is done.
+     *
+     * @param projects if not {@code null}, index just the projects specified
+     * @param progress if not {@code null}, an object to receive notifications as indexer progress is made
+     * @param repositories list of repository paths relative to source root, empty list means all repositories
+     * @param ignoreHistoryCacheFailures whether to index also the projects with history cache failures
+     * @throws IndexerException if the indexing has failed for any reason
+     */
+    public void doPipelinedIndexerExecution(@Nullable Set<Project> projects, @Nullable IndexChangedListener progress,
+                                            List<String> repositories, boolean ignoreHistoryCacheFailures)
+            throws IndexerException {
+
+        Statistics elapsed = new Statistics();
+        LOGGER.info("Starting history cache generation and indexing");
+
+        RuntimeEnvironment env = RuntimeEnvironment.getInstance();
+        HistoryGuru historyGuru = HistoryGuru.getInstance();
+        try (IndexerParallelizer parallelizer = env.getIndexerParallelizer()) {
+            Map<Repository, CompletableFuture<Optional<Exception>>> historyCacheFutures =
+                    historyGuru.createHistoryCacheAsync(repositories);
+
+            List<Project> indexedProjects;
+            if (projects != null && !projects.isEmpty()) {
+                indexedProjects = new ArrayList<>(projects);
+            } else if (env.isProjectsEnabled()) {
+                indexedProjects = env.getProjectList();
+            } else {
+                // single index database for the whole source root
+                indexedProjects = Collections.singletonList(null);
+            }
+
+            final IndexerException indexerException = new IndexerException();
+            List<CompletableFuture<Void>> updates = new ArrayList<>();
+            for (Project project : indexedProjects) {
+                Map<Repository, CompletableFuture<Optional<Exception>>> projectFutures =
+                        historyCacheFutures.entrySet().stream().
+                                filter(e -> project == null ||
+                                        project.equals(Project.getProject(e.getKey().getDirectoryNameRelative()))).
+                                collect(Collectors.toMap(Entry::getKey, Entry::getValue));
+                updates.add(CompletableFuture.allOf(projectFutures.values().toArray(new CompletableFuture<?>[0])).
+                        thenRunAsync(() -> {
+                            try {
+                                updateIndexDatabase(project, progress,
+                                        getHistoryCacheResults(projectFutures, ignoreHistoryCacheFailures));
+                            } catch (Throwable e) {
+                                indexerException.addSuppressed(e);
+                                LOGGER.log(Level.SEVERE, "An error occurred while updating index", e);
+                            }
+                        }, parallelizer.getFixedExecutor()));
+            }
+
+            // Wait forever for the executors to finish.
+            LOGGER.info("Waiting for the executors to finish");
+            List<CompletableFuture<?>> futures = new ArrayList<>(updates);
+            futures.addAll(historyCacheFutures.values());
+            for (CompletableFuture<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    LOGGER.log(Level.WARNING, "Received interrupt while waiting for executor to finish", e);
+                    indexerException.addSuppressed(e);
+                    break;
+                } catch (ExecutionException e) {
+                    indexerException.addSuppressed(e.getCause());
+                    LOGGER.log(Level.SEVERE, "An error occurred while updating index", e.getCause());
+                }
+            }
+            if (!historyCacheFutures.isEmpty()) {
+                historyGuru.finishHistoryCache();
+            }
+
+            if (indexerException.getSuppressed().length > 0) {
+                throw indexerException;
+            }
+            resumeAnnotationCache(parallelizer);
+
+            elapsed.report(LOGGER, "Done history cache and indexing of all repositories",
+                    "indexer.repository.indexing");
+        } finally {
+            CtagsUtil.deleteTempFiles();
+            if (env.isCtagsCacheEnabled()) {
+                Ctags.cleanupCache();
+            }
+        }
+    }
+
+    /**
+     * Resume the annotation cache generation left over from the previous run, see
+     * {@link AnnotationCacheQueue#resume()}. This is done once the index is committed.
+     */
+    private static void resumeAnnotationCache(IndexerParallelizer parallelizer) {
+        if (RuntimeEnvironment.getInstance().isAsyncAnnotationCache()) {
+            parallelizer.getAnnotationCacheQueue().resume();
+        }
+    }
+
+    private static Map<Repository, Optional<Exception>> getHistoryCacheResults(
+            Map<Repository, CompletableFuture<Optional<Exception>>> futures, boolean ignoreFailures) {
+
+        // The futures are complete at this point.
+        Map<Repository, Optional<Exception>> results = new HashMap<>();
+        for (Entry<Repository, CompletableFuture<Optional<Exception>>> entry : futures.entrySet()) {
+            results.put(entry.getKey(), entry.getValue().join());
+        }
+        if (ignoreFailures && results.values().stream().anyMatch(Optional::isPresent)) {
+            LOGGER.log(Level.INFO, "There have been history cache creation failures, " +
+                            "however --ignoreHistoryCacheFailures was used, hence ignoring them: {0}", results);
+            return Collections.emptyMap();
+        }
+        return results;
+    }
+
+    private static void updateIndexDatabase(@Nullable Project project, @Nullable IndexChangedListener progress,
+                                            Map<Repository, Optional<Exception>> historyCacheResults)
+            throws IOException, IndexerException {
+
+        List<IndexDatabase> dbs = new ArrayList<>();
+        addIndexDatabase(project, dbs, historyCacheResults);
+        for (IndexDatabase db : dbs) {
+            if (progress != null) {
+                db.addIndexChangedListener(progress);
+            }
+            db.update();
         }
     }
 
@@ -19,12 +19,14 @@
 
 /*
  * Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
- * Copyright (c) 2020, 2023, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020, 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.index;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 import org.opengrok.indexer.analysis.Ctags;
@@ -47,7 +49,11 @@ import org.opengrok.indexer.util.ObjectPool;
  * The {@link #lzIndexWorkExecutor} makes use of a corresponding fixed pool
  * of {@link Ctags} instances.
  * <p>Additionally there are pools for executing for history, for renames in
- * history, and for watching the {@link Ctags} instances for timing purposes.
+ * history, for retrieving the history of repositories in chunks, for watching
+ * the {@link Ctags} instances for timing purposes
+ * and a fork/join pool for parallel traversal of directory trees.
+ * <p>The {@link AnnotationCacheQueue} has its own pool for generating
+ * the annotation cache.
  */
 public class IndexerParallelizer implements AutoCloseable {
 
@@ -59,8 +65,11 @@ public class IndexerParallelizer implements AutoCloseable {
     private LazilyInstantiate<ExecutorService> lzFixedExecutor;
     private LazilyInstantiate<ExecutorService> lzHistoryExecutor;
     private LazilyInstantiate<ExecutorService> lzHistoryFileExecutor;
+    private LazilyInstantiate<ExecutorService> lzHistoryChunkExecutor;
     private LazilyInstantiate<ExecutorService> lzCtagsWatcherExecutor;
     private LazilyInstantiate<ExecutorService> lzXrefWatcherExecutor;
+    private LazilyInstantiate<ForkJoinPool> lzTraversalPool;
+    private LazilyInstantiate<AnnotationCacheQueue> lzAnnotationCacheQueue;
 
     /**
      * Initializes a new instance using settings from the specified environment
@@ -83,8 +92,11 @@ public class IndexerParallelizer implements AutoCloseable {
         createLazyFixedExecutor();
         createLazyHistoryExecutor();
         createLazyHistoryFileExecutor();
+        createLazyHistoryChunkExecutor();
         createLazyCtagsWatcherExecutor();
         createLazyXrefWatcherExecutor();
+        createLazyTraversalPool();
+        createLazyAnnotationCacheQueue();
     }
 
     /**
@@ -122,6 +134,13 @@ public class IndexerParallelizer implements AutoCloseable {
         return lzHistoryFileExecutor.get();
     }
 
+    /**
+     * @return the ExecutorService used for history parallelism (chunk level), shared by the repositories
+     */
+    public ExecutorService getHistoryChunkExecutor() {
+        return lzHistoryChunkExecutor.get();
+    }
+
     /**
      * @return the Executor used for ctags parallelism
      */
@@ -136,6 +155,20 @@ public class IndexerParallelizer implements AutoCloseable {
         return lzXrefWatcherExecutor.get();
     }
 
+    /**
+     * @return the pool used for listing directories in parallel in the 1st stage of indexing
+     */
+    public ForkJoinPool getTraversalPool() {
+        return lzTraversalPool.get();
+    }
+
+    /**
+     * @return the queue used for generating the annotation cache asynchronously
+     */
+    public AnnotationCacheQueue getAnnotationCacheQueue() {
+        return lzAnnotationCacheQueue.get();
+    }
+
     /**
      * Calls {@link #bounce()}, which prepares for -- but does not start -- new
      * pools.
@@ -162,13 +195,24 @@ public class IndexerParallelizer implements AutoCloseable {
      * call this method satisfactorily too.
      */
     public void bounce() {
+        bounceAnnotationCacheQueue();
         bounceIndexWorkExecutor();
         bounceFixedExecutor();
         bounceCtagsPool();
         bounceHistoryExecutor();
         bounceHistoryRenamedExecutor();
+        bounceHistoryChunkExecutor();
         bounceCtagsWatcherExecutor();
         bounceXrefWatcherExecutor();
+        bounceTraversalPool();
+    }
+
+    private void bounceAnnotationCacheQueue() {
+        if (lzAnnotationCacheQueue.isActive()) {
+            AnnotationCacheQueue formerAnnotationCacheQueue = lzAnnotationCacheQueue.get();
+            createLazyAnnotationCacheQueue();
+            formerAnnotationCacheQueue.close();
+        }
     }
 
     private void bounceIndexWorkExecutor() {
@@ -211,6 +255,14 @@ public class IndexerParallelizer implements AutoCloseable {
         }
     }
 
+    private void bounceHistoryChunkExecutor() {
+        if (lzHistoryChunkExecutor.isActive()) {
+            ExecutorService formerHistoryChunkExecutor = lzHistoryChunkExecutor.get();
+            createLazyHistoryChunkExecutor();
+            formerHistoryChunkExecutor.shutdown();
+        }
+    }
+
     private void bounceCtagsWatcherExecutor() {
         if (lzCtagsWatcherExecutor.isActive()) {
             ExecutorService formerCtagsWatcherExecutor = lzCtagsWatcherExecutor.get();
@@ -227,6 +279,14 @@ public class IndexerParallelizer implements AutoCloseable {
         }
     }
 
+    private void bounceTraversalPool() {
+        if (lzTraversalPool.isActive()) {
+            ForkJoinPool formerTraversalPool = lzTraversalPool.get();
+            createLazyTraversalPool();
+            formerTraversalPool.shutdown();
+        }
+    }
+
     private void createIndexWorkExecutor() {
         lzIndexWorkExecutor = LazilyInstantiate.using(() ->
                 Executors.newFixedThreadPool(indexingParallelism,
@@ -251,6 +311,15 @@ public class IndexerParallelizer implements AutoCloseable {
                         new OpenGrokThreadFactory("xref-watcher")));
     }
 
+    private void createLazyTraversalPool() {
+        lzTraversalPool = LazilyInstantiate.using(() ->
+                new ForkJoinPool(indexingParallelism, pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName(OpenGrokThreadFactory.PREFIX + "index-traversal-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false));
+    }
+
     private void createLazyFixedExecutor() {
         lzFixedExecutor = LazilyInstantiate.using(() ->
                 Executors.newFixedThreadPool(indexingParallelism,
@@ -269,6 +338,18 @@ public class IndexerParallelizer implements AutoCloseable {
                         new OpenGrokThreadFactory("history-file")));
     }
 
+    private void createLazyHistoryChunkExecutor() {
+        lzHistoryChunkExecutor = LazilyInstantiate.using(() ->
+                Executors.newFixedThreadPool(env.getHistoryChunkParallelism(),
+                        new OpenGrokThreadFactory("history-chunk")));
+    }
+
+    private void createLazyAnnotationCacheQueue() {
+        lzAnnotationCacheQueue = LazilyInstantiate.using(() ->
+                new AnnotationCacheQueue(env, Executors.newFixedThreadPool(env.getAnnotationCacheParallelism(),
+                        new OpenGrokThreadFactory("annotation-cache"))));
+    }
+
     private class CtagsObjectFactory implements ObjectFactory<Ctags> {
 
         public Ctags createNew() {
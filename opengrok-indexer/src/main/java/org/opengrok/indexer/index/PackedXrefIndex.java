@@ -0,0 +1,264 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.index;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the index of a packed xref store, i.e. the table of the paths of the source files
+ * sorted by their UTF-8 bytes together with the locations of their xrefs in the segment files.
+ * The index is memory mapped and looked up with binary search.
+ * <p>
+ * The layout of the file is: header (magic, version, number of entries, offset of the path pool),
+ * fixed size entries (offset and length of the path in the pool, segment, length and offset of the xref,
+ * last modified time of the source file) and the pool of the paths. The indexes of the previous version
+ * lack the last modified time.
+ * </p>
+ */
+final class PackedXrefIndex {
+
+    private static final int MAGIC = 0x4f475850; // "OGXP"
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_LAST_MODIFIED = 1;
+    private static final int HEADER_LENGTH = 16;
+    private static final int ENTRY_LENGTH = 32;
+    private static final int ENTRY_LENGTH_WITHOUT_LAST_MODIFIED = 24;
+
+    /**
+     * Value of {@link Entry#lastModified()} for the entries of the indexes of the previous version.
+     */
+    static final long UNKNOWN_LAST_MODIFIED = -1;
+
+    static final PackedXrefIndex EMPTY = new PackedXrefIndex(ByteBuffer.allocate(0), 0, 0, ENTRY_LENGTH);
+
+    /**
+     * Location of a xref.
+     * @param segment number of the segment file
+     * @param offset position of the xref in the segment file
+     * @param length length of the xref
+     * @param lastModified last modified time of the source file the xref was produced from
+     *                     or {@link #UNKNOWN_LAST_MODIFIED}
+     */
+    record Entry(int segment, long offset, int length, long lastModified) {
+    }
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int poolStart;
+    private final int entryLength;
+
+    private PackedXrefIndex(ByteBuffer buffer, int size, int poolStart, int entryLength) {
+        this.buffer = buffer;
+        this.size = size;
+        this.poolStart = poolStart;
+        this.entryLength = entryLength;
+    }
+
+    /**
+     * @param file index file
+     * @return index mapped from the file
+     * @throws IOException if the file cannot be read or it is not a valid index
+     */
+    static PackedXrefIndex read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_LENGTH || length > Integer.MAX_VALUE) {
+                throw new IOException(String.format("invalid length %d of packed xref index '%s'", length, file));
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            int version = buffer.getInt(4);
+            if (buffer.getInt(0) != MAGIC || (version != VERSION && version != VERSION_WITHOUT_LAST_MODIFIED)) {
+                throw new IOException(String.format("'%s' is not packed xref index of version %d", file, VERSION));
+            }
+            int entryLength = version == VERSION ? ENTRY_LENGTH : ENTRY_LENGTH_WITHOUT_LAST_MODIFIED;
+            int size = buffer.getInt(8);
+            int poolStart = buffer.getInt(12);
+            if (size < 0 || poolStart != HEADER_LENGTH + (long) size * entryLength || poolStart > length) {
+                throw new IOException(String.format("packed xref index '%s' is corrupted", file));
+            }
+            return new PackedXrefIndex(buffer, size, poolStart, entryLength);
+        }
+    }
+
+    /**
+     * @return number of the entries
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param index index of the entry
+     * @return path of the source file in UTF-8
+     */
+    byte[] getPath(int index) {
+        int position = HEADER_LENGTH + index * entryLength;
+        byte[] path = new byte[buffer.getInt(position + 4)];
+        buffer.get(poolStart + buffer.getInt(position), path);
+        return path;
+    }
+
+    /**
+     * @param index index of the entry
+     * @return location of the xref
+     */
+    Entry getEntry(int index) {
+        int position = HEADER_LENGTH + index * entryLength;
+        long lastModified = entryLength == ENTRY_LENGTH ? buffer.getLong(position + 24) : UNKNOWN_LAST_MODIFIED;
+        return new Entry(buffer.getInt(position + 8), buffer.getLong(position + 16), buffer.getInt(position + 12),
+                lastModified);
+    }
+
+    /**
+     * @param path path of the source file in UTF-8
+     * @return location of the xref or {@code null} if there is none for the path
+     */
+    @Nullable
+    Entry find(byte[] path) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(mid, path);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return getEntry(mid);
+            }
+        }
+        return null;
+    }
+
+    private int compare(int index, byte[] path) {
+        int position = HEADER_LENGTH + index * entryLength;
+        int start = poolStart + buffer.getInt(position);
+        int length = buffer.getInt(position + 4);
+        int n = Math.min(length, path.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = Byte.compareUnsigned(buffer.get(start + i), path[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, path.length);
+    }
+
+    /**
+     * Writes new index. The entries have to be added in the order of the paths.
+     */
+    static final class Builder implements Closeable {
+
+        private final FileChannel channel;
+        private final DataOutputStream entries;
+        private final Path poolFile;
+        private final DataOutputStream pool;
+        private byte[] lastPath;
+        private int size;
+        private int poolLength;
+
+        /**
+         * @param file index file to create
+         * @throws IOException on I/O error
+         */
+        Builder(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_LENGTH);
+            entries = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            poolFile = file.resolveSibling(file.getFileName() + ".pool");
+            pool = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(poolFile)));
+        }
+
+        /**
+         * @param path path of the source file in UTF-8
+         * @param entry location of the xref
+         * @throws IOException on I/O error
+         */
+        void add(byte[] path, Entry entry) throws IOException {
+            if (lastPath != null && Arrays.compareUnsigned(lastPath, path) >= 0) {
+                throw new IllegalArgumentException("paths have to be added in ascending order");
+            }
+            // The whole index has to fit in single memory mapped buffer.
+            if (HEADER_LENGTH + (long) (size + 1) * ENTRY_LENGTH + poolLength + path.length > Integer.MAX_VALUE) {
+                throw new IOException("packed xref index is too large");
+            }
+            lastPath = path;
+            entries.writeInt(poolLength);
+            entries.writeInt(path.length);
+            entries.writeInt(entry.segment());
+            entries.writeInt(entry.length());
+            entries.writeLong(entry.offset());
+            entries.writeLong(entry.lastModified());
+            pool.write(path);
+            poolLength += path.length;
+            size++;
+        }
+
+        /**
+         * Complete the index and sync it to the disk.
+         * @throws IOException on I/O error
+         */
+        void finish() throws IOException {
+            // The entries are not closed as that would close the channel.
+            entries.flush();
+            pool.close();
+            try (FileChannel poolChannel = FileChannel.open(poolFile, StandardOpenOption.READ)) {
+                long position = 0;
+                long count = poolChannel.size();
+                while (position < count) {
+                    position += poolChannel.transferTo(position, count - position, channel);
+                }
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(HEADER_LENGTH + size * ENTRY_LENGTH).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                pool.close();
+                channel.close();
+            } finally {
+                Files.deleteIfExists(poolFile);
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.index;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+import org.jetbrains.annotations.Nullable;
+import org.opengrok.indexer.configuration.Project;
+import org.opengrok.indexer.logger.LoggerFactory;
+
+/**
+ * Provides access to the xrefs stored in packed form, see
+ * {@link org.opengrok.indexer.configuration.RuntimeEnvironment#isPackedXref()}.
+ * <p>
+ * Instead of a file per source file, the compressed xrefs of a project are appended to few large segment files
+ * and located by an index file, see {@link PackedXrefIndex}. The indexer writes the segments and the new index
+ * during the indexing and replaces the index file atomically when the Lucene index is committed,
+ * so the readers always see consistent set of the xrefs. The segments are never modified. Once a segment
+ * is not referenced by the current index, it is deleted. If a reader fails to open a segment because it was
+ * deleted in the meantime, it retries with the current index.
+ * </p>
+ */
+public final class PackedXrefStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackedXrefStore.class);
+
+    static final String INDEX_FILE = "index";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".pack";
+
+    private static final Map<Path, CachedIndex> INDEXES = new ConcurrentHashMap<>();
+
+    /**
+     * Index mapped from the index file identified by its attributes.
+     */
+    private record CachedIndex(List<Object> key, PackedXrefIndex index) {
+    }
+
+    private PackedXrefStore() {
+        // private to enforce static
+    }
+
+    /**
+     * @param dataRoot data root directory
+     * @param project project or {@code null} if the projects are not used
+     * @return directory of the store for the project
+     */
+    static Path getDirectory(File dataRoot, @Nullable Project project) {
+        File dir = new File(dataRoot, IndexDatabase.XREF_PACK_DIR);
+        if (project != null) {
+            dir = new File(dir, project.getPath());
+        }
+        return dir.toPath();
+    }
+
+    static String getSegmentName(int segment) {
+        return SEGMENT_PREFIX + segment + SEGMENT_SUFFIX;
+    }
+
+    /**
+     * @param fileName file name
+     * @return number of the segment or -1 if the file is not a segment file
+     */
+    static int getSegmentNumber(String fileName) {
+        if (!fileName.startsWith(SEGMENT_PREFIX) || !fileName.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(fileName.substring(SEGMENT_PREFIX.length(),
+                    fileName.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static byte[] toBytes(String path) {
+        return path.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Open the xref of a file.
+     * @param dataRoot data root directory
+     * @param path path of the source file relative to source root
+     * @return the xref or {@code null} if there is none for the file
+     * @throws IOException on I/O error
+     */
+    @Nullable
+    public static Xref open(File dataRoot, String path) throws IOException {
+        Path dir = getDirectory(dataRoot, Project.getProject(path));
+        byte[] pathBytes = toBytes(path);
+        for (int attempt = 0; ; attempt++) {
+            PackedXrefIndex index = getIndex(dir);
+            PackedXrefIndex.Entry entry = index.find(pathBytes);
+            if (entry == null) {
+                return null;
+            }
+            try {
+                FileChannel channel = FileChannel.open(dir.resolve(getSegmentName(entry.segment())),
+                        StandardOpenOption.READ);
+                return new Xref(channel, entry.offset(), entry.length(), entry.lastModified());
+            } catch (NoSuchFileException e) {
+                // The segment was removed after the index was replaced, retry with the current index.
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Open the xref of a file unless the file was modified after the xref was produced.
+     * @param dataRoot data root directory
+     * @param sourceRoot source root directory
+     * @param path path of the source file relative to source root
+     * @return the xref or {@code null} if there is no current xref for the file
+     * @throws IOException on I/O error
+     */
+    @Nullable
+    public static Xref openCurrent(File dataRoot, File sourceRoot, String path) throws IOException {
+        Xref xref = open(dataRoot, path);
+        File file = new File(sourceRoot, path);
+        if (xref != null && xref.isOlderThan(file)) {
+            LOGGER.log(Level.WARNING, "file ''{0}'' is newer than its packed xref", file);
+            xref.close();
+            return null;
+        }
+        return xref;
+    }
+
+    private static PackedXrefIndex getIndex(Path dir) throws IOException {
+        Path file = dir.resolve(INDEX_FILE);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            INDEXES.remove(dir);
+            return PackedXrefIndex.EMPTY;
+        }
+
+        // The index file is never modified, only replaced.
+        List<Object> key = Arrays.asList(attrs.fileKey(), attrs.lastModifiedTime(), attrs.size());
+        CachedIndex cached = INDEXES.get(dir);
+        if (cached == null || !cached.key().equals(key)) {
+            cached = new CachedIndex(key, PackedXrefIndex.read(file));
+            INDEXES.put(dir, cached);
+        }
+        return cached.index();
+    }
+
+    /**
+     * Represents the xref of single file stored in a segment file. The xref is compressed with
+     * {@link org.opengrok.indexer.util.SpliceableGzipOutputStream}.
+     */
+    public static final class Xref implements Closeable {
+
+        private final FileChannel channel;
+        private final long position;
+        private final long size;
+        private final long lastModified;
+
+        private Xref(FileChannel channel, long position, long size, long lastModified) {
+            this.channel = channel;
+            this.position = position;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * @return channel of the segment file
+         */
+        public FileChannel getChannel() {
+            return channel;
+        }
+
+        /**
+         * @return position of the compressed xref in the segment file
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        /**
+         * @return length of the compressed xref
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @param file the source file
+         * @return whether the source file was modified after the xref was produced. The xrefs stored by
+         * the previous versions of the indexer lack the time and are considered current.
+         */
+        public boolean isOlderThan(File file) {
+            return lastModified != PackedXrefIndex.UNKNOWN_LAST_MODIFIED && file.lastModified() > lastModified;
+        }
+
+        /**
+         * @return stream of the decompressed xref, closing it closes this object
+         * @throws IOException on I/O error
+         */
+        public InputStream newInputStream() throws IOException {
+            return new GZIPInputStream(new RegionInputStream(), 8192);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        /**
+         * Reads the compressed xref. The segment contains other xrefs after this one, so the length has to be
+         * limited for {@link GZIPInputStream}, which would read them as further gzip members otherwise.
+         */
+        private final class RegionInputStream extends InputStream {
+
+            private long offset;
+
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (offset >= size) {
+                    return -1;
+                }
+                int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, size - offset)), position + offset);
+                if (n < 0) {
+                    return -1;
+                }
+                offset += n;
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return (int) Math.min(size - offset, Integer.MAX_VALUE);
+            }
+
+            @Override
+            public void close() throws IOException {
+                Xref.this.close();
+            }
+        }
+    }
+}
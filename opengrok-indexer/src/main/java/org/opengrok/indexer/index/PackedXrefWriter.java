@@ -0,0 +1,484 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.index;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.opengrok.indexer.logger.LoggerFactory;
+
+/**
+ * Writes the xrefs of single {@link IndexDatabase} to the packed xref store, see {@link PackedXrefStore}.
+ * <p>
+ * Each indexing thread appends the xrefs to its own new segment file so no locking is needed while the xrefs
+ * are produced. The changes are kept in memory and merged with the current index into a new index file
+ * in {@link #prepareCommit()}, which replaces the current index in {@link #commit()}. Until then the readers
+ * see the previous state. If the changes are not committed, {@link #close()} removes the new files.
+ * </p>
+ * <p>
+ * After the commit, the segments are compacted if most of their data are xrefs that were replaced
+ * or removed, or if there are too many of them: the live xrefs are copied to a new segment and the index
+ * is replaced again.
+ * </p>
+ */
+final class PackedXrefWriter implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackedXrefWriter.class);
+
+    /**
+     * The segments are compacted when the live xrefs take less than this fraction of their size.
+     */
+    private static final double COMPACTION_RATIO = 0.5;
+    /**
+     * Smaller stores are never compacted.
+     */
+    private static final long COMPACTION_MIN_SIZE = 16L * 1024 * 1024;
+    /**
+     * The segments are compacted when there are more of them, regardless of their size. Each indexing thread
+     * creates a segment in each run.
+     */
+    private static final int COMPACTION_MAX_SEGMENTS = 64;
+
+    /**
+     * Marks removed xref in the changes.
+     */
+    private static final PackedXrefIndex.Entry REMOVED = new PackedXrefIndex.Entry(-1, 0, 0, 0);
+
+    private final Path directory;
+    private final PackedXrefIndex current;
+    private final AtomicInteger nextSegment;
+    private final Map<Thread, Segment> segments = new ConcurrentHashMap<>();
+    private final NavigableMap<byte[], PackedXrefIndex.Entry> changes = new TreeMap<>(Arrays::compareUnsigned);
+    private Path pendingIndex;
+    private boolean committed;
+
+    /**
+     * @param directory directory of the store
+     * @throws IOException if the directory cannot be created or listed
+     */
+    PackedXrefWriter(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+
+        Path indexFile = directory.resolve(PackedXrefStore.INDEX_FILE);
+        PackedXrefIndex index = PackedXrefIndex.EMPTY;
+        if (Files.exists(indexFile)) {
+            try {
+                index = PackedXrefIndex.read(indexFile);
+            } catch (IOException e) {
+                // The missing xrefs will be regenerated.
+                LOGGER.log(Level.WARNING, String.format("cannot read packed xref index '%s', ignoring it",
+                        indexFile), e);
+            }
+        }
+        current = index;
+
+        int maxSegment = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                maxSegment = Math.max(maxSegment, PackedXrefStore.getSegmentNumber(file.getFileName().toString()));
+            }
+        }
+        nextSegment = new AtomicInteger(maxSegment + 1);
+    }
+
+    /**
+     * Segment file written by single thread.
+     */
+    private final class Segment extends OutputStream {
+        private final int number;
+        private final Path file;
+        private final FileChannel channel;
+        private final OutputStream out;
+        private long position;
+
+        Segment(int number) throws IOException {
+            this.number = number;
+            this.file = directory.resolve(PackedXrefStore.getSegmentName(number));
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            this.out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            position++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            position += len;
+        }
+
+        /**
+         * Complete the segment and sync it to the disk.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!channel.isOpen()) {
+                return;
+            }
+            try (channel) {
+                out.flush();
+                channel.force(true);
+            }
+        }
+    }
+
+    /**
+     * Output of single xref.
+     */
+    final class XrefOutput extends OutputStream {
+        private final Segment segment;
+        private final long start;
+
+        private XrefOutput(Segment segment) {
+            this.segment = segment;
+            this.start = segment.position;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            segment.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            segment.write(b, off, len);
+        }
+
+        /**
+         * Does not close the segment.
+         */
+        @Override
+        public void close() {
+            // nothing to do
+        }
+
+        /**
+         * Record the data written to this output as the xref of a file.
+         * @param path path of the source file relative to source root
+         * @param lastModified last modified time of the source file the xref was produced from
+         */
+        void add(String path, long lastModified) {
+            PackedXrefIndex.Entry entry = new PackedXrefIndex.Entry(segment.number, start,
+                    Math.toIntExact(segment.position - start), lastModified);
+            synchronized (changes) {
+                changes.put(PackedXrefStore.toBytes(path), entry);
+            }
+        }
+    }
+
+    /**
+     * Start writing a xref. The data are written to the segment of the current thread so the returned output
+     * has to be used by the current thread only, and only until this method is called again.
+     * @return output for the compressed xref
+     * @throws IOException if new segment cannot be created
+     */
+    XrefOutput newOutput() throws IOException {
+        Thread thread = Thread.currentThread();
+        Segment segment = segments.get(thread);
+        if (segment == null) {
+            segment = new Segment(nextSegment.getAndIncrement());
+            segments.put(thread, segment);
+        }
+        return new XrefOutput(segment);
+    }
+
+    /**
+     * @param path path of the source file relative to source root
+     */
+    void remove(String path) {
+        synchronized (changes) {
+            changes.put(PackedXrefStore.toBytes(path), REMOVED);
+        }
+    }
+
+    /**
+     * Record that the xref of a file is up-to-date with the source file, whose contents did not change
+     * since the xref was produced.
+     * @param path path of the source file relative to source root
+     * @param lastModified last modified time of the source file
+     */
+    void touch(String path, long lastModified) {
+        byte[] bytes = PackedXrefStore.toBytes(path);
+        synchronized (changes) {
+            PackedXrefIndex.Entry entry = changes.get(bytes);
+            if (entry == null) {
+                entry = current.find(bytes);
+            }
+            if (entry != null && entry != REMOVED && entry.lastModified() < lastModified) {
+                changes.put(bytes, new PackedXrefIndex.Entry(entry.segment(), entry.offset(), entry.length(),
+                        lastModified));
+            }
+        }
+    }
+
+    /**
+     * @param path path of the source file relative to source root
+     * @return whether there is xref for the file
+     */
+    boolean contains(String path) {
+        byte[] bytes = PackedXrefStore.toBytes(path);
+        synchronized (changes) {
+            PackedXrefIndex.Entry entry = changes.get(bytes);
+            if (entry != null) {
+                return entry != REMOVED;
+            }
+        }
+        return current.find(bytes) != null;
+    }
+
+    /**
+     * Complete the segments and write the new index. To be called once all xrefs were written.
+     * @throws IOException on I/O error
+     */
+    void prepareCommit() throws IOException {
+        closeSegments();
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        pendingIndex = directory.resolve(PackedXrefStore.INDEX_FILE + PendingFileCompleter.PENDING_EXTENSION);
+        try (PackedXrefIndex.Builder builder = new PackedXrefIndex.Builder(pendingIndex)) {
+            Iterator<Map.Entry<byte[], PackedXrefIndex.Entry>> iterator = changes.entrySet().iterator();
+            Map.Entry<byte[], PackedXrefIndex.Entry> change = iterator.hasNext() ? iterator.next() : null;
+            for (int i = 0; i < current.size(); i++) {
+                byte[] path = current.getPath(i);
+                int cmp = -1;
+                while (change != null && (cmp = Arrays.compareUnsigned(change.getKey(), path)) <= 0) {
+                    addChange(builder, change);
+                    change = iterator.hasNext() ? iterator.next() : null;
+                    if (cmp == 0) {
+                        break;
+                    }
+                }
+                if (cmp != 0) {
+                    builder.add(path, current.getEntry(i));
+                }
+            }
+            while (change != null) {
+                addChange(builder, change);
+                change = iterator.hasNext() ? iterator.next() : null;
+            }
+            builder.finish();
+        }
+    }
+
+    private static void addChange(PackedXrefIndex.Builder builder, Map.Entry<byte[], PackedXrefIndex.Entry> change)
+            throws IOException {
+        if (change.getValue() != REMOVED) {
+            builder.add(change.getKey(), change.getValue());
+        }
+    }
+
+    /**
+     * Make the new index current. To be called before the Lucene index is committed: if the Lucene commit
+     * fails, the files are indexed again in the next run and their xrefs are replaced.
+     * @throws IOException on I/O error
+     */
+    void commit() throws IOException {
+        committed = true;
+        if (pendingIndex == null) {
+            // Segments might have been created for empty xrefs.
+            removeUnusedSegments(current);
+            return;
+        }
+
+        Path indexFile = directory.resolve(PackedXrefStore.INDEX_FILE);
+        Files.move(pendingIndex, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        pendingIndex = null;
+
+        PackedXrefIndex index = PackedXrefIndex.read(indexFile);
+        removeUnusedSegments(index);
+        try {
+            compact(index);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("failed to compact packed xrefs in '%s'", directory), e);
+        }
+    }
+
+    private void compact(PackedXrefIndex index) throws IOException {
+        long liveBytes = 0;
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < index.size(); i++) {
+            PackedXrefIndex.Entry entry = index.getEntry(i);
+            liveBytes += entry.length();
+            used.add(entry.segment());
+        }
+        long totalBytes = 0;
+        for (int number : used) {
+            totalBytes += Files.size(directory.resolve(PackedXrefStore.getSegmentName(number)));
+        }
+        if (used.size() <= COMPACTION_MAX_SEGMENTS &&
+                (totalBytes < COMPACTION_MIN_SIZE || liveBytes >= totalBytes * COMPACTION_RATIO)) {
+            return;
+        }
+
+        LOGGER.log(Level.FINE, "compacting packed xrefs in ''{0}'': {1} of {2} bytes in {3} segments are used",
+                new Object[]{directory, liveBytes, totalBytes, used.size()});
+        Map<Integer, FileChannel> channels = new HashMap<>();
+        Segment segment = new Segment(nextSegment.getAndIncrement());
+        Path compactedIndex = directory.resolve(PackedXrefStore.INDEX_FILE + PendingFileCompleter.PENDING_EXTENSION);
+        boolean success = false;
+        try (PackedXrefIndex.Builder builder = new PackedXrefIndex.Builder(compactedIndex)) {
+            for (int i = 0; i < index.size(); i++) {
+                PackedXrefIndex.Entry entry = index.getEntry(i);
+                FileChannel channel = channels.get(entry.segment());
+                if (channel == null) {
+                    channel = FileChannel.open(directory.resolve(PackedXrefStore.getSegmentName(entry.segment())),
+                            StandardOpenOption.READ);
+                    channels.put(entry.segment(), channel);
+                }
+                builder.add(index.getPath(i), new PackedXrefIndex.Entry(segment.number, segment.position,
+                        entry.length(), entry.lastModified()));
+                copy(channel, entry, segment);
+            }
+            segment.close();
+            builder.finish();
+            success = true;
+        } finally {
+            for (FileChannel channel : channels.values()) {
+                channel.close();
+            }
+            if (!success) {
+                segment.close();
+                Files.deleteIfExists(segment.file);
+                Files.deleteIfExists(compactedIndex);
+            }
+        }
+
+        Path indexFile = directory.resolve(PackedXrefStore.INDEX_FILE);
+        Files.move(compactedIndex, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        removeUnusedSegments(PackedXrefIndex.read(indexFile));
+    }
+
+    private static void copy(FileChannel channel, PackedXrefIndex.Entry entry, OutputStream out)
+            throws IOException {
+        byte[] buffer = new byte[Math.min(entry.length(), 64 * 1024)];
+        long position = entry.offset();
+        long end = position + entry.length();
+        while (position < end) {
+            int n = channel.read(ByteBuffer.wrap(buffer, 0, (int) Math.min(buffer.length, end - position)),
+                    position);
+            if (n < 0) {
+                throw new IOException(String.format("unexpected end of segment %d", entry.segment()));
+            }
+            out.write(buffer, 0, n);
+            position += n;
+        }
+    }
+
+    /**
+     * Remove the segments that are not referenced by the index. These are left over from the previous runs
+     * or were compacted.
+     */
+    private void removeUnusedSegments(PackedXrefIndex index) throws IOException {
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < index.size(); i++) {
+            used.add(index.getEntry(i).segment());
+        }
+        List<Path> unused = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                int number = PackedXrefStore.getSegmentNumber(file.getFileName().toString());
+                if (number >= 0 && !used.contains(number)) {
+                    unused.add(file);
+                }
+            }
+        }
+        for (Path file : unused) {
+            try {
+                Files.delete(file);
+            } catch (IOException e) {
+                // Can happen on Windows if the file is open, it will be removed next time.
+                LOGGER.log(Level.FINE, String.format("cannot remove unused segment '%s'", file), e);
+            }
+        }
+    }
+
+    private void closeSegments() throws IOException {
+        IOException exception = null;
+        for (Segment segment : segments.values()) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Remove the new files unless the changes were committed.
+     */
+    @Override
+    public void close() {
+        if (committed) {
+            return;
+        }
+        try {
+            closeSegments();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "failed to close packed xref segment", e);
+        }
+        try {
+            for (Segment segment : segments.values()) {
+                Files.deleteIfExists(segment.file);
+            }
+            if (pendingIndex != null) {
+                Files.deleteIfExists(pendingIndex);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("failed to remove uncommitted packed xrefs in '%s'",
+                    directory), e);
+        }
+    }
+}
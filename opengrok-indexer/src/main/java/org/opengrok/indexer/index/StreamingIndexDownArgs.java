@@ -0,0 +1,120 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.index;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.opengrok.indexer.logger.LoggerFactory;
+
+/**
+ * Variant of {@link IndexDownArgs} that does not accumulate the works produced by the first stage of indexing.
+ * Instead, each work is submitted to the index work executor as soon as it is added.
+ * <p>
+ * The number of works submitted and not yet completed is bounded. Once the limit is reached,
+ * {@link #addWork(IndexFileWork)} blocks until some of the works complete, so the traversal cannot run
+ * arbitrarily ahead of the indexing.
+ * </p>
+ * <p>
+ * Works are always added after any removal of the documents for the same path was performed
+ * by the traversal, so the ordering of deletions w.r.t. additions is the same as with {@link IndexDownArgs}.
+ * </p>
+ */
+class StreamingIndexDownArgs extends IndexDownArgs {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamingIndexDownArgs.class);
+
+    /**
+     * Number of works that can be in flight per indexing thread.
+     */
+    static final int WORKS_PER_THREAD = 64;
+
+    private final ExecutorService executor;
+    private final Function<IndexFileWork, Callable<IndexFileWork>> callableFactory;
+    private final int capacity;
+    private final Semaphore permits;
+
+    /**
+     * @param executor executor to run the works
+     * @param capacity maximum number of works submitted and not yet completed
+     * @param callableFactory function to convert a work into a task to be run by the executor
+     */
+    StreamingIndexDownArgs(ExecutorService executor, int capacity,
+                           Function<IndexFileWork, Callable<IndexFileWork>> callableFactory) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity has to be positive");
+        }
+        this.executor = executor;
+        this.callableFactory = callableFactory;
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity);
+    }
+
+    /**
+     * Submit the work to the executor, waiting for a free slot if needed.
+     * @param work work item
+     * @throws InterruptedIOException if interrupted while waiting for a free slot
+     */
+    @Override
+    void addWork(IndexFileWork work) throws IOException {
+        curCount++;
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting to submit " + work.path);
+        }
+
+        Callable<IndexFileWork> callable = callableFactory.apply(work);
+        try {
+            executor.execute(() -> {
+                try {
+                    callable.call();
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, String.format("failed to index '%s'", work.path), e);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for all the submitted works to complete.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void awaitCompletion() throws InterruptedException {
+        permits.acquire(capacity);
+        permits.release(capacity);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.index;
+
+import java.util.Arrays;
+
+import org.apache.lucene.util.BytesRef;
+import org.opengrok.indexer.web.Util;
+
+/**
+ * Represents a utility class for working with the UIDs (as produced by {@link Util#path2uid(String, String)})
+ * directly in their UTF-8 encoded form, i.e. as stored in the {@code u} terms, without decoding them to strings.
+ * <p>
+ * The path part of a UID uses the null character as separator of the path components. Because the null character
+ * sorts before any other character, comparing the path parts byte by byte yields the same result as comparing
+ * the paths component by component with shorter paths first, like {@link IndexDatabase#FILEPATH_COMPARATOR} does.
+ * The components are ordered by Unicode code points, i.e. the same way as Lucene orders the terms
+ * (this differs from {@link String#compareTo(String)} only for supplementary characters).
+ * </p>
+ */
+final class UidUtil {
+
+    private static final byte SEPARATOR = 0;
+
+    /**
+     * @param path path relative to source root (with leading slash)
+     * @return UID with empty date, suitable as argument of the methods of this class
+     */
+    static BytesRef pathToUid(String path) {
+        return new BytesRef(Util.path2uid(path, ""));
+    }
+
+    /**
+     * @param uid UID bytes
+     * @return length of the path part of the UID (the date and its separator are not included)
+     */
+    static int pathLength(BytesRef uid) {
+        for (int i = uid.offset + uid.length - 1; i >= uid.offset; i--) {
+            if (uid.bytes[i] == SEPARATOR) {
+                return i - uid.offset;
+            }
+        }
+        return uid.length;
+    }
+
+    /**
+     * Compare the path parts of two UIDs.
+     * @param uid1 UID bytes
+     * @param uid2 UID bytes
+     * @return negative number, zero or positive number if the path of {@code uid1} sorts before, is equal to,
+     * or sorts after the path of {@code uid2}, respectively
+     */
+    static int comparePaths(BytesRef uid1, BytesRef uid2) {
+        return Arrays.compareUnsigned(uid1.bytes, uid1.offset, uid1.offset + pathLength(uid1),
+                uid2.bytes, uid2.offset, uid2.offset + pathLength(uid2));
+    }
+
+    /**
+     * @param uid1 UID bytes
+     * @param uid2 UID bytes
+     * @return whether the paths of the UIDs are the same
+     */
+    static boolean pathEquals(BytesRef uid1, BytesRef uid2) {
+        int length1 = pathLength(uid1);
+        int length2 = pathLength(uid2);
+        return length1 == length2 && Arrays.equals(uid1.bytes, uid1.offset, uid1.offset + length1,
+                uid2.bytes, uid2.offset, uid2.offset + length2);
+    }
+
+    /* private to enforce static */
+    private UidUtil() {
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the rendering of the hits of a page of search results running concurrently on an executor.
+ * The results are retrieved in the order of submission so that the output keeps the order of the hits.
+ * The page has a common deadline: the hits that are not rendered by then have no result.
+ *
+ * @param <T> type of the rendered hit
+ */
+final class OrderedRenderingTasks<T> implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final List<Future<T>> futures = new ArrayList<>();
+    private final long deadline;
+    private final boolean unlimited;
+
+    /**
+     * @param executor executor to run the tasks
+     * @param timeoutMillis time budget for the whole page, zero or negative value means no limit
+     */
+    OrderedRenderingTasks(ExecutorService executor, long timeoutMillis) {
+        this.executor = executor;
+        this.unlimited = timeoutMillis <= 0;
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * @param task task rendering single hit
+     * @return index of the task to be passed to {@link #get(int)}
+     */
+    int submit(Callable<T> task) {
+        futures.add(executor.submit(task));
+        return futures.size() - 1;
+    }
+
+    /**
+     * Wait for the result of a task.
+     * @param index index of the task
+     * @return result of the task or {@code null} if it did not complete before the deadline
+     * @throws ExecutionException if the task failed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Nullable
+    T get(int index) throws ExecutionException, InterruptedException {
+        Future<T> future = futures.get(index);
+        try {
+            if (unlimited) {
+                return future.get();
+            }
+            return future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return null;
+        }
+    }
+
+    /**
+     * Cancel the tasks that have not completed yet, e.g. when the output failed.
+     */
+    @Override
+    public void close() {
+        for (Future<T> future : futures) {
+            future.cancel(true);
+        }
+    }
+}
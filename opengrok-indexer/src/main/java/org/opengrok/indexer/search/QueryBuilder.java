@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2010, 2019, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2010, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2011, Jens Elkner.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
@@ -72,9 +72,12 @@ public class QueryBuilder {
     public static final String DIRPATH = "dirpath";
     public static final String PROJECT = "project";
     public static final String DATE = "date";
+    public static final String DIGEST = "digest"; // content digest
+    public static final String LASTMOD = "lastmod"; // last modified time matching the content digest
     public static final String OBJUID = "objuid"; // object UID
     public static final String OBJSER = "objser"; // object serialized
     public static final String OBJVER = "objver"; // object version
+    public static final String LINEOFFSETS = "lineoffsets"; // offsets of the line starts in the source
 
     protected static final List<String> searchFields = Arrays.asList(FULL, DEFS, REFS, PATH, HIST);
     private static final HashSet<String> searchFieldsSet = new HashSet<>(searchFields);
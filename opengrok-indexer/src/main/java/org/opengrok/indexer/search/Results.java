@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2005, 2023, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2011, Jens Elkner.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  */
@@ -30,14 +30,19 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Reader;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPInputStream;
@@ -48,13 +53,17 @@ import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.StoredFields;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.ScoreDoc;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
 import org.opengrok.indexer.analysis.AbstractAnalyzer;
 import org.opengrok.indexer.analysis.Definitions;
 import org.opengrok.indexer.analysis.Scopes;
 import org.opengrok.indexer.configuration.Project;
 import org.opengrok.indexer.configuration.RuntimeEnvironment;
 import org.opengrok.indexer.history.HistoryException;
+import org.opengrok.indexer.index.PackedXrefStore;
 import org.opengrok.indexer.logger.LoggerFactory;
+import org.opengrok.indexer.search.context.Context;
 import org.opengrok.indexer.search.context.HistoryContext;
 import org.opengrok.indexer.util.IOUtils;
 import org.opengrok.indexer.util.TandemPath;
@@ -70,6 +79,8 @@ public final class Results {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Results.class);
 
+    static final String CONTEXT_NOT_AVAILABLE = "<i>context not available, it took too long to produce</i>";
+
     private Results() {
         // Util class, should not be constructed
     }
@@ -115,10 +126,8 @@ public final class Results {
     }
 
     private static String getTags(File basedir, String path, boolean compressed) {
-        char[] content = new char[1024 * 8];
-        try (HTMLStripCharFilter r = new HTMLStripCharFilter(getXrefReader(basedir, path, compressed))) {
-            int len = r.read(content);
-            return new String(content, 0, len);
+        try {
+            return readTags(getXrefReader(basedir, path, compressed));
         } catch (Exception e) {
             String fnm = compressed ? TandemPath.join(basedir + path, ".gz") :
                     basedir + path;
@@ -127,6 +136,29 @@ public final class Results {
         return "";
     }
 
+    /**
+     * Read the tags from the xref stored in the packed form, see {@link RuntimeEnvironment#isPackedXref()}.
+     */
+    private static String getPackedTags(File dataRoot, String path) {
+        try {
+            PackedXrefStore.Xref xref = PackedXrefStore.open(dataRoot, path);
+            if (xref != null) {
+                return readTags(new BufferedReader(IOUtils.createBOMStrippedReader(xref.newInputStream())));
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, String.format("An error reading tags from packed xref of '%s'", path), e);
+        }
+        return "";
+    }
+
+    private static String readTags(Reader xrefReader) throws IOException {
+        char[] content = new char[1024 * 8];
+        try (HTMLStripCharFilter r = new HTMLStripCharFilter(xrefReader)) {
+            int len = r.read(content);
+            return new String(content, 0, len);
+        }
+    }
+
     /** Return a reader for the specified xref file. */
     private static Reader getXrefReader(File basedir, String path, boolean compressed) throws IOException {
         /*
@@ -154,6 +186,11 @@ public final class Results {
      * <li>{@link SearchHelper#summarizer} (if sourceContext is not
      * {@code null})</li> <li>{@link SearchHelper#sourceRoot} (if
      * sourceContext or historyContext is not {@code null})</li> </ul>
+     * <p>
+     * If {@link RuntimeEnvironment#isParallelResultsRendering()} is on, the contexts of the hits are produced
+     * concurrently and written in the order of the hits. The contexts not produced within
+     * {@link RuntimeEnvironment#getSearchTimeout()} are omitted.
+     * </p>
      *
      * @param out write destination
      * @param sh search helper which has all required fields set
@@ -176,87 +213,194 @@ public final class Results {
 
         RuntimeEnvironment env = RuntimeEnvironment.getInstance();
 
-        boolean evenRow = true;
-        out.write("<tbody class=\"search-result\">");
-        for (Map.Entry<String, ArrayList<Integer>> entry :
-                createMap(sh.getSearcher(), sh.getHits(), start, end).entrySet()) {
-            String parent = entry.getKey();
-            out.write("<tr class=\"dir\"><td colspan=\"3\"><a href=\"");
-            out.write(xrefPrefixE);
-            out.write(Util.uriEncodePath(parent));
-            out.write("/\">");
-            out.write(htmlize(parent));
-            out.write("/</a>");
-            if (sh.getDesc() != null) {
-                out.write(" - <i>");
-                out.write(sh.getDesc().get(parent));
-                out.write("</i>");
+        Map<String, ArrayList<Integer>> dirHash = createMap(sh.getSearcher(), sh.getHits(), start, end);
+        StoredFields storedFields = sh.getSearcher().storedFields();
+        Map<Integer, Document> docs = new HashMap<>();
+        for (ArrayList<Integer> dirDocs : dirHash.values()) {
+            for (int docId : dirDocs) {
+                docs.put(docId, storedFields.document(docId));
             }
+        }
 
-            p = Project.getProject(parent);
-            String messages = MessagesUtils.messagesToJson(p, MESSAGES_MAIN_PAGE_TAG);
-            if (p != null && !messages.isEmpty()) {
-                out.write(" <a href=\"" + xrefPrefix + "/" + p.getName() + "\">");
-                out.write("<span class=\"note-" + MessagesUtils.getMessageLevel(p.getName(), MESSAGES_MAIN_PAGE_TAG) +
-                        " important-note important-note-rounded\" data-messages='" + messages + "'>!</span>");
-                out.write("</a>");
+        try (OrderedRenderingTasks<String> tasks = env.isParallelResultsRendering() ?
+                new OrderedRenderingTasks<>(env.getResultsRenderingExecutor(),
+                        TimeUnit.SECONDS.toMillis(env.getSearchTimeout())) : null) {
+            Map<Integer, Integer> taskIndexes = new HashMap<>();
+            if (tasks != null) {
+                Context sharedContext = sh.getSourceContext();
+                for (Map.Entry<String, ArrayList<Integer>> entry : dirHash.entrySet()) {
+                    PrintPlainFinalArgs dirArgs = new PrintPlainFinalArgs(null, sh, env, xrefPrefix,
+                            sh.getTabSize(Project.getProject(entry.getKey())), morePrefix, null);
+                    for (int docId : entry.getValue()) {
+                        Document doc = docs.get(docId);
+                        /*
+                         * The alternation of the source context goes across the hits, so replay it here
+                         * in the order of the hits as the sequential rendering would do in printPlain().
+                         */
+                        boolean alt = sharedContext != null && sharedContext.isAlt();
+                        if (sharedContext != null &&
+                                AbstractAnalyzer.Genre.get(doc.get(QueryBuilder.T)) == AbstractAnalyzer.Genre.PLAIN) {
+                            sharedContext.toggleAlt();
+                        }
+                        taskIndexes.put(docId, tasks.submit(() -> renderContext(dirArgs, xrefDataDir, doc,
+                                docId, alt)));
+                    }
+                }
             }
 
-            int tabSize = sh.getTabSize(p);
-            PrintPlainFinalArgs fargs = new PrintPlainFinalArgs(out, sh, env,
-                xrefPrefix, tabSize, morePrefix);
-
-            out.write("</td></tr>");
-            StoredFields storedFields = sh.getSearcher().storedFields();
-            for (int docId : entry.getValue()) {
-                Document doc = storedFields.document(docId);
-                String rpath = doc.get(QueryBuilder.PATH);
-                String rpathE = Util.uriEncodePath(rpath);
-                if (evenRow) {
-                    out.write("<tr class=\"search-result-even-row\">");
-                } else {
-                    out.write("<tr>");
-                }
-                evenRow = !evenRow;
-                Util.writeHAD(out, sh.getContextPath(), rpathE);
-                out.write("<td class=\"f\"><a href=\"");
+            boolean evenRow = true;
+            out.write("<tbody class=\"search-result\">");
+            for (Map.Entry<String, ArrayList<Integer>> entry : dirHash.entrySet()) {
+                String parent = entry.getKey();
+                out.write("<tr class=\"dir\"><td colspan=\"3\"><a href=\"");
                 out.write(xrefPrefixE);
-                out.write(rpathE);
-                out.write("\"");
-                if (env.isLastEditedDisplayMode()) {
-                    printLastEditedDate(out, doc);
+                out.write(Util.uriEncodePath(parent));
+                out.write("/\">");
+                out.write(htmlize(parent));
+                out.write("/</a>");
+                if (sh.getDesc() != null) {
+                    out.write(" - <i>");
+                    out.write(sh.getDesc().get(parent));
+                    out.write("</i>");
                 }
-                out.write(">");
-                out.write(htmlize(rpath.substring(rpath.lastIndexOf('/') + 1)));
-                out.write("</a>");
-                out.write("</td><td><code class=\"con\">");
-                if (sh.getSourceContext() != null) {
-                    AbstractAnalyzer.Genre genre = AbstractAnalyzer.Genre.get(
-                            doc.get(QueryBuilder.T));
-                    Summarizer summarizer = sh.getSummarizer();
-                    if (AbstractAnalyzer.Genre.XREFABLE == genre && summarizer != null) {
-                        String xtags = getTags(xrefDataDir, rpath, env.isCompressXref());
-                        // FIXME use Highlighter from lucene contrib here,
-                        // instead of summarizer, we'd also get rid of
-                        // apache lucene in whole source ...
-                        out.write(summarizer.getSummary(xtags).toString());
-                    } else if (AbstractAnalyzer.Genre.HTML == genre && summarizer != null) {
-                        String htags = getTags(sh.getSourceRoot(), rpath, false);
-                        out.write(summarizer.getSummary(htags).toString());
-                    } else if (genre == AbstractAnalyzer.Genre.PLAIN) {
-                        printPlain(fargs, doc, docId, rpath);
-                    }
+
+                p = Project.getProject(parent);
+                String messages = MessagesUtils.messagesToJson(p, MESSAGES_MAIN_PAGE_TAG);
+                if (p != null && !messages.isEmpty()) {
+                    out.write(" <a href=\"" + xrefPrefix + "/" + p.getName() + "\">");
+                    out.write("<span class=\"note-" + MessagesUtils.getMessageLevel(p.getName(), MESSAGES_MAIN_PAGE_TAG) +
+                            " important-note important-note-rounded\" data-messages='" + messages + "'>!</span>");
+                    out.write("</a>");
                 }
 
-                HistoryContext historyContext = sh.getHistoryContext();
-                if (historyContext != null) {
-                    historyContext.getContext(new File(sh.getSourceRoot(), rpath),
-                            rpath, out, sh.getContextPath());
+                int tabSize = sh.getTabSize(p);
+                PrintPlainFinalArgs fargs = new PrintPlainFinalArgs(out, sh, env,
+                    xrefPrefix, tabSize, morePrefix, sh.getSourceContext());
+
+                out.write("</td></tr>");
+                for (int docId : entry.getValue()) {
+                    Document doc = docs.get(docId);
+                    String rpath = doc.get(QueryBuilder.PATH);
+                    String rpathE = Util.uriEncodePath(rpath);
+                    if (evenRow) {
+                        out.write("<tr class=\"search-result-even-row\">");
+                    } else {
+                        out.write("<tr>");
+                    }
+                    evenRow = !evenRow;
+                    Util.writeHAD(out, sh.getContextPath(), rpathE);
+                    out.write("<td class=\"f\"><a href=\"");
+                    out.write(xrefPrefixE);
+                    out.write(rpathE);
+                    out.write("\"");
+                    if (env.isLastEditedDisplayMode()) {
+                        printLastEditedDate(out, doc);
+                    }
+                    out.write(">");
+                    out.write(htmlize(rpath.substring(rpath.lastIndexOf('/') + 1)));
+                    out.write("</a>");
+                    out.write("</td><td><code class=\"con\">");
+                    if (tasks != null) {
+                        writeRenderedContext(out, tasks, taskIndexes.get(docId), rpath);
+                    } else {
+                        printContext(fargs, sh.getHistoryContext(), xrefDataDir, doc, docId, rpath);
+                    }
+                    out.write("</code></td></tr>\n");
                 }
-                out.write("</code></td></tr>\n");
             }
+            out.write("</tbody>");
+        }
+    }
+
+    /**
+     * Produce the context of a hit with its own {@link Context} and {@link HistoryContext}
+     * instances because these are not thread-safe.
+     * @param dirArgs the arguments of the directory of the hit, without the output and source context
+     * @param alt the alternating value of the source context before the hit
+     */
+    private static String renderContext(PrintPlainFinalArgs dirArgs, File xrefDataDir, Document doc, int docId,
+            boolean alt) throws HistoryException, IOException, ClassNotFoundException {
+
+        SearchHelper sh = dirArgs.shelp;
+        StringWriter out = new StringWriter();
+        Context sourceContext = sh.getSourceContext() != null ? new Context(sh.getQuery(), sh.getBuilder()) : null;
+        if (sourceContext != null) {
+            sourceContext.setAlt(alt);
+        }
+        HistoryContext historyContext = sh.getHistoryContext() != null ? new HistoryContext(sh.getQuery()) : null;
+        PrintPlainFinalArgs fargs = new PrintPlainFinalArgs(out, sh, dirArgs.env, dirArgs.xrefPrefix,
+                dirArgs.tabSize, dirArgs.morePrefix, sourceContext);
+        printContext(fargs, historyContext, xrefDataDir, doc, docId, doc.get(QueryBuilder.PATH));
+        return out.toString();
+    }
+
+    /**
+     * Write the context of a hit rendered by {@link #renderContext(PrintPlainFinalArgs, File, Document, int, boolean)}.
+     * The context that was not rendered in time is replaced with a note so that the hit does not look
+     * like having no context.
+     */
+    @VisibleForTesting
+    static void writeRenderedContext(Writer out, OrderedRenderingTasks<String> tasks, int taskIndex,
+            String rpath) throws HistoryException, IOException, ClassNotFoundException {
+        String context;
+        try {
+            context = tasks.get(taskIndex);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while rendering context for " + rpath);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            } else if (cause instanceof HistoryException historyException) {
+                throw historyException;
+            } else if (cause instanceof ClassNotFoundException classNotFoundException) {
+                throw classNotFoundException;
+            } else if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+
+        if (context != null) {
+            out.write(context);
+        } else {
+            LOGGER.log(Level.WARNING, "context for ''{0}'' was not produced in time", rpath);
+            out.write(CONTEXT_NOT_AVAILABLE);
+        }
+    }
+
+    private static void printContext(PrintPlainFinalArgs fargs, @Nullable HistoryContext historyContext,
+            File xrefDataDir, Document doc, int docId, String rpath)
+            throws HistoryException, IOException, ClassNotFoundException {
+
+        Writer out = fargs.out;
+        SearchHelper sh = fargs.shelp;
+        if (fargs.sourceContext != null) {
+            AbstractAnalyzer.Genre genre = AbstractAnalyzer.Genre.get(
+                    doc.get(QueryBuilder.T));
+            Summarizer summarizer = sh.getSummarizer();
+            if (AbstractAnalyzer.Genre.XREFABLE == genre && summarizer != null) {
+                String xtags = fargs.env.isPackedXref() ? getPackedTags(sh.getDataRoot(), rpath) :
+                        getTags(xrefDataDir, rpath, fargs.env.isCompressXref());
+                // FIXME use Highlighter from lucene contrib here,
+                // instead of summarizer, we'd also get rid of
+                // apache lucene in whole source ...
+                out.write(summarizer.getSummary(xtags).toString());
+            } else if (AbstractAnalyzer.Genre.HTML == genre && summarizer != null) {
+                String htags = getTags(sh.getSourceRoot(), rpath, false);
+                out.write(summarizer.getSummary(htags).toString());
+            } else if (genre == AbstractAnalyzer.Genre.PLAIN) {
+                printPlain(fargs, doc, docId, rpath);
+            }
+        }
+
+        if (historyContext != null) {
+            historyContext.getContext(new File(sh.getSourceRoot(), rpath),
+                    rpath, out, sh.getContextPath());
         }
-        out.write("</tbody>");
     }
 
     private static void printLastEditedDate(final Writer out, final Document doc) throws IOException {
@@ -275,9 +419,9 @@ public final class Results {
     private static void printPlain(PrintPlainFinalArgs fargs, Document doc,
         int docId, String rpath) throws ClassNotFoundException, IOException {
 
-        fargs.shelp.getSourceContext().toggleAlt();
+        fargs.sourceContext.toggleAlt();
 
-        boolean didPresentNew = fargs.shelp.getSourceContext().getContext2(fargs.env,
+        boolean didPresentNew = fargs.sourceContext.getContext2(fargs.env,
             fargs.shelp.getSearcher(), docId, fargs.out, fargs.xrefPrefix,
             fargs.morePrefix, true, fargs.tabSize);
 
@@ -304,7 +448,7 @@ public final class Results {
             File sourceFile = new File(fargs.shelp.getSourceRoot(), rpath);
             try (FileInputStream fis = new FileInputStream(sourceFile);
                  Reader r = IOUtils.createBOMStrippedReader(fis, StandardCharsets.UTF_8.name())) {
-                fargs.shelp.getSourceContext().getContext(r, fargs.out,
+                fargs.sourceContext.getContext(r, fargs.out,
                     fargs.xrefPrefix, fargs.morePrefix, rpath, tags, true,
                     isDefSearch, null, scopes);
             } catch (IOException ex) {
@@ -330,16 +474,18 @@ public final class Results {
         final String xrefPrefix;
         final String morePrefix;
         final int tabSize;
+        final Context sourceContext;
 
         PrintPlainFinalArgs(Writer out, SearchHelper shelp,
                 RuntimeEnvironment env, String xrefPrefix, int tabSize,
-                String morePrefix) {
+                String morePrefix, Context sourceContext) {
             this.out = out;
             this.shelp = shelp;
             this.env = env;
             this.xrefPrefix = xrefPrefix;
             this.morePrefix = morePrefix;
             this.tabSize = tabSize;
+            this.sourceContext = sourceContext;
         }
     }
 }
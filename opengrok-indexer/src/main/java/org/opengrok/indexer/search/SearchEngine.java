@@ -24,17 +24,22 @@
 package org.opengrok.indexer.search;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -64,6 +69,7 @@ import org.opengrok.indexer.configuration.Project;
 import org.opengrok.indexer.configuration.RuntimeEnvironment;
 import org.opengrok.indexer.configuration.SuperIndexSearcher;
 import org.opengrok.indexer.history.HistoryException;
+import org.opengrok.indexer.index.PackedXrefStore;
 import org.opengrok.indexer.logger.LoggerFactory;
 import org.opengrok.indexer.search.Summary.Fragment;
 import org.opengrok.indexer.search.context.Context;
@@ -141,11 +147,23 @@ public class SearchEngine {
     private HistoryContext historyContext;
     private Summarizer summarizer;
 
+    /**
+     * Stored fields needed to produce the results when there is no source context.
+     */
+    private static final Set<String> RESULT_FIELDS = Set.of(QueryBuilder.PATH);
+    /**
+     * Stored fields needed to produce the results with source context.
+     */
+    private static final Set<String> CONTEXT_RESULT_FIELDS = Set.of(QueryBuilder.PATH, QueryBuilder.T,
+            QueryBuilder.TAGS, QueryBuilder.SCOPES);
+
     // internal structures to hold the results from Lucene
-    private final List<Document> docs;
     private final int maxDocs;
     int totalHits = 0;
     private ScoreDoc[] hits;
+    private boolean partialResults;
+    private volatile boolean cancelled;
+    private volatile TimeLimitingCollectorManager<?, ? extends TopDocs> collectorManager;
 
     private String source;
     private String data;
@@ -167,7 +185,6 @@ public class SearchEngine {
         if (maxDocs <= 0) {
             throw new IllegalArgumentException("maxDocs must be positive: " + maxDocs);
         }
-        docs = new ArrayList<>();
         this.maxDocs = maxDocs;
     }
 
@@ -223,7 +240,10 @@ public class SearchEngine {
 
         // We use MultiReader even for single project. This should not matter given that MultiReader is just
         // a cheap wrapper around set of IndexReader objects.
-        searcher = env.getIndexSearcherFactory().newSearcher(env.getMultiReader(projectNames, searcherList));
+        searcher = env.getMultiSearcher(projectNames, searcherList);
+        if (searcher == null) {
+            throw new IOException("cannot open index for projects " + projectNames);
+        }
         searchIndex(searcher);
     }
 
@@ -232,26 +252,32 @@ public class SearchEngine {
         // The collector managers eagerly allocate a priority queue of the requested size, hence
         // the index-size cap, mirroring IndexSearcher#search(Query, int).
         final int numHits = Math.clamp(searcher.getIndexReader().maxDoc(), 1, maxDocs);
-        TopDocs topDocs;
+        final long timeout = TimeUnit.SECONDS.toMillis(env.getSearchTimeout());
+        TimeLimitingCollectorManager<?, ? extends TopDocs> manager;
         Sort luceneSort = getSort();
         if (luceneSort == null) {
-            topDocs = searcher.search(query, new TopScoreDocCollectorManager(numHits, Integer.MAX_VALUE));
+            manager = new TimeLimitingCollectorManager<>(
+                    new TopScoreDocCollectorManager(numHits, Integer.MAX_VALUE), timeout);
         } else {
-            topDocs = searcher.search(query, new TopFieldCollectorManager(luceneSort, numHits, Integer.MAX_VALUE));
+            manager = new TimeLimitingCollectorManager<>(
+                    new TopFieldCollectorManager(luceneSort, numHits, Integer.MAX_VALUE), timeout);
+        }
+        collectorManager = manager;
+        if (cancelled) {
+            manager.cancel();
         }
+        TopDocs topDocs = manager.search(searcher, query);
         hits = topDocs.scoreDocs;
         totalHits = (int) topDocs.totalHits.value;
+        partialResults = manager.isTimedOut();
+        if (partialResults) {
+            LOGGER.log(Level.WARNING, "search for ''{0}'' was stopped after {1} hits, returning partial results",
+                    new Object[]{query, totalHits});
+        }
 
         stat.report(LOGGER, Level.FINEST, "search via SearchEngine done",
                 "search.latency", new String[]{"category", "engine",
                         "outcome", totalHits > 0 ? "success" : "empty"});
-
-        StoredFields storedFields = searcher.storedFields();
-        for (ScoreDoc hit : hits) {
-            int docId = hit.doc;
-            Document d = storedFields.document(docId);
-            docs.add(d);
-        }
     }
 
     private @Nullable Sort getSort() {
@@ -340,7 +366,9 @@ public class SearchEngine {
     public int search(List<Project> projects) {
         source = env.getSourceRootPath();
         data = env.getDataRootPath();
-        docs.clear();
+        hits = null;
+        totalHits = 0;
+        partialResults = false;
 
         QueryBuilder newBuilder = createQueryBuilder();
         try {
@@ -356,7 +384,7 @@ public class SearchEngine {
             LOGGER.log(Level.WARNING, SEARCH_EXCEPTION_MSG, e);
         }
 
-        if (!docs.isEmpty()) {
+        if (hits != null && hits.length > 0) {
             sourceContext = null;
             summarizer = null;
             try {
@@ -430,88 +458,162 @@ public class SearchEngine {
             return;
         }
 
-        extractResults(startDocIndex, Math.min(endDocIndex, docs.size()), ret);
+        try {
+            extractResults(startDocIndex, Math.min(endDocIndex, hits.length), ret);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, SEARCH_EXCEPTION_MSG, e);
+        }
     }
 
-    private void extractResults(int startDocIndex, int endDocIndex, @NotNull List<Hit> ret) {
+    private void extractResults(int startDocIndex, int endDocIndex, @NotNull List<Hit> ret) throws IOException {
         //TODO generation of ret(results) could be cached and consumers of engine would just print them in whatever
-        // form they need, this way we could get rid of docs
+        // form they need
         // the only problem is that count of docs is usually smaller than number of results
+
+        // The documents are read only for the requested page of hits and only with the fields that are needed.
+        Set<String> fields = sourceContext != null ? CONTEXT_RESULT_FIELDS : RESULT_FIELDS;
+        if (env.isParallelResultsRendering() && endDocIndex - startDocIndex > 1) {
+            extractResultsParallel(startDocIndex, endDocIndex, fields, ret);
+            return;
+        }
+
+        StoredFields storedFields = searcher.storedFields();
         for (int ii = startDocIndex; ii < endDocIndex; ++ii) {
-            boolean alt = (ii % 2 == 0);
-            boolean hasContext = false;
-            try {
-                Document doc = docs.get(ii);
-                String filename = doc.get(QueryBuilder.PATH);
-
-                AbstractAnalyzer.Genre genre = AbstractAnalyzer.Genre.get(doc.get(QueryBuilder.T));
-                Definitions tags = null;
-                IndexableField tagsField = doc.getField(QueryBuilder.TAGS);
-                if (tagsField != null) {
-                    tags = Definitions.deserialize(tagsField.binaryValue().bytes);
-                }
-                Scopes scopes = null;
-                IndexableField scopesField = doc.getField(QueryBuilder.SCOPES);
-                if (scopesField != null) {
-                    scopes = Scopes.deserialize(scopesField.binaryValue().bytes);
+            extractHits(storedFields, fields, ii, sourceContext, historyContext, ret);
+        }
+    }
+
+    /**
+     * Produce the hits of the documents concurrently. Each task uses its own {@link StoredFields},
+     * {@link Context} and {@link HistoryContext} instances as these are not thread-safe. The hits are added
+     * to the output in the order of the documents.
+     */
+    private void extractResultsParallel(int startDocIndex, int endDocIndex, Set<String> fields,
+            @NotNull List<Hit> ret) throws IOException {
+
+        try (OrderedRenderingTasks<List<Hit>> tasks = new OrderedRenderingTasks<>(env.getResultsRenderingExecutor(),
+                TimeUnit.SECONDS.toMillis(env.getSearchTimeout()))) {
+            for (int ii = startDocIndex; ii < endDocIndex; ++ii) {
+                final int docIndex = ii;
+                // Keep the alternation of the source context the same as with the sequential processing.
+                final boolean toggle = (ii - startDocIndex) % 2 == 1;
+                tasks.submit(() -> {
+                    Context context = null;
+                    if (sourceContext != null) {
+                        context = new Context(query, queryBuilder);
+                        if (toggle) {
+                            context.toggleAlt();
+                        }
+                    }
+                    List<Hit> hitList = new ArrayList<>();
+                    extractHits(searcher.storedFields(), fields, docIndex, context,
+                            historyContext != null ? new HistoryContext(query) : null, hitList);
+                    return hitList;
+                });
+            }
+
+            for (int ii = startDocIndex; ii < endDocIndex; ++ii) {
+                List<Hit> hitList = tasks.get(ii - startDocIndex);
+                if (hitList != null) {
+                    ret.addAll(hitList);
+                } else {
+                    LOGGER.log(Level.WARNING, "results for document {0} were not produced in time", hits[ii].doc);
                 }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while extracting results");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
 
-                if (sourceContext != null) {
-                    sourceContext.toggleAlt();
-                    try {
-                        if (AbstractAnalyzer.Genre.PLAIN == genre && (source != null)) {
-                            // Source root is read with UTF-8 as a default.
-                            hasContext = sourceContext.getContext(
-                                new InputStreamReader(new FileInputStream(
-                                source + filename), StandardCharsets.UTF_8),
-                                null, null, null, filename, tags, false,
-                                getDefinition() != null, ret, scopes, maxHitsPerFile);
-                        } else if (AbstractAnalyzer.Genre.XREFABLE == genre && data != null && summarizer != null) {
-                            int l;
-                            /*
-                              For backward compatibility, read the OpenGrok-produced document using the system
-                              default charset.
-                             */
-                            final char[] content = new char[1024 * 8];
-                            try (Reader r = env.isCompressXref()
-                                    ? new HTMLStripCharFilter(new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(
-                                            TandemPath.join(data + Prefix.XREF_P + filename, ".gz"))))))
-                                    : new HTMLStripCharFilter(new BufferedReader(new FileReader(data + Prefix.XREF_P + filename)))) {
-                                l = r.read(content);
-                            }
-                            //TODO FIX below fragmenter according to either summarizer or context
-                            // (to get line numbers, might be hard, since xref writers will need to be fixed too,
-                            // they generate just one line of html code now :( )
-                            Summary sum = summarizer.getSummary(new String(content, 0, l));
-                            Fragment[] fragments = sum.getFragments();
-                            for (Fragment fragment : fragments) {
-                                String match = fragment.toString();
-                                if (!match.isEmpty()) {
-                                    if (!fragment.isEllipsis()) {
-                                        Hit hit = new Hit(filename, fragment.toString(), "", true, alt);
-                                        ret.add(hit);
-                                    }
-                                    hasContext = true;
+    private Reader getXrefReader(String filename) throws IOException {
+        /*
+          For backward compatibility, read the OpenGrok-produced document using the system
+          default charset.
+         */
+        if (env.isPackedXref()) {
+            PackedXrefStore.Xref xref = PackedXrefStore.open(new File(data), filename);
+            if (xref == null) {
+                throw new FileNotFoundException("no packed xref for " + filename);
+            }
+            return new BufferedReader(new InputStreamReader(xref.newInputStream()));
+        }
+        return env.isCompressXref()
+                ? new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(
+                        TandemPath.join(data + Prefix.XREF_P + filename, ".gz")))))
+                : new BufferedReader(new FileReader(data + Prefix.XREF_P + filename));
+    }
+
+    private void extractHits(StoredFields storedFields, Set<String> fields, int ii, @Nullable Context sourceContext,
+            @Nullable HistoryContext historyContext, @NotNull List<Hit> ret) {
+        boolean alt = (ii % 2 == 0);
+        boolean hasContext = false;
+        try {
+            Document doc = storedFields.document(hits[ii].doc, fields);
+            String filename = doc.get(QueryBuilder.PATH);
+
+            AbstractAnalyzer.Genre genre = AbstractAnalyzer.Genre.get(doc.get(QueryBuilder.T));
+            Definitions tags = null;
+            IndexableField tagsField = doc.getField(QueryBuilder.TAGS);
+            if (tagsField != null) {
+                tags = Definitions.deserialize(tagsField.binaryValue().bytes);
+            }
+            Scopes scopes = null;
+            IndexableField scopesField = doc.getField(QueryBuilder.SCOPES);
+            if (scopesField != null) {
+                scopes = Scopes.deserialize(scopesField.binaryValue().bytes);
+            }
+
+            if (sourceContext != null) {
+                sourceContext.toggleAlt();
+                try {
+                    if (AbstractAnalyzer.Genre.PLAIN == genre && (source != null)) {
+                        // Source root is read with UTF-8 as a default.
+                        hasContext = sourceContext.getContext(
+                            new InputStreamReader(new FileInputStream(
+                            source + filename), StandardCharsets.UTF_8),
+                            null, null, null, filename, tags, false,
+                            getDefinition() != null, ret, scopes, maxHitsPerFile);
+                    } else if (AbstractAnalyzer.Genre.XREFABLE == genre && data != null && summarizer != null) {
+                        int l;
+                        final char[] content = new char[1024 * 8];
+                        try (Reader r = new HTMLStripCharFilter(getXrefReader(filename))) {
+                            l = r.read(content);
+                        }
+                        //TODO FIX below fragmenter according to either summarizer or context
+                        // (to get line numbers, might be hard, since xref writers will need to be fixed too,
+                        // they generate just one line of html code now :( )
+                        Summary sum = summarizer.getSummary(new String(content, 0, l));
+                        Fragment[] fragments = sum.getFragments();
+                        for (Fragment fragment : fragments) {
+                            String match = fragment.toString();
+                            if (!match.isEmpty()) {
+                                if (!fragment.isEllipsis()) {
+                                    Hit hit = new Hit(filename, fragment.toString(), "", true, alt);
+                                    ret.add(hit);
                                 }
+                                hasContext = true;
                             }
-                        } else {
-                            LOGGER.log(Level.WARNING, "Unknown genre: {0} for {1}", new Object[]{genre, filename});
-                            hasContext |= sourceContext.getContext(null, null, null, null, filename, tags, false, false, ret, scopes);
                         }
-                    } catch (FileNotFoundException exp) {
-                        LOGGER.log(Level.WARNING, "Couldn''t read summary from {0} ({1})", new Object[]{filename, exp.getMessage()});
+                    } else {
+                        LOGGER.log(Level.WARNING, "Unknown genre: {0} for {1}", new Object[]{genre, filename});
                         hasContext |= sourceContext.getContext(null, null, null, null, filename, tags, false, false, ret, scopes);
                     }
+                } catch (FileNotFoundException exp) {
+                    LOGGER.log(Level.WARNING, "Couldn''t read summary from {0} ({1})", new Object[]{filename, exp.getMessage()});
+                    hasContext |= sourceContext.getContext(null, null, null, null, filename, tags, false, false, ret, scopes);
                 }
-                if (historyContext != null) {
-                    hasContext |= historyContext.getContext(source + filename, filename, ret);
-                }
-                if (!hasContext) {
-                    ret.add(new Hit(filename, "...", "", false, alt));
-                }
-            } catch (IOException | ClassNotFoundException | HistoryException e) {
-                LOGGER.log(Level.WARNING, SEARCH_EXCEPTION_MSG, e);
             }
+            if (historyContext != null) {
+                hasContext |= historyContext.getContext(source + filename, filename, ret);
+            }
+            if (!hasContext) {
+                ret.add(new Hit(filename, "...", "", false, alt));
+            }
+        } catch (IOException | ClassNotFoundException | HistoryException e) {
+            LOGGER.log(Level.WARNING, SEARCH_EXCEPTION_MSG, e);
         }
     }
 
@@ -620,6 +722,27 @@ public class SearchEngine {
         return totalHits;
     }
 
+    /**
+     * @return whether the search from {@code search(...)} ran out of the time budget
+     * (see {@link RuntimeEnvironment#getSearchTimeout()}) or was cancelled, so the hits
+     * and {@link #getTotalHits()} cover only part of the index
+     */
+    public boolean isPartialResults() {
+        return partialResults;
+    }
+
+    /**
+     * Stop the search performed by {@code search(...)} as soon as possible, making it return partial results.
+     * Can be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+        TimeLimitingCollectorManager<?, ? extends TopDocs> manager = collectorManager;
+        if (manager != null) {
+            manager.cancel();
+        }
+    }
+
     /**
      * Getter for property history.
      *
@@ -0,0 +1,209 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.lucene.index.ExitableDirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.QueryTimeout;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FilterCollector;
+import org.apache.lucene.search.FilterLeafCollector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Query;
+
+/**
+ * Wrapper of {@link CollectorManager} that stops the search once the time budget is exhausted
+ * or the search is cancelled, so that the delegate produces partial results from the documents collected so far.
+ * <p>
+ * The time is checked before each index segment and periodically while collecting the documents of a segment.
+ * When the search is performed via {@link #search(IndexSearcher, Query)}, the time budget applies also
+ * to the matching of the documents and to the term enumeration (e.g. of wildcard queries), including
+ * the one done by the query rewrite. The state is per search, hence this works with {@link IndexSearcher} instances
+ * shared by concurrent searches.
+ * </p>
+ * @param <C> delegate collector type
+ * @param <T> result type
+ */
+public class TimeLimitingCollectorManager<C extends Collector, T>
+        implements CollectorManager<TimeLimitingCollectorManager.TimeLimitingCollector<C>, T>, QueryTimeout {
+
+    /**
+     * Check the time once per this many collected documents.
+     */
+    private static final int CHECK_INTERVAL_MASK = 0xFF;
+
+    private final CollectorManager<C, T> delegate;
+    private final long deadline;
+    private final boolean unlimited;
+    private volatile boolean cancelled;
+    private volatile boolean timedOut;
+    private final List<TimeLimitingCollector<C>> collectors = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Collector that terminates the collection if the search ran out of time or was cancelled.
+     * @param <C> delegate collector type
+     */
+    public static final class TimeLimitingCollector<C extends Collector> extends FilterCollector {
+        private final TimeLimitingCollectorManager<C, ?> manager;
+        private final C delegate;
+
+        private TimeLimitingCollector(C delegate, TimeLimitingCollectorManager<C, ?> manager) {
+            super(delegate);
+            this.delegate = delegate;
+            this.manager = manager;
+        }
+
+        @Override
+        public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+            manager.checkTime();
+            return new FilterLeafCollector(super.getLeafCollector(context)) {
+                private int count;
+
+                @Override
+                public void collect(int doc) throws IOException {
+                    if ((++count & CHECK_INTERVAL_MASK) == 0) {
+                        manager.checkTime();
+                    }
+                    super.collect(doc);
+                }
+
+                @Override
+                public DocIdSetIterator competitiveIterator() throws IOException {
+                    return in.competitiveIterator();
+                }
+            };
+        }
+    }
+
+    /**
+     * @param delegate collector manager producing the results
+     * @param timeoutMillis time budget in milliseconds, zero or negative value means no limit
+     */
+    public TimeLimitingCollectorManager(CollectorManager<C, T> delegate, long timeoutMillis) {
+        this.delegate = delegate;
+        this.unlimited = timeoutMillis <= 0;
+        this.deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+    }
+
+    @Override
+    public TimeLimitingCollector<C> newCollector() throws IOException {
+        TimeLimitingCollector<C> collector = new TimeLimitingCollector<>(delegate.newCollector(), this);
+        collectors.add(collector);
+        return collector;
+    }
+
+    @Override
+    public T reduce(Collection<TimeLimitingCollector<C>> collectors) throws IOException {
+        List<C> delegates = new ArrayList<>(collectors.size());
+        for (TimeLimitingCollector<C> collector : collectors) {
+            delegates.add(collector.delegate);
+        }
+        return delegate.reduce(delegates);
+    }
+
+    /**
+     * Search the query with this manager. The searcher is wrapped with a searcher over the same index readers
+     * with {@link IndexSearcher#setTimeout(QueryTimeout)} set and with the terms, points and doc values
+     * of the segments checking the time, see {@link ExitableDirectoryReader}. The wrapper is not shared
+     * with other searches, and shares the index data, the similarity and the query cache with the searcher.
+     * The wrapper is used also without the time limit so that the search can be cancelled via {@link #cancel()}.
+     * @param searcher searcher to use
+     * @param query query to search
+     * @return results of the search, possibly partial, see {@link #isTimedOut()}
+     * @throws IOException on error
+     */
+    @SuppressWarnings("deprecation") // IndexSearcher#getExecutor() is the only way to share the executor
+    public T search(IndexSearcher searcher, Query query) throws IOException {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        LeafReader[] exitableReaders = new LeafReader[leaves.size()];
+        for (int i = 0; i < exitableReaders.length; i++) {
+            exitableReaders[i] = new ExitableDirectoryReader.ExitableFilterAtomicReader(leaves.get(i).reader(), this);
+        }
+        // The document IDs are the same since the segments are in the same order.
+        IndexReader exitableReader = new MultiReader(exitableReaders, false);
+        IndexSearcher exitableSearcher = new IndexSearcher(exitableReader, searcher.getExecutor());
+        exitableSearcher.setSimilarity(searcher.getSimilarity());
+        exitableSearcher.setQueryCache(searcher.getQueryCache());
+        exitableSearcher.setQueryCachingPolicy(searcher.getQueryCachingPolicy());
+        exitableSearcher.setTimeout(this);
+
+        T result;
+        try {
+            result = exitableSearcher.search(query, this);
+        } catch (ExitableDirectoryReader.ExitingReaderException e) {
+            // The collectors contain the documents collected before the reader exited.
+            timedOut = true;
+            List<TimeLimitingCollector<C>> collected;
+            synchronized (collectors) {
+                collected = new ArrayList<>(collectors);
+            }
+            return reduce(collected);
+        }
+        if (exitableSearcher.timedOut()) {
+            timedOut = true;
+        }
+        return result;
+    }
+
+    /**
+     * Stop the search as soon as possible, making it return partial results. Can be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return whether the search was stopped before all documents were collected, i.e. the results are partial
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * @return whether the search ran out of time or was cancelled
+     */
+    @Override
+    public boolean shouldExit() {
+        return cancelled || (!unlimited && System.nanoTime() - deadline >= 0);
+    }
+
+    private void checkTime() {
+        if (shouldExit()) {
+            timedOut = true;
+            throw new CollectionTerminatedException();
+        }
+    }
+}
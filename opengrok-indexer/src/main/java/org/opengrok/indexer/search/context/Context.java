@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2005, 2022, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2011, Jens Elkner.
  * Portions Copyright (c) 2018, 2020, Chris Fraire <cfraire@me.com>.
  */
@@ -107,6 +107,21 @@ public class Context {
         alt = !alt;
     }
 
+    /**
+     * @return the alternating value
+     */
+    public boolean isAlt() {
+        return alt;
+    }
+
+    /**
+     * Sets the alternating value, e.g. to continue the alternation of another instance.
+     * @param alt the new value
+     */
+    public void setAlt(boolean alt) {
+        this.alt = alt;
+    }
+
     public boolean isEmpty() {
         return m == null;
     }
@@ -19,6 +19,7 @@
 
 /*
  * Copyright (c) 2018, 2020, Chris Fraire <cfraire@me.com>.
+ * Portions Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.search.context;
 
@@ -179,6 +180,20 @@ public class ContextFormatter extends PassageFormatter {
         this.scopes = value;
     }
 
+    /**
+     * Arranges that {@code originalText} is not split again by
+     * {@link #format(Passage[], String)} as its line offsets are already known.
+     * @param originalText a required instance
+     * @param lineOffsets offsets of the starts of the lines followed by the
+     * length of {@code originalText}
+     */
+    void setLineOffsets(String originalText, int[] lineOffsets) {
+        SourceSplitter newSplitter = new SourceSplitter();
+        newSplitter.reset(originalText, lineOffsets);
+        splitter = newSplitter;
+        this.originalText = originalText;
+    }
+
     /**
      * Splits {@code originalText} using {@link SourceSplitter}, converts
      * passages using {@link PassageConverter}, and formats for presentation in
@@ -16,7 +16,7 @@
  *
  */
 /*
- * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2023, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2018, Chris Fraire <cfraire@me.com>.
  */
 
@@ -44,8 +44,10 @@ import org.apache.lucene.search.uhighlight.PassageScorer;
 import org.apache.lucene.search.uhighlight.UHComponents;
 import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
 import org.apache.lucene.util.BytesRef;
+import org.jetbrains.annotations.Nullable;
 import org.opengrok.indexer.analysis.AnalyzerGuru;
 import org.opengrok.indexer.analysis.ExpandTabsReader;
+import org.opengrok.indexer.analysis.LineOffsetsReader;
 import org.opengrok.indexer.analysis.StreamSource;
 import org.opengrok.indexer.configuration.RuntimeEnvironment;
 import org.opengrok.indexer.logger.LoggerFactory;
@@ -223,7 +225,11 @@ public class OGKUnifiedHighlighter extends UnifiedHighlighter {
 
             String path = doc.get(QueryBuilder.PATH);
             String storedU = doc.get(QueryBuilder.U);
-            String content = getRepoFileContent(path, storedU);
+            LineOffsetsReader.LineOffsets lineOffsets = getLineOffsets(doc);
+            String content = getRepoFileContent(path, storedU, lineOffsets);
+            if (content != null && lineOffsets != null) {
+                setFormatterLineOffsets(fields, content, lineOffsets);
+            }
 
             CharSequence[] seqs = new CharSequence[fields.length];
             Arrays.fill(seqs, content);
@@ -281,7 +287,42 @@ public class OGKUnifiedHighlighter extends UnifiedHighlighter {
         return res;
     }
 
-    private String getRepoFileContent(String repoRelPath, String storedU)
+    /**
+     * @return the line offsets recorded when the document was indexed or {@code null}
+     */
+    @Nullable
+    private static LineOffsetsReader.LineOffsets getLineOffsets(Document doc) {
+        BytesRef bytes = doc.getBinaryValue(QueryBuilder.LINEOFFSETS);
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return LineOffsetsReader.deserialize(BytesRef.deepCopyOf(bytes).bytes);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "cannot read line offsets of " + doc.get(QueryBuilder.PATH), e);
+            return null;
+        }
+    }
+
+    /**
+     * Hands the line offsets over to the formatters so that they do not need to split the content into lines.
+     * The offsets are ignored if they were recorded for a different content, e.g. when the file was edited
+     * without changing its last modified time.
+     */
+    private void setFormatterLineOffsets(String[] fields, String content, LineOffsetsReader.LineOffsets lineOffsets) {
+        if (!lineOffsets.matches(content)) {
+            LOGGER.log(Level.FINE, "Line offsets do not match the content");
+            return;
+        }
+        for (String field : fields) {
+            if (getFormatter(field) instanceof ContextFormatter contextFormatter) {
+                contextFormatter.setLineOffsets(content, lineOffsets.offsets());
+            }
+        }
+    }
+
+    private String getRepoFileContent(String repoRelPath, String storedU,
+            @Nullable LineOffsetsReader.LineOffsets lineOffsets)
             throws IOException {
 
         if (storedU == null) {
@@ -310,13 +351,21 @@ public class OGKUnifiedHighlighter extends UnifiedHighlighter {
             return null;
         }
 
-        StringBuilder bld = new StringBuilder();
+        /*
+         * The length of the content is known from the line offsets recorded when the
+         * document was indexed. Otherwise, the file size is a good estimate for mostly
+         * ASCII content.
+         */
+        int capacity = lineOffsets != null ? lineOffsets.offsets()[lineOffsets.offsets().length - 1] :
+                (int) Math.min(repoAbsFile.length(), Integer.MAX_VALUE - 8);
+        StringBuilder bld = new StringBuilder(capacity + 1);
         StreamSource src = StreamSource.fromFile(repoAbsFile);
         try (InputStream in = src.getStream();
             Reader rdr = getReader(in)) {
-            int c;
-            while ((c = rdr.read()) != -1) {
-                bld.append((char) c);
+            char[] buf = new char[8192];
+            int n;
+            while ((n = rdr.read(buf)) != -1) {
+                bld.append(buf, 0, n);
             }
         }
 
@@ -0,0 +1,327 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Represents an output stream compressing the data to a single member gzip stream, which allows to insert
+ * the compressed data of files written by {@link SpliceableGzipOutputStream} as they are, i.e. without
+ * decompressing and compressing them again.
+ * <p>
+ * The data written so far is sync flushed so that the deflate data ends on a byte boundary, then the deflate
+ * data of the file (without its final empty block) is copied and the compression continues with a new
+ * dictionary. The CRC-32 of the whole stream is computed by combining the CRC-32 of the parts.
+ * </p>
+ * <p>
+ * Nothing is written to the underlying stream until the first byte of data is written.
+ * </p>
+ */
+public class GzipSplicingOutputStream extends OutputStream {
+
+    /**
+     * gzip header: magic, deflate method, no flags, zero modification time, no extra flags, unknown OS.
+     */
+    private static final byte[] HEADER = {
+            (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final OutputStream out;
+    private final Runnable onStart;
+    private final Deflater def;
+    private final byte[] buf = new byte[8192];
+    private final CRC32 crc = new CRC32();
+    /**
+     * CRC-32 and length of the data preceding the data compressed since the last splice.
+     */
+    private long crcValue;
+    private long totalLength;
+    /**
+     * Length of the data compressed since the last splice.
+     */
+    private long length;
+    private boolean started;
+    private boolean finished;
+
+    /**
+     * @param out underlying output stream
+     * @param level compression level
+     * @param onStart action to run just before the gzip header is written, e.g. to set HTTP headers
+     */
+    public GzipSplicingOutputStream(OutputStream out, int level, Runnable onStart) {
+        this.out = out;
+        this.onStart = onStart;
+        this.def = new Deflater(level, true);
+    }
+
+    /**
+     * @return whether any data was written to the underlying stream
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            throw new IOException("stream is finished");
+        }
+        if (len == 0) {
+            return;
+        }
+        start();
+        def.setInput(b, off, len);
+        while (!def.needsInput()) {
+            drain(Deflater.NO_FLUSH);
+        }
+        crc.update(b, off, len);
+        length += len;
+    }
+
+    /**
+     * Sync flush the compressed data and flush the underlying stream.
+     * @throws IOException on error
+     */
+    @Override
+    public void flush() throws IOException {
+        if (started && !finished) {
+            drain(Deflater.SYNC_FLUSH);
+        }
+        out.flush();
+    }
+
+    /**
+     * Insert the compressed data of a file written by {@link SpliceableGzipOutputStream}.
+     * @param file gzip file
+     * @return {@code false} if the file was not written by {@link SpliceableGzipOutputStream}, in which case
+     * nothing was written
+     * @throws IOException on I/O error
+     */
+    public boolean splice(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return splice(channel, 0, channel.size());
+        }
+    }
+
+    /**
+     * Insert the compressed data written by {@link SpliceableGzipOutputStream} stored in a region of a file.
+     * @param channel channel of the file, its position is not changed
+     * @param start position of the gzip data in the file
+     * @param size length of the gzip data
+     * @return {@code false} if the data was not written by {@link SpliceableGzipOutputStream}, in which case
+     * nothing was written
+     * @throws IOException on I/O error
+     */
+    public boolean splice(FileChannel channel, long start, long size) throws IOException {
+        if (finished) {
+            throw new IOException("stream is finished");
+        }
+
+        byte[] header = SpliceableGzipOutputStream.HEADER;
+        byte[] end = SpliceableGzipOutputStream.END;
+        int finalBlockLength = SpliceableGzipOutputStream.FINAL_BLOCK_LENGTH;
+        int trailerLength = SpliceableGzipOutputStream.TRAILER_LENGTH;
+        if (size < header.length + end.length + trailerLength) {
+            return false;
+        }
+        ByteBuffer head = ByteBuffer.allocate(header.length);
+        ByteBuffer tail = ByteBuffer.allocate(end.length + trailerLength).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, head, start);
+        readFully(channel, tail, start + size - tail.capacity());
+        if (!Arrays.equals(head.array(), header) ||
+                !Arrays.equals(tail.array(), 0, end.length, end, 0, end.length)) {
+            return false;
+        }
+        long fileCrc = Integer.toUnsignedLong(tail.getInt(end.length));
+        long fileLength = Integer.toUnsignedLong(tail.getInt(end.length + 4));
+
+        start();
+        drain(Deflater.SYNC_FLUSH);
+        // The deflate data including the sync flush marker, i.e. without the final empty block.
+        long position = start + header.length;
+        long count = size - header.length - finalBlockLength - trailerLength;
+        WritableByteChannel target = Channels.newChannel(out);
+        while (count > 0) {
+            long n = channel.transferTo(position, count, target);
+            if (n <= 0) {
+                throw new IOException("cannot transfer the compressed data");
+            }
+            position += n;
+            count -= n;
+        }
+
+        crcValue = crc32Combine(crc32Combine(crcValue, crc.getValue(), length), fileCrc, fileLength);
+        totalLength += length + fileLength;
+        // The compression continues independently of the data written so far.
+        crc.reset();
+        length = 0;
+        def.reset();
+        return true;
+    }
+
+    /**
+     * Write the remaining compressed data and the gzip trailer. Does nothing if no data was written.
+     * The underlying stream is not closed.
+     * @throws IOException on error
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            if (started) {
+                def.finish();
+                while (!def.finished()) {
+                    int len = def.deflate(buf, 0, buf.length);
+                    out.write(buf, 0, len);
+                }
+                totalLength += length;
+                writeTrailer(out, crc32Combine(crcValue, crc.getValue(), length), totalLength);
+            }
+        } finally {
+            def.end();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void start() throws IOException {
+        if (!started) {
+            started = true;
+            onStart.run();
+            out.write(HEADER);
+        }
+    }
+
+    private void drain(int flush) throws IOException {
+        int len;
+        while ((len = def.deflate(buf, 0, buf.length, flush)) > 0) {
+            out.write(buf, 0, len);
+            if (len < buf.length) {
+                break;
+            }
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of file");
+            }
+        }
+    }
+
+    static void writeTrailer(OutputStream out, long crc, long length) throws IOException {
+        ByteBuffer trailer = ByteBuffer.allocate(SpliceableGzipOutputStream.TRAILER_LENGTH).
+                order(ByteOrder.LITTLE_ENDIAN);
+        trailer.putInt((int) crc);
+        trailer.putInt((int) length); // modulo 2^32
+        out.write(trailer.array());
+    }
+
+    /**
+     * Compute CRC-32 of concatenated data from the CRC-32 values of the parts,
+     * ported from {@code crc32_combine()} of zlib.
+     * @param crc1 CRC-32 of the first part
+     * @param crc2 CRC-32 of the second part
+     * @param len2 length of the second part
+     * @return CRC-32 of the concatenation
+     */
+    static long crc32Combine(long crc1, long crc2, long len2) {
+        if (len2 <= 0) {
+            return crc1;
+        }
+
+        long[] even = new long[32]; // even-power-of-two zeros operator
+        long[] odd = new long[32];  // odd-power-of-two zeros operator
+
+        // Operator for one zero bit.
+        odd[0] = 0xedb88320L; // CRC-32 polynomial
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        gf2MatrixSquare(even, odd); // two zero bits
+        gf2MatrixSquare(odd, even); // four zero bits
+
+        // Apply len2 zeros to crc1 (first square puts the operator for one zero byte in even).
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((len2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(even, crc1);
+            }
+            len2 >>= 1;
+            if (len2 == 0) {
+                break;
+            }
+            gf2MatrixSquare(odd, even);
+            if ((len2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(odd, crc1);
+            }
+            len2 >>= 1;
+        } while (len2 != 0);
+
+        return crc1 ^ crc2;
+    }
+
+    private static long gf2MatrixTimes(long[] mat, long vec) {
+        long sum = 0;
+        for (int i = 0; vec != 0; i++, vec >>>= 1) {
+            if ((vec & 1) != 0) {
+                sum ^= mat[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] mat) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(mat, mat[n]);
+        }
+    }
+}
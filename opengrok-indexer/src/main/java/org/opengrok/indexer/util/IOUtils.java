@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2011, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011, 2026, Oracle and/or its affiliates. All rights reserved.
  * Copyright (c) 2011, Trond Norbye.
  * Portions Copyright (c) 2017, 2021, Chris Fraire <cfraire@me.com>.
  */
@@ -42,6 +42,8 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
@@ -334,6 +336,36 @@ public final class IOUtils {
         return "";
     }
 
+    /**
+     * Compute digest of the file contents.
+     * @param file file object
+     * @return SHA-256 digest of the file contents
+     * @throws IOException on read error
+     */
+    @SuppressWarnings("java:S112")
+    public static byte[] getFileDigest(File file) throws IOException {
+        MessageDigest hasher;
+        try {
+            hasher = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            /*
+             * This will not happen since "Every implementation of the Java
+             * platform is required to support the following standard
+             * MessageDigest algorithms: MD5, SHA-1, SHA-256."
+             */
+            throw new RuntimeException(e);
+        }
+
+        byte[] buf = new byte[8192];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                hasher.update(buf, 0, len);
+            }
+        }
+        return hasher.digest();
+    }
+
     /**
      * Create temporary directory with permissions restricted to the owner.
      * @param isDirectory whether this is a file or directory
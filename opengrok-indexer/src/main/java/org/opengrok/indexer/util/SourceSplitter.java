@@ -19,6 +19,7 @@
 
 /*
  * Copyright (c) 2018, 2020, Chris Fraire <cfraire@me.com>.
+ * Portions Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.util;
 
@@ -41,6 +42,10 @@ public class SourceSplitter {
     private int length;
     private String[] lines;
     private int[] lineOffsets;
+    /**
+     * Content to get the lines from if reset with known line offsets.
+     */
+    private String original;
 
     /**
      * Gets the number of characters in the original source document.
@@ -53,10 +58,10 @@ public class SourceSplitter {
      * Gets the number of split lines.
      */
     public int count() {
-        if (lines == null) {
+        if (lineOffsets == null) {
             throw new IllegalStateException(RESET_FAILED_MSG);
         }
-        return lines.length;
+        return lineOffsets.length - 1;
     }
 
     /**
@@ -67,12 +72,15 @@ public class SourceSplitter {
      * @throws IllegalArgumentException if {@code index} is out of bounds
      */
     public String getLine(int index) {
-        if (lines == null) {
+        if (lineOffsets == null) {
             throw new IllegalStateException(RESET_FAILED_MSG);
         }
-        if (index < 0 || index >= lines.length) {
+        if (index < 0 || index >= lineOffsets.length - 1) {
             throw new IllegalArgumentException("index is out of bounds");
         }
+        if (lines == null) {
+            return original.substring(lineOffsets[index], lineOffsets[index + 1]);
+        }
         return lines[index];
     }
 
@@ -128,6 +136,51 @@ public class SourceSplitter {
         }
     }
 
+    /**
+     * Reset the splitter to use the specified content with already known line
+     * offsets, e.g. recorded by {@link org.opengrok.indexer.analysis.LineOffsetsReader}
+     * when the content was indexed. This avoids scanning the content, the lines
+     * are extracted only when requested by {@link #getLine(int)}.
+     * @param original a defined instance
+     * @param lineOffsets starting offsets of the lines followed by the length
+     * of {@code original}
+     * @throws IllegalArgumentException if the offsets do not match the content
+     */
+    public void reset(String original, int[] lineOffsets) {
+        if (original == null) {
+            throw new IllegalArgumentException("`original' is null");
+        }
+        if (!isValid(lineOffsets, original.length())) {
+            throw new IllegalArgumentException("line offsets do not match the content");
+        }
+
+        this.length = original.length();
+        this.lines = null;
+        this.lineOffsets = lineOffsets;
+        this.original = original;
+    }
+
+    /**
+     * Checks only the structure of the line offsets. Whether they were recorded for the same content
+     * has to be verified separately, see
+     * {@link org.opengrok.indexer.analysis.LineOffsetsReader.LineOffsets#matches(String)}.
+     * @param lineOffsets line offsets
+     * @param length length of the content
+     * @return whether the line offsets can describe content of the specified length
+     */
+    public static boolean isValid(int[] lineOffsets, int length) {
+        if (lineOffsets == null || lineOffsets.length < 2 || lineOffsets[0] != 0 ||
+                lineOffsets[lineOffsets.length - 1] != length) {
+            return false;
+        }
+        for (int i = 1; i < lineOffsets.length; ++i) {
+            if (lineOffsets[i] < lineOffsets[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Calls
      * {@link #reset(org.opengrok.indexer.analysis.StreamSource, org.opengrok.indexer.util.ReaderWrapper)}
@@ -158,6 +211,7 @@ public class SourceSplitter {
         length = 0;
         lines = null;
         lineOffsets = null;
+        original = null;
 
         List<String> slist = new ArrayList<>();
         SourceSplitterScanner scanner = new SourceSplitterScanner(reader);
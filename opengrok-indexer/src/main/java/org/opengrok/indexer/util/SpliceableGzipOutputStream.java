@@ -0,0 +1,119 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Represents an output stream writing the data in the gzip format such that the compressed data
+ * can be spliced into another gzip stream without decompression, see {@link GzipSplicingOutputStream}.
+ * <p>
+ * The stream is a regular single member gzip stream readable with {@link java.util.zip.GZIPInputStream}.
+ * The header carries an extra field identifying the format and the deflate data is terminated by
+ * a sync flush (empty stored block) followed by an empty final block, so that the deflate data without
+ * the final block ends on a byte boundary and does not have the final bit set.
+ * </p>
+ */
+public class SpliceableGzipOutputStream extends DeflaterOutputStream {
+
+    /**
+     * gzip header: magic, deflate method, FEXTRA flag, zero modification time, no extra flags, unknown OS,
+     * extra field length 4, subfield 'O' 'G' of zero length.
+     */
+    static final byte[] HEADER = {
+            (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 4, 0, 0, 0, 0, 0, (byte) 0xff,
+            4, 0, 'O', 'G', 0, 0
+    };
+
+    /**
+     * Sync flush marker followed by empty final block with fixed Huffman codes.
+     */
+    static final byte[] END = {0, 0, (byte) 0xff, (byte) 0xff, 3, 0};
+
+    /**
+     * Length of the empty final block at the end of {@link #END}.
+     */
+    static final int FINAL_BLOCK_LENGTH = 2;
+
+    /**
+     * Length of the gzip trailer (CRC-32 and uncompressed size).
+     */
+    static final int TRAILER_LENGTH = 8;
+
+    private final CRC32 crc = new CRC32();
+    private boolean finished;
+
+    /**
+     * @param out underlying output stream
+     * @throws IOException on error
+     */
+    public SpliceableGzipOutputStream(OutputStream out) throws IOException {
+        super(out, new Deflater(Deflater.DEFAULT_COMPRESSION, true), 8192);
+        out.write(HEADER);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        super.write(b, off, len);
+        crc.update(b, off, len);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        drain(Deflater.SYNC_FLUSH);
+        def.finish();
+        while (!def.finished()) {
+            int len = def.deflate(buf, 0, buf.length);
+            out.write(buf, 0, len);
+        }
+        GzipSplicingOutputStream.writeTrailer(out, crc.getValue(), def.getBytesRead());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            def.end();
+        }
+    }
+
+    private void drain(int flush) throws IOException {
+        int len;
+        while ((len = def.deflate(buf, 0, buf.length, flush)) > 0) {
+            out.write(buf, 0, len);
+            if (len < buf.length) {
+                break;
+            }
+        }
+    }
+}
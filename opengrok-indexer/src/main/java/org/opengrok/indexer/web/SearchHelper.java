@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2011, 2024, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2011, Jens Elkner.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  * Portions Copyright (c) 2024, Gino Augustine <gino.augustine@oracle.com>.
@@ -39,6 +39,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.logging.Level;
@@ -51,6 +52,7 @@ import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Matches;
 import org.apache.lucene.search.MatchesUtils;
@@ -67,6 +69,7 @@ import org.apache.lucene.search.TopScoreDocCollectorManager;
 import org.apache.lucene.search.spell.DirectSpellChecker;
 import org.apache.lucene.search.spell.SuggestMode;
 import org.apache.lucene.search.spell.SuggestWord;
+import org.jetbrains.annotations.Nullable;
 import org.opengrok.indexer.analysis.AbstractAnalyzer;
 import org.opengrok.indexer.analysis.AnalyzerGuru;
 import org.opengrok.indexer.analysis.CompatibleAnalyser;
@@ -79,6 +82,7 @@ import org.opengrok.indexer.logger.LoggerFactory;
 import org.opengrok.indexer.search.QueryBuilder;
 import org.opengrok.indexer.search.SettingsHelper;
 import org.opengrok.indexer.search.Summarizer;
+import org.opengrok.indexer.search.TimeLimitingCollectorManager;
 import org.opengrok.indexer.search.context.Context;
 import org.opengrok.indexer.search.context.HistoryContext;
 import org.opengrok.indexer.util.ErrorMessageCollector;
@@ -196,6 +200,10 @@ public class SearchHelper {
      * Total number of hits.
      */
     private long totalHits;
+    /**
+     * Whether the search ran out of time so {@link #hits} are partial.
+     */
+    private boolean partialResults;
     /**
      * the query created by {@link #builder} via
      * {@link #prepareExec(SortedSet)}.
@@ -295,6 +303,14 @@ public class SearchHelper {
         return totalHits;
     }
 
+    /**
+     * @return whether the search ran out of the time budget (see {@link RuntimeEnvironment#getSearchTimeout()})
+     * so the hits and {@link #getTotalHits()} cover only part of the index
+     */
+    public boolean isPartialResults() {
+        return partialResults;
+    }
+
     public SortedSet<String> getProjects() {
         return projects;
     }
@@ -398,9 +414,9 @@ public class SearchHelper {
 
                 // We use MultiReader even for single project. This should not matter
                 // given that MultiReader is just a cheap wrapper around set of IndexReader objects.
-                reader = RuntimeEnvironment.getInstance().getMultiReader(projects, superIndexSearchers);
-                if (reader != null) {
-                    searcher = RuntimeEnvironment.getInstance().getIndexSearcherFactory().newSearcher(reader);
+                searcher = RuntimeEnvironment.getInstance().getMultiSearcher(projects, superIndexSearchers);
+                if (searcher != null) {
+                    reader = searcher.getIndexReader();
                 } else {
                     errorMsg = projects.stream()
                             .collect(new ErrorMessageCollector("Failed to initialize search. Check the index for projects: ",
@@ -410,11 +426,6 @@ public class SearchHelper {
                 }
             }
 
-            // TODO check if below is somehow reusing sessions so we don't
-            // requery again and again, I guess 2min timeout sessions could be
-            // useful, since you click on the next page within 2mins, if not,
-            // then wait ;)
-            // Most probably they are not reused. SearcherLifetimeManager might help here.
             switch (order) {
                 case LASTMODIFIED:
                     sort = new Sort(new SortField(QueryBuilder.DATE, SortField.Type.STRING, true));
@@ -466,6 +477,7 @@ public class SearchHelper {
      * <li>{@link #crossRefSearch} (default: false)</li> </ul> Populates/sets:
      * <ul> <li>{@link #hits} (see {@link TopFieldDocs#scoreDocs})</li>
      * <li>{@link #totalHits} (see {@link TopFieldDocs#totalHits})</li>
+     * <li>{@link #partialResults} if the search ran out of time</li>
      * <li>{@link #contextPath}</li> <li>{@link #errorMsg} if an error
      * occurs</li> <li>{@link #redirect} if certain conditions are met</li>
      * </ul>
@@ -477,24 +489,13 @@ public class SearchHelper {
             return this;
         }
         try {
-            // Use collector managers with Integer.MAX_VALUE totalHitsThreshold so totalHits
-            // is exact (rather than a lower-bound estimate). This keeps the hit count stable
-            // across repeated searches and aligns it with the SearchEngine used by the REST API.
-            int numHits = start + maxItems;
-            TopDocs fdocs;
-            if (Sort.RELEVANCE.equals(sort)) {
-                fdocs = searcher.search(query, new TopScoreDocCollectorManager(numHits, Integer.MAX_VALUE));
-            } else {
-                fdocs = searcher.search(query, new TopFieldCollectorManager(sort, numHits, Integer.MAX_VALUE));
-            }
-            totalHits = fdocs.totalHits.value;
-            hits = fdocs.scoreDocs;
+            searchTopHits(start + maxItems);
 
             /*
              * Determine if possibly a single-result redirect to xref is
              * eligible and applicable. If history query is active, then nope.
              */
-            if (!noRedirect && hits != null && hits.length == 1 && builder.getHist() == null) {
+            if (!noRedirect && !partialResults && hits != null && hits.length == 1 && builder.getHist() == null) {
                 int docID = hits[0].doc;
                 if (crossRefSearch && query instanceof TermQuery && builder.getDefs() != null) {
                     maybeRedirectToDefinition(docID, (TermQuery) query);
@@ -512,6 +513,64 @@ public class SearchHelper {
         return this;
     }
 
+    /**
+     * Populate {@link #hits} and {@link #totalHits} with the top {@code numHits} hits. The hits of recently
+     * executed queries are cached so that moving to the next page only collects the hits following
+     * the last cached one (or nothing at all when going back).
+     * @param numHits number of hits to collect
+     * @throws IOException on error
+     */
+    private void searchTopHits(int numHits) throws IOException {
+        partialResults = false;
+        SearchResultCache resultCache = RuntimeEnvironment.getInstance().getSearchResultCache();
+        SearchResultCache.Key cacheKey = resultCache != null ? SearchResultCache.createKey(query, sort, reader) : null;
+        SearchResultCache.Entry cached = cacheKey != null ? resultCache.get(cacheKey) : null;
+
+        ScoreDoc[] topHits;
+        if (cached == null) {
+            // Use Integer.MAX_VALUE totalHitsThreshold so totalHits is exact (rather than a lower-bound
+            // estimate). This keeps the hit count stable across repeated searches and aligns it
+            // with the SearchEngine used by the REST API.
+            TopDocs fdocs = search(numHits, null, Integer.MAX_VALUE);
+            totalHits = fdocs.totalHits.value;
+            topHits = fdocs.scoreDocs;
+        } else {
+            totalHits = cached.totalHits();
+            topHits = cached.hits();
+            if (topHits.length < numHits && topHits.length < totalHits) {
+                // The total is known already so the collection can skip non-competitive hits.
+                ScoreDoc[] nextHits = search(numHits - topHits.length, topHits[topHits.length - 1], 1).scoreDocs;
+                ScoreDoc[] allHits = Arrays.copyOf(topHits, topHits.length + nextHits.length);
+                System.arraycopy(nextHits, 0, allHits, topHits.length, nextHits.length);
+                topHits = allHits;
+            }
+        }
+
+        // Partial results must not be reused by other searches.
+        if (cacheKey != null && !partialResults && (cached == null || topHits.length > cached.hits().length)) {
+            resultCache.put(cacheKey, topHits, totalHits);
+        }
+        hits = Arrays.copyOf(topHits, Math.min(numHits, topHits.length));
+    }
+
+    private TopDocs search(int numHits, @Nullable ScoreDoc after, int totalHitsThreshold) throws IOException {
+        final long timeout = TimeUnit.SECONDS.toMillis(RuntimeEnvironment.getInstance().getSearchTimeout());
+        TimeLimitingCollectorManager<?, ? extends TopDocs> manager;
+        if (Sort.RELEVANCE.equals(sort)) {
+            manager = new TimeLimitingCollectorManager<>(
+                    new TopScoreDocCollectorManager(numHits, after, totalHitsThreshold), timeout);
+        } else {
+            manager = new TimeLimitingCollectorManager<>(
+                    new TopFieldCollectorManager(sort, numHits, (FieldDoc) after, totalHitsThreshold), timeout);
+        }
+        TopDocs topDocs = manager.search(searcher, query);
+        if (manager.isTimedOut()) {
+            partialResults = true;
+            LOGGER.log(Level.WARNING, "search for ''{0}'' was stopped, returning partial results", query);
+        }
+        return topDocs;
+    }
+
     private void maybeRedirectToDefinition(int docID, TermQuery termQuery)
             throws IOException, ClassNotFoundException {
         // Bug #3900: Check if this is a search for a single term, and that
@@ -0,0 +1,145 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.web;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a cache of the top hits of recently executed queries so that moving to the next page
+ * of the search results does not have to execute the query again.
+ * <p>
+ * The document IDs in the hits are only valid for the index reader the query was executed with.
+ * Hence, the key contains the cache keys of the leaf readers (segments). These change whenever
+ * the index is refreshed, so the entries for older index generations are never returned and simply expire.
+ * The cache does not hold the readers themselves so it does not prevent the old index files from being released.
+ * </p>
+ */
+public final class SearchResultCache {
+
+    /**
+     * @param query the query
+     * @param sort the sort order
+     * @param readerKeys cache keys of the leaf readers, in the order of the leaves
+     */
+    record Key(Query query, Sort sort, List<Object> readerKeys) {
+    }
+
+    /**
+     * @param hits top hits
+     * @param totalHits total number of hits
+     */
+    record Entry(ScoreDoc[] hits, long totalHits) {
+    }
+
+    private record TimedEntry(Entry entry, long expiration) {
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Key, TimedEntry> entries;
+
+    /**
+     * @param maxEntries maximum number of the cached queries
+     * @param ttl how long the entries are kept
+     */
+    public SearchResultCache(int maxEntries, Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, TimedEntry> eldest) {
+                return size() > SearchResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param query the query
+     * @param sort the sort order
+     * @param reader the reader the query is executed with
+     * @return cache key or {@code null} if the results for the reader cannot be cached
+     */
+    @Nullable
+    static Key createKey(Query query, Sort sort, IndexReader reader) {
+        List<LeafReaderContext> leaves = reader.leaves();
+        List<Object> readerKeys = new ArrayList<>(leaves.size());
+        for (LeafReaderContext leaf : leaves) {
+            IndexReader.CacheHelper cacheHelper = leaf.reader().getReaderCacheHelper();
+            if (cacheHelper == null) {
+                return null;
+            }
+            readerKeys.add(cacheHelper.getKey());
+        }
+        return new Key(query, sort, readerKeys);
+    }
+
+    /**
+     * @param key cache key
+     * @return cached entry or {@code null} if there is no entry or it has expired
+     */
+    @Nullable
+    synchronized Entry get(Key key) {
+        TimedEntry timedEntry = entries.get(key);
+        if (timedEntry == null) {
+            return null;
+        }
+        if (System.nanoTime() - timedEntry.expiration() >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return timedEntry.entry();
+    }
+
+    /**
+     * @param key cache key
+     * @param hits top hits
+     * @param totalHits total number of hits
+     */
+    synchronized void put(Key key, ScoreDoc[] hits, long totalHits) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        entries.put(key, new TimedEntry(new Entry(hits, totalHits), System.nanoTime() + ttlNanos));
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+}
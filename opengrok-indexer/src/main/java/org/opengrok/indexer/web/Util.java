@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2005, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2011, Jens Elkner.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  * Portions Copyright (c) 2019, Krystof Tulinger <k.tulinger@seznam.cz>.
@@ -74,6 +74,7 @@ import org.jetbrains.annotations.VisibleForTesting;
 import org.opengrok.indexer.configuration.RuntimeEnvironment;
 import org.opengrok.indexer.history.Annotation;
 import org.opengrok.indexer.history.HistoryGuru;
+import org.opengrok.indexer.index.PackedXrefStore;
 import org.opengrok.indexer.logger.LoggerFactory;
 import org.opengrok.indexer.util.Statistics;
 
@@ -1216,6 +1217,25 @@ public final class Util {
 
     }
 
+    /**
+     * Silently dump a packed xref to the given destination.
+     * All {@link IOException}s get caught and logged, but not re-thrown.
+     * @param out dump destination
+     * @param xref xref to dump, it is closed
+     * @param contextPath an optional override of "/source/" as the context path
+     * @param path path of the source file relative to source root, used for logging only
+     * @return {@code true} on success (everything read and written)
+     */
+    public static boolean dumpXref(Writer out, PackedXrefStore.Xref xref, String contextPath, String path) {
+        try (Reader in = new InputStreamReader(xref.newInputStream())) {
+            dumpXref(out, in, contextPath, new File(path));
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("An error occurred while piping packed xref of '%s'", path), e);
+            return false;
+        }
+    }
+
     /**
      * Dump a xref file to the given destination.
      * @param out dump destination
@@ -1232,11 +1252,16 @@ public final class Util {
         }
 
         Statistics stat = new Statistics();
-        XrefSourceTransformer xform = new XrefSourceTransformer(in);
-        xform.setWriter(out);
-        xform.setContextPath(contextPath);
-        while (xform.yylex()) {
-            // Nothing else to do.
+        if (XrefSourceTransformer.isDefaultContextPath(contextPath)) {
+            // The links need no transformation.
+            in.transferTo(out);
+        } else {
+            XrefSourceTransformer xform = new XrefSourceTransformer(in);
+            xform.setWriter(out);
+            xform.setContextPath(contextPath);
+            while (xform.yylex()) {
+                // Nothing else to do.
+            }
         }
         stat.report(LOGGER, Level.FINEST, String.format("dumped xref '%s'", file), "xref.dump.latency");
     }
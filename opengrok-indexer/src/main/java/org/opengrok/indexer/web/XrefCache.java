@@ -0,0 +1,421 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.web;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.jetbrains.annotations.Nullable;
+import org.opengrok.indexer.analysis.AbstractAnalyzer;
+import org.opengrok.indexer.analysis.AnalyzerFactory;
+import org.opengrok.indexer.analysis.AnalyzerGuru;
+import org.opengrok.indexer.analysis.Definitions;
+import org.opengrok.indexer.configuration.Project;
+import org.opengrok.indexer.index.IndexDatabase;
+import org.opengrok.indexer.logger.LoggerFactory;
+import org.opengrok.indexer.search.QueryBuilder;
+import org.opengrok.indexer.util.IOUtils;
+import org.opengrok.indexer.util.SpliceableGzipOutputStream;
+
+/**
+ * Represents a size bounded cache of the xrefs generated on demand by the web application, for the files
+ * whose xrefs were not generated by the indexer, see
+ * {@link org.opengrok.indexer.configuration.RuntimeEnvironment#getXrefCache()}.
+ * <p>
+ * The xrefs are stored compressed (in the same format as the xrefs produced by the indexer) in files named
+ * by the hash of the document UID, i.e. the path and the modification time of the source file, so a modified
+ * file gets a new entry and the entry of the previous version is eventually evicted. The least recently used
+ * entries are evicted once the total size exceeds the limit. The order of use survives restarts
+ * as the modification time of the files is updated on use.
+ * </p>
+ * <p>
+ * Concurrent requests for the xref of the same file wait for single generation. The files being served
+ * are not deleted by the eviction until their {@link Entry entries} are closed.
+ * </p>
+ */
+public final class XrefCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(XrefCache.class);
+
+    public static final String XREF_CACHE_DIR = "xrefcache";
+
+    private static final String SUFFIX = ".gz";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Produces the xref of a file.
+     */
+    @FunctionalInterface
+    public interface XrefProducer {
+        /**
+         * @param out destination of the xref
+         * @throws IOException on error
+         */
+        void write(Writer out) throws IOException;
+    }
+
+    private final Path directory;
+    /**
+     * Guarded by {@code this}.
+     */
+    private long maxSize;
+    /**
+     * Sizes of the cached files keyed by their names, in the order of use. Guarded by {@code this}.
+     */
+    private final Map<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * Numbers of open {@link Entry entries} of the cached files keyed by their names. Guarded by {@code this}.
+     */
+    private final Map<String, Integer> pins = new HashMap<>();
+    /**
+     * Names of the evicted files to be deleted once their entries are closed. Guarded by {@code this}.
+     */
+    private final Set<String> evicted = new HashSet<>();
+    private final Map<String, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+    private long size;
+    private boolean loaded;
+
+    /**
+     * @param directory cache directory
+     * @param maxSize maximum total size of the cached files in bytes
+     */
+    public XrefCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Cached xref. Its file is kept until the entry is closed even if evicted in the meantime.
+     */
+    public final class Entry implements Closeable {
+
+        private final String name;
+        private final Path file;
+        private boolean closed;
+
+        private Entry(String name, Path file) {
+            this.name = name;
+            this.file = file;
+        }
+
+        /**
+         * @return file with the xref compressed by {@link SpliceableGzipOutputStream}
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(name);
+            }
+        }
+    }
+
+    /**
+     * Get the cached xref, produce it first if it is not cached.
+     * @param uid UID of the document of the file, see {@link Util#path2uid(String, String)}
+     * @param producer producer of the xref
+     * @return the cached xref, to be closed once its file is no longer used
+     * @throws IOException if the xref cannot be produced or stored
+     */
+    public Entry get(String uid, XrefProducer producer) throws IOException {
+        String name = getFileName(uid);
+        Path file = directory.resolve(name.substring(0, 2)).resolve(name);
+        while (true) {
+            if (lookup(name, file)) {
+                return new Entry(name, file);
+            }
+
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            CompletableFuture<Void> running = pending.putIfAbsent(name, future);
+            if (running != null) {
+                // The xref could be evicted before this thread gets to it, so look it up again.
+                await(running);
+                continue;
+            }
+            try {
+                // The xref might have been stored just before this thread started waiting.
+                if (!lookup(name, file)) {
+                    add(name, produce(file, producer));
+                }
+                future.complete(null);
+                return new Entry(name, file);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                pending.remove(name, future);
+            }
+        }
+    }
+
+    /**
+     * Get the xref of an indexed plain text file, generate it first if it is not cached. Only the files
+     * that were not modified since the indexing are served, so that the definitions from the index match.
+     * @param file the source file
+     * @param project project of the file or {@code null}
+     * @return the cached xref, to be closed once its file is no longer used, or {@code null}
+     * if the xref of the file cannot be cached
+     * @throws IOException if the xref cannot be produced or stored
+     * @throws ParseException if the document of the file cannot be looked up
+     * @throws ClassNotFoundException if the definitions of the file cannot be read
+     */
+    @Nullable
+    public Entry get(File file, @Nullable Project project)
+            throws IOException, ParseException, ClassNotFoundException {
+        Document doc = IndexDatabase.getDocument(file);
+        if (doc == null || AbstractAnalyzer.Genre.get(doc.get(QueryBuilder.T)) != AbstractAnalyzer.Genre.PLAIN) {
+            return null;
+        }
+        // Verify that the file was not modified after it was indexed.
+        Long indexedLastModified = IndexDatabase.getDocumentLastModified(file);
+        if (indexedLastModified == null || indexedLastModified != file.lastModified()) {
+            return null;
+        }
+        IndexableField tags = doc.getField(QueryBuilder.TAGS);
+        Definitions defs = tags == null ? null : Definitions.deserialize(tags.binaryValue().bytes);
+        return get(doc.get(QueryBuilder.U), out -> {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                AnalyzerFactory factory = AnalyzerGuru.find(in, file.getName());
+                if (factory == null) {
+                    throw new IOException(String.format("cannot find analyzer for '%s'", file));
+                }
+                // The data under source root is read with UTF-8 as a default.
+                try (Reader reader = IOUtils.createBOMStrippedReader(in, StandardCharsets.UTF_8.name())) {
+                    AnalyzerGuru.writeXref(factory, reader, out, defs, null, project, file);
+                }
+            }
+        });
+    }
+
+    /**
+     * Change the size limit, e.g. after a configuration change. The files over the new limit are evicted.
+     * @param maxSize maximum total size of the cached files in bytes
+     */
+    public synchronized void setMaxSize(long maxSize) {
+        if (this.maxSize != maxSize) {
+            this.maxSize = maxSize;
+            load();
+            evict();
+        }
+    }
+
+    /**
+     * @return total size of the cached files in bytes
+     */
+    public synchronized long size() {
+        load();
+        return size;
+    }
+
+    private static String getFileName(String uid) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(uid.getBytes(StandardCharsets.UTF_8))) + SUFFIX;
+        } catch (NoSuchAlgorithmException e) {
+            // Every implementation of the Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Find the cached file and pin it if it exists.
+     */
+    private synchronized boolean lookup(String name, Path file) {
+        load();
+        if (entries.get(name) == null) {
+            // The file is going to be replaced, it must not be deleted once its previous users are done.
+            evicted.remove(name);
+            return false;
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            size -= entries.remove(name);
+            return false;
+        } catch (IOException e) {
+            // Only the order of eviction after restart is affected.
+            LOGGER.log(Level.FINEST, String.format("cannot update modification time of '%s'", file), e);
+        }
+        pins.merge(name, 1, Integer::sum);
+        return true;
+    }
+
+    private synchronized void release(String name) {
+        if (pins.merge(name, -1, Integer::sum) == 0) {
+            pins.remove(name);
+            if (evicted.remove(name)) {
+                delete(name);
+            }
+        }
+    }
+
+    private void delete(String name) {
+        Path file = directory.resolve(name.substring(0, 2)).resolve(name);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("cannot remove cached xref '%s'", file), e);
+        }
+    }
+
+    private static void await(CompletableFuture<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for xref");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private long produce(Path file, XrefProducer producer) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), "xref", TEMP_SUFFIX);
+        try {
+            /*
+             * For backward compatibility, write the xref using the system default charset
+             * like the indexer does.
+             */
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new SpliceableGzipOutputStream(Files.newOutputStream(temp))))) {
+                producer.write(out);
+            }
+            long length = Files.size(temp);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return length;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Add the file just produced, pinned, and evict the least recently used files over the size limit.
+     */
+    private synchronized void add(String name, long length) {
+        Long previous = entries.put(name, length);
+        size += length - (previous != null ? previous : 0);
+        pins.merge(name, 1, Integer::sum);
+        evict();
+    }
+
+    /**
+     * Evict the least recently used files over the size limit. Called with the lock of {@code this} held.
+     */
+    private void evict() {
+        // Keep at least the most recently used entry, e.g. the one just added.
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && entries.size() > 1) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            size -= eldest.getValue();
+            if (pins.containsKey(eldest.getKey())) {
+                evicted.add(eldest.getKey());
+            } else {
+                delete(eldest.getKey());
+            }
+        }
+    }
+
+    /**
+     * Find the files cached before the start of the web application.
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        record CachedFile(Path file, long size, FileTime lastModified) {
+        }
+        List<CachedFile> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.find(directory, 2, (path, attrs) -> attrs.isRegularFile())) {
+            for (Path file : (Iterable<Path>) stream::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    // left over from interrupted generation
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(SUFFIX)) {
+                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    files.add(new CachedFile(file, attrs.size(), attrs.lastModifiedTime()));
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("cannot list xref cache '%s'", directory), e);
+        }
+        files.sort(Comparator.comparing(CachedFile::lastModified));
+        for (CachedFile file : files) {
+            entries.put(file.file().getFileName().toString(), file.size());
+            size += file.size();
+        }
+        LOGGER.log(Level.FINE, "found {0} cached xrefs of total size {1} in ''{2}''",
+                new Object[]{entries.size(), size, directory});
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link CtagsCache} class.
+ */
+class CtagsCacheTest {
+
+    private static final byte[] DIGEST = "digest".getBytes(StandardCharsets.UTF_8);
+
+    private static Definitions createDefinitions() {
+        Definitions defs = new Definitions();
+        defs.addTag(1, "main", "function", "int main(void)", 0, 14);
+        return defs;
+    }
+
+    @Test
+    void testRoundTrip(@TempDir Path dir) {
+        CtagsCache cache = new CtagsCache(dir, List.of("ctags", "--filter=yes"), "Universal Ctags 6.0.0", null);
+        assertNull(cache.get("main.c", DIGEST, 0));
+        cache.put("main.c", DIGEST, 0, createDefinitions());
+
+        Definitions defs = cache.get("main.c", DIGEST, 0);
+        assertNotNull(defs);
+        assertTrue(defs.hasSymbol("main"));
+        assertEquals(1, defs.numberOfSymbols());
+
+        // The key consists of the file name, contents digest and tab size.
+        assertNull(cache.get("main.cpp", DIGEST, 0));
+        assertNull(cache.get("main.c", DIGEST, 8));
+        assertNull(cache.get("main.c", "other".getBytes(StandardCharsets.UTF_8), 0));
+    }
+
+    @Test
+    void testConfigurationChange(@TempDir Path dir) {
+        new CtagsCache(dir, List.of("ctags", "--filter=yes"), "Universal Ctags 6.0.0", null).
+                put("main.c", DIGEST, 0, createDefinitions());
+
+        assertNotNull(new CtagsCache(dir, List.of("ctags", "--filter=yes"), "Universal Ctags 6.0.0", null).
+                get("main.c", DIGEST, 0));
+        assertNull(new CtagsCache(dir, List.of("ctags", "--filter=yes"), "Universal Ctags 6.1.0", null).
+                get("main.c", DIGEST, 0));
+        assertNull(new CtagsCache(dir, List.of("ctags", "--filter=yes", "--kinds-c=+l"), "Universal Ctags 6.0.0",
+                null).get("main.c", DIGEST, 0));
+    }
+
+    @Test
+    void testInvalidEntry(@TempDir Path dir) throws Exception {
+        CtagsCache cache = new CtagsCache(dir, List.of("ctags"), "Universal Ctags 6.0.0", null);
+        cache.put("main.c", DIGEST, 0, createDefinitions());
+        Path entry;
+        try (Stream<Path> stream = Files.walk(dir)) {
+            entry = stream.filter(Files::isRegularFile).findFirst().orElseThrow();
+        }
+        Files.writeString(entry, "garbage");
+
+        assertNull(cache.get("main.c", DIGEST, 0));
+        assertTrue(Files.notExists(entry));
+    }
+
+    /**
+     * Set the last modified time of the cache entries newer than the time to the time.
+     */
+    private static void setTimeOfNewer(Path dir, long time) throws IOException {
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path path : stream.filter(Files::isRegularFile).toList()) {
+                if (Files.getLastModifiedTime(path).toMillis() > time) {
+                    Files.setLastModifiedTime(path, FileTime.fromMillis(time));
+                }
+            }
+        }
+    }
+
+    private static long getSize(Path dir) throws IOException {
+        try (Stream<Path> stream = Files.walk(dir)) {
+            return stream.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    @Test
+    void testCleanup(@TempDir Path dir) throws Exception {
+        CtagsCache cache = new CtagsCache(dir, List.of("ctags"), "Universal Ctags 6.0.0", null);
+        byte[] first = "first".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "second".getBytes(StandardCharsets.UTF_8);
+        byte[] third = "third".getBytes(StandardCharsets.UTF_8);
+        long now = System.currentTimeMillis();
+        cache.put("main.c", first, 0, createDefinitions());
+        setTimeOfNewer(dir, now - 30_000);
+        cache.put("main.c", second, 0, createDefinitions());
+        setTimeOfNewer(dir, now - 20_000);
+        cache.put("main.c", third, 0, createDefinitions());
+
+        assertEquals(0, CtagsCache.cleanup(dir, getSize(dir)));
+
+        // The hit makes the first entry the most recently used one.
+        assertNotNull(cache.get("main.c", first, 0));
+        assertEquals(1, CtagsCache.cleanup(dir, getSize(dir) - 1));
+        assertNull(cache.get("main.c", second, 0));
+        assertNotNull(cache.get("main.c", first, 0));
+        assertNotNull(cache.get("main.c", third, 0));
+
+        assertEquals(2, CtagsCache.cleanup(dir, 0));
+        assertNull(cache.get("main.c", first, 0));
+    }
+}
@@ -18,18 +18,23 @@
  */
 
 /*
- * Copyright (c) 2010, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2010, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2018, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.analysis;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -145,4 +150,62 @@ class DefinitionsTest {
         assertEquals(instance.getSymbols().size(), deserializedInstance.getSymbols().size());
     }
 
+    private static Definitions createDefinitions() {
+        Definitions instance = new Definitions();
+        instance.addTag(10, "main", "function", "int main(int argc, char **argv)", null, "(int argc, char **argv)",
+                4, 8);
+        instance.addTag(3, "argc", "local", "int argc;", "main", null, -1, -1);
+        instance.addTag(3, "argv", "local", "int argc;", "main", null, 0, 0);
+        return instance;
+    }
+
+    private static void assertTagsEqual(Definitions expected, Definitions actual) {
+        assertEquals(expected.getTags().size(), actual.getTags().size());
+        for (int i = 0; i < expected.getTags().size(); i++) {
+            Definitions.Tag expectedTag = expected.getTags().get(i);
+            Definitions.Tag actualTag = actual.getTags().get(i);
+            assertEquals(expectedTag.line, actualTag.line);
+            assertEquals(expectedTag.symbol, actualTag.symbol);
+            assertEquals(expectedTag.type, actualTag.type);
+            assertEquals(expectedTag.text, actualTag.text);
+            assertEquals(expectedTag.namespace, actualTag.namespace);
+            assertEquals(expectedTag.signature, actualTag.signature);
+            assertEquals(expectedTag.lineStart, actualTag.lineStart);
+            assertEquals(expectedTag.lineEnd, actualTag.lineEnd);
+        }
+        assertEquals(expected.getSymbols(), actual.getSymbols());
+    }
+
+    @Test
+    void serializeCompact() throws Exception {
+        Definitions instance = createDefinitions();
+        Definitions deserializedInstance = Definitions.deserialize(instance.serialize());
+        assertTagsEqual(instance, deserializedInstance);
+        assertTrue(deserializedInstance.hasDefinitionAt("argv", 3, new String[1]));
+    }
+
+    /**
+     * The data stored in the index by previous versions has to remain readable.
+     */
+    @Test
+    void deserializeJavaSerialized() throws Exception {
+        Definitions instance = createDefinitions();
+        byte[] serial;
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+             ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(instance);
+            oos.flush();
+            serial = bytes.toByteArray();
+        }
+        assertTrue(serial.length > instance.serialize().length);
+        assertTagsEqual(instance, Definitions.deserialize(serial));
+    }
+
+    @Test
+    void deserializeCorrupted() throws Exception {
+        byte[] serial = createDefinitions().serialize();
+        assertThrows(IOException.class, () -> Definitions.deserialize(Arrays.copyOf(serial, serial.length / 2)));
+        serial[1] = 42;
+        assertThrows(IOException.class, () -> Definitions.deserialize(serial));
+    }
 }
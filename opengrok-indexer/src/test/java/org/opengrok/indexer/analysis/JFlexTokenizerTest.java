@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2010, 2021, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2010, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.analysis;
@@ -164,4 +164,24 @@ class JFlexTokenizerTest {
         // This call used to hang forever.
         assertFalse(tokenizer.incrementToken());
     }
+
+    /**
+     * Verify that the tokenizer is reused only once the previous document was consumed.
+     * @throws IOException I/O exception
+     */
+    @Test
+    void testTrySetReader() throws IOException {
+        JFlexTokenizer tokenizer = new JFlexTokenizer(new CSymbolTokenizer(AbstractAnalyzer.DUMMY_READER));
+        CharTermAttribute term = tokenizer.addAttribute(CharTermAttribute.class);
+        for (String input : new String[] {"foo", "bar"}) {
+            assertTrue(tokenizer.trySetReader(new StringReader(input)));
+            assertFalse(tokenizer.trySetReader(new StringReader("baz")));
+            tokenizer.reset();
+            assertTrue(tokenizer.incrementToken());
+            assertEquals(input, term.toString());
+            assertFalse(tokenizer.incrementToken());
+            tokenizer.end();
+            tokenizer.close();
+        }
+    }
 }
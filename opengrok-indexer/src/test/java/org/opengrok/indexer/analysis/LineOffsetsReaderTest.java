@@ -0,0 +1,118 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.analysis;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.opengrok.indexer.util.SourceSplitter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link LineOffsetsReader} class.
+ */
+class LineOffsetsReaderTest {
+
+    private static int[] readLineOffsets(String text, int bufferSize) throws IOException {
+        try (LineOffsetsReader reader = new LineOffsetsReader(new StringReader(text))) {
+            char[] buf = new char[bufferSize];
+            int length = 0;
+            int n;
+            while ((n = reader.read(buf)) != -1) {
+                length += n;
+            }
+            assertEquals(text.length(), length);
+            return reader.getLineOffsets();
+        }
+    }
+
+    /**
+     * Verify that the line offsets are the same as produced by {@link SourceSplitter},
+     * also with end-of-line split between the reads.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"", "\n", "\r", "abc", "abc\ndef\n", "abc\r\ndef", "a\r\rb\n\r\nc\r", "\n\n\r\n\r\r\n"})
+    void testSameAsSourceSplitter(String text) throws IOException {
+        SourceSplitter splitter = new SourceSplitter();
+        splitter.reset(text);
+        int[] expected = new int[splitter.count() + 1];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = splitter.getOffset(i);
+        }
+
+        for (int bufferSize : new int[]{1, 2, 3, 1024}) {
+            assertArrayEquals(expected, readLineOffsets(text, bufferSize), "buffer size " + bufferSize);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "abc\ndef\n", "abc\r\ndef", "a\r\rb\n\r\nc\r"})
+    void testSerialization(String text) throws IOException {
+        LineOffsetsReader reader = new LineOffsetsReader(new StringReader(text));
+        int length = 0;
+        while (reader.read() != -1) {
+            length++;
+        }
+        assertEquals(text.length(), length);
+        LineOffsetsReader.LineOffsets deserialized = LineOffsetsReader.deserialize(reader.serialize());
+        int[] lineOffsets = deserialized.offsets();
+        assertArrayEquals(reader.getLineOffsets(), lineOffsets);
+        assertEquals(text.hashCode(), deserialized.contentHash());
+        assertTrue(deserialized.matches(text));
+
+        SourceSplitter scanned = new SourceSplitter();
+        scanned.reset(text);
+        SourceSplitter splitter = new SourceSplitter();
+        assertTrue(SourceSplitter.isValid(lineOffsets, text.length()));
+        splitter.reset(text, lineOffsets);
+        assertEquals(scanned.count(), splitter.count());
+        for (int i = 0; i < scanned.count(); i++) {
+            assertEquals(scanned.getLine(i), splitter.getLine(i));
+        }
+    }
+
+    /**
+     * Verify that the line offsets are not used for edited content of the same length.
+     */
+    @Test
+    void testEditedContentDoesNotMatch() throws IOException {
+        String text = "abc\ndef\n";
+        LineOffsetsReader reader = new LineOffsetsReader(new StringReader(text));
+        int length = 0;
+        while (reader.read() != -1) {
+            length++;
+        }
+        assertEquals(text.length(), length);
+        LineOffsetsReader.LineOffsets lineOffsets = LineOffsetsReader.deserialize(reader.serialize());
+        assertTrue(lineOffsets.matches(text));
+        assertFalse(lineOffsets.matches("abc\ndeg\n"));
+        assertFalse(lineOffsets.matches("abcd\nef\n"));
+    }
+}
@@ -18,14 +18,16 @@
  */
 
 /*
- * Copyright (c) 2015, 2021, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.analysis;
 
 import org.junit.jupiter.api.Test;
 import org.opengrok.indexer.analysis.Scopes.Scope;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -75,4 +77,39 @@ class ScopesTest {
         assertEquals(1, deserialized.size());
     }
 
+    @Test
+    void testSerializeCompact() throws IOException, ClassNotFoundException {
+        Scopes scopes = new Scopes();
+        scopes.addScope(new Scope(10, 20, "scope1", "ns", "(int a)"));
+        scopes.addScope(new Scope(25, 30, "scope2", "ns"));
+        scopes.addScope(new Scope(40, 40, "scope3", null, null));
+        Scopes deserialized = Scopes.deserialize(scopes.serialize());
+        assertEquals(3, deserialized.size());
+        for (int line : new int[]{10, 15, 20, 25, 30, 40}) {
+            Scope expected = scopes.getScope(line);
+            Scope actual = deserialized.getScope(line);
+            assertEquals(expected.getLineFrom(), actual.getLineFrom());
+            assertEquals(expected.getLineTo(), actual.getLineTo());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getNamespace(), actual.getNamespace());
+            assertEquals(expected.getSignature(), actual.getSignature());
+        }
+        assertEquals(Scopes.GLOBAL_SCOPE, deserialized.getScope(21));
+    }
+
+    /**
+     * The data stored in the index by previous versions has to remain readable.
+     */
+    @Test
+    void testDeserializeJavaSerialized() throws IOException, ClassNotFoundException {
+        Scopes scopes = new Scopes();
+        scopes.addScope(new Scope(1, 100, "name", "namespace", "signature"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(scopes);
+        }
+        Scopes deserialized = Scopes.deserialize(bytes.toByteArray());
+        assertEquals(1, deserialized.size());
+        assertEquals("signature", deserialized.getScope(50).getSignature());
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.analysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.junit.jupiter.api.Test;
+import org.opengrok.indexer.analysis.c.CSymbolTokenizer;
+import org.opengrok.indexer.analysis.c.CXref;
+import org.opengrok.indexer.analysis.java.JavaSymbolTokenizer;
+import org.opengrok.indexer.analysis.java.JavaXref;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Tests the {@link SymbolTokenStream} class.
+ */
+class SymbolTokenStreamTest {
+
+    private static List<String> getTokens(TokenStream stream) throws IOException {
+        CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+        OffsetAttribute offs = stream.addAttribute(OffsetAttribute.class);
+        List<String> tokens = new ArrayList<>();
+        stream.reset();
+        while (stream.incrementToken()) {
+            tokens.add(term + "@" + offs.startOffset() + "-" + offs.endOffset());
+        }
+        stream.end();
+        stream.close();
+        return tokens;
+    }
+
+    /**
+     * Verify that the symbols published while writing the xref are the same as those of the tokenizer.
+     */
+    private void assertSameTokens(String resource, Function<Reader, ScanningSymbolMatcher> tokenizer,
+            Function<Reader, ScanningSymbolMatcher> xrefer) throws IOException {
+        String input;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(resource)) {
+            assertNotNull(in, "despite " + resource + " as resource,");
+            input = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        JFlexTokenizer symbolTokenizer = new JFlexTokenizer(tokenizer.apply(AbstractAnalyzer.DUMMY_READER));
+        symbolTokenizer.setReader(new StringReader(input));
+        List<String> expected = getTokens(symbolTokenizer);
+
+        SymbolTokenStream stream = new SymbolTokenStream();
+        JFlexXref xref = new JFlexXref(xrefer.apply(new StringReader(input)));
+        xref.setSymbolMatchedListener(stream);
+        xref.write(new StringWriter());
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.size(), stream.size());
+        assertEquals(expected, getTokens(stream));
+    }
+
+    @Test
+    void testC() throws IOException {
+        assertSameTokens("analysis/c/sample.c", CSymbolTokenizer::new, CXref::new);
+    }
+
+    @Test
+    void testJava() throws IOException {
+        assertSameTokens("analysis/java/Sample.jav", JavaSymbolTokenizer::new, JavaXref::new);
+    }
+
+    @Test
+    void testTruncation() throws IOException {
+        SymbolTokenStream stream = new SymbolTokenStream();
+        String symbol = "a".repeat(JFlexTokenizer.LUCENE_MAX_TOKEN_LENGTH + 1);
+        stream.symbolMatched(new SymbolMatchedEvent(this, symbol, 0, symbol.length()));
+        stream.symbolMatched(new SymbolMatchedEvent(this, "b", Integer.MAX_VALUE, Integer.MAX_VALUE + 1L));
+        assertEquals(List.of("a".repeat(JFlexTokenizer.LUCENE_MAX_TOKEN_LENGTH) + "@0-" + symbol.length()),
+                getTokens(stream));
+    }
+}
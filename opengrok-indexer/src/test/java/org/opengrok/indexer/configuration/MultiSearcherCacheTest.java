@@ -0,0 +1,141 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the {@link MultiSearcherCache} class.
+ */
+class MultiSearcherCacheTest {
+
+    private static void addDocument(IndexWriter writer) throws Exception {
+        Document doc = new Document();
+        doc.add(new StringField("f", "value", Field.Store.NO));
+        writer.addDocument(doc);
+        writer.commit();
+    }
+
+    @Test
+    void testReuse() throws Exception {
+        IndexSearcherFactory factory = new IndexSearcherFactory();
+        MultiSearcherCache cache = new MultiSearcherCache(2);
+        try (Directory directory1 = new ByteBuffersDirectory();
+             Directory directory2 = new ByteBuffersDirectory();
+             IndexWriter writer1 = new IndexWriter(directory1, new IndexWriterConfig(new StandardAnalyzer()));
+             IndexWriter writer2 = new IndexWriter(directory2, new IndexWriterConfig(new StandardAnalyzer()))) {
+            addDocument(writer1);
+            addDocument(writer2);
+            try (DirectoryReader reader1 = DirectoryReader.open(directory1);
+                 DirectoryReader reader2 = DirectoryReader.open(directory2)) {
+                IndexSearcher searcher = cache.get(List.of(reader1, reader2), cache.getGeneration(), factory);
+                assertEquals(2, searcher.getIndexReader().numDocs());
+                assertSame(searcher,
+                        cache.get(new ArrayList<>(List.of(reader1, reader2)), cache.getGeneration(), factory));
+                assertNotSame(searcher, cache.get(List.of(reader1), cache.getGeneration(), factory));
+                assertEquals(2, cache.size());
+
+                // New generation of one of the indexes.
+                addDocument(writer2);
+                try (DirectoryReader newReader2 = DirectoryReader.openIfChanged(reader2)) {
+                    assertNotNull(newReader2);
+                    IndexSearcher newSearcher = cache.get(List.of(reader1, newReader2), cache.getGeneration(), factory);
+                    assertNotSame(searcher, newSearcher);
+                    assertEquals(3, newSearcher.getIndexReader().numDocs());
+                    assertEquals(2, cache.size());
+                }
+
+                cache.clear();
+                assertEquals(0, cache.size());
+                assertNotSame(searcher, cache.get(List.of(reader1, reader2), cache.getGeneration(), factory));
+            }
+        }
+    }
+
+    /**
+     * Verify that the sub-readers are not closed together with the cache entries.
+     */
+    @Test
+    void testReaderRefCount() throws Exception {
+        MultiSearcherCache cache = new MultiSearcherCache(1);
+        try (Directory directory = new ByteBuffersDirectory();
+             IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
+            addDocument(writer);
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                List<IndexReader> readers = List.of(reader);
+                cache.get(readers, cache.getGeneration(), new IndexSearcherFactory());
+                assertEquals(1, reader.getRefCount());
+                cache.clear();
+                assertEquals(1, reader.getRefCount());
+            }
+        }
+    }
+
+    /**
+     * A lookup that acquired the readers before the cache was cleared must not insert them back.
+     */
+    @Test
+    void testConcurrentClear() throws Exception {
+        IndexSearcherFactory factory = new IndexSearcherFactory();
+        MultiSearcherCache cache = new MultiSearcherCache(2);
+        try (Directory directory = new ByteBuffersDirectory();
+             IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
+            addDocument(writer);
+            DirectoryReader reader = DirectoryReader.open(directory);
+            long generation = cache.getGeneration();
+            cache.clear();
+            assertNotNull(cache.get(List.of(reader), generation, factory));
+            assertEquals(0, cache.size());
+
+            // An entry with closed reader is not returned.
+            cache.get(List.of(reader), cache.getGeneration(), factory);
+            assertEquals(1, cache.size());
+            reader.close();
+            List<IndexReader> readers = List.of(reader);
+            long currentGeneration = cache.getGeneration();
+            assertThrows(AlreadyClosedException.class, () -> cache.get(readers, currentGeneration, factory));
+            assertEquals(0, cache.size());
+        }
+    }
+}
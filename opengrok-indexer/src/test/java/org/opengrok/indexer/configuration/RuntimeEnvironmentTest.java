@@ -190,6 +190,18 @@ class RuntimeEnvironmentTest {
         assertEquals("/tmp/dataroot2", instance.getDataRootPath());
     }
 
+    @Test
+    void testSearchResultCache() {
+        RuntimeEnvironment instance = RuntimeEnvironment.getInstance();
+        assertEquals(100, instance.getSearchResultCacheSize());
+        assertEquals(120, instance.getSearchResultCacheTimeout());
+        assertNotNull(instance.getSearchResultCache());
+        instance.setSearchResultCacheSize(0);
+        assertNull(instance.getSearchResultCache());
+        assertThrows(IllegalArgumentException.class, () -> instance.setSearchResultCacheSize(-1));
+        assertThrows(IllegalArgumentException.class, () -> instance.setSearchResultCacheTimeout(0));
+    }
+
     @Test
     void testUrlPrefix() {
         RuntimeEnvironment instance = RuntimeEnvironment.getInstance();
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2021, 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.history;
 
@@ -31,11 +31,13 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mockito;
 import org.opengrok.indexer.configuration.RuntimeEnvironment;
+import org.opengrok.indexer.util.Progress;
 import org.opengrok.indexer.util.TestRepository;
 
 import java.io.File;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -43,6 +45,7 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 
 class BoundaryChangesetsTest {
 
@@ -137,4 +140,27 @@ class BoundaryChangesetsTest {
         assertEquals(integerListImmutableTriple.getRight().size(), boundaryChangesetList.size());
         assertEquals(integerListImmutableTriple.getRight(), boundaryChangesetList);
     }
+
+    /**
+     * Large changesets count as multiple changesets so they end up in smaller intervals.
+     * @throws Exception on error
+     */
+    @Test
+    void testLargeChangesets() throws Exception {
+        GitRepository gitSpyRepository = Mockito.spy(gitRepository);
+        Mockito.when(gitSpyRepository.getPerPartesCount()).thenReturn(3);
+        // The changesets are visited from the newest, the one with ID "2" is large.
+        int[] fileCounts = {1, 1, 2 * BoundaryChangesets.FILES_PER_CHANGESET, 1, 1, 1, 1};
+        Mockito.doAnswer(invocation -> {
+            Consumer<BoundaryChangesets.IdWithProgress> visitor = invocation.getArgument(1);
+            Progress progress = invocation.getArgument(2);
+            for (int i = 0; i < fileCounts.length; i++) {
+                visitor.accept(new BoundaryChangesets.IdWithProgress(String.valueOf(i), progress, fileCounts[i]));
+            }
+            return null;
+        }).when(gitSpyRepository).accept(any(), any(), any());
+
+        BoundaryChangesets boundaryChangesets = new BoundaryChangesets(gitSpyRepository);
+        assertEquals(List.of("6", "3", "2"), boundaryChangesets.getBoundaryChangesetIDs(null));
+    }
 }
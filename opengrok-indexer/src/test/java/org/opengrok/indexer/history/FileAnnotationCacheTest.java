@@ -18,10 +18,11 @@
  */
 
 /*
- * Copyright (c) 2021, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2021, 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.history;
 
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -34,6 +35,7 @@ import org.opengrok.indexer.util.TestRepository;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.stream.Stream;
 
@@ -100,6 +102,50 @@ class FileAnnotationCacheTest {
         assertEquals(annotation.annotationData, annotationFromCache.annotationData);
     }
 
+    /**
+     * The cache entries written in the Smile encoding by previous versions should be still readable.
+     */
+    @Test
+    void testReadSmileCacheFile() throws Exception {
+        final String fileName = "main.c";
+        Annotation annotation = new Annotation(fileName);
+        annotation.addLine("1.000", "author1", true, "1");
+        annotation.addLine("2.000", "author2", true, "2");
+        annotation.setRevision("2.000");
+        File file = Paths.get(repositories.getSourceRoot(), "git", fileName).toFile();
+        assertTrue(file.exists());
+        File cachedFile = cache.getCachedFile(file);
+        Files.createDirectories(cachedFile.getParentFile().toPath());
+        new SmileMapper().writeValue(cachedFile, annotation.annotationData);
+
+        assertEquals("2.000", cache.getRevision(file));
+        Annotation annotationFromCache = cache.readAnnotation(file);
+        assertNotNull(annotationFromCache);
+        assertEquals(annotation.annotationData, annotationFromCache.annotationData);
+    }
+
+    @Test
+    void testIsUpToDate() throws Exception {
+        final String fileName = "main.c";
+        File file = Paths.get(repositories.getSourceRoot(), "git", fileName).toFile();
+        assertTrue(file.exists());
+        String latestRev = LatestRevisionUtil.getLatestRevision(file);
+        assertNotNull(latestRev);
+        cache.clearFile(env.getPathRelativeToSourceRoot(file));
+        assertFalse(cache.isUpToDate(file));
+
+        Annotation annotation = new Annotation(fileName);
+        annotation.addLine("1", "author1", true);
+        annotation.setRevision(latestRev + "1");
+        cache.store(file, annotation);
+        assertFalse(cache.isUpToDate(file));
+
+        annotation.setRevision(latestRev);
+        cache.store(file, annotation);
+        assertTrue(cache.isUpToDate(file));
+        assertEquals(latestRev, cache.getRevision(file));
+    }
+
     @Test
     void testReadAnnotationForNonexistentFile() throws Exception {
         final String fileName = "nonexistent";
@@ -18,12 +18,13 @@
  */
 
 /*
- * Copyright (c) 2014, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2014, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2018, 2020, Chris Fraire <cfraire@me.com>.
  * Portions Copyright (c) 2020, 2023, Ric Harris <harrisric@users.noreply.github.com>.
  */
 package org.opengrok.indexer.history;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -317,6 +318,11 @@ class FileHistoryCacheTest {
                 retrievedUpdatedHistoryMainC.getHistoryEntries(), false);
         assertEquals(Map.of("13:3d386f6bd848", "tag3", "2:585a1b3f2efb", "tag2, tag1, start_of_novel"),
                 retrievedUpdatedHistoryMainC.getTags());
+
+        // The tags are assigned also without the tag list of the repository, like in the web application.
+        Repository webappRepo = RepositoryFactory.getRepository(reposRoot, CommandTimeoutType.WEBAPP_START);
+        assertNull(webappRepo.getTagList());
+        assertEquals(retrievedUpdatedHistoryMainC.getTags(), cache.get(main, webappRepo, true).getTags());
     }
 
     /**
@@ -1054,6 +1060,72 @@ class FileHistoryCacheTest {
         assertEquals("aa35c25882b9a60a97758e0ceb276a3f8cb4ae3a", historyEntry.getRevision());
     }
 
+    /**
+     * Incremental update appends the new history entries to the cache file as new chunk.
+     */
+    @Test
+    void testStoreAppendsChunk() throws Exception {
+        File repositoryRoot = new File(repositories.getSourceRoot(), "git");
+        Repository repository = RepositoryFactory.getRepository(repositoryRoot);
+        File sourceFile = new File(repositoryRoot, "main.c");
+        List<String> expected = repository.getHistory(sourceFile).getRevisionList();
+        assertTrue(expected.size() > 1);
+
+        List<HistoryEntry> entries = repository.getHistory(repositoryRoot).getHistoryEntries();
+        int split = entries.stream().map(HistoryEntry::getRevision).collect(Collectors.toList()).
+                indexOf(expected.get(1));
+        cache.store(new History(entries.subList(split, entries.size())), repository);
+        File cacheFile = cache.getCachedFile(sourceFile);
+        byte[] stored = Files.readAllBytes(cacheFile.toPath());
+        assertEquals(expected.get(1), cache.getLastHistoryEntry(sourceFile).getRevision());
+
+        cache.store(new History(entries.subList(0, split)), repository);
+        byte[] updated = Files.readAllBytes(cacheFile.toPath());
+        assertTrue(updated.length > stored.length);
+        assertArrayEquals(stored, Arrays.copyOf(updated, stored.length));
+        assertEquals(expected, cache.get(sourceFile, repository, false).getRevisionList());
+        assertEquals(expected.get(0), cache.getLastHistoryEntry(sourceFile).getRevision());
+    }
+
+    /**
+     * The appended chunk is visible only once the chunk index is stored, so the readers do not see an append
+     * in progress, and an append which did not complete (e.g. because the indexer crashed) is overwritten
+     * by the next update. The chunk index of a file which was rewritten as a whole does not apply to it.
+     */
+    @Test
+    void testIncompleteAppendChunk() throws Exception {
+        File repositoryRoot = new File(repositories.getSourceRoot(), "git");
+        Repository repository = RepositoryFactory.getRepository(repositoryRoot);
+        File sourceFile = new File(repositoryRoot, "main.c");
+        History fileHistory = repository.getHistory(sourceFile);
+        List<String> expected = fileHistory.getRevisionList();
+        assertTrue(expected.size() > 1);
+
+        List<HistoryEntry> entries = repository.getHistory(repositoryRoot).getHistoryEntries();
+        int split = entries.stream().map(HistoryEntry::getRevision).collect(Collectors.toList()).
+                indexOf(expected.get(1));
+        cache.store(new History(entries.subList(split, entries.size())), repository);
+        File cacheFile = cache.getCachedFile(sourceFile);
+        long length = cacheFile.length();
+
+        // Append the chunk without storing the chunk index.
+        assertNotNull(FileHistoryCache.appendChunk(new History(fileHistory.getHistoryEntries().subList(0, 1)),
+                cacheFile));
+        assertTrue(cacheFile.length() > length);
+        assertEquals(expected.subList(1, expected.size()),
+                cache.get(sourceFile, repository, false).getRevisionList());
+        assertEquals(expected.get(1), cache.getLastHistoryEntry(sourceFile).getRevision());
+
+        cache.store(new History(entries.subList(0, split)), repository);
+        assertEquals(expected, cache.get(sourceFile, repository, false).getRevisionList());
+        assertEquals(expected.get(0), cache.getLastHistoryEntry(sourceFile).getRevision());
+
+        // Rewrite the file as a whole, the chunk index of the previous file is left in place.
+        cache.storeFile(repository.getHistory(sourceFile), sourceFile, repository);
+        assertEquals(expected, cache.get(sourceFile, repository, false).getRevisionList());
+        assertEquals(expected.get(0), cache.getLastHistoryEntry(sourceFile).getRevision());
+    }
+
     /**
      * Test {@link FileHistoryCache#fillLastHistoryEntries(List)}, in particular that it avoids
      * getting history cache entries for directories.
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2008, 2024, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2019, Chris Fraire <cfraire@me.com>.
  * Portions Copyright (c) 2019, Krystof Tulinger <k.tulinger@seznam.cz>.
  * Portions Copyright (c) 2023, Ric Harris <harrisric@users.noreply.github.com>.
@@ -31,13 +31,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Random;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
@@ -46,9 +49,11 @@ import java.util.stream.Stream;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.merge.MergeStrategy;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
@@ -67,6 +72,7 @@ import org.opengrok.indexer.util.IOUtils;
 import org.opengrok.indexer.util.TestRepository;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -358,6 +364,29 @@ class GitRepositoryTest {
         assertEquals(expectedName, originalName);
     }
 
+    /**
+     * Following the renames must not turn on the rename detection for the later users
+     * of the same pooled JGit repository.
+     */
+    @Test
+    void testRenameFollowingDoesNotAffectPooledRepository() throws Exception {
+        File root = new File(repository.getSourceRoot(), "git");
+        GitRepository gitrepo = (GitRepository) RepositoryFactory.getRepository(root);
+        gitrepo.setHandleRenamedFiles(true);
+        assertEquals(Paths.get("moved", "renamed2.c").toString(), gitrepo.findOriginalName(
+                Paths.get(root.getCanonicalPath(), "moved2", "renamed2.c").toString(), HASH_67DFBE26));
+
+        gitrepo.setHandleRenamedFiles(false);
+        History history = gitrepo.getHistory(root, HASH_CE4C98EC);
+        assertNotNull(history);
+        assertEquals(4, history.getHistoryEntries().size());
+        for (HistoryEntry entry : history.getHistoryEntries()) {
+            assertFalse(entry.getFiles().isEmpty(),
+                    String.format("files of revision %s should not be empty", entry.getRevision()));
+        }
+        assertEquals(0, history.getRenamedFiles().size());
+    }
+
     private void testAnnotationOfFile(GitRepository gitrepo, File file, String revision, Set<String> revSet) throws Exception {
         Annotation annotation = gitrepo.annotate(file, revision);
         assertNotNull(annotation);
@@ -809,6 +838,126 @@ class GitRepositoryTest {
         }
     }
 
+    private static void changeLines(List<String> lines, Random random) {
+        int changes = 1 + random.nextInt(3);
+        for (int i = 0; i < changes; i++) {
+            int index = random.nextInt(lines.size());
+            switch (random.nextInt(4)) {
+                case 0:
+                    lines.add(index, "added " + random.nextInt(5));
+                    break;
+                case 1:
+                    if (lines.size() > 1) {
+                        lines.remove(index);
+                    }
+                    break;
+                case 2:
+                    // Whitespace only change is ignored by the annotation.
+                    lines.set(index, " " + lines.get(index) + "\t");
+                    break;
+                default:
+                    lines.set(index, "changed " + random.nextInt(5));
+            }
+        }
+    }
+
+    private static RevCommit commitLines(Git git, File file, List<String> lines, String author) throws Exception {
+        Files.write(file.toPath(), lines);
+        git.add().addFilepattern(file.getName()).call();
+        return git.commit().setSign(false).setAuthor(author, author + "@example.com").
+                setMessage("change by " + author).call();
+    }
+
+    /**
+     * The annotation updated from the annotation of any previous revision should be the same
+     * as the annotation computed from scratch.
+     */
+    @Test
+    void testUpdateAnnotation() throws Exception {
+        File root = new File(repository.getSourceRoot(), "gitUpdateAnnotation");
+        try (Git git = Git.init().setDirectory(root).call()) {
+            GitRepository gitrepo = (GitRepository) RepositoryFactory.getRepository(root);
+            File file = new File(root, "file.txt");
+            Random random = new Random(42);
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                lines.add("line " + random.nextInt(10));
+            }
+
+            List<Annotation> annotations = new ArrayList<>();
+            for (int i = 0; i < 15; i++) {
+                if (i > 0) {
+                    changeLines(lines, random);
+                }
+                RevCommit commit = commitLines(git, file, lines, "author" + random.nextInt(3));
+
+                Annotation annotation = gitrepo.annotate(file, null);
+                assertNotNull(annotation);
+                for (Annotation previous : annotations) {
+                    Annotation updated = gitrepo.updateAnnotation(file, previous);
+                    assertNotNull(updated);
+                    assertEquals(annotation.annotationData, updated.annotationData);
+                }
+                annotation.setRevision(commit.getName());
+                annotations.add(annotation);
+            }
+
+            // Merge commits are not replayed.
+            Annotation previous = annotations.get(annotations.size() - 1);
+            String branch = git.getRepository().getBranch();
+            git.checkout().setCreateBranch(true).setName("side").call();
+            lines.set(lines.size() - 1, "changed on branch");
+            RevCommit branchCommit = commitLines(git, file, lines, "branch");
+            git.checkout().setName(branch).call();
+            lines = new ArrayList<>(Files.readAllLines(file.toPath()));
+            lines.set(0, "changed on master");
+            commitLines(git, file, lines, "master");
+            git.merge().include(branchCommit).setFastForward(MergeCommand.FastForwardMode.NO_FF).
+                    setMessage("merge").call();
+            assertNotNull(gitrepo.annotate(file, null));
+            assertNull(gitrepo.updateAnnotation(file, previous));
+        } finally {
+            removeRecursive(root);
+        }
+    }
+
+    /**
+     * The merge commits and other commits that do not change the file should not prevent the update.
+     */
+    @Test
+    void testUpdateAnnotationWithUnrelatedMerge() throws Exception {
+        File root = new File(repository.getSourceRoot(), "gitUpdateAnnotationUnrelatedMerge");
+        try (Git git = Git.init().setDirectory(root).call()) {
+            GitRepository gitrepo = (GitRepository) RepositoryFactory.getRepository(root);
+            File file = new File(root, "file.txt");
+            File otherFile = new File(root, "other.txt");
+            List<String> lines = new ArrayList<>(List.of("first", "second", "third"));
+            RevCommit commit = commitLines(git, file, lines, "author");
+            Annotation previous = gitrepo.annotate(file, null);
+            assertNotNull(previous);
+            previous.setRevision(commit.getName());
+
+            String branch = git.getRepository().getBranch();
+            git.checkout().setCreateBranch(true).setName("side").call();
+            RevCommit branchCommit = commitLines(git, otherFile, List.of("changed on branch"), "branch");
+            git.checkout().setName(branch).call();
+            commitLines(git, otherFile, List.of("changed on master"), "master");
+            git.merge().include(branchCommit).setFastForward(MergeCommand.FastForwardMode.NO_FF).
+                    setStrategy(MergeStrategy.OURS).setMessage("merge").call();
+
+            lines.set(1, "changed");
+            commitLines(git, file, lines, "other author");
+
+            Annotation annotation = gitrepo.annotate(file, null);
+            assertNotNull(annotation);
+            Annotation updated = gitrepo.updateAnnotation(file, previous);
+            assertNotNull(updated);
+            assertEquals(annotation.annotationData, updated.annotationData);
+        } finally {
+            removeRecursive(root);
+        }
+    }
+
     private void removeRecursive(final File cloneRoot) {
         try {
             IOUtils.removeRecursive(cloneRoot.toPath());
@@ -0,0 +1,138 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.history;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opengrok.indexer.configuration.RuntimeEnvironment;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests for the {@link JGitRepositoryPool} class.
+ */
+class JGitRepositoryPoolTest {
+
+    @AfterEach
+    void tearDown() {
+        JGitRepositoryPool.setIdleTimeout(TimeUnit.SECONDS.toMillis(
+                RuntimeEnvironment.getInstance().getGitRepositoryIdleTimeout()));
+        JGitRepositoryPool.clear();
+    }
+
+    /**
+     * The repository stays open after the caller closes it and is reused until the pool is cleared.
+     */
+    @Test
+    void testRepositoryIsReused(@TempDir File directory) throws Exception {
+        Git.init().setDirectory(directory).call().close();
+
+        AtomicInteger opened = new AtomicInteger();
+        JGitRepositoryPool.Opener opener = () -> {
+            opened.incrementAndGet();
+            return FileRepositoryBuilder.create(new File(directory, ".git"));
+        };
+
+        JGitRepositoryPool.clear();
+        Repository first;
+        try (Repository repository = JGitRepositoryPool.get(directory.getPath(), opener)) {
+            first = repository;
+        }
+        try (Repository repository = JGitRepositoryPool.get(directory.getPath(), opener)) {
+            assertSame(first, repository);
+            assertNotNull(repository.exactRef(Constants.HEAD));
+        }
+        assertEquals(1, opened.get());
+        assertEquals(1, JGitRepositoryPool.size());
+
+        JGitRepositoryPool.clear();
+        assertEquals(0, JGitRepositoryPool.size());
+        try (Repository repository = JGitRepositoryPool.get(directory.getPath(), opener)) {
+            assertNotSame(first, repository);
+        }
+        assertEquals(2, opened.get());
+    }
+
+    /**
+     * The repository that was not used for the idle timeout is closed even if the pool is not used anymore.
+     */
+    @Test
+    void testIdleRepositoryIsEvicted(@TempDir File directory) throws Exception {
+        Git.init().setDirectory(directory).call().close();
+
+        AtomicInteger opened = new AtomicInteger();
+        JGitRepositoryPool.Opener opener = () -> {
+            opened.incrementAndGet();
+            return FileRepositoryBuilder.create(new File(directory, ".git"));
+        };
+
+        JGitRepositoryPool.setIdleTimeout(100);
+        JGitRepositoryPool.get(directory.getPath(), opener).close();
+        assertEquals(1, JGitRepositoryPool.size());
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (JGitRepositoryPool.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, JGitRepositoryPool.size());
+
+        JGitRepositoryPool.get(directory.getPath(), opener).close();
+        assertEquals(2, opened.get());
+    }
+
+    /**
+     * The repositories are not pooled with zero idle timeout.
+     */
+    @Test
+    void testZeroIdleTimeout(@TempDir File directory) throws Exception {
+        Git.init().setDirectory(directory).call().close();
+
+        AtomicInteger opened = new AtomicInteger();
+        JGitRepositoryPool.Opener opener = () -> {
+            opened.incrementAndGet();
+            return FileRepositoryBuilder.create(new File(directory, ".git"));
+        };
+
+        JGitRepositoryPool.setIdleTimeout(0);
+        Repository first;
+        try (Repository repository = JGitRepositoryPool.get(directory.getPath(), opener)) {
+            first = repository;
+        }
+        try (Repository repository = JGitRepositoryPool.get(directory.getPath(), opener)) {
+            assertNotSame(first, repository);
+        }
+        assertEquals(2, opened.get());
+        assertEquals(0, JGitRepositoryPool.size());
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.history;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opengrok.indexer.configuration.RuntimeEnvironment;
+import org.opengrok.indexer.util.TestRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link PackedHistoryCache} class.
+ */
+class PackedHistoryCacheTest {
+
+    private final RuntimeEnvironment env = RuntimeEnvironment.getInstance();
+    private TestRepository repositories;
+    private PackedHistoryCache cache;
+    private boolean savedIsHistoryEnabled;
+    private boolean savedIsIndexer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        savedIsHistoryEnabled = env.isHistoryEnabled();
+        savedIsIndexer = env.isIndexer();
+        env.setHistoryEnabled(true);
+        env.setIndexer(true);
+
+        repositories = new TestRepository();
+        URL url = getClass().getResource("/repositories");
+        assertNotNull(url);
+        repositories.create(url);
+
+        // Needed for HistoryGuru to operate normally.
+        env.setRepositories(repositories.getSourceRoot());
+
+        cache = new PackedHistoryCache();
+        cache.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repositories.destroy();
+        repositories = null;
+        cache = null;
+
+        env.setHistoryEnabled(savedIsHistoryEnabled);
+        env.setIndexer(savedIsIndexer);
+    }
+
+    private static List<String> getRevisions(History history) {
+        return history.getHistoryEntries().stream().map(HistoryEntry::getRevision).toList();
+    }
+
+    private List<PackedHistorySegment> getSegments(Repository repository) throws Exception {
+        return cache.getSegments(Path.of(CacheUtil.getRepositoryCacheDataDirname(repository, cache)));
+    }
+
+    @Test
+    void testStoreAndGet() throws Exception {
+        File reposRoot = new File(repositories.getSourceRoot(), "git");
+        Repository repository = RepositoryFactory.getRepository(reposRoot);
+        assertTrue(cache.supportsRepository(repository));
+        File file = new File(reposRoot, "main.c");
+        History expected = repository.getHistory(file);
+
+        History history = repository.getHistory(reposRoot);
+        String latestRev = history.getHistoryEntries().get(0).getRevision();
+        cache.store(history, repository);
+
+        assertEquals(latestRev, cache.getLatestCachedRevision(repository));
+        assertTrue(cache.hasCacheForFile(file));
+        assertTrue(cache.isUpToDate(file));
+        History cached = cache.get(file, repository, false);
+        assertNotNull(cached);
+        assertEquals(getRevisions(expected), getRevisions(cached));
+        assertEquals(expected.getHistoryEntries().get(0).getMessage(),
+                cached.getHistoryEntries().get(0).getMessage());
+        HistoryEntry lastEntry = cache.getLastHistoryEntry(file);
+        assertNotNull(lastEntry);
+        assertEquals(expected.getHistoryEntries().get(0).getRevision(), lastEntry.getRevision());
+        assertEquals(expected.getHistoryEntries().get(0).getDate(), lastEntry.getDate());
+
+        assertFalse(cache.hasCacheForFile(new File(reposRoot, "nonexistent.c")));
+        assertNull(cache.get(reposRoot, repository, false));
+        assertThrows(HistoryException.class, () -> cache.storeFile(expected, file, repository));
+
+        cache.clear(repository);
+        assertNull(cache.getLatestCachedRevision(repository));
+        assertNull(cache.get(file, repository, false));
+    }
+
+    /**
+     * Each store adds new segment, {@link PackedHistoryCache#optimize()} merges them.
+     */
+    @Test
+    void testSegmentsAreMerged() throws Exception {
+        File reposRoot = new File(repositories.getSourceRoot(), "git");
+        Repository repository = RepositoryFactory.getRepository(reposRoot);
+        File file = new File(reposRoot, "main.c");
+        List<String> expected = getRevisions(repository.getHistory(file));
+        assertTrue(expected.size() > 1);
+
+        // Store the history in two parts, older one first, like when the history is updated incrementally.
+        History history = repository.getHistory(reposRoot);
+        List<HistoryEntry> entries = history.getHistoryEntries();
+        int split = entries.indexOf(entries.stream().
+                filter(e -> e.getRevision().equals(expected.get(1))).findFirst().orElseThrow());
+        String latestRev = entries.get(0).getRevision();
+        cache.store(new History(entries.subList(split, entries.size())), repository);
+        assertEquals(expected.get(1), cache.getLastHistoryEntry(file).getRevision());
+        cache.store(new History(entries.subList(0, split)), repository);
+
+        assertEquals(2, getSegments(repository).size());
+        assertEquals(latestRev, cache.getLatestCachedRevision(repository));
+        assertEquals(expected, getRevisions(cache.get(file, repository, false)));
+        assertEquals(expected.get(0), cache.getLastHistoryEntry(file).getRevision());
+
+        cache.optimize();
+        List<PackedHistorySegment> segments = getSegments(repository);
+        assertEquals(1, segments.size());
+        assertTrue(segments.get(0).isBase());
+        assertEquals(latestRev, cache.getLatestCachedRevision(repository));
+        assertEquals(expected, getRevisions(cache.get(file, repository, false)));
+    }
+
+    private static List<Path> listSegmentFiles(Path dir) throws IOException {
+        try (Stream<Path> stream = Files.list(dir)) {
+            return stream.filter(f -> f.getFileName().toString().endsWith(".pack")).toList();
+        }
+    }
+
+    /**
+     * The segments stored concurrently have to get distinct numbers.
+     */
+    @Test
+    void testConcurrentStore() throws Exception {
+        File reposRoot = new File(repositories.getSourceRoot(), "git");
+        Repository repository = RepositoryFactory.getRepository(reposRoot);
+        final int count = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                futures.add(executor.submit(() -> {
+                    cache.store(repository.getHistory(reposRoot), repository);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(count, getSegments(repository).size());
+    }
+
+    /**
+     * The segments older than the base segment are deleted even if they were left behind by previous merge.
+     */
+    @Test
+    void testMergeDeletesSupersededSegments() throws Exception {
+        File reposRoot = new File(repositories.getSourceRoot(), "git");
+        Repository repository = RepositoryFactory.getRepository(reposRoot);
+        Path dir = Path.of(CacheUtil.getRepositoryCacheDataDirname(repository, cache));
+        cache.store(repository.getHistory(reposRoot), repository);
+        cache.store(repository.getHistory(reposRoot), repository);
+        Path leftover = listSegmentFiles(dir).get(0);
+        Path copy = Files.copy(leftover, dir.resolve("leftover"));
+
+        cache.optimize();
+        assertEquals(1, listSegmentFiles(dir).size());
+
+        // Simulate failed deletion.
+        Files.move(copy, leftover);
+        assertEquals(2, listSegmentFiles(dir).size());
+        assertEquals(1, getSegments(repository).size());
+        cache.optimize();
+        assertEquals(1, listSegmentFiles(dir).size());
+        assertTrue(getSegments(repository).get(0).isBase());
+    }
+}
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2021, 2022, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2021, 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.history;
 
@@ -130,6 +130,37 @@ class RepositoryWithPerPartesHistoryTest {
         assertEquals(historyEntries.get(0).getRevision(), cachedHistory.getHistoryEntries().get(0).getRevision());
     }
 
+    /**
+     * Retrieving the history of the chunks in parallel has to store the same history as the sequential processing.
+     * @throws Exception on error
+     */
+    @Test
+    void testParallelChunks() throws Exception {
+        RuntimeEnvironment env = RuntimeEnvironment.getInstance();
+        env.setHistoryChunkParallelism(3);
+        try {
+            FileHistoryCache cache = new FileHistoryCache();
+            GitRepository gitSpyRepository = Mockito.spy(gitRepository);
+            Mockito.when(gitSpyRepository.getPerPartesCount()).thenReturn(2);
+            gitSpyRepository.createCache(cache, null);
+            verify(gitSpyRepository, times(4)).traverseHistory(any(), any(), any(), isNull(), any());
+
+            List<HistoryEntry> historyEntries = gitRepository.getHistory(new File(gitRepository.getDirectoryName())).
+                    getHistoryEntries();
+            assertEquals(historyEntries.get(0).getRevision(), cache.getLatestCachedRevision(gitSpyRepository));
+
+            File file = Paths.get(gitRepository.getDirectoryName(), "main.c").toFile();
+            History history = gitRepository.getHistory(file);
+            assertNotNull(history);
+            History cachedHistory = cache.get(file, gitSpyRepository, false);
+            assertNotNull(cachedHistory);
+            assertEquals(history.getHistoryEntries().stream().map(HistoryEntry::getRevision).toList(),
+                    cachedHistory.getHistoryEntries().stream().map(HistoryEntry::getRevision).toList());
+        } finally {
+            env.setHistoryChunkParallelism(0);
+        }
+    }
+
     @Test
     void testPerPartesOff() throws Exception {
         FileHistoryCache cache = new FileHistoryCache();
@@ -0,0 +1,117 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opengrok.indexer.configuration.RuntimeEnvironment;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link AnnotationCacheQueue} class.
+ */
+class AnnotationCacheQueueTest {
+
+    private final RuntimeEnvironment env = RuntimeEnvironment.getInstance();
+    private String savedSourceRoot;
+    private String savedDataRoot;
+    private int savedTimeout;
+
+    @BeforeEach
+    void setUp(@TempDir Path sourceRoot, @TempDir Path dataRoot) {
+        savedSourceRoot = env.getSourceRootPath();
+        savedDataRoot = env.getDataRootPath();
+        savedTimeout = env.getAnnotationCacheTimeout();
+        env.setSourceRoot(sourceRoot.toString());
+        env.setDataRoot(dataRoot.toString());
+        env.setAnnotationCacheTimeout(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        env.setSourceRoot(savedSourceRoot);
+        env.setDataRoot(savedDataRoot);
+        env.setAnnotationCacheTimeout(savedTimeout);
+    }
+
+    /**
+     * @return executor that does not run the queued tasks until it is shut down
+     */
+    private static ExecutorService getBlockedExecutor() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.execute(() -> {
+            while (!executor.isShutdown()) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        return executor;
+    }
+
+    /**
+     * The entries are de-duplicated by file and the entries that were not processed before the timeout
+     * are persisted and resumed by the next queue once it is told to, except for the files queued again.
+     */
+    @Test
+    void testRemainingEntriesAreResumed() throws Exception {
+        File foo = new File(env.getSourceRootFile(), "foo.c");
+        File bar = new File(env.getSourceRootFile(), "bar.c");
+        Files.writeString(foo.toPath(), "int foo;");
+        Files.writeString(bar.toPath(), "int bar;");
+
+        AnnotationCacheQueue queue = new AnnotationCacheQueue(env, getBlockedExecutor());
+        queue.add(foo, "/foo.c", "1");
+        queue.add(bar, "/bar.c", "1");
+        queue.add(foo, "/foo.c", "2");
+        assertEquals(2, queue.size());
+        queue.close();
+
+        Path queueFile = Path.of(env.getDataRootPath(), AnnotationCacheQueue.QUEUE_FILE_NAME);
+        assertTrue(Files.isRegularFile(queueFile));
+        assertEquals(Set.of("2\t/foo.c", "1\t/bar.c"), Set.copyOf(Files.readAllLines(queueFile)));
+
+        AnnotationCacheQueue resumed = new AnnotationCacheQueue(env, getBlockedExecutor());
+        assertEquals(0, resumed.size());
+        resumed.add(foo, "/foo.c", "3");
+        resumed.resume();
+        assertEquals(2, resumed.size());
+        assertFalse(Files.exists(queueFile));
+        resumed.close();
+        assertEquals(Set.of("3\t/foo.c", "1\t/bar.c"), Set.copyOf(Files.readAllLines(queueFile)));
+    }
+}
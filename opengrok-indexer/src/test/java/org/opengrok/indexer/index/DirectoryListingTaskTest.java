@@ -0,0 +1,126 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opengrok.indexer.configuration.RuntimeEnvironment;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link DirectoryListingTask} class.
+ */
+class DirectoryListingTaskTest {
+
+    @Test
+    void testListingIsSortedAndRecursive(@TempDir Path root) throws Exception {
+        Files.writeString(root.resolve("zzz.c"), "int z;");
+        Files.writeString(root.resolve("Makefile"), "all:");
+        Path subdir = Files.createDirectory(root.resolve("main"));
+        Files.writeString(subdir.resolve("b.c"), "int b;");
+        Files.writeString(subdir.resolve("a.c"), "int a;");
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            DirectoryListingTask task = new DirectoryListingTask(root);
+            List<DirectoryListingTask.Entry> entries = pool.invoke(task);
+            assertNotNull(entries);
+            assertEquals(List.of("Makefile", "main", "zzz.c"),
+                    entries.stream().map(e -> e.getFile().getName()).collect(Collectors.toList()));
+
+            DirectoryListingTask.Cursor cursor = new DirectoryListingTask.Cursor(entries,
+                    RuntimeEnvironment.getInstance().getPathAccepter(), pool);
+            DirectoryListingTask.Entry file = cursor.next();
+            assertTrue(file.isRegularFile());
+            assertFalse(file.isDirectory());
+            assertEquals(new File(root.toFile(), "Makefile").lastModified(), file.getLastModified());
+            assertNull(file.takeSubdirectoryTask());
+
+            DirectoryListingTask.Entry dir = cursor.next();
+            assertTrue(dir.isDirectory());
+            DirectoryListingTask subdirTask = dir.takeSubdirectoryTask();
+            assertNotNull(subdirTask);
+            assertNull(dir.takeSubdirectoryTask());
+            assertEquals(List.of("a.c", "b.c"),
+                    subdirTask.join().stream().map(e -> e.getFile().getName()).collect(Collectors.toList()));
+            assertTrue(cursor.hasNext());
+            assertEquals("zzz.c", cursor.next().getFile().getName());
+            assertFalse(cursor.hasNext());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testNonExistentDirectory(@TempDir Path root) {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            DirectoryListingTask task = new DirectoryListingTask(root.resolve("nonexistent"));
+            assertNull(pool.invoke(task));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Only limited number of subdirectories is listed ahead of the entry returned by the cursor.
+     */
+    @Test
+    void testListAheadIsBounded(@TempDir Path root) throws Exception {
+        int count = DirectoryListingTask.LIST_AHEAD * 3;
+        for (int i = 0; i < count; i++) {
+            Files.createDirectory(root.resolve(String.format("dir%03d", i)));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            List<DirectoryListingTask.Entry> entries = pool.invoke(new DirectoryListingTask(root));
+            assertNotNull(entries);
+            assertEquals(count, entries.size());
+
+            DirectoryListingTask.Cursor cursor = new DirectoryListingTask.Cursor(entries,
+                    RuntimeEnvironment.getInstance().getPathAccepter(), pool);
+            for (int i = 0; i < count; i++) {
+                DirectoryListingTask.Entry entry = cursor.next();
+                assertNotNull(entry.takeSubdirectoryTask());
+                long listedAhead = entries.subList(i + 1, count).stream().
+                        filter(DirectoryListingTask.Entry::isListed).count();
+                assertEquals(Math.min(DirectoryListingTask.LIST_AHEAD - 1, count - i - 1), listedAhead);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2010, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2010, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2018, 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.index;
@@ -32,6 +32,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -73,6 +74,7 @@ import org.opengrok.indexer.history.History;
 import org.opengrok.indexer.history.HistoryEntry;
 import org.opengrok.indexer.history.HistoryException;
 import org.opengrok.indexer.history.HistoryGuru;
+import org.opengrok.indexer.history.LatestRevisionUtil;
 import org.opengrok.indexer.history.Repository;
 import org.opengrok.indexer.history.RepositoryFactory;
 import org.opengrok.indexer.history.RepositoryInfo;
@@ -840,6 +842,126 @@ class IndexDatabaseTest {
         assertEquals(expectedFileSet, listener.getAddedFiles().stream().map(Path::of).collect(Collectors.toSet()));
     }
 
+    /**
+     * Test that streaming indexing picks up the same set of changes as the default (collect first) mode.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testStreamingIndexing(boolean historyBased) throws Exception {
+        env.setHistoryBasedReindex(historyBased);
+        env.setStreamingIndexing(true);
+
+        try {
+            File repositoryRoot = new File(repository.getSourceRoot(), "git");
+            changeGitRepository(repositoryRoot);
+
+            Project gitProject = env.getProjects().get("git");
+            assertNotNull(gitProject);
+            gitProject.completeWithDefaults();
+            indexer.prepareIndexer(
+                    env, true, true,
+                    List.of("/git"), null);
+            env.generateProjectRepositoriesMap();
+
+            IndexDatabase idb = new IndexDatabase(gitProject);
+            AddRemoveFilesListener listener = new AddRemoveFilesListener();
+            idb.addIndexChangedListener(listener);
+            idb.update();
+
+            assertTrue(listener.getAddedFiles().containsAll(Set.of("/git/main.c", "/git/zzz.txt",
+                    "/git/zzzzzz.txt", "/git/Makefile.renamed")));
+            assertTrue(listener.getRemovedFiles().containsAll(Set.of("/git/main.c", "/git/header.h",
+                    "/git/Makefile")));
+            checkDataExistence("git" + File.separator + "header.h", false);
+
+            env.maybeRefreshIndexSearchers();
+            assertNotNull(IndexDatabase.getDocument(new File(repositoryRoot, "zzzzzz.txt")));
+        } finally {
+            env.setStreamingIndexing(false);
+        }
+    }
+
+    /**
+     * Test that a file with changed last modified time but the same contents is not reindexed.
+     */
+    @Test
+    void testTouchedFileWithUnchangedContents() throws Exception {
+        env.setHistoryBasedReindex(false);
+
+        Project gitProject = env.getProjects().get("git");
+        assertNotNull(gitProject);
+        gitProject.completeWithDefaults();
+
+        File file = new File(new File(repository.getSourceRoot(), "git"), "main.c");
+        Document origDoc = IndexDatabase.getDocument(file);
+        assertNotNull(origDoc);
+        assertNotNull(origDoc.getBinaryValue(QueryBuilder.DIGEST));
+        final String origUid = origDoc.get(QueryBuilder.U);
+
+        assertTrue(file.setLastModified(file.lastModified() + 10_000));
+        // The first run detects the same contents by comparing the digest, the second one via the updated time.
+        for (int i = 0; i < 2; i++) {
+            IndexDatabase idb = new IndexDatabase(gitProject);
+            AddRemoveFilesListener listener = new AddRemoveFilesListener();
+            idb.addIndexChangedListener(listener);
+            idb.update();
+            assertFalse(listener.getAddedFiles().contains("/git/main.c"));
+            assertFalse(listener.getRemovedFiles().contains("/git/main.c"));
+            env.maybeRefreshIndexSearchers();
+            Document doc = IndexDatabase.getDocument(file);
+            assertNotNull(doc);
+            assertEquals(origUid, doc.get(QueryBuilder.U));
+            assertEquals(file.lastModified(), IndexDatabase.getDocumentLastModified(file));
+            // The last revision stored in the document is still valid.
+            assertNotNull(origDoc.get(QueryBuilder.LASTREV));
+            assertEquals(origDoc.get(QueryBuilder.LASTREV), LatestRevisionUtil.getLastRevFromIndex(file));
+        }
+
+        // The xref must not look stale w.r.t. the file.
+        File xrefFile = new File(env.getDataRootPath(), IndexDatabase.XREF_DIR + "/git/main.c" +
+                (env.isCompressXref() ? ".gz" : ""));
+        assertTrue(xrefFile.isFile());
+        assertTrue(xrefFile.lastModified() >= file.lastModified());
+
+        long lastModified = file.lastModified();
+        Files.writeString(file.toPath(), "/* changed */", StandardOpenOption.APPEND);
+        assertTrue(file.setLastModified(lastModified + 10_000));
+        IndexDatabase idb = new IndexDatabase(gitProject);
+        AddRemoveFilesListener listener = new AddRemoveFilesListener();
+        idb.addIndexChangedListener(listener);
+        idb.update();
+        assertTrue(listener.getRemovedFiles().contains("/git/main.c"));
+        assertTrue(listener.getAddedFiles().contains("/git/main.c"));
+    }
+
+    /**
+     * Test that a file reported as changed by the history is reindexed even if its contents did not change
+     * so that the history related fields of its document get updated.
+     */
+    @Test
+    void testTouchedFileWithUnchangedContentsChangedInHistory() throws Exception {
+        env.setHistoryBasedReindex(false);
+
+        Project gitProject = env.getProjects().get("git");
+        assertNotNull(gitProject);
+        gitProject.completeWithDefaults();
+
+        File file = new File(new File(repository.getSourceRoot(), "git"), "main.c");
+        assertTrue(file.setLastModified(file.lastModified() + 10_000));
+        FileCollector fileCollector = spy(new FileCollector(true));
+        doReturn(Set.of(File.separator + Paths.get("git", "main.c"))).when(fileCollector).getFiles();
+        env.setFileCollector(gitProject.getName(), fileCollector);
+
+        IndexDatabase idb = new IndexDatabase(gitProject);
+        AddRemoveFilesListener listener = new AddRemoveFilesListener();
+        idb.addIndexChangedListener(listener);
+        idb.update();
+        assertTrue(listener.getRemovedFiles().contains("/git/main.c"));
+        assertTrue(listener.getAddedFiles().contains("/git/main.c"));
+
+        env.setFileCollector(gitProject.getName(), null);
+    }
+
     /**
      * make sure the initial indexing is made using indexDown() even though history based reindex is possible.
      */
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2008, 2023, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2017, 2019, Chris Fraire <cfraire@me.com>.
  * Portions Copyright (c) 2020, Ric Harris <harrisric@users.noreply.github.com>.
  */
@@ -548,4 +548,36 @@ class IndexerTest {
         assertEquals(projects.size(), env.getDefaultProjects().size());
         assertEquals(projects, env.getDefaultProjects().stream().map(Project::getName).collect(Collectors.toSet()));
     }
+
+    /**
+     * Test that the pipelined indexing creates both the history cache and the index of a project.
+     */
+    @Test
+    void testPipelinedIndexing() throws Exception {
+        RuntimeEnvironment env = RuntimeEnvironment.getInstance();
+
+        TestRepository testrepo = new TestRepository();
+        testrepo.create(HistoryGuru.class.getResource("/repositories"));
+
+        env.setSourceRoot(testrepo.getSourceRoot());
+        env.setDataRoot(testrepo.getDataRoot());
+        env.setHistoryEnabled(true);
+        env.setProjectsEnabled(true);
+
+        // Scan the repositories and add projects without creating the history cache.
+        Indexer.getInstance().prepareIndexer(env, Set.of(env.getSourceRootPath()), true, false,
+                List.of("git"));
+        Project project = env.getProjects().get("git");
+        assertNotNull(project);
+
+        Indexer.getInstance().doPipelinedIndexerExecution(Set.of(project), null, List.of("git"), false);
+
+        String path = "/git/main.c";
+        File historyFile = new File(env.getDataRootPath(),
+                TandemPath.join("historycache" + path, ""));
+        assertTrue(historyFile.exists(), String.format("history cache for %s has to exist", path));
+        assertNotNull(IndexDatabase.getDocument(new File(testrepo.getSourceRoot(), path)));
+
+        testrepo.destroy();
+    }
 }
@@ -0,0 +1,187 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opengrok.indexer.util.SpliceableGzipOutputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link PackedXrefWriter} and {@link PackedXrefStore} classes.
+ */
+class PackedXrefWriterTest {
+
+    private static final String PREFIX = "/packed-xref-test/";
+
+    private static void write(PackedXrefWriter writer, String path, String content) throws IOException {
+        write(writer, path, content, 0);
+    }
+
+    private static void write(PackedXrefWriter writer, String path, String content, long lastModified)
+            throws IOException {
+        PackedXrefWriter.XrefOutput out = writer.newOutput();
+        try (Writer xrefWriter = new OutputStreamWriter(new SpliceableGzipOutputStream(out), StandardCharsets.UTF_8)) {
+            xrefWriter.write(content);
+        }
+        out.add(path, lastModified);
+    }
+
+    private static String read(File dataRoot, String path) throws IOException {
+        PackedXrefStore.Xref xref = PackedXrefStore.open(dataRoot, path);
+        if (xref == null) {
+            return null;
+        }
+        try (InputStream in = xref.newInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static long countSegments(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.filter(f -> PackedXrefStore.getSegmentNumber(f.getFileName().toString()) >= 0).count();
+        }
+    }
+
+    @Test
+    void testCommit(@TempDir Path dataRoot) throws Exception {
+        Path dir = PackedXrefStore.getDirectory(dataRoot.toFile(), null);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try (PackedXrefWriter writer = new PackedXrefWriter(dir)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String path = PREFIX + "file" + i + ".c";
+                futures.add(executor.submit(() -> {
+                    write(writer, path, "xref of " + path);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertTrue(writer.contains(PREFIX + "file0.c"));
+            // Not visible before the commit.
+            assertNull(read(dataRoot.toFile(), PREFIX + "file0.c"));
+            writer.prepareCommit();
+            writer.commit();
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int i = 0; i < 100; i++) {
+            String path = PREFIX + "file" + i + ".c";
+            assertEquals("xref of " + path, read(dataRoot.toFile(), path));
+        }
+        assertNull(read(dataRoot.toFile(), PREFIX + "file100.c"));
+
+        // Update and removal in the next run.
+        try (PackedXrefWriter writer = new PackedXrefWriter(dir)) {
+            assertTrue(writer.contains(PREFIX + "file1.c"));
+            writer.remove(PREFIX + "file1.c");
+            assertFalse(writer.contains(PREFIX + "file1.c"));
+            writer.remove(PREFIX + "file2.c");
+            write(writer, PREFIX + "file2.c", "new xref");
+            write(writer, PREFIX + "fileé.c", "added xref");
+            writer.prepareCommit();
+            writer.commit();
+        }
+
+        assertNull(read(dataRoot.toFile(), PREFIX + "file1.c"));
+        assertEquals("new xref", read(dataRoot.toFile(), PREFIX + "file2.c"));
+        assertEquals("added xref", read(dataRoot.toFile(), PREFIX + "fileé.c"));
+        assertEquals("xref of " + PREFIX + "file3.c", read(dataRoot.toFile(), PREFIX + "file3.c"));
+    }
+
+    @Test
+    void testUncommittedChangesAreDiscarded(@TempDir Path dataRoot) throws Exception {
+        Path dir = PackedXrefStore.getDirectory(dataRoot.toFile(), null);
+        try (PackedXrefWriter writer = new PackedXrefWriter(dir)) {
+            write(writer, PREFIX + "a.c", "a");
+            writer.prepareCommit();
+            writer.commit();
+        }
+        assertEquals(1, countSegments(dir));
+
+        try (PackedXrefWriter writer = new PackedXrefWriter(dir)) {
+            write(writer, PREFIX + "a.c", "b");
+            writer.prepareCommit();
+            // The Lucene commit failed.
+        }
+        assertEquals(1, countSegments(dir));
+        assertEquals("a", read(dataRoot.toFile(), PREFIX + "a.c"));
+    }
+
+    @Test
+    void testLastModified(@TempDir Path dataRoot) throws Exception {
+        Path dir = PackedXrefStore.getDirectory(dataRoot.toFile(), null);
+        File source = Files.createFile(dataRoot.resolve("a.c")).toFile();
+        long lastModified = source.lastModified();
+        try (PackedXrefWriter writer = new PackedXrefWriter(dir)) {
+            write(writer, PREFIX + "a.c", "a", lastModified);
+            writer.prepareCommit();
+            writer.commit();
+        }
+        try (PackedXrefStore.Xref xref = PackedXrefStore.open(dataRoot.toFile(), PREFIX + "a.c")) {
+            assertNotNull(xref);
+            assertFalse(xref.isOlderThan(source));
+        }
+
+        // The source file was touched without changing its contents.
+        assertTrue(source.setLastModified(lastModified + 10_000));
+        try (PackedXrefStore.Xref xref = PackedXrefStore.open(dataRoot.toFile(), PREFIX + "a.c")) {
+            assertNotNull(xref);
+            assertTrue(xref.isOlderThan(source));
+        }
+        try (PackedXrefWriter writer = new PackedXrefWriter(dir)) {
+            writer.touch(PREFIX + "a.c", source.lastModified());
+            writer.touch(PREFIX + "b.c", source.lastModified());
+            assertFalse(writer.contains(PREFIX + "b.c"));
+            writer.prepareCommit();
+            writer.commit();
+        }
+        try (PackedXrefStore.Xref xref = PackedXrefStore.open(dataRoot.toFile(), PREFIX + "a.c")) {
+            assertNotNull(xref);
+            assertFalse(xref.isOlderThan(source));
+        }
+        assertEquals("a", read(dataRoot.toFile(), PREFIX + "a.c"));
+    }
+}
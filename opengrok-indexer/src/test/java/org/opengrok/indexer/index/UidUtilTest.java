@@ -0,0 +1,88 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.index;
+
+import org.apache.lucene.util.BytesRef;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.opengrok.indexer.web.Util;
+
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link UidUtil} class.
+ */
+class UidUtilTest {
+
+    private static final String DATE = "20260101000000000";
+
+    private static Stream<Arguments> providePaths() {
+        return Stream.of(
+                Arguments.of("/foo/bar", "/foo/bar"),
+                Arguments.of("/foo/bar", "/foo/baz"),
+                Arguments.of("/foo/bar/Makefile", "/foo/bar-module/Makefile"),
+                Arguments.of("/foo/bar", "/foo/bar/main.c"),
+                Arguments.of("/foo/Makefile", "/foo/makefile"),
+                Arguments.of("/z", "/a/b/c"),
+                Arguments.of("/foo/é", "/foo/e")
+        );
+    }
+
+    /**
+     * The comparison of the UID bytes has to be consistent with {@link IndexDatabase#FILEPATH_COMPARATOR}.
+     */
+    @ParameterizedTest
+    @MethodSource("providePaths")
+    void testComparePathsVsPathComparator(String path1, String path2) {
+        BytesRef uid1 = new BytesRef(Util.path2uid(path1, DATE));
+        BytesRef uid2 = UidUtil.pathToUid(path2);
+        int expected = Integer.signum(IndexDatabase.FILEPATH_COMPARATOR.compare(Path.of(path1), Path.of(path2)));
+        assertEquals(expected, Integer.signum(UidUtil.comparePaths(uid1, uid2)));
+        assertEquals(-expected, Integer.signum(UidUtil.comparePaths(uid2, uid1)));
+        assertEquals(expected == 0, UidUtil.pathEquals(uid1, uid2));
+    }
+
+    @Test
+    void testPathLength() {
+        BytesRef uid = new BytesRef(Util.path2uid("/foo/bar.c", DATE));
+        assertEquals("/foo/bar.c".length(), UidUtil.pathLength(uid));
+        assertEquals("/foo/bar.c".length(), UidUtil.pathLength(UidUtil.pathToUid("/foo/bar.c")));
+    }
+
+    @Test
+    void testOffset() {
+        BytesRef uid = new BytesRef(Util.path2uid("/foo/bar.c", DATE));
+        byte[] bytes = new byte[uid.length + 4];
+        System.arraycopy(uid.bytes, uid.offset, bytes, 2, uid.length);
+        BytesRef shifted = new BytesRef(bytes, 2, uid.length);
+        assertTrue(UidUtil.pathEquals(uid, shifted));
+        assertFalse(UidUtil.pathEquals(shifted, UidUtil.pathToUid("/foo/bar")));
+    }
+}
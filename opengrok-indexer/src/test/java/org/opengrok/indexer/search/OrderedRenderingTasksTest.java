@@ -0,0 +1,142 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.search;
+
+import java.io.StringWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link OrderedRenderingTasks} class.
+ */
+class OrderedRenderingTasksTest {
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void setUpClass() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void tearDownClass() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testOrder() throws Exception {
+        try (OrderedRenderingTasks<String> tasks = new OrderedRenderingTasks<>(executor, 0)) {
+            for (int i = 0; i < 20; i++) {
+                final int n = i;
+                assertEquals(i, tasks.submit(() -> {
+                    // Make the earlier tasks finish later.
+                    Thread.sleep(20 - n);
+                    return String.valueOf(n);
+                }));
+            }
+            StringBuilder sb = new StringBuilder();
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < 20; i++) {
+                sb.append(tasks.get(i));
+                expected.append(i);
+            }
+            assertEquals(expected.toString(), sb.toString());
+        }
+    }
+
+    @Test
+    void testDeadline() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        try (OrderedRenderingTasks<String> tasks = new OrderedRenderingTasks<>(executor, 100)) {
+            int fast = tasks.submit(() -> "fast");
+            int slow = tasks.submit(() -> {
+                latch.await();
+                return "slow";
+            });
+            assertEquals("fast", tasks.get(fast));
+            assertNull(tasks.get(slow));
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    /**
+     * The page of results should show that the context of a hit was not rendered in time.
+     */
+    @Test
+    void testMissedContextIsReported() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        try (OrderedRenderingTasks<String> tasks = new OrderedRenderingTasks<>(executor, 100)) {
+            int slow = tasks.submit(() -> {
+                latch.await();
+                return "slow";
+            });
+            StringWriter out = new StringWriter();
+            Results.writeRenderedContext(out, tasks, slow, "/c/foo.c");
+            assertEquals(Results.CONTEXT_NOT_AVAILABLE, out.toString());
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    void testFailure() {
+        try (OrderedRenderingTasks<String> tasks = new OrderedRenderingTasks<>(executor, 0)) {
+            int index = tasks.submit(() -> {
+                throw new IllegalStateException("failed");
+            });
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> tasks.get(index));
+            assertTrue(exception.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    void testCloseCancelsTasks() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (OrderedRenderingTasks<String> tasks = new OrderedRenderingTasks<>(executor, 0)) {
+            tasks.submit(() -> {
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+            // Give the task a chance to start.
+            Thread.sleep(50);
+        }
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.search;
+
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opengrok.indexer.configuration.RuntimeEnvironment;
+import org.opengrok.indexer.index.Indexer;
+import org.opengrok.indexer.util.TestRepository;
+import org.opengrok.indexer.web.SearchHelper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link Results} class.
+ */
+class ResultsTest {
+
+    private TestRepository repository;
+    private RuntimeEnvironment env;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        repository = new TestRepository();
+        repository.create(ResultsTest.class.getClassLoader().getResource("sources"));
+
+        env = RuntimeEnvironment.getInstance();
+        env.setSourceRoot(repository.getSourceRoot());
+        env.setDataRoot(repository.getDataRoot());
+        env.setHistoryEnabled(false);
+        env.setProjectsEnabled(true);
+
+        Indexer.getInstance().prepareIndexer(env, true, true, null, null);
+        env.setDefaultProjectsFromNames(new TreeSet<>(Collections.singletonList("/c")));
+        Indexer.getInstance().doIndexerExecution(null, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        env.setParallelResultsRendering(false);
+        repository.destroy();
+    }
+
+    private String prettyPrint() throws Exception {
+        SortedSet<String> projectNames = new TreeSet<>(Collections.singletonList("c"));
+        SearchHelper sh = new SearchHelper.Builder(env.getDataRootFile(), env.getSourceRootFile(),
+                null, new QueryBuilder().setFreetext("foobar"), env.getUrlPrefix())
+                .maxItems(env.getHitsPerPage())
+                .build()
+                .prepareExec(projectNames).executeQuery().prepareSummary();
+        try {
+            assertNull(sh.getErrorMsg());
+            assertTrue(sh.getTotalHits() > 2, "need several hits to check the alternation");
+            StringWriter out = new StringWriter();
+            Results.prettyPrint(out, sh, 0, sh.getHits().length);
+            return out.toString();
+        } finally {
+            sh.destroy();
+        }
+    }
+
+    /**
+     * The parallel rendering of the contexts should produce the same output as the sequential one,
+     * including the alternation of the context lines across the hits.
+     */
+    @Test
+    void testParallelRenderingMatchesSequential() throws Exception {
+        env.setParallelResultsRendering(false);
+        String sequential = prettyPrint();
+        env.setParallelResultsRendering(true);
+        String parallel = prettyPrint();
+        assertEquals(sequential, parallel);
+    }
+}
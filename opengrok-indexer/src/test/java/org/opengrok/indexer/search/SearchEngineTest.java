@@ -18,12 +18,13 @@
  */
 
 /*
- * Copyright (c) 2008, 2022, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2018, 2019, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.indexer.search;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -507,6 +508,43 @@ class SearchEngineTest {
         instance.destroy();
     }
 
+    /**
+     * The documents are read lazily for the requested page so each page has to contain the results
+     * for the respective hits only.
+     */
+    @Test
+    void testResultsPageMatchesHits() throws IOException {
+        SearchEngine instance = new SearchEngine(Integer.MAX_VALUE);
+        instance.setFreetext("arguments");
+        int collected = instance.search();
+        assertTrue(collected > 1, "Need more than one hit for this test to be meaningful");
+
+        List<Hit> hits = new ArrayList<>();
+        for (int i = 0; i < collected; i++) {
+            instance.results(i, i + 1, hits);
+            assertFalse(hits.isEmpty());
+            String path = instance.doc(instance.scoreDocs()[i].doc).get(QueryBuilder.PATH);
+            for (Hit hit : hits) {
+                assertEquals(path, hit.getPath());
+            }
+        }
+        instance.destroy();
+    }
+
+    @Test
+    void testCancelledSearchReturnsPartialResults() {
+        SearchEngine instance = new SearchEngine(Integer.MAX_VALUE);
+        instance.setFreetext("arguments");
+        assertTrue(instance.search() > 1);
+        assertFalse(instance.isPartialResults());
+
+        instance.cancel();
+        assertEquals(0, instance.search());
+        assertTrue(instance.isPartialResults());
+        assertEquals(0, instance.getTotalHits());
+        instance.destroy();
+    }
+
     @Test
     void testResultsWithoutSearchThrows() {
         SearchEngine instance = new SearchEngine(1);
@@ -0,0 +1,216 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.search;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.TopScoreDocCollectorManager;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.automaton.Operations;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link TimeLimitingCollectorManager} class.
+ */
+class TimeLimitingCollectorManagerTest {
+
+    private static final int DOC_COUNT = 1000;
+
+    private static Directory directory;
+    private static DirectoryReader reader;
+
+    @BeforeAll
+    static void setUpClass() throws Exception {
+        directory = new ByteBuffersDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
+            for (int i = 0; i < DOC_COUNT; i++) {
+                Document doc = new Document();
+                doc.add(new StringField("f", String.valueOf(i), Field.Store.NO));
+                writer.addDocument(doc);
+            }
+        }
+        reader = DirectoryReader.open(directory);
+    }
+
+    @AfterAll
+    static void tearDownClass() throws Exception {
+        reader.close();
+        directory.close();
+    }
+
+    private static TimeLimitingCollectorManager<TopScoreDocCollector, TopDocs> createManager(long timeoutMillis) {
+        return new TimeLimitingCollectorManager<>(
+                new TopScoreDocCollectorManager(10, Integer.MAX_VALUE), timeoutMillis);
+    }
+
+    @Test
+    void testUnlimited() throws Exception {
+        var manager = createManager(0);
+        TopDocs topDocs = new IndexSearcher(reader).search(new MatchAllDocsQuery(), manager);
+        assertEquals(DOC_COUNT, topDocs.totalHits.value);
+        assertEquals(10, topDocs.scoreDocs.length);
+        assertFalse(manager.isTimedOut());
+        assertFalse(manager.shouldExit());
+    }
+
+    @Test
+    void testTimeout() throws Exception {
+        var manager = createManager(1);
+        Thread.sleep(10);
+        assertTrue(manager.shouldExit());
+        TopDocs topDocs = new IndexSearcher(reader).search(new MatchAllDocsQuery(), manager);
+        assertEquals(0, topDocs.totalHits.value);
+        assertTrue(manager.isTimedOut());
+    }
+
+    @Test
+    void testSearch() throws Exception {
+        var manager = createManager(60_000);
+        TopDocs topDocs = manager.search(new IndexSearcher(reader), new WildcardQuery(new Term("f", "1*")));
+        assertEquals(111, topDocs.totalHits.value);
+        assertFalse(manager.isTimedOut());
+    }
+
+    @Test
+    void testCancel() throws Exception {
+        var manager = createManager(60_000);
+        assertFalse(manager.shouldExit());
+        manager.cancel();
+        assertTrue(manager.shouldExit());
+        TopDocs topDocs = manager.search(new IndexSearcher(reader), new MatchAllDocsQuery());
+        assertEquals(0, topDocs.scoreDocs.length);
+        assertTrue(manager.isTimedOut());
+    }
+
+    /**
+     * Collector that counts the documents and blocks on the first one until the search is cancelled.
+     */
+    private static class BlockingCollector extends SimpleCollector {
+        private final CountDownLatch collecting;
+        private final CountDownLatch cancelled;
+        private int count;
+
+        BlockingCollector(CountDownLatch collecting, CountDownLatch cancelled) {
+            this.collecting = collecting;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (count++ == 0) {
+                collecting.countDown();
+                try {
+                    cancelled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+    }
+
+    /**
+     * Cancel the search from another thread while the search is collecting the documents.
+     */
+    @Test
+    void testCancelRunningSearch() throws Exception {
+        CountDownLatch collecting = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        var manager = new TimeLimitingCollectorManager<>(new CollectorManager<BlockingCollector, Integer>() {
+            @Override
+            public BlockingCollector newCollector() {
+                return new BlockingCollector(collecting, cancelled);
+            }
+
+            @Override
+            public Integer reduce(Collection<BlockingCollector> collectors) {
+                return collectors.stream().mapToInt(collector -> collector.count).sum();
+            }
+        }, 0);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> future = executor.submit(() ->
+                    manager.search(new IndexSearcher(reader), new MatchAllDocsQuery()));
+            collecting.await();
+            assertFalse(manager.isTimedOut());
+            manager.cancel();
+            cancelled.countDown();
+
+            int count = future.get();
+            assertTrue(count > 0);
+            assertTrue(count < DOC_COUNT);
+            assertTrue(manager.isTimedOut());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * The time budget applies also to the term enumeration done by the query rewrite, i.e. before any collection.
+     */
+    @Test
+    void testTimeoutDuringRewrite() throws Exception {
+        var manager = createManager(1);
+        Thread.sleep(10);
+        WildcardQuery query = new WildcardQuery(new Term("f", "*"), Operations.DEFAULT_DETERMINIZE_WORK_LIMIT,
+                MultiTermQuery.SCORING_BOOLEAN_REWRITE);
+        TopDocs topDocs = manager.search(new IndexSearcher(reader), query);
+        assertEquals(0, topDocs.scoreDocs.length);
+        assertTrue(manager.isTimedOut());
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link GzipSplicingOutputStream} and {@link SpliceableGzipOutputStream} classes.
+ */
+class GzipSplicingOutputStreamTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private static String generate(int length, int seed) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + (i * seed + i / 7) % 26));
+        }
+        return sb.toString();
+    }
+
+    private File writeSpliceable(String name, String content) throws IOException {
+        File file = tempDir.resolve(name).toFile();
+        try (OutputStream out = new SpliceableGzipOutputStream(new FileOutputStream(file))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void testSpliceableIsRegularGzip() throws IOException {
+        String content = generate(100_000, 3);
+        File file = writeSpliceable("file.gz", content);
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            assertEquals(content, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testSplice() throws IOException {
+        String prefix = generate(1000, 5);
+        String middle = generate(50_000, 11);
+        String suffix = generate(70_000, 13);
+        String xref1 = generate(200_000, 17);
+        String xref2 = "";
+        File file1 = writeSpliceable("file1.gz", xref1);
+        File file2 = writeSpliceable("file2.gz", xref2);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        boolean[] started = new boolean[1];
+        try (GzipSplicingOutputStream out = new GzipSplicingOutputStream(bytes, Deflater.BEST_SPEED,
+                () -> started[0] = true)) {
+            out.write(prefix.getBytes(StandardCharsets.UTF_8));
+            assertTrue(out.splice(file1));
+            out.write(middle.getBytes(StandardCharsets.UTF_8));
+            assertTrue(out.splice(file2));
+            assertTrue(out.splice(file1));
+            out.write(suffix.getBytes(StandardCharsets.UTF_8));
+        }
+        assertTrue(started[0]);
+        // GZIPInputStream verifies the CRC-32 and the length in the trailer.
+        assertEquals(prefix + xref1 + middle + xref2 + xref1 + suffix, gunzip(bytes.toByteArray()));
+    }
+
+    @Test
+    void testLegacyGzipIsNotSpliced() throws IOException {
+        File file = tempDir.resolve("legacy.gz").toFile();
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(generate(1000, 3).getBytes(StandardCharsets.UTF_8));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GzipSplicingOutputStream out = new GzipSplicingOutputStream(bytes, Deflater.BEST_SPEED, () -> { })) {
+            assertFalse(out.splice(file));
+            out.write('x');
+        }
+        assertEquals("x", gunzip(bytes.toByteArray()));
+    }
+
+    @Test
+    void testNothingWritten() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        boolean[] started = new boolean[1];
+        try (GzipSplicingOutputStream out = new GzipSplicingOutputStream(bytes, Deflater.BEST_SPEED,
+                () -> started[0] = true)) {
+            out.flush();
+        }
+        assertFalse(started[0]);
+        assertEquals(0, bytes.size());
+    }
+
+    @Test
+    void testCrc32Combine() {
+        byte[] first = generate(12345, 7).getBytes(StandardCharsets.UTF_8);
+        byte[] second = generate(6789, 19).getBytes(StandardCharsets.UTF_8);
+        CRC32 crc1 = new CRC32();
+        crc1.update(first);
+        CRC32 crc2 = new CRC32();
+        crc2.update(second);
+        CRC32 expected = new CRC32();
+        expected.update(first);
+        expected.update(second);
+        assertEquals(expected.getValue(),
+                GzipSplicingOutputStream.crc32Combine(crc1.getValue(), crc2.getValue(), second.length));
+    }
+}
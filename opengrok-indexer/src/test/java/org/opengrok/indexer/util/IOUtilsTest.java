@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2025, 2026, Oracle and/or its affiliates. All rights reserved.
  */
 package org.opengrok.indexer.util;
 
@@ -33,6 +33,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -99,4 +100,17 @@ public class IOUtilsTest {
         assertTrue(tmpFile.getAbsoluteFile().canRead());
         Files.delete(tmpFile.toPath());
     }
+
+    @Test
+    void testGetFileDigest() throws IOException {
+        File tmpFile = IOUtils.createTemporaryFileOrDirectory(false, "digest", ".txt");
+        try {
+            Files.writeString(tmpFile.toPath(), "abc");
+            // SHA-256 test vector from FIPS 180-2.
+            assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                    HexFormat.of().formatHex(IOUtils.getFileDigest(tmpFile)));
+        } finally {
+            Files.delete(tmpFile.toPath());
+        }
+    }
 }
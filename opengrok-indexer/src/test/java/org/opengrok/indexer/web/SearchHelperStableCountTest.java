@@ -2,13 +2,18 @@ package org.opengrok.indexer.web;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.opengrok.indexer.configuration.RuntimeEnvironment;
 import org.opengrok.indexer.index.Indexer;
 import org.opengrok.indexer.search.QueryBuilder;
@@ -101,6 +106,49 @@ class SearchHelperStableCountTest {
         }
     }
 
+    /**
+     * The subsequent pages are served from the cached hits of the first page, collecting only
+     * the hits following the cached ones. The result has to be the same as with a single search.
+     */
+    @ParameterizedTest
+    @EnumSource(value = SortOrder.class, names = {"RELEVANCY", "BY_PATH"})
+    void testPagedSearchMatchesSingleSearch(SortOrder order) {
+        SortedSet<String> projectNames = new TreeSet<>();
+        projectNames.add(SYNTHETIC_PROJECT);
+
+        env.getSearchResultCache().clear();
+        List<Integer> expected = runSearchForDocs(projectNames, order, 0, 300);
+        assertEquals(300, expected.size());
+
+        env.getSearchResultCache().clear();
+        List<Integer> paged = new ArrayList<>();
+        for (int start = 0; start < 300; start += 100) {
+            paged.addAll(runSearchForDocs(projectNames, order, start, 100));
+        }
+        assertEquals(expected, paged);
+
+        // Going back is served from the cache.
+        assertEquals(expected.subList(100, 200), runSearchForDocs(projectNames, order, 100, 100));
+    }
+
+    private List<Integer> runSearchForDocs(SortedSet<String> projectNames, SortOrder order, int start, int maxItems) {
+        SearchHelper searchHelper = new SearchHelper.Builder(env.getDataRootFile(),
+                env.getSourceRootFile(), null,
+                new QueryBuilder().setFreetext(MARKER), env.getUrlPrefix())
+                .order(order)
+                .start(start)
+                .maxItems(maxItems)
+                .build()
+                .prepareExec(projectNames)
+                .executeQuery();
+        try {
+            assertNull(searchHelper.getErrorMsg());
+            return Arrays.stream(searchHelper.getHits()).skip(start).map(hit -> hit.doc).toList();
+        } finally {
+            searchHelper.destroy();
+        }
+    }
+
     private long runSearchForTotalHits(SortedSet<String> projectNames, int maxItems) {
         SearchHelper searchHelper = new SearchHelper.Builder(env.getDataRootFile(),
                 env.getSourceRootFile(), null,
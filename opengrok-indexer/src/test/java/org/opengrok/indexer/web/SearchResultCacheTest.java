@@ -0,0 +1,115 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.web;
+
+import java.time.Duration;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests for the {@link SearchResultCache} class.
+ */
+class SearchResultCacheTest {
+
+    private static final ScoreDoc[] HITS = {new ScoreDoc(0, 1.0f)};
+
+    private static void addDocument(IndexWriter writer, String value) throws Exception {
+        Document doc = new Document();
+        doc.add(new StringField("f", value, Field.Store.NO));
+        writer.addDocument(doc);
+        writer.commit();
+    }
+
+    @Test
+    void testKeyChangesWithIndexGeneration() throws Exception {
+        Query query = new MatchAllDocsQuery();
+        try (Directory directory = new ByteBuffersDirectory();
+             IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
+            addDocument(writer, "a");
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                SearchResultCache.Key key = SearchResultCache.createKey(query, Sort.RELEVANCE, reader);
+                assertNotNull(key);
+                assertEquals(key, SearchResultCache.createKey(new MatchAllDocsQuery(), Sort.RELEVANCE, reader));
+                assertNotEquals(key, SearchResultCache.createKey(new TermQuery(new Term("f", "a")),
+                        Sort.RELEVANCE, reader));
+                assertNotEquals(key, SearchResultCache.createKey(query, Sort.INDEXORDER, reader));
+
+                addDocument(writer, "b");
+                try (DirectoryReader newReader = DirectoryReader.openIfChanged(reader)) {
+                    assertNotNull(newReader);
+                    assertNotEquals(key, SearchResultCache.createKey(query, Sort.RELEVANCE, newReader));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testEviction() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory();
+             IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
+            addDocument(writer, "a");
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                SearchResultCache cache = new SearchResultCache(2, Duration.ofMinutes(1));
+                SearchResultCache.Key key1 = SearchResultCache.createKey(new TermQuery(new Term("f", "1")),
+                        Sort.RELEVANCE, reader);
+                SearchResultCache.Key key2 = SearchResultCache.createKey(new TermQuery(new Term("f", "2")),
+                        Sort.RELEVANCE, reader);
+                SearchResultCache.Key key3 = SearchResultCache.createKey(new TermQuery(new Term("f", "3")),
+                        Sort.RELEVANCE, reader);
+                cache.put(key1, HITS, 1);
+                cache.put(key2, HITS, 1);
+                assertNotNull(cache.get(key1));
+                cache.put(key3, HITS, 1);
+                assertEquals(2, cache.size());
+                assertNotNull(cache.get(key1));
+                assertNull(cache.get(key2));
+                assertNotNull(cache.get(key3));
+
+                SearchResultCache expiringCache = new SearchResultCache(2, Duration.ZERO);
+                expiringCache.put(key1, HITS, 1);
+                assertNull(expiringCache.get(key1));
+                assertEquals(0, expiringCache.size());
+            }
+        }
+    }
+}
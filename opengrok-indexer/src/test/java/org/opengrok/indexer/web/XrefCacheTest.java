@@ -0,0 +1,193 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.indexer.web;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link XrefCache} class.
+ */
+class XrefCacheTest {
+
+    private static String read(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes());
+        }
+    }
+
+    private static String uid(String path) {
+        return Util.path2uid(path, "20260101000000000");
+    }
+
+    private static Path get(XrefCache cache, String uid, XrefCache.XrefProducer producer) throws IOException {
+        try (XrefCache.Entry entry = cache.get(uid, producer)) {
+            return entry.getFile();
+        }
+    }
+
+    @Test
+    void testReuse(@TempDir Path dir) throws IOException {
+        AtomicInteger count = new AtomicInteger();
+        XrefCache cache = new XrefCache(dir, 1024 * 1024);
+        Path file = get(cache, uid("/a.c"), out -> {
+            count.incrementAndGet();
+            out.write("xref of a.c");
+        });
+        assertEquals("xref of a.c", read(file));
+        assertEquals(file, get(cache, uid("/a.c"), out -> count.incrementAndGet()));
+        assertEquals(1, count.get());
+
+        // The cached xrefs are found after restart.
+        cache = new XrefCache(dir, 1024 * 1024);
+        assertEquals(Files.size(file), cache.size());
+        assertEquals(file, get(cache, uid("/a.c"), out -> count.incrementAndGet()));
+        assertEquals(1, count.get());
+
+        // Modified file has different UID.
+        Path modified = get(cache, Util.path2uid("/a.c", "20260102000000000"), out -> out.write("new xref"));
+        assertEquals("new xref", read(modified));
+    }
+
+    @Test
+    void testConcurrentRequestsAreCoalesced(@TempDir Path dir) throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        XrefCache cache = new XrefCache(dir, 1024 * 1024);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Path>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> get(cache, uid("/a.c"), out -> {
+                    count.incrementAndGet();
+                    started.countDown();
+                    try {
+                        assertTrue(release.await(10, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    out.write("xref of a.c");
+                })));
+            }
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            release.countDown();
+            for (Future<Path> future : futures) {
+                assertEquals("xref of a.c", read(future.get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, count.get());
+    }
+
+    @Test
+    void testEviction(@TempDir Path dir) throws IOException {
+        XrefCache cache = new XrefCache(dir, 1);
+        Path a = get(cache, uid("/a.c"), out -> out.write("a"));
+        Path b = get(cache, uid("/b.c"), out -> out.write("b"));
+        // Only the most recently used entry is kept.
+        assertFalse(Files.exists(a));
+        assertTrue(Files.exists(b));
+        assertEquals(Files.size(b), cache.size());
+
+        cache = new XrefCache(dir, Files.size(b) * 2);
+        a = get(cache, uid("/a.c"), out -> out.write("a"));
+        get(cache, uid("/b.c"), out -> out.write("b"));
+        Path c = get(cache, uid("/c.c"), out -> out.write("c"));
+        assertFalse(Files.exists(a));
+        assertTrue(Files.exists(b));
+        assertTrue(Files.exists(c));
+    }
+
+    @Test
+    void testSetMaxSize(@TempDir Path dir) throws IOException {
+        XrefCache cache = new XrefCache(dir, 1024 * 1024);
+        Path a = get(cache, uid("/a.c"), out -> out.write("a"));
+        Path b = get(cache, uid("/b.c"), out -> out.write("b"));
+        assertEquals(Files.size(a) + Files.size(b), cache.size());
+
+        // The least recently used entry is evicted as soon as the limit is lowered.
+        cache.setMaxSize(Files.size(b));
+        assertFalse(Files.exists(a));
+        assertTrue(Files.exists(b));
+        assertEquals(Files.size(b), cache.size());
+    }
+
+    /**
+     * The file of an entry in use is deleted only after the entry is closed.
+     */
+    @Test
+    void testEvictionOfEntryInUse(@TempDir Path dir) throws IOException {
+        XrefCache cache = new XrefCache(dir, 1);
+        Path a;
+        try (XrefCache.Entry entry = cache.get(uid("/a.c"), out -> out.write("a"))) {
+            a = entry.getFile();
+            Path b = get(cache, uid("/b.c"), out -> out.write("b"));
+            assertTrue(Files.exists(a));
+            assertEquals("a", read(a));
+            assertEquals(Files.size(b), cache.size());
+        }
+        assertFalse(Files.exists(a));
+
+        // The entry produced again while the evicted one is in use is kept.
+        try (XrefCache.Entry entry = cache.get(uid("/a.c"), out -> out.write("a"))) {
+            try (XrefCache.Entry again = cache.get(uid("/b.c"), out -> out.write("b"))) {
+                assertEquals(Files.size(again.getFile()), cache.size());
+            }
+            Path c = get(cache, uid("/a.c"), out -> out.write("new a"));
+            assertEquals(entry.getFile(), c);
+            assertEquals("new a", read(c));
+        }
+        assertEquals("new a", read(a));
+    }
+
+    @Test
+    void testFailure(@TempDir Path dir) throws IOException {
+        XrefCache cache = new XrefCache(dir, 1024 * 1024);
+        assertThrows(IOException.class, () -> get(cache, uid("/a.c"), out -> {
+            throw new IOException("failed");
+        }));
+        assertEquals(0, cache.size());
+        assertEquals("a", read(get(cache, uid("/a.c"), out -> out.write("a"))));
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.web;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import jakarta.ws.rs.core.HttpHeaders;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.opengrok.indexer.index.PackedXrefStore;
+import org.opengrok.indexer.util.GzipSplicingOutputStream;
+import org.opengrok.indexer.web.XrefSourceTransformer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses the xref pages with gzip for the clients that accept it, so that the compressed xref files
+ * stored in the data root can be sent as they are, see {@link #spliceXref(HttpServletRequest, Writer, File, String)}.
+ * The xref files are then neither decompressed, transformed nor compressed again, only the rest of the page
+ * is compressed.
+ */
+public class GzipXrefFilter implements Filter {
+
+    private static final String GZIP = "gzip";
+    private static final String RESPONSE_ATTRIBUTE = GzipXrefFilter.class.getName() + ".response";
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (!(req instanceof HttpServletRequest request) || !(res instanceof HttpServletResponse response) ||
+                !acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            chain.doFilter(req, res);
+            return;
+        }
+
+        GzipResponse gzipResponse = new GzipResponse(response);
+        request.setAttribute(RESPONSE_ATTRIBUTE, gzipResponse);
+        chain.doFilter(request, gzipResponse);
+        gzipResponse.finish();
+    }
+
+    /**
+     * @param acceptEncoding value of the {@code Accept-Encoding} request header
+     * @return whether the value allows gzip content coding
+     */
+    @VisibleForTesting
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] params = coding.split(";");
+            if (!params[0].trim().toLowerCase(Locale.ROOT).equals(GZIP)) {
+                continue;
+            }
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim().replace(" ", "");
+                if (param.startsWith("q=") && param.substring(2).matches("0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Write the compressed xref file to the response without decompressing it, if possible.
+     * This is the case if the response is compressed by the filter, the xref file was written
+     * in the format allowing it (see {@link org.opengrok.indexer.util.SpliceableGzipOutputStream}),
+     * the links in the xref need no transformation for the context path and the xref was written
+     * in the same character encoding as the response.
+     * @param request request
+     * @param out page writer, it will be flushed
+     * @param xrefFile compressed xref file
+     * @param contextPath context path of the web application
+     * @return {@code true} if the xref was written, otherwise the caller needs to write it
+     * @throws IOException on error
+     */
+    public static boolean spliceXref(HttpServletRequest request, Writer out, File xrefFile, String contextPath)
+            throws IOException {
+        GzipResponse response = getSpliceableResponse(request, contextPath);
+        if (response == null) {
+            return false;
+        }
+
+        try (FileChannel channel = FileChannel.open(xrefFile.toPath(), StandardOpenOption.READ)) {
+            return response.splice(out, channel, 0, channel.size());
+        }
+    }
+
+    /**
+     * Write the packed xref to the response without decompressing it, if possible,
+     * see {@link #spliceXref(HttpServletRequest, Writer, File, String)}.
+     * @param request request
+     * @param out page writer, it will be flushed
+     * @param xref packed xref, it is not closed
+     * @param contextPath context path of the web application
+     * @return {@code true} if the xref was written, otherwise the caller needs to write it
+     * @throws IOException on error
+     */
+    public static boolean spliceXref(HttpServletRequest request, Writer out, PackedXrefStore.Xref xref,
+                                     String contextPath) throws IOException {
+        GzipResponse response = getSpliceableResponse(request, contextPath);
+        if (response == null) {
+            return false;
+        }
+
+        return response.splice(out, xref.getChannel(), xref.getPosition(), xref.getSize());
+    }
+
+    @Nullable
+    private static GzipResponse getSpliceableResponse(HttpServletRequest request, String contextPath) {
+        if (!(request.getAttribute(RESPONSE_ATTRIBUTE) instanceof GzipResponse response) ||
+                !XrefSourceTransformer.isDefaultContextPath(contextPath) || !response.isSpliceable()) {
+            return null;
+        }
+        return response;
+    }
+
+    /**
+     * Response compressing the output with gzip. Nothing is compressed (and the {@code Content-Encoding}
+     * header is not set) until some output is written, e.g. redirects are not affected.
+     */
+    private static final class GzipResponse extends HttpServletResponseWrapper {
+
+        private GzipServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        GzipResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (outputStream == null) {
+                outputStream = new GzipServletOutputStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (outputStream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                outputStream = new GzipServletOutputStream();
+                writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            // The length of the compressed content is not known.
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            // The length of the compressed content is not known.
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            } else if (outputStream != null) {
+                outputStream.flush();
+            }
+            super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            discard();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            discard();
+        }
+
+        /**
+         * Forget the output written so far, which was discarded from the buffer of the response.
+         */
+        private void discard() {
+            if (outputStream != null) {
+                outputStream.discarded = true;
+                outputStream = null;
+                writer = null;
+            }
+        }
+
+        boolean isSpliceable() {
+            return writer != null &&
+                    Charset.forName(getCharacterEncoding()).equals(Charset.defaultCharset());
+        }
+
+        boolean splice(Writer out, FileChannel channel, long position, long size) throws IOException {
+            out.flush();
+            writer.flush();
+            return outputStream.gzip.splice(channel, position, size);
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream != null) {
+                outputStream.gzip.finish();
+            }
+        }
+
+        private void setEncodingHeaders() {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        private final class GzipServletOutputStream extends ServletOutputStream {
+            private final ServletOutputStream out;
+            private final GzipSplicingOutputStream gzip;
+            private boolean discarded;
+
+            GzipServletOutputStream() throws IOException {
+                out = getResponse().getOutputStream();
+                gzip = new GzipSplicingOutputStream(out, Deflater.BEST_SPEED, GzipResponse.this::setEncodingHeaders);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                if (!discarded) {
+                    gzip.write(b);
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (!discarded) {
+                    gzip.write(b, off, len);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (!discarded) {
+                    gzip.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!discarded) {
+                    gzip.close();
+                }
+            }
+
+            @Override
+            public boolean isReady() {
+                return out.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                out.setWriteListener(writeListener);
+            }
+        }
+    }
+}
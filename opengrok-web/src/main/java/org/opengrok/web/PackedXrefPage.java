@@ -0,0 +1,168 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.jetbrains.annotations.Nullable;
+import org.opengrok.indexer.configuration.RuntimeEnvironment;
+import org.opengrok.indexer.index.PackedXrefStore;
+import org.opengrok.indexer.logger.LoggerFactory;
+import org.opengrok.indexer.web.Util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes the cross-references stored in the packed form (see {@link RuntimeEnvironment#isPackedXref()})
+ * of the file or directory displayed by the page. The cross-references of the source files modified
+ * after they were packed are ignored.
+ * <p>
+ * The cross-reference found by {@link #exists(String)} is kept open until it is written so that it is looked up
+ * only once and the indexer cannot replace it in the meantime. The cross-references that were not written are
+ * released by {@link #close()}.
+ * </p>
+ */
+public final class PackedXrefPage implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackedXrefPage.class);
+
+    private final HttpServletRequest req;
+    private final RuntimeEnvironment env;
+    private final String path;
+    private final Map<String, PackedXrefStore.Xref> found = new HashMap<>();
+
+    /**
+     * @param req page request
+     * @param env runtime environment
+     * @param path path of the displayed file or directory relative to source root
+     */
+    PackedXrefPage(HttpServletRequest req, RuntimeEnvironment env, String path) {
+        this.req = req;
+        this.env = env;
+        this.path = path;
+    }
+
+    /**
+     * @return {@code true} if the packed cross-reference of the displayed file exists
+     */
+    public boolean exists() {
+        return exists("");
+    }
+
+    /**
+     * @param filename file name relative to the displayed directory
+     * @return {@code true} if the packed cross-reference of the file exists
+     */
+    public boolean exists(String filename) {
+        String filePath = path + filename;
+        if (!found.containsKey(filePath)) {
+            found.put(filePath, open(filePath));
+        }
+        return found.get(filePath) != null;
+    }
+
+    /**
+     * Write the packed cross-reference of the displayed file to the page. The compressed data are sent
+     * as they are if possible, see
+     * {@link GzipXrefFilter#spliceXref(HttpServletRequest, Writer, PackedXrefStore.Xref, String)}.
+     *
+     * @param out page writer
+     * @return {@code false} if there is no packed cross-reference
+     * @throws IOException on error
+     */
+    public boolean write(Writer out) throws IOException {
+        PackedXrefStore.Xref xref = take(path);
+        if (xref == null) {
+            return false;
+        }
+        try (xref) {
+            String contextPath = req.getContextPath();
+            return GzipXrefFilter.spliceXref(req, out, xref, contextPath) ||
+                    Util.dumpXref(out, xref, contextPath, path);
+        }
+    }
+
+    /**
+     * Dump the packed cross-reference of a file in the displayed directory as it is, e.g. of the README files.
+     *
+     * @param out page writer
+     * @param filename file name relative to the displayed directory
+     * @return {@code false} if there is no packed cross-reference
+     * @throws IOException on error
+     */
+    public boolean dump(Writer out, String filename) throws IOException {
+        PackedXrefStore.Xref xref = take(path + filename);
+        if (xref == null) {
+            return false;
+        }
+        try (Reader in = new InputStreamReader(xref.newInputStream())) {
+            Util.dump(out, in);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        for (PackedXrefStore.Xref xref : found.values()) {
+            if (xref != null) {
+                try {
+                    xref.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "cannot close packed xref", e);
+                }
+            }
+        }
+        found.clear();
+    }
+
+    /**
+     * @return the cross-reference found by {@link #exists(String)} or a newly opened one if it was not looked up
+     */
+    @Nullable
+    private PackedXrefStore.Xref take(String filePath) {
+        if (found.containsKey(filePath)) {
+            return found.remove(filePath);
+        }
+        return open(filePath);
+    }
+
+    @Nullable
+    private PackedXrefStore.Xref open(String filePath) {
+        if (!env.isPackedXref()) {
+            return null;
+        }
+        try {
+            return PackedXrefStore.openCurrent(env.getDataRootFile(), env.getSourceRootFile(), filePath);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("cannot read packed xref of '%s'", filePath), e);
+            return null;
+        }
+    }
+}
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2011, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2011, Jens Elkner.
  * Portions Copyright (c) 2017, 2020, Chris Fraire <cfraire@me.com>.
  * Portions Copyright (c) 2023, Gino Augustine <gino.augustine@oracle.com>.
@@ -66,6 +66,7 @@ import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.ws.rs.core.HttpHeaders;
+import org.apache.lucene.queryparser.classic.ParseException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.VisibleForTesting;
@@ -97,6 +98,7 @@ import org.opengrok.indexer.web.QueryParameters;
 import org.opengrok.indexer.web.SearchHelper;
 import org.opengrok.indexer.web.SortOrder;
 import org.opengrok.indexer.web.Util;
+import org.opengrok.indexer.web.XrefCache;
 import org.opengrok.indexer.web.messages.MessagesContainer.AcceptedMessage;
 import org.suigeneris.jrcs.diff.Diff;
 import org.suigeneris.jrcs.diff.DifferentiationFailedException;
@@ -146,6 +148,8 @@ public class PageConfig {
     private File resourceFile;
     private String resourcePath;
     private EftarFileReader eftarReader;
+    private XrefCache.Entry cachedXref;
+    private PackedXrefPage packedXref;
     private String sourceRootPath;
     private Boolean isDir;
     private String uriEncodedPath;
@@ -1327,6 +1331,50 @@ public class PageConfig {
                 getPath(), env.isCompressXref());
     }
 
+    /**
+     * @return accessor of the cross-references stored in the packed form for {@link #getPath()},
+     * see {@link RuntimeEnvironment#isPackedXref()}. The cross-references it keeps open are released
+     * by {@link #cleanup(ServletRequest)}.
+     */
+    public PackedXrefPage getPackedXref() {
+        if (packedXref == null) {
+            packedXref = new PackedXrefPage(req, getEnv(), getPath());
+        }
+        return packedXref;
+    }
+
+    /**
+     * Get the cross-reference of {@link #getPath()} generated on demand and stored in the xref cache,
+     * see {@link RuntimeEnvironment#getXrefCache()}. This is meant for the files without stored cross-reference,
+     * e.g. when the indexer does not generate them. Only the indexed plain text files that were not modified
+     * since the indexing are served from the cache, so that the definitions from the index match.
+     * The file is not evicted from the cache before {@link #cleanup(ServletRequest)}.
+     *
+     * @return the compressed cross-reference or {@code null} if it is not available
+     */
+    @Nullable
+    public File findCachedXref() {
+        XrefCache cache = getEnv().getXrefCache();
+        if (cache == null || getResourceFile().isDirectory()) {
+            return null;
+        }
+        File file = getResourceFile();
+        try {
+            XrefCache.Entry xref = cache.get(file, getProject());
+            if (xref == null) {
+                return null;
+            }
+            if (cachedXref != null) {
+                cachedXref.close();
+            }
+            cachedXref = xref;
+            return xref.getFile().toFile();
+        } catch (IOException | ParseException | ClassNotFoundException e) {
+            LOGGER.log(Level.WARNING, String.format("cannot get cached xref of '%s'", file), e);
+            return null;
+        }
+    }
+
     /**
      * Is revision the latest revision ?
      * @param rev revision string
@@ -1646,6 +1694,12 @@ public class PageConfig {
         if (cfg.eftarReader != null) {
             cfg.eftarReader.close();
         }
+        if (cfg.cachedXref != null) {
+            cfg.cachedXref.close();
+        }
+        if (cfg.packedXref != null) {
+            cfg.packedXref.close();
+        }
     }
 
     /**
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2007, 2024, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2007, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2018, 2019, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.web;
@@ -178,6 +178,7 @@ public final class WebappListener implements ServletContextListener, ServletRequ
             env.shutdownRevisionExecutor();
             env.shutdownSearchExecutor();
             env.shutdownDirectoryListingExecutor();
+            env.shutdownResultsRenderingExecutor();
         } catch (InterruptedException e) {
             LOGGER.log(Level.WARNING, "Could not shutdown revision executor", e);
         }
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2018, 2025, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.web.api.v1.controller;
@@ -237,7 +237,8 @@ public class ProjectsController {
         LOGGER.log(Level.INFO, "deleting data for project ''{0}''", projectName);
 
         // Delete index and xrefs.
-        for (String dirName: new String[]{IndexDatabase.INDEX_DIR, IndexDatabase.XREF_DIR}) {
+        for (String dirName: new String[]{IndexDatabase.INDEX_DIR, IndexDatabase.XREF_DIR,
+                IndexDatabase.XREF_PACK_DIR}) {
             java.nio.file.Path path = Paths.get(env.getDataRootPath(), dirName, projectName);
             try {
                 IOUtils.removeRecursive(path);
@@ -25,6 +25,7 @@ package org.opengrok.web.api.v1.controller;
 
 import jakarta.inject.Inject;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
@@ -53,6 +54,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Path(SearchController.PATH)
@@ -60,8 +62,16 @@ public class SearchController {
 
     public static final String PATH = "search";
 
+    public static final String SEARCH_ID_PARAM = "searchId";
+
     private static final String DEFAULT_SORT_ORDER = "relevancy";
 
+    /**
+     * Searches in progress that were started with the {@link #SEARCH_ID_PARAM} parameter so that they can be
+     * cancelled by {@link #cancel(String)}.
+     */
+    private static final Map<String, SearchEngine> runningSearches = new ConcurrentHashMap<>();
+
     private final SuggesterService suggester;
 
     @Inject
@@ -85,7 +95,8 @@ public class SearchController {
             @QueryParam(QueryParameters.MAXRESULTS_PARAM) final Integer maxResultsParam,
             @QueryParam(QueryParameters.START_PARAM) @DefaultValue(0 + "") final int startDocIndex,
             @QueryParam(QueryParameters.SORT_PARAM) @DefaultValue(DEFAULT_SORT_ORDER) final String sort,
-            @QueryParam(QueryParameters.MAXHITSPERFILE_PARAM) @DefaultValue("0") final int maxHitsPerFile
+            @QueryParam(QueryParameters.MAXHITSPERFILE_PARAM) @DefaultValue("0") final int maxHitsPerFile,
+            @QueryParam(SEARCH_ID_PARAM) final String searchId
     ) {
         if ((maxResultsParam != null && maxResultsParam < 0) || startDocIndex < 0 || maxHitsPerFile < 0) {
             throw new WebApplicationException("Negative integer parameters are not allowed",
@@ -119,8 +130,20 @@ public class SearchController {
 
             suggester.onSearch(projects, engine.getQuery());
 
-            Map<String, List<SearchHit>> hits = engine.search(req, projects, startDocIndex, maxResults)
-                    .stream()
+            if (searchId != null && runningSearches.putIfAbsent(searchId, engine.engine) != null) {
+                throw new WebApplicationException("Search with the same identifier is already running",
+                        Response.Status.CONFLICT);
+            }
+            List<Hit> results;
+            try {
+                results = engine.search(req, projects, startDocIndex, maxResults);
+            } finally {
+                if (searchId != null) {
+                    runningSearches.remove(searchId, engine.engine);
+                }
+            }
+
+            Map<String, List<SearchHit>> hits = results.stream()
                     .collect(Collectors.groupingBy(Hit::getPath,
                             LinkedHashMap::new,
                             Collectors.mapping(h -> new SearchHit(h.getLine(), h.getLineno(), h.getTag()),
@@ -131,8 +154,32 @@ public class SearchController {
             int pageSize = Math.clamp(engine.numResults - startDocIndex, 0, maxResults);
             int endDocument = pageSize > 0 ? startDocIndex + pageSize - 1 : startDocIndex;
 
-            return new SearchResult(duration, engine.numResults, hits, startDocIndex, endDocument);
+            return new SearchResult(duration, engine.numResults, hits, startDocIndex, endDocument,
+                    engine.partialResult);
+        }
+    }
+
+    /**
+     * Stop the search started with the {@link #SEARCH_ID_PARAM} parameter. The search then returns the results
+     * found so far, marked as partial. Unlike the search itself, this requires the authentication token
+     * so that the searches of other clients cannot be stopped, see
+     * {@link org.opengrok.web.api.v1.filter.IncomingFilter}.
+     * @param searchId identifier of the search
+     * @return response with status code 204 if the search was cancelled, 404 if no such search is running
+     */
+    @DELETE
+    @CorsEnable
+    public Response cancel(@QueryParam(SEARCH_ID_PARAM) final String searchId) {
+        if (searchId == null) {
+            throw new WebApplicationException("Search identifier has to be specified", Response.Status.BAD_REQUEST);
+        }
+
+        SearchEngine engine = runningSearches.get(searchId);
+        if (engine == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
         }
+        engine.cancel();
+        return Response.noContent().build();
     }
 
     private static class SearchEngineWrapper implements AutoCloseable {
@@ -141,6 +188,8 @@ public class SearchController {
 
         private int numResults;
 
+        private boolean partialResult;
+
         private SearchEngineWrapper(
                 final String full,
                 final String def,
@@ -179,6 +228,7 @@ public class SearchController {
                         .collect(Collectors.toList()));
             }
             numResults = engine.getTotalHits();
+            partialResult = engine.isPartialResults();
 
             if (startDocIndex >= collected) {
                 return Collections.emptyList();
@@ -214,7 +264,8 @@ public class SearchController {
             int resultCount,
             Map<String, List<SearchHit>> results,
             int startDocument,
-            int endDocument
+            int endDocument,
+            boolean partialResult
     ) {
     }
 
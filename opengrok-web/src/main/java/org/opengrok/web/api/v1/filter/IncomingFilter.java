@@ -24,6 +24,7 @@ package org.opengrok.web.api.v1.filter;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.HttpMethod;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
 import jakarta.ws.rs.container.PreMatching;
@@ -60,9 +61,10 @@ public class IncomingFilter implements ContainerRequestFilter, ConfigurationChan
     private static final Logger LOGGER = LoggerFactory.getLogger(IncomingFilter.class);
 
     /**
-     * Endpoint paths that are exempted from this filter.
+     * Endpoint paths that are exempted from this filter. The exemption does not apply to the {@code DELETE}
+     * requests, e.g. {@link SearchController#cancel(String)} of a search started by another client.
      * @see SearchController#search(HttpServletRequest, String, String, String, String, String, String,
-     * java.util.List, int, int, String, int)
+     * java.util.List, int, int, String, int, String)
      * @see SuggesterController#getSuggestions(org.opengrok.web.api.v1.suggester.model.SuggesterQueryData)
      * @see SuggesterController#getConfig()
      */
@@ -123,7 +125,7 @@ public class IncomingFilter implements ContainerRequestFilter, ConfigurationChan
             }
         }
 
-        if (allowedPaths.contains(path)) {
+        if (allowedPaths.contains(path) && !HttpMethod.DELETE.equals(context.getMethod())) {
             LOGGER.log(Level.FINEST, "allowing request to {0} based on allow listed path", path);
             return;
         }
@@ -16,7 +16,7 @@ information: Portions Copyright [yyyy] [name of copyright owner]
 
 CDDL HEADER END
 
-Copyright (c) 2005, 2025, Oracle and/or its affiliates. All rights reserved.
+Copyright (c) 2005, 2026, Oracle and/or its affiliates. All rights reserved.
 Portions Copyright 2011 Jens Elkner.
 Portions Copyright (c) 2017-2020, Chris Fraire <cfraire@me.com>.
 
@@ -42,7 +42,8 @@ org.opengrok.indexer.index.IndexDatabase,
 org.opengrok.indexer.search.DirectoryEntry,
 org.opengrok.indexer.util.FileExtraZipper,
 org.opengrok.indexer.util.IOUtils,
-org.opengrok.web.DirectoryListing"
+org.opengrok.web.DirectoryListing,
+org.opengrok.web.GzipXrefFilter"
 %>
 <%@ page import="static org.opengrok.web.PageConfig.DUMMY_REVISION" %>
 <%@ page import="static org.opengrok.indexer.history.LatestRevisionUtil.getLatestRevision" %>
@@ -177,7 +178,7 @@ document.pageReady.push(function() { pageReadyList();});
 
             File[] catfiles = cfg.findDataFiles(readMes);
             for (int i = 0; i < catfiles.length; i++) {
-                if (catfiles[i] == null) {
+                if (catfiles[i] == null && !cfg.getPackedXref().exists(readMes.get(i))) {
                     continue;
                 }
 %>
@@ -192,14 +193,22 @@ document.pageReady.push(function() { pageReadyList();});
              data-markdown-download="<%= request.getContextPath() + Prefix.DOWNLOAD_P + Util.uriEncodePath(cfg.getPath() + readMes.get(i)) %>">
         </div>
         <pre data-markdown-original><%
-            Util.dump(out, catfiles[i], catfiles[i].getName().endsWith(".gz"));
+            if (catfiles[i] == null) {
+                cfg.getPackedXref().dump(out, readMes.get(i));
+            } else {
+                Util.dump(out, catfiles[i], catfiles[i].getName().endsWith(".gz"));
+            }
         %></pre>
     </div>
 <% } else { %>
     <h3><%= readMes.get(i) %></h3>
     <div id="src<%=i%>">
         <pre><%
-            Util.dump(out, catfiles[i], catfiles[i].getName().endsWith(".gz"));
+            if (catfiles[i] == null) {
+                cfg.getPackedXref().dump(out, readMes.get(i));
+            } else {
+                Util.dump(out, catfiles[i], catfiles[i].getName().endsWith(".gz"));
+            }
         %></pre>
     </div>
 <%
@@ -211,8 +220,18 @@ document.pageReady.push(function() { pageReadyList();});
         statistics.report(LOGGER, Level.FINE, "directory listing done", "dir.list.latency");
     } else if (!rev.isEmpty()) {
         // requesting a revision
-        File xrefFile;
-        if (cfg.isLatestRevision(rev) && (xrefFile = cfg.findDataFile()) != null) {
+        boolean latest = cfg.isLatestRevision(rev);
+        File xrefFile = null;
+        boolean packed = false;
+        if (latest) {
+            xrefFile = cfg.findDataFile();
+            packed = xrefFile == null && cfg.getPackedXref().exists();
+        }
+        if (xrefFile == null && !packed && (latest || rev.equals(DUMMY_REVISION)) && !cfg.annotate()) {
+            // economy mode, try the xref generated on demand
+            xrefFile = cfg.findCachedXref();
+        }
+        if (xrefFile != null || packed) {
             if (cfg.annotate()) {
                 // annotate
                 BufferedInputStream bin = new BufferedInputStream(new FileInputStream(resourceFile));
@@ -270,9 +289,16 @@ Click <a href="<%= rawPath %>">download <%= basename %></a><%
 %>
 <div id="src" data-navigate-window-enabled="<%= navigateWindowEnabled %>">
     <pre><%
-                    boolean compressed = xrefFile.getName().endsWith(".gz");
-                    Util.dumpXref(out, xrefFile, compressed,
-                            request.getContextPath());
+                    if (xrefFile == null) {
+                        cfg.getPackedXref().write(out);
+                    } else {
+                        boolean compressed = xrefFile.getName().endsWith(".gz");
+                        if (!compressed || !GzipXrefFilter.spliceXref(request, out, xrefFile,
+                                request.getContextPath())) {
+                            Util.dumpXref(out, xrefFile, compressed,
+                                    request.getContextPath());
+                        }
+                    }
     %></pre>
 </div>
 <%
@@ -289,12 +315,22 @@ include file="/xref.jspf"
     } else {
         // Requesting cross-referenced file with no known revision.
         File xrefFile = cfg.findDataFile();
-        if (xrefFile != null) {
+        boolean packed = xrefFile == null && cfg.getPackedXref().exists();
+        if (xrefFile == null && !packed) {
+            xrefFile = cfg.findCachedXref();
+        }
+        if (xrefFile != null || packed) {
 %>
 <div id="src" data-navigate-window-enabled="<%= navigateWindowEnabled %>">
     <pre><%
-            boolean compressed = xrefFile.getName().endsWith(".gz");
-            Util.dumpXref(out, xrefFile, compressed, request.getContextPath());
+            if (xrefFile == null) {
+                cfg.getPackedXref().write(out);
+            } else {
+                boolean compressed = xrefFile.getName().endsWith(".gz");
+                if (!compressed || !GzipXrefFilter.spliceXref(request, out, xrefFile, request.getContextPath())) {
+                    Util.dumpXref(out, xrefFile, compressed, request.getContextPath());
+                }
+            }
     %></pre>
 </div>
 <%
@@ -16,7 +16,7 @@ information: Portions Copyright [yyyy] [name of copyright owner]
 
 CDDL HEADER END
 
-Copyright (c) 2005, 2022, Oracle and/or its affiliates. All rights reserved.
+Copyright (c) 2005, 2026, Oracle and/or its affiliates. All rights reserved.
 Portions Copyright 2011 Jens Elkner.
 Portions Copyright (c) 2017-2018, 2020, Chris Fraire <cfraire@me.com>.
 
@@ -219,6 +219,10 @@ include file="/menu.jspf"
             %></span> (Results <span class="bold"> <%= start + 1 %> – <%= thispage + start
             %></span> of <span class="bold"><%= totalHits %></span>) sorted by <%=
             searchHelper.getOrder().getDesc() %></p><%
+        if (searchHelper.isPartialResults()) {
+        %>
+        <p class="pagetitle">The search did not finish in time, the results are incomplete.</p><%
+        }
         if (slider.length() > 0) {
         %>
         <p class="slider"><%= slider %></p><%
@@ -0,0 +1,165 @@
+/*
+ * CDDL HEADER START
+ *
+ * The contents of this file are subject to the terms of the
+ * Common Development and Distribution License (the "License").
+ * You may not use this file except in compliance with the License.
+ *
+ * See LICENSE.txt included in this distribution for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing Covered Code, include this CDDL HEADER in each
+ * file and include the License file at LICENSE.txt.
+ * If applicable, add the following below this CDDL HEADER, with the
+ * fields enclosed by brackets "[]" replaced with your own identifying
+ * information: Portions Copyright [yyyy] [name of copyright owner]
+ *
+ * CDDL HEADER END
+ */
+
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ */
+package org.opengrok.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.core.HttpHeaders;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.opengrok.indexer.util.SpliceableGzipOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GzipXrefFilterTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', nullValues = "null", value = {
+            "gzip|true",
+            "gzip, deflate, br|true",
+            "deflate, GZIP;q=0.5|true",
+            "gzip;q=0|false",
+            "gzip; q=0.000|false",
+            "deflate, br|false",
+            "x-gzip2|false",
+            "null|false"
+    })
+    void testAcceptsGzip(String acceptEncoding, boolean expected) {
+        assertEquals(expected, GzipXrefFilter.acceptsGzip(acceptEncoding));
+    }
+
+    private static HttpServletRequest createRequest(String acceptEncoding) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn(acceptEncoding);
+        Map<String, Object> attributes = new HashMap<>();
+        doAnswer(invocation -> attributes.put(invocation.getArgument(0), invocation.getArgument(1))).
+                when(request).setAttribute(anyString(), any());
+        when(request.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.getArgument(0)));
+        return request;
+    }
+
+    private static HttpServletResponse createResponse(ByteArrayOutputStream bytes) throws Exception {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getCharacterEncoding()).thenReturn(Charset.defaultCharset().name());
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                bytes.write(b);
+            }
+        });
+        return response;
+    }
+
+    @Test
+    void testSpliceXref() throws Exception {
+        File xrefFile = tempDir.resolve("xref.gz").toFile();
+        try (OutputStream out = new SpliceableGzipOutputStream(new FileOutputStream(xrefFile))) {
+            out.write("<a href=\"/source/xref/foo\">foo</a>".getBytes(Charset.defaultCharset()));
+        }
+
+        HttpServletRequest request = createRequest("gzip, deflate");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HttpServletResponse response = createResponse(bytes);
+        boolean[] spliced = new boolean[1];
+        FilterChain chain = (req, res) -> {
+            PrintWriter out = res.getWriter();
+            out.write("<pre>");
+            spliced[0] = GzipXrefFilter.spliceXref((HttpServletRequest) req, out, xrefFile, "/source");
+            out.write("</pre>");
+        };
+
+        new GzipXrefFilter().doFilter(request, response, chain);
+
+        assertTrue(spliced[0]);
+        verify(response).setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals("<pre><a href=\"/source/xref/foo\">foo</a></pre>",
+                    new String(in.readAllBytes(), Charset.defaultCharset()));
+        }
+    }
+
+    @Test
+    void testNoOutput() throws Exception {
+        HttpServletRequest request = createRequest("gzip");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HttpServletResponse response = createResponse(bytes);
+
+        new GzipXrefFilter().doFilter(request, response, (req, res) -> ((HttpServletResponse) res).sendRedirect("/"));
+
+        verify(response, never()).setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        assertEquals(0, bytes.size());
+    }
+
+    @Test
+    void testSetWriteListener() throws Exception {
+        HttpServletRequest request = createRequest("gzip");
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getCharacterEncoding()).thenReturn(Charset.defaultCharset().name());
+        ServletOutputStream out = mock(ServletOutputStream.class);
+        when(response.getOutputStream()).thenReturn(out);
+        WriteListener listener = mock(WriteListener.class);
+
+        new GzipXrefFilter().doFilter(request, response,
+                (req, res) -> res.getOutputStream().setWriteListener(listener));
+
+        verify(out).setWriteListener(listener);
+    }
+}
@@ -18,7 +18,7 @@
  */
 
 /*
- * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2021, 2026, Oracle and/or its affiliates. All rights reserved.
  * Portions Copyright (c) 2020, Chris Fraire <cfraire@me.com>.
  */
 package org.opengrok.web.api.v1.controller;
@@ -122,6 +122,32 @@ class SearchControllerTest extends OGKJerseyTest {
         assertFalse(results.isEmpty());
     }
 
+    @Test
+    void testCancelUnknownSearch() {
+        Response response = target(SearchController.PATH)
+                .queryParam(SearchController.SEARCH_ID_PARAM, "nonexistent")
+                .request()
+                .delete();
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+    }
+
+    @Test
+    void testSearchWithIdentifier() {
+        Response response = target(SearchController.PATH)
+                .queryParam(QueryParameters.FULL_SEARCH_PARAM, "dump")
+                .queryParam(SearchController.SEARCH_ID_PARAM, "test")
+                .request()
+                .get();
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+
+        // The search is no longer running so it cannot be cancelled.
+        response = target(SearchController.PATH)
+                .queryParam(SearchController.SEARCH_ID_PARAM, "test")
+                .request()
+                .delete();
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+    }
+
     @Test
     void testSearchResultsPreserveHitOrder() {
         // Results presented by the search API must be stable w.r.t. file ordering across
@@ -23,6 +23,7 @@
 package org.opengrok.web.api.v1.filter;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.HttpMethod;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
@@ -34,6 +35,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
 import org.opengrok.indexer.configuration.CommandTimeoutType;
 import org.opengrok.indexer.configuration.RuntimeEnvironment;
+import org.opengrok.web.api.v1.controller.SearchController;
 import org.opengrok.web.api.v1.controller.SystemController;
 
 import java.lang.reflect.Field;
@@ -257,6 +259,22 @@ class IncomingFilterTest {
         assertFilterDoesNotBlockAddress("10.0.0.1", "search");
     }
 
+    @Test
+    void searchCancelWithoutTokenTest() throws Exception {
+        IncomingFilter filter = mockWithRemoteAddress("10.0.0.1");
+
+        ContainerRequestContext context = mockContainerRequestContext(SearchController.PATH);
+        when(context.getMethod()).thenReturn(HttpMethod.DELETE);
+
+        ArgumentCaptor<Response> captor = ArgumentCaptor.forClass(Response.class);
+
+        filter.filter(context);
+
+        verify(context).abortWith(captor.capture());
+
+        assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), captor.getValue().getStatus());
+    }
+
     @Test
     void systemPingRemoteWithoutTokenTest() throws Exception {
         assertFilterDoesNotBlockAddress("10.0.0.1", "system/ping");